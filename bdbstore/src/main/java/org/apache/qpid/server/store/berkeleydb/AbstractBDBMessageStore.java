@@ -1578,7 +1578,45 @@ public abstract class AbstractBDBMessageStore implements MessageStore
 
         }
 
+        @Override
+        public long getLastMessageId(final TransactionLogResource queue) throws StoreException
+        {
+            checkMessageStoreOpen();
 
+            Cursor cursor = null;
+            try
+            {
+                cursor = getDeliveryDb().openCursor(null, null);
+                DatabaseEntry key = new DatabaseEntry();
+                DatabaseEntry value = new DatabaseEntry();
+                value.setPartial(0, 0, true);
+
+                // the entries of the queue precede the key of its highest possible message id
+                QueueEntryBinding keyBinding = QueueEntryBinding.getInstance();
+                keyBinding.objectToEntry(new QueueEntryKey(queue.getId(), Long.MAX_VALUE), key);
+                OperationStatus status = cursor.getSearchKeyRange(key, value, LockMode.READ_UNCOMMITTED)
+                                         == OperationStatus.SUCCESS
+                        ? cursor.getPrev(key, value, LockMode.READ_UNCOMMITTED)
+                        : cursor.getLast(key, value, LockMode.READ_UNCOMMITTED);
+                if (status == OperationStatus.SUCCESS)
+                {
+                    QueueEntryKey entry = keyBinding.entryToObject(key);
+                    if (entry.getQueueId().equals(queue.getId()))
+                    {
+                        return entry.getMessageId();
+                    }
+                }
+                return -1L;
+            }
+            catch (RuntimeException e)
+            {
+                throw getEnvironmentFacade().handleDatabaseException("Cannot find last message instance", e);
+            }
+            finally
+            {
+                closeCursorSafely(cursor, getEnvironmentFacade());
+            }
+        }
 
         @Override
         public void visitMessageInstances(final MessageInstanceHandler handler) throws StoreException
@@ -549,6 +549,18 @@ public abstract class AbstractExchange<T extends AbstractExchange<T>>
         return _droppedMessageSize.get();
     }
 
+    @Override
+    public long getRoutingCacheHits()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getRoutingCacheMisses()
+    {
+        return 0L;
+    }
+
     @Override
     public boolean addBinding(final String bindingKey, final Queue<?> queue, final Map<String, Object> arguments)
     {
@@ -0,0 +1,308 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.model.Binding;
+
+/**
+ * Inverted index of header bindings, keyed on header name and on header name and value.
+ * <p>
+ * A binding which matches <i>any</i> of its headers is indexed under each of them, while a binding which must
+ * match <i>all</i> of its headers is indexed under only one of them, preferring one with a required value.
+ * Bindings without any header requirements match every message.  The candidates for a message are thus found
+ * from the headers the message carries, and each candidate must still be checked with
+ * {@link HeadersBinding#matches(org.apache.qpid.server.filter.Filterable)}.
+ * <p>
+ * Candidates are returned in the order in which their bindings were first added.  The index is copied on write, so
+ * that a binding being replaced is seen either before or after its replacement, and never missing.
+ */
+class HeadersBindingIndex
+{
+    private volatile Index _index = new Index();
+    private long _nextSequence;
+
+    /**
+     * Adds the header binding to the index, replacing any existing header binding for the same binding.
+     */
+    synchronized void add(HeadersBinding headersBinding)
+    {
+        Index index = new Index(_index);
+        IndexEntry previous = index._entries.get(headersBinding.getBinding());
+        long sequence;
+        if(previous != null)
+        {
+            index.unindex(previous);
+            sequence = previous._sequence;
+        }
+        else
+        {
+            sequence = _nextSequence++;
+        }
+        index.index(new IndexEntry(headersBinding, sequence));
+        _index = index;
+    }
+
+    synchronized boolean remove(Binding<?> binding)
+    {
+        IndexEntry entry = _index._entries.get(binding);
+        if(entry != null)
+        {
+            Index index = new Index(_index);
+            index.unindex(entry);
+            _index = index;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the header bindings which may match a message with the given headers.
+     */
+    Collection<HeadersBinding> getCandidates(AMQMessageHeader headers)
+    {
+        Index index = _index;
+        Collection<String> headerNames = headers == null ? null : headers.getHeaderNames();
+        if(headerNames == null || headerNames.isEmpty())
+        {
+            return index._unconditionalBindings;
+        }
+
+        Set<IndexEntry> candidates = new TreeSet<>(index._unconditional);
+        for(String header : headerNames)
+        {
+            List<IndexEntry> entries = index._byHeader.get(header);
+            if(entries != null)
+            {
+                candidates.addAll(entries);
+            }
+
+            Map<Object, List<IndexEntry>> entriesByValue = index._byHeaderValue.get(header);
+            if(entriesByValue != null)
+            {
+                Object value = headers.getHeader(header);
+                entries = value == null ? null : entriesByValue.get(value);
+                if(entries != null)
+                {
+                    candidates.addAll(entries);
+                }
+            }
+        }
+
+        List<HeadersBinding> bindings = new ArrayList<>(candidates.size());
+        for(IndexEntry entry : candidates)
+        {
+            bindings.add(entry._headersBinding);
+        }
+        return bindings;
+    }
+
+    private static final class IndexEntry implements Comparable<IndexEntry>
+    {
+        private final HeadersBinding _headersBinding;
+        private final long _sequence;
+
+        private IndexEntry(final HeadersBinding headersBinding, final long sequence)
+        {
+            _headersBinding = headersBinding;
+            _sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final IndexEntry other)
+        {
+            return Long.compare(_sequence, other._sequence);
+        }
+    }
+
+    /**
+     * A version of the index.  A version is only modified before it is published, and each modification replaces
+     * the lists and maps it changes rather than changing those shared with the previous version.
+     */
+    private static final class Index
+    {
+        private final Map<Binding<?>, IndexEntry> _entries;
+        private final Map<String, List<IndexEntry>> _byHeader;
+        private final Map<String, Map<Object, List<IndexEntry>>> _byHeaderValue;
+        private List<IndexEntry> _unconditional;
+        private List<HeadersBinding> _unconditionalBindings;
+
+        private Index()
+        {
+            _entries = new HashMap<>();
+            _byHeader = new HashMap<>();
+            _byHeaderValue = new HashMap<>();
+            _unconditional = Collections.emptyList();
+            _unconditionalBindings = Collections.emptyList();
+        }
+
+        private Index(final Index index)
+        {
+            _entries = new HashMap<>(index._entries);
+            _byHeader = new HashMap<>(index._byHeader);
+            _byHeaderValue = new HashMap<>(index._byHeaderValue);
+            _unconditional = index._unconditional;
+            _unconditionalBindings = index._unconditionalBindings;
+        }
+
+        private void index(IndexEntry entry)
+        {
+            HeadersBinding headersBinding = entry._headersBinding;
+            _entries.put(headersBinding.getBinding(), entry);
+
+            Set<String> requiredHeaders = headersBinding.getRequiredHeaders();
+            Map<String, Object> requiredValues = headersBinding.getRequiredValues();
+            if(requiredHeaders.isEmpty() && requiredValues.isEmpty())
+            {
+                setUnconditional(with(_unconditional, entry));
+            }
+            else if(headersBinding.isMatchAny())
+            {
+                for(String header : requiredHeaders)
+                {
+                    indexByHeader(header, entry);
+                }
+                for(Map.Entry<String, Object> requiredValue : requiredValues.entrySet())
+                {
+                    indexByHeaderValue(requiredValue.getKey(), requiredValue.getValue(), entry);
+                }
+            }
+            else if(!requiredValues.isEmpty())
+            {
+                Map.Entry<String, Object> requiredValue = requiredValues.entrySet().iterator().next();
+                indexByHeaderValue(requiredValue.getKey(), requiredValue.getValue(), entry);
+            }
+            else
+            {
+                indexByHeader(requiredHeaders.iterator().next(), entry);
+            }
+        }
+
+        private void unindex(IndexEntry entry)
+        {
+            HeadersBinding headersBinding = entry._headersBinding;
+            _entries.remove(headersBinding.getBinding());
+
+            if(_unconditional.contains(entry))
+            {
+                setUnconditional(without(_unconditional, entry));
+            }
+            for(String header : headersBinding.getRequiredHeaders())
+            {
+                List<IndexEntry> entries = _byHeader.get(header);
+                if(entries != null && entries.contains(entry))
+                {
+                    entries = without(entries, entry);
+                    if(entries.isEmpty())
+                    {
+                        _byHeader.remove(header);
+                    }
+                    else
+                    {
+                        _byHeader.put(header, entries);
+                    }
+                }
+            }
+            for(Map.Entry<String, Object> requiredValue : headersBinding.getRequiredValues().entrySet())
+            {
+                String header = requiredValue.getKey();
+                Object value = requiredValue.getValue();
+                Map<Object, List<IndexEntry>> entriesByValue = _byHeaderValue.get(header);
+                List<IndexEntry> entries = entriesByValue == null ? null : entriesByValue.get(value);
+                if(entries != null && entries.contains(entry))
+                {
+                    entries = without(entries, entry);
+                    entriesByValue = new HashMap<>(entriesByValue);
+                    if(entries.isEmpty())
+                    {
+                        entriesByValue.remove(value);
+                    }
+                    else
+                    {
+                        entriesByValue.put(value, entries);
+                    }
+
+                    if(entriesByValue.isEmpty())
+                    {
+                        _byHeaderValue.remove(header);
+                    }
+                    else
+                    {
+                        _byHeaderValue.put(header, entriesByValue);
+                    }
+                }
+            }
+        }
+
+        private void indexByHeader(String header, IndexEntry entry)
+        {
+            _byHeader.put(header, with(_byHeader.get(header), entry));
+        }
+
+        private void indexByHeaderValue(String header, Object value, IndexEntry entry)
+        {
+            Map<Object, List<IndexEntry>> entriesByValue = _byHeaderValue.get(header);
+            entriesByValue = entriesByValue == null
+                    ? new HashMap<Object, List<IndexEntry>>()
+                    : new HashMap<>(entriesByValue);
+            entriesByValue.put(value, with(entriesByValue.get(value), entry));
+            _byHeaderValue.put(header, entriesByValue);
+        }
+
+        private void setUnconditional(List<IndexEntry> unconditional)
+        {
+            List<HeadersBinding> unconditionalBindings = new ArrayList<>(unconditional.size());
+            for(IndexEntry entry : unconditional)
+            {
+                unconditionalBindings.add(entry._headersBinding);
+            }
+            _unconditional = unconditional;
+            _unconditionalBindings = Collections.unmodifiableList(unconditionalBindings);
+        }
+
+        /**
+         * Returns a copy of the list, which is ordered by sequence, with the entry inserted in order.
+         */
+        private static List<IndexEntry> with(List<IndexEntry> entries, IndexEntry entry)
+        {
+            List<IndexEntry> copy = entries == null ? new ArrayList<IndexEntry>(1) : new ArrayList<>(entries);
+            int position = Collections.binarySearch(copy, entry);
+            copy.add(position < 0 ? -(position + 1) : position, entry);
+            return copy;
+        }
+
+        private static List<IndexEntry> without(List<IndexEntry> entries, IndexEntry entry)
+        {
+            List<IndexEntry> copy = new ArrayList<>(entries);
+            copy.remove(entry);
+            return copy;
+        }
+    }
+}
@@ -23,7 +23,6 @@ package org.apache.qpid.server.exchange;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -37,6 +36,7 @@ import org.apache.qpid.server.exchange.topic.TopicExchangeResult;
 import org.apache.qpid.server.exchange.topic.TopicMatcherResult;
 import org.apache.qpid.server.exchange.topic.TopicNormalizer;
 import org.apache.qpid.server.exchange.topic.TopicParser;
+import org.apache.qpid.server.exchange.topic.TopicRoutingCache;
 import org.apache.qpid.server.filter.AMQInvalidArgumentException;
 import org.apache.qpid.server.filter.FilterSupport;
 import org.apache.qpid.server.filter.Filterable;
@@ -56,20 +56,35 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
     private static final Logger _logger = LoggerFactory.getLogger(TopicExchange.class);
 
     private final TopicParser _parser = new TopicParser();
+    private final TopicRoutingCache _routingCache;
 
     private final Map<String, TopicExchangeResult> _topicExchangeResults =
             new ConcurrentHashMap<String, TopicExchangeResult>();
 
-    private final Map<Binding<?>, Map<String,Object>> _bindings = new HashMap<>();
+    private final Map<Binding<?>, Map<String,Object>> _bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Changes to the bindings for a given (normalized) binding key are serialised on one of these locks, allowing
+     * bindings with different keys to be changed concurrently.
+     */
+    private final Object[] _bindingKeyLocks = new Object[64];
+    {
+        for(int i = 0; i < _bindingKeyLocks.length; i++)
+        {
+            _bindingKeyLocks[i] = new Object();
+        }
+    }
 
     @ManagedObjectFactoryConstructor
     public TopicExchange(final Map<String,Object> attributes, final VirtualHost<?> vhost)
     {
         super(attributes, vhost);
+        int routingCacheSize = getContextValue(Integer.class, TOPIC_ROUTING_CACHE_SIZE);
+        _routingCache = routingCacheSize > 0 ? new TopicRoutingCache(_parser, routingCacheSize) : null;
     }
 
     @Override
-    protected synchronized void onBindingUpdated(final Binding<?> binding, final Map<String, Object> oldArguments)
+    protected void onBindingUpdated(final Binding<?> binding, final Map<String, Object> oldArguments)
     {
         final String bindingKey = binding.getBindingKey();
         Queue<?> queue = binding.getQueue();
@@ -83,13 +98,22 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
         String routingKey = TopicNormalizer.normalize(bindingKey);
 
+        synchronized (getBindingKeyLock(routingKey))
+        {
+            updateBinding(binding, routingKey, args);
+        }
+    }
+
+    private void updateBinding(final Binding<?> binding, final String routingKey, final Map<String, Object> args)
+    {
+        Queue<?> queue = binding.getQueue();
         try
         {
 
             if (_bindings.containsKey(binding))
             {
                 Map<String, Object> oldArgs = _bindings.get(binding);
-                _bindings.put(binding, args);
+                _bindings.put(binding, nonNullArguments(args));
                 TopicExchangeResult result = _topicExchangeResults.get(routingKey);
 
                 if (FilterSupport.argumentsContainFilter(args))
@@ -130,7 +154,7 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
     }
 
-    protected synchronized void registerQueue(final Binding<?> binding) throws AMQInvalidArgumentException
+    protected void registerQueue(final Binding<?> binding) throws AMQInvalidArgumentException
     {
         final String bindingKey = binding.getBindingKey();
         Queue<?> queue = binding.getQueue();
@@ -144,6 +168,17 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
         String routingKey = TopicNormalizer.normalize(bindingKey);
 
+        synchronized (getBindingKeyLock(routingKey))
+        {
+            registerQueue(binding, routingKey, args);
+        }
+    }
+
+    private void registerQueue(final Binding<?> binding, final String routingKey, final Map<String, Object> args)
+            throws AMQInvalidArgumentException
+    {
+        Queue<?> queue = binding.getQueue();
+
         if(_bindings.containsKey(binding))
         {
             Map<String,Object> oldArgs = _bindings.get(binding);
@@ -195,7 +230,14 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
                 {
                     result.addUnfilteredQueue(queue);
                 }
-                _parser.addBinding(routingKey, result);
+                if(_routingCache == null)
+                {
+                    _parser.addBinding(routingKey, result);
+                }
+                else
+                {
+                    _routingCache.addBinding(routingKey, result);
+                }
                 _topicExchangeResults.put(routingKey,result);
             }
             else
@@ -211,7 +253,7 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
             }
 
             result.addBinding(binding);
-            _bindings.put(binding, args);
+            _bindings.put(binding, nonNullArguments(args));
         }
 
     }
@@ -250,7 +292,16 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
     }
 
-    private synchronized boolean deregisterQueue(final Binding<?> binding)
+    private boolean deregisterQueue(final Binding<?> binding)
+    {
+        String bindingKey = TopicNormalizer.normalize(binding.getBindingKey());
+        synchronized (getBindingKeyLock(bindingKey))
+        {
+            return deregisterQueue(binding, bindingKey);
+        }
+    }
+
+    private boolean deregisterQueue(final Binding<?> binding, final String bindingKey)
     {
         if(_bindings.containsKey(binding))
         {
@@ -258,7 +309,6 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
             _logger.debug("deregisterQueue args: {}", bindingArgs);
 
-            String bindingKey = TopicNormalizer.normalize(binding.getBindingKey());
             TopicExchangeResult result = _topicExchangeResults.get(bindingKey);
 
             result.removeBinding(binding);
@@ -279,6 +329,20 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
             {
                 result.removeUnfilteredQueue(binding.getQueue());
             }
+
+            if(result.isEmpty())
+            {
+                // no bindings remain for this key - discard its states from the parser
+                _topicExchangeResults.remove(bindingKey);
+                if(_routingCache == null)
+                {
+                    _parser.removeBinding(bindingKey, result);
+                }
+                else
+                {
+                    _routingCache.removeBinding(bindingKey, result);
+                }
+            }
             return true;
         }
         else
@@ -287,10 +351,21 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
         }
     }
 
+    private Object getBindingKeyLock(final String routingKey)
+    {
+        return _bindingKeyLocks[(routingKey.hashCode() & Integer.MAX_VALUE) % _bindingKeyLocks.length];
+    }
+
+    private static Map<String, Object> nonNullArguments(final Map<String, Object> args)
+    {
+        return args == null ? Collections.<String, Object>emptyMap() : args;
+    }
+
     private Collection<Queue<?>> getMatchedQueues(Filterable message, String routingKey)
     {
 
-        Collection<TopicMatcherResult> results = _parser.parse(routingKey);
+        Collection<TopicMatcherResult> results =
+                _routingCache == null ? _parser.parse(routingKey) : _routingCache.parse(routingKey);
         switch(results.size())
         {
             case 0:
@@ -318,6 +393,18 @@ public class TopicExchange extends AbstractExchange<TopicExchange>
 
     }
 
+    @Override
+    public long getRoutingCacheHits()
+    {
+        return _routingCache == null ? 0L : _routingCache.getHitCount();
+    }
+
+    @Override
+    public long getRoutingCacheMisses()
+    {
+        return _routingCache == null ? 0L : _routingCache.getMissCount();
+    }
+
     protected void onBind(final Binding<?> binding)
     {
         try
@@ -96,6 +96,11 @@ public final class TopicExchangeResult implements TopicMatcherResult
         return new ArrayList<>(_bindings);
     }
 
+    public boolean isEmpty()
+    {
+        return _unfilteredQueues.isEmpty() && _filteredQueues.isEmpty();
+    }
+
     public void addFilteredQueue(Queue<?> queue, FilterManager filter)
     {
         Map<FilterManager,Integer> filters = _filteredQueues.get(queue);
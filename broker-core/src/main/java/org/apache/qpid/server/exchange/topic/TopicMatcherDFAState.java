@@ -44,14 +44,27 @@ public class TopicMatcherDFAState
 
     private final Collection<TopicMatcherResult> _results;
     private final Map<TopicWord, TopicMatcherDFAState> _nextStateMap;
+    /**
+     * The states of the individual binding state machines which this state was merged from, or null if this state
+     * was not created by merging.
+     */
+    private final Set<TopicMatcherDFAState> _components;
     private static final String TOPIC_DELIMITER = "\\.";
 
 
     public TopicMatcherDFAState(Map<TopicWord, TopicMatcherDFAState> nextStateMap,
                                 Collection<TopicMatcherResult> results )
+    {
+        this(nextStateMap, results, null);
+    }
+
+    private TopicMatcherDFAState(Map<TopicWord, TopicMatcherDFAState> nextStateMap,
+                                 Collection<TopicMatcherResult> results,
+                                 Set<TopicMatcherDFAState> components)
     {
         _nextStateMap = nextStateMap;
         _results = results;
+        _components = components;
     }
 
 
@@ -72,8 +85,8 @@ public class TopicMatcherDFAState
         return parse(dictionary, Arrays.asList(routingKey.split(TOPIC_DELIMITER)).iterator());
     }
 
-    private Collection<TopicMatcherResult> parse(final TopicWordDictionary dictionary,
-                                                 final Iterator<String> tokens)
+    Collection<TopicMatcherResult> parse(final TopicWordDictionary dictionary,
+                                         final Iterator<String> tokens)
     {
         if(!tokens.hasNext())
         {
@@ -123,13 +136,12 @@ public class TopicMatcherDFAState
 
         final Map<TopicWord, TopicMatcherDFAState> newNextStateMap = new HashMap<TopicWord, TopicMatcherDFAState>();
 
-        TopicMatcherDFAState newState = new TopicMatcherDFAState(newNextStateMap, results);
-
-
         Set<TopicMatcherDFAState> oldStates = new HashSet<TopicMatcherDFAState>();
         oldStates.add(this);
         oldStates.add(otherStateMachine);
 
+        TopicMatcherDFAState newState = new TopicMatcherDFAState(newNextStateMap, results, getComponents(oldStates));
+
         newStateMap.put(oldStates, newState);
 
         mergeStateMachines(oldStates, newNextStateMap, newStateMap);
@@ -209,7 +221,7 @@ public class TopicMatcherDFAState
 
                     final Map<TopicWord, TopicMatcherDFAState> nextStateMap = new HashMap<TopicWord, TopicMatcherDFAState>();
 
-                    nextState = new TopicMatcherDFAState(nextStateMap, results);
+                    nextState = new TopicMatcherDFAState(nextStateMap, results, getComponents(destinations));
                     newStateMap.put(destinations, nextState);
 
                     mergeStateMachines(
@@ -248,6 +260,98 @@ public class TopicMatcherDFAState
     }
 
 
+    /**
+     * Returns the state machine which remains once the given states of an individual binding state machine, which
+     * was previously merged into this one, have been removed, or null if no states remain.  States which were not
+     * merged from any of the removed states are shared with this state machine; the others are replaced by the
+     * state merged from their remaining components.
+     */
+    TopicMatcherDFAState removeStates(final Set<TopicMatcherDFAState> removedStates)
+    {
+        return removeStates(removedStates, new HashMap<Set<TopicMatcherDFAState>, TopicMatcherDFAState>());
+    }
+
+    private TopicMatcherDFAState removeStates(final Set<TopicMatcherDFAState> removedStates,
+                                              final Map<Set<TopicMatcherDFAState>, TopicMatcherDFAState> newStateMap)
+    {
+        Set<TopicMatcherDFAState> components = getComponents();
+        if(Collections.disjoint(components, removedStates))
+        {
+            return this;
+        }
+
+        components = new HashSet<TopicMatcherDFAState>(components);
+        components.removeAll(removedStates);
+        if(components.isEmpty())
+        {
+            return null;
+        }
+
+        TopicMatcherDFAState newState = newStateMap.get(components);
+        if(newState == null)
+        {
+            if(components.size() == 1)
+            {
+                newState = components.iterator().next();
+                newStateMap.put(components, newState);
+            }
+            else
+            {
+                Set<TopicMatcherResult> results = new HashSet<TopicMatcherResult>();
+                for(TopicMatcherDFAState component : components)
+                {
+                    results.addAll(component._results);
+                }
+
+                final Map<TopicWord, TopicMatcherDFAState> nextStateMap = new HashMap<TopicWord, TopicMatcherDFAState>();
+                newState = new TopicMatcherDFAState(nextStateMap,
+                                                    results.isEmpty() ? Collections.<TopicMatcherResult>emptySet() : results,
+                                                    components);
+                newStateMap.put(components, newState);
+
+                for(Map.Entry<TopicWord, TopicMatcherDFAState> entry : _nextStateMap.entrySet())
+                {
+                    TopicMatcherDFAState nextState = entry.getValue().removeStates(removedStates, newStateMap);
+                    if(nextState != null)
+                    {
+                        nextStateMap.put(entry.getKey(), nextState);
+                    }
+                }
+
+                // Remove transitions which have become redundant, as for merging
+                TopicMatcherDFAState anyWordState = nextStateMap.get(TopicWord.ANY_WORD);
+                if(anyWordState != null)
+                {
+                    Iterator<Map.Entry<TopicWord, TopicMatcherDFAState>> iterator = nextStateMap.entrySet().iterator();
+                    while(iterator.hasNext())
+                    {
+                        Map.Entry<TopicWord, TopicMatcherDFAState> entry = iterator.next();
+                        if(entry.getValue() == anyWordState && entry.getKey() != TopicWord.ANY_WORD)
+                        {
+                            iterator.remove();
+                        }
+                    }
+                }
+            }
+        }
+        return newState;
+    }
+
+    private Set<TopicMatcherDFAState> getComponents()
+    {
+        return _components == null ? Collections.singleton(this) : _components;
+    }
+
+    private static Set<TopicMatcherDFAState> getComponents(final Set<TopicMatcherDFAState> states)
+    {
+        Set<TopicMatcherDFAState> components = new HashSet<TopicMatcherDFAState>();
+        for(TopicMatcherDFAState state : states)
+        {
+            components.addAll(state.getComponents());
+        }
+        return components;
+    }
+
     public String toString()
     {
         StringBuilder transitions = new StringBuilder();
@@ -265,6 +369,31 @@ public class TopicMatcherDFAState
 
     }
 
+    int getReachableStateCount()
+    {
+        return getReachableStates().size();
+    }
+
+    Set<TopicMatcherDFAState> getReachableStates()
+    {
+        Set<TopicMatcherDFAState> reachableStates = new HashSet<TopicMatcherDFAState>();
+        List<TopicMatcherDFAState> unvisited = new ArrayList<TopicMatcherDFAState>();
+        reachableStates.add(this);
+        unvisited.add(this);
+        while(!unvisited.isEmpty())
+        {
+            TopicMatcherDFAState state = unvisited.remove(unvisited.size() - 1);
+            for(TopicMatcherDFAState nextState : state._nextStateMap.values())
+            {
+                if(reachableStates.add(nextState))
+                {
+                    unvisited.add(nextState);
+                }
+            }
+        }
+        return reachableStates;
+    }
+
     public String reachableStates()
     {
         StringBuilder result = new StringBuilder("Start state: " + getId() + "\n");
@@ -21,21 +21,38 @@
 package org.apache.qpid.server.exchange.topic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Matches routing keys against topic binding keys.
+ * <p>
+ * Bindings are partitioned by their first word: bindings which start with a literal word are held in a state
+ * machine for that word, covering the remaining words of the binding, while bindings starting with a wildcard
+ * share a single state machine covering the whole binding key.  A routing key is parsed by at most two state
+ * machines, the one for its first word and the wildcard one.
+ * <p>
+ * Adding a binding merges its state machine into the machine of its partition only.  Removing a binding removes
+ * the states of its own state machine from the machine of its partition: only the states merged from them are
+ * replaced, so dead states are discarded without rebuilding the partition from its remaining bindings.  Changes
+ * to different partitions proceed concurrently; parsing never blocks.
+ */
 public class TopicParser
 {
     private static final String TOPIC_DELIMITER = "\\.";
 
     private final TopicWordDictionary _dictionary = new TopicWordDictionary();
-    private final AtomicReference<TopicMatcherDFAState> _stateMachine = new AtomicReference<TopicMatcherDFAState>();
+    private final ConcurrentMap<TopicWord, Partition> _literalPartitions = new ConcurrentHashMap<>();
+    private final Partition _wildcardPartition = new Partition();
 
     private static class Position
     {
@@ -86,6 +103,10 @@ public class TopicParser
         }
     }
 
+    private static final TopicMatcherResult MATCHED = new TopicMatcherResult()
+    {
+    };
+
     private static final Position ERROR_POSITION = new Position(Integer.MAX_VALUE,null, true, false);
 
     private static class SimpleState
@@ -94,47 +115,207 @@ public class TopicParser
         private Map<TopicWord, SimpleState> _nextState;
     }
 
+    private static final class PartitionBinding
+    {
+        private final List<TopicWord> _words;
+        private final TopicMatcherResult _result;
+        private final Set<TopicMatcherDFAState> _states;
+
+        private PartitionBinding(final List<TopicWord> words,
+                                 final TopicMatcherResult result,
+                                 final TopicMatcherDFAState stateMachine)
+        {
+            _words = words;
+            _result = result;
+            _states = stateMachine.getReachableStates();
+        }
+    }
 
-    public void addBinding(String bindingKey, TopicMatcherResult result)
+    /**
+     * The bindings sharing a first word (or all the bindings starting with a wildcard), together with the state
+     * machine matching them.  Updates are serialised on the partition; the state machine itself is immutable.
+     */
+    private final class Partition
     {
+        private final List<PartitionBinding> _bindings = new ArrayList<>();
+        private volatile TopicMatcherDFAState _stateMachine;
+        private boolean _discarded;
 
-        TopicMatcherDFAState startingStateMachine;
-        TopicMatcherDFAState newStateMachine;
+        private synchronized boolean add(List<TopicWord> words, TopicMatcherResult result)
+        {
+            if(_discarded)
+            {
+                return false;
+            }
+            TopicMatcherDFAState newStateMachine = createStateMachine(words, result);
+            _bindings.add(new PartitionBinding(words, result, newStateMachine));
+            _stateMachine = _stateMachine == null ? newStateMachine : _stateMachine.mergeStateMachines(newStateMachine);
+            return true;
+        }
 
-        do
+        private synchronized boolean remove(List<TopicWord> words, TopicMatcherResult result)
         {
-            startingStateMachine = _stateMachine.get();
-            if(startingStateMachine == null)
+            Iterator<PartitionBinding> iterator = _bindings.iterator();
+            while(iterator.hasNext())
             {
-                newStateMachine = createStateMachine(bindingKey, result);
+                PartitionBinding binding = iterator.next();
+                if(binding._result == result && binding._words.equals(words))
+                {
+                    iterator.remove();
+                    _stateMachine = _stateMachine.removeStates(binding._states);
+                    return true;
+                }
             }
-            else
+            return false;
+        }
+
+        private synchronized boolean discardIfEmpty()
+        {
+            _discarded = _bindings.isEmpty();
+            return _discarded;
+        }
+
+        private Collection<TopicMatcherResult> parse(String[] tokens, int firstToken)
+        {
+            TopicMatcherDFAState stateMachine = _stateMachine;
+            if(stateMachine == null)
             {
-                newStateMachine = startingStateMachine.mergeStateMachines(createStateMachine(bindingKey, result));
+                return Collections.emptySet();
             }
+            return stateMachine.parse(_dictionary,
+                                      Arrays.asList(tokens).subList(firstToken, tokens.length).iterator());
+        }
+    }
 
+    public void addBinding(String bindingKey, TopicMatcherResult result)
+    {
+        List<TopicWord> wordList = createTopicWordList(bindingKey);
+        if(isWildcard(wordList))
+        {
+            _wildcardPartition.add(wordList, result);
+        }
+        else
+        {
+            TopicWord firstWord = wordList.get(0);
+            List<TopicWord> remainingWords = new ArrayList<>(wordList.subList(1, wordList.size()));
+            Partition partition;
+            do
+            {
+                partition = _literalPartitions.get(firstWord);
+                if(partition == null)
+                {
+                    Partition newPartition = new Partition();
+                    partition = _literalPartitions.putIfAbsent(firstWord, newPartition);
+                    if(partition == null)
+                    {
+                        partition = newPartition;
+                    }
+                }
+            }
+            while(!partition.add(remainingWords, result));
         }
-        while(!_stateMachine.compareAndSet(startingStateMachine,newStateMachine));
+    }
 
+    public void removeBinding(String bindingKey, TopicMatcherResult result)
+    {
+        List<TopicWord> wordList = createTopicWordList(bindingKey);
+        if(isWildcard(wordList))
+        {
+            _wildcardPartition.remove(wordList, result);
+        }
+        else
+        {
+            TopicWord firstWord = wordList.get(0);
+            Partition partition = _literalPartitions.get(firstWord);
+            if(partition != null
+               && partition.remove(wordList.subList(1, wordList.size()), result)
+               && partition.discardIfEmpty())
+            {
+                _literalPartitions.remove(firstWord, partition);
+            }
+        }
     }
 
     public Collection<TopicMatcherResult> parse(String routingKey)
     {
-        TopicMatcherDFAState stateMachine = _stateMachine.get();
-        if(stateMachine == null)
+        String[] tokens = routingKey.split(TOPIC_DELIMITER);
+        Collection<TopicMatcherResult> wildcardResults = _wildcardPartition.parse(tokens, 0);
+        if(tokens.length == 0)
         {
-            return Collections.EMPTY_SET;
+            return wildcardResults;
+        }
+
+        Partition partition = _literalPartitions.get(_dictionary.getWord(tokens[0]));
+        if(partition == null)
+        {
+            return wildcardResults;
+        }
+
+        Collection<TopicMatcherResult> literalResults = partition.parse(tokens, 1);
+        if(literalResults.isEmpty())
+        {
+            return wildcardResults;
+        }
+        else if(wildcardResults.isEmpty())
+        {
+            return literalResults;
         }
         else
         {
-            return stateMachine.parse(_dictionary,routingKey);
+            Set<TopicMatcherResult> results = new HashSet<>(literalResults);
+            results.addAll(wildcardResults);
+            return results;
+        }
+    }
+
+    /**
+     * Returns the number of states of the state machines currently used to match the bindings.
+     */
+    int getStateCount()
+    {
+        int count = _wildcardPartition._stateMachine == null ? 0 : _wildcardPartition._stateMachine.getReachableStateCount();
+        for(Partition partition : _literalPartitions.values())
+        {
+            TopicMatcherDFAState stateMachine = partition._stateMachine;
+            count += stateMachine == null ? 0 : stateMachine.getReachableStateCount();
         }
+        return count;
     }
 
+    /**
+     * Returns those of the given routing keys which the binding key matches.
+     */
+    Collection<String> getMatchingRoutingKeys(String bindingKey, Collection<String> routingKeys)
+    {
+        TopicMatcherDFAState stateMachine = createStateMachine(bindingKey, MATCHED);
+        List<String> matchingRoutingKeys = new ArrayList<>();
+        for(String routingKey : routingKeys)
+        {
+            if(!stateMachine.parse(_dictionary, routingKey).isEmpty())
+            {
+                matchingRoutingKeys.add(routingKey);
+            }
+        }
+        return matchingRoutingKeys;
+    }
+
+    private static boolean isWildcard(List<TopicWord> wordList)
+    {
+        if(wordList.isEmpty())
+        {
+            return true;
+        }
+        TopicWord firstWord = wordList.get(0);
+        return firstWord == TopicWord.ANY_WORD || firstWord == TopicWord.WILDCARD_WORD;
+    }
 
     TopicMatcherDFAState createStateMachine(String bindingKey, TopicMatcherResult result)
     {
-        List<TopicWord> wordList = createTopicWordList(bindingKey);
+        return createStateMachine(createTopicWordList(bindingKey), result);
+    }
+
+    private TopicMatcherDFAState createStateMachine(List<TopicWord> wordList, TopicMatcherResult result)
+    {
         int wildCards = 0;
         for(TopicWord word : wordList)
         {
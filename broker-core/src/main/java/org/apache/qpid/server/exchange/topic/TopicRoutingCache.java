@@ -0,0 +1,99 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded, least recently used cache of the results of parsing routing keys with a {@link TopicParser}.
+ * <p>
+ * The parser must only be changed through {@link #addBinding(String, TopicMatcherResult)} and
+ * {@link #removeBinding(String, TopicMatcherResult)}, which invalidate just those cached routing keys whose
+ * results are affected by the change.
+ */
+public final class TopicRoutingCache
+{
+    private final TopicParser _parser;
+    private final Cache<String, Collection<TopicMatcherResult>> _cache;
+    private final AtomicLong _modificationCount = new AtomicLong();
+
+    public TopicRoutingCache(final TopicParser parser, final int maximumSize)
+    {
+        _parser = parser;
+        _cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    public Collection<TopicMatcherResult> parse(final String routingKey)
+    {
+        Collection<TopicMatcherResult> results = _cache.getIfPresent(routingKey);
+        if(results == null)
+        {
+            long modificationCount = _modificationCount.get();
+            results = _parser.parse(routingKey);
+            _cache.put(routingKey, results);
+            if(_modificationCount.get() != modificationCount)
+            {
+                // the parser changed while the results were calculated, they may have missed invalidation
+                _cache.invalidate(routingKey);
+            }
+        }
+        return results;
+    }
+
+    public void addBinding(final String bindingKey, final TopicMatcherResult result)
+    {
+        _parser.addBinding(bindingKey, result);
+        _modificationCount.incrementAndGet();
+        _cache.invalidateAll(_parser.getMatchingRoutingKeys(bindingKey, new ArrayList<>(_cache.asMap().keySet())));
+    }
+
+    public void removeBinding(final String bindingKey, final TopicMatcherResult result)
+    {
+        _parser.removeBinding(bindingKey, result);
+        _modificationCount.incrementAndGet();
+        List<String> affectedRoutingKeys = new ArrayList<>();
+        for(Map.Entry<String, Collection<TopicMatcherResult>> entry : _cache.asMap().entrySet())
+        {
+            if(entry.getValue().contains(result))
+            {
+                affectedRoutingKeys.add(entry.getKey());
+            }
+        }
+        _cache.invalidateAll(affectedRoutingKeys);
+    }
+
+    public long getHitCount()
+    {
+        return _cache.stats().hitCount();
+    }
+
+    public long getMissCount()
+    {
+        return _cache.stats().missCount();
+    }
+}
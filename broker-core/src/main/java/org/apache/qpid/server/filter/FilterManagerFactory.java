@@ -58,7 +58,7 @@ public class FilterManagerFactory
                     manager = new FilterManager();
                     try
                     {
-                        MessageFilter filter = new JMSSelectorFilter((String)selector);
+                        MessageFilter filter = JMSSelectorFilter.getInstance((String) selector);
                         manager.add(filter.getName(), filter);
                     }
                     catch (ParseException | SelectorParsingException | TokenMgrError e)
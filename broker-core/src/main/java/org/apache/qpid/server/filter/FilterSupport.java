@@ -21,11 +21,8 @@
 
 package org.apache.qpid.server.filter;
 
-import java.lang.ref.WeakReference;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.apache.qpid.common.AMQPFilterTypes;
 import org.apache.qpid.filter.SelectorParsingException;
@@ -38,9 +35,6 @@ import org.apache.qpid.server.plugin.PluggableService;
 
 public class FilterSupport
 {
-    private static final Map<String, WeakReference<JMSSelectorFilter>> _selectorCache =
-            Collections.synchronizedMap(new WeakHashMap<String, WeakReference<JMSSelectorFilter>>());
-
     static MessageFilter createJMSSelectorFilter(Map<String, Object> args) throws AMQInvalidArgumentException
     {
         final String selectorString = (String) args.get(AMQPFilterTypes.JMS_SELECTOR.toString());
@@ -50,22 +44,14 @@ public class FilterSupport
 
     private static MessageFilter getMessageFilter(String selectorString) throws AMQInvalidArgumentException
     {
-        WeakReference<JMSSelectorFilter> selectorRef = _selectorCache.get(selectorString);
-        JMSSelectorFilter selector = null;
-
-        if(selectorRef == null || (selector = selectorRef.get())==null)
+        try
         {
-            try
-            {
-                selector = new JMSSelectorFilter(selectorString);
-            }
-            catch (ParseException | SelectorParsingException | TokenMgrError e)
-            {
-                throw new AMQInvalidArgumentException("Cannot parse JMS selector \"" + selectorString + "\"", e);
-            }
-            _selectorCache.put(selectorString, new WeakReference<JMSSelectorFilter>(selector));
+            return JMSSelectorFilter.getInstance(selectorString);
+        }
+        catch (ParseException | SelectorParsingException | TokenMgrError e)
+        {
+            throw new AMQInvalidArgumentException("Cannot parse JMS selector \"" + selectorString + "\"", e);
         }
-        return selector;
     }
 
     public static boolean argumentsContainFilter(final Map<String, Object> args)
@@ -20,13 +20,20 @@
  */
 package org.apache.qpid.server.filter;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.common.AMQPFilterTypes;
 import org.apache.qpid.filter.BooleanExpression;
+import org.apache.qpid.filter.EqualityPredicate;
 import org.apache.qpid.filter.FilterableMessage;
 import org.apache.qpid.filter.JMSMessagePropertyExpression;
+import org.apache.qpid.filter.SelectorCompiler;
 import org.apache.qpid.filter.SelectorParsingException;
 import org.apache.qpid.filter.selector.ParseException;
 import org.apache.qpid.filter.selector.SelectorParser;
@@ -39,15 +46,47 @@ public class JMSSelectorFilter implements MessageFilter
 {
     private final static Logger _logger = LoggerFactory.getLogger(JMSSelectorFilter.class);
 
+    /**
+     * When set, selectors are evaluated by walking the parsed expression tree rather than by the compiled form.
+     */
+    public static final String INTERPRETED_SELECTORS_PROPERTY = "qpid.selector.interpreted";
+
+    private static final boolean COMPILE_SELECTORS = !Boolean.getBoolean(INTERPRETED_SELECTORS_PROPERTY);
+
+    // The key is the selector string held by the filter itself, so an entry lives exactly as long as its filter
+    private static final Map<String, WeakReference<JMSSelectorFilter>> _selectorCache =
+            Collections.synchronizedMap(new WeakHashMap<String, WeakReference<JMSSelectorFilter>>());
+
     private String _selector;
     private BooleanExpression _matcher;
+    private EqualityPredicate<FilterableMessage> _equalityPredicate;
 
     public JMSSelectorFilter(String selector) throws ParseException, TokenMgrError, SelectorParsingException
     {
         _selector = selector;
         SelectorParser<FilterableMessage> selectorParser = new SelectorParser<>();
         selectorParser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
-        _matcher = selectorParser.parse(selector);
+        BooleanExpression<FilterableMessage> matcher = selectorParser.parse(selector);
+        _matcher = COMPILE_SELECTORS ? SelectorCompiler.compile(matcher) : matcher;
+        _equalityPredicate = EqualityPredicate.extract(matcher);
+    }
+
+    /**
+     * Returns a filter for the given selector, sharing the parsed and compiled form with any other consumer
+     * or binding currently using the same selector.
+     */
+    public static JMSSelectorFilter getInstance(String selector)
+            throws ParseException, TokenMgrError, SelectorParsingException
+    {
+        WeakReference<JMSSelectorFilter> filterRef = _selectorCache.get(selector);
+        JMSSelectorFilter filter = null;
+
+        if(filterRef == null || (filter = filterRef.get()) == null)
+        {
+            filter = new JMSSelectorFilter(selector);
+            _selectorCache.put(filter.getSelector(), new WeakReference<>(filter));
+        }
+        return filter;
     }
 
     @Override
@@ -78,6 +117,15 @@ public class JMSSelectorFilter implements MessageFilter
         return _selector;
     }
 
+    /**
+     * Returns the property equality test which any message matching this selector must pass, or null if
+     * the selector has no such test.
+     */
+    public EqualityPredicate<FilterableMessage> getEqualityPredicate()
+    {
+        return _equalityPredicate;
+    }
+
     @Override
     public boolean equals(final Object o)
     {
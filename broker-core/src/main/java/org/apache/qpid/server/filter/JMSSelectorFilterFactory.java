@@ -47,7 +47,7 @@ public final class JMSSelectorFilterFactory implements MessageFilterFactory
         String arg = arguments.get(0);
         try
         {
-            return new JMSSelectorFilter(arg);
+            return JMSSelectorFilter.getInstance(arg);
         }
         catch (ParseException | TokenMgrError | SelectorParsingException e)
         {
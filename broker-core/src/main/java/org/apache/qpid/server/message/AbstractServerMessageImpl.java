@@ -25,6 +25,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
@@ -43,11 +45,19 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
     private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, Collection> _resourcesUpdater =
             AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, Collection.class,"_resources");
 
+    private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, TransformedContent> _transformedContentUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, TransformedContent.class, "_transformedContent");
+
+    private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, ConcurrentMap> _convertedMessagesUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, ConcurrentMap.class, "_convertedMessages");
+
 
     private volatile int _referenceCount = 0;
     private final StoredMessage<T> _handle;
     private final Object _connectionReference;
     private volatile Collection<UUID> _resources;
+    private volatile TransformedContent _transformedContent;
+    private volatile ConcurrentMap<Class<? extends ServerMessage>, ConvertedMessage> _convertedMessages;
 
 
     public AbstractServerMessageImpl(StoredMessage<T> handle, Object connectionReference)
@@ -108,6 +118,16 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
                     {
                         _handle.remove();
                     }
+                    disposeTransformedContent();
+                    ConcurrentMap<Class<? extends ServerMessage>, ConvertedMessage> convertedMessages =
+                            _convertedMessagesUpdater.getAndSet(this, null);
+                    if (convertedMessages != null)
+                    {
+                        for (ConvertedMessage convertedMessage : convertedMessages.values())
+                        {
+                            convertedMessage.discard();
+                        }
+                    }
                 }
             }
             else
@@ -185,6 +205,83 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         }
     }
 
+    TransformedContent getTransformedContent()
+    {
+        return _transformedContent;
+    }
+
+    /**
+     * Attaches the given transformed content in place of the expected content, unless the message has been deleted
+     * or the content has already been evicted.
+     */
+    boolean setTransformedContent(final TransformedContent expected, final TransformedContent transformedContent)
+    {
+        if (_transformedContentUpdater.compareAndSet(this, expected, transformedContent))
+        {
+            if (_refCountUpdater.get(this) < 0 || transformedContent.isDiscarded())
+            {
+                _transformedContentUpdater.compareAndSet(this, transformedContent, null);
+                return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    void disposeTransformedContent()
+    {
+        TransformedContent transformedContent = _transformedContentUpdater.getAndSet(this, null);
+        if (transformedContent != null)
+        {
+            transformedContent.dispose();
+        }
+    }
+
+    ConvertedMessage getConvertedMessage(final Class<? extends ServerMessage> outputClass)
+    {
+        ConcurrentMap<Class<? extends ServerMessage>, ConvertedMessage> convertedMessages = _convertedMessages;
+        return convertedMessages == null ? null : convertedMessages.get(outputClass);
+    }
+
+    /**
+     * Attaches the given converted message unless a message converted to the same class is already attached, the
+     * message has been deleted, or the converted message has already been evicted.
+     */
+    boolean addConvertedMessage(final ConvertedMessage convertedMessage)
+    {
+        ConcurrentMap<Class<? extends ServerMessage>, ConvertedMessage> convertedMessages = _convertedMessages;
+        if (convertedMessages == null)
+        {
+            _convertedMessagesUpdater.compareAndSet(this,
+                                                    null,
+                                                    new ConcurrentHashMap<Class<? extends ServerMessage>, ConvertedMessage>(4));
+            convertedMessages = _convertedMessages;
+            if (convertedMessages == null)
+            {
+                return false;
+            }
+        }
+        if (convertedMessages.putIfAbsent(convertedMessage.getOutputClass(), convertedMessage) != null)
+        {
+            return false;
+        }
+        if (_refCountUpdater.get(this) < 0 || convertedMessage.isDiscarded())
+        {
+            convertedMessages.remove(convertedMessage.getOutputClass(), convertedMessage);
+            return false;
+        }
+        return true;
+    }
+
+    void removeConvertedMessage(final ConvertedMessage convertedMessage)
+    {
+        ConcurrentMap<Class<? extends ServerMessage>, ConvertedMessage> convertedMessages = _convertedMessages;
+        if (convertedMessages != null)
+        {
+            convertedMessages.remove(convertedMessage.getOutputClass(), convertedMessage);
+        }
+    }
+
     final public Object getConnectionReference()
     {
         return _connectionReference;
@@ -0,0 +1,99 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.server.virtualhost.CacheEvictionQueue;
+
+/**
+ * Representation of a message converted to another protocol, attached to the original message while cached by a
+ * {@link ConvertedMessageCache}.
+ */
+final class ConvertedMessage implements CacheEvictionQueue.Entry
+{
+    private final AbstractServerMessageImpl<?, ?> _message;
+    private final Class<? extends ServerMessage> _outputClass;
+    private final ServerMessage<?> _convertedMessage;
+    private final long _size;
+    private final ConvertedMessageCache _cache;
+    private final AtomicBoolean _discarded = new AtomicBoolean();
+
+    ConvertedMessage(final AbstractServerMessageImpl<?, ?> message,
+                     final Class<? extends ServerMessage> outputClass,
+                     final ServerMessage<?> convertedMessage,
+                     final long size,
+                     final ConvertedMessageCache cache)
+    {
+        _message = message;
+        _outputClass = outputClass;
+        _convertedMessage = convertedMessage;
+        _size = size;
+        _cache = cache;
+    }
+
+    Class<? extends ServerMessage> getOutputClass()
+    {
+        return _outputClass;
+    }
+
+    ServerMessage<?> getConvertedMessage()
+    {
+        return _convertedMessage;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return _size;
+    }
+
+    @Override
+    public boolean isDiscarded()
+    {
+        return _discarded.get();
+    }
+
+    @Override
+    public boolean clearReferenced()
+    {
+        return false;
+    }
+
+    @Override
+    public void evict()
+    {
+        discard();
+    }
+
+    void discard()
+    {
+        if (_discarded.compareAndSet(false, true))
+        {
+            _message.removeConvertedMessage(this);
+            if (_convertedMessage instanceof AbstractServerMessageImpl)
+            {
+                ((AbstractServerMessageImpl<?, ?>) _convertedMessage).disposeTransformedContent();
+            }
+            _cache.discarded(this);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.virtualhost.CacheEvictionQueue;
+
+/**
+ * Cache of the messages converted for delivery to consumers using another protocol, shared by all the consumers of a
+ * virtual host.
+ * <p>
+ * A converted message is attached to the original message, keyed by the class the message was converted to, so that
+ * a message delivered to many consumers of the same protocol is converted once.  Converted messages are discarded
+ * when the original message is deleted or, oldest first, when the total size of the converted messages exceeds the
+ * maximum size.
+ */
+public class ConvertedMessageCache
+{
+    private final CacheEvictionQueue<ConvertedMessage> _evictionQueue;
+    private final AtomicLong _hitCount = new AtomicLong();
+    private final AtomicLong _missCount = new AtomicLong();
+
+    public ConvertedMessageCache(final long maximumSize)
+    {
+        _evictionQueue = new CacheEvictionQueue<>(maximumSize);
+    }
+
+    /**
+     * Returns the given message converted by the given converter, converting the message only if it has not already
+     * been converted to the converter's output class.
+     */
+    public <M extends ServerMessage, N extends ServerMessage> N convert(final M message,
+                                                                       final MessageConverter<M, N> converter,
+                                                                       final NamedAddressSpace addressSpace)
+    {
+        if (!(message instanceof AbstractServerMessageImpl))
+        {
+            return converter.convert(message, addressSpace);
+        }
+
+        AbstractServerMessageImpl<?, ?> cacheableMessage = (AbstractServerMessageImpl<?, ?>) message;
+        Class<N> outputClass = converter.getOutputClass();
+        ConvertedMessage cached = cacheableMessage.getConvertedMessage(outputClass);
+        if (cached != null)
+        {
+            _hitCount.incrementAndGet();
+            return outputClass.cast(cached.getConvertedMessage());
+        }
+        _missCount.incrementAndGet();
+
+        N convertedMessage = converter.convert(message, addressSpace);
+        long size = convertedMessage.getSize();
+        if (size <= _evictionQueue.getMaximumSize())
+        {
+            ConvertedMessage entry = new ConvertedMessage(cacheableMessage, outputClass, convertedMessage, size, this);
+            _evictionQueue.add(entry);
+            if (cacheableMessage.addConvertedMessage(entry))
+            {
+                _evictionQueue.evictIfNecessary();
+            }
+            else
+            {
+                entry.discard();
+            }
+        }
+        return convertedMessage;
+    }
+
+    public long getMaximumSize()
+    {
+        return _evictionQueue.getMaximumSize();
+    }
+
+    public long getSize()
+    {
+        return _evictionQueue.getSize();
+    }
+
+    public long getHitCount()
+    {
+        return _hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return _missCount.get();
+    }
+
+    void discarded(final ConvertedMessage convertedMessage)
+    {
+        _evictionQueue.discarded(convertedMessage);
+    }
+}
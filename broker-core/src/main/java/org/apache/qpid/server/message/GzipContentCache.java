@@ -0,0 +1,158 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.virtualhost.CacheEvictionQueue;
+import org.apache.qpid.util.ByteBufferUtils;
+
+/**
+ * Cache of the gzip compressed or decompressed content of messages, shared by all the consumers of a virtual host.
+ * <p>
+ * The transformed content is attached to the message, so that a message delivered to many consumers which need its
+ * content compressed, or decompressed, is transformed once.  The content is disposed when the message is deleted
+ * or, oldest first, when the total size of the cached content exceeds the maximum size.  Consumers are given
+ * duplicates of the cached buffers, so content disposed by the cache remains valid until they have been written.
+ */
+public class GzipContentCache
+{
+    private final CacheEvictionQueue<TransformedContent> _evictionQueue;
+    private final AtomicLong _hitCount = new AtomicLong();
+    private final AtomicLong _missCount = new AtomicLong();
+
+    public GzipContentCache(final long maximumSize)
+    {
+        _evictionQueue = new CacheEvictionQueue<>(maximumSize);
+    }
+
+    /**
+     * Returns the gzip compressed content of the given message.  The caller must dispose the returned buffers.
+     */
+    public Collection<QpidByteBuffer> getDeflatedContent(final ServerMessage<?> message) throws IOException
+    {
+        return getTransformedContent(message, true);
+    }
+
+    /**
+     * Returns the decompressed content of the given gzip compressed message.  The caller must dispose the returned
+     * buffers.
+     */
+    public Collection<QpidByteBuffer> getInflatedContent(final ServerMessage<?> message) throws IOException
+    {
+        return getTransformedContent(message, false);
+    }
+
+    public long getMaximumSize()
+    {
+        return _evictionQueue.getMaximumSize();
+    }
+
+    public long getSize()
+    {
+        return _evictionQueue.getSize();
+    }
+
+    public long getHitCount()
+    {
+        return _hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return _missCount.get();
+    }
+
+    void disposed(final TransformedContent content)
+    {
+        _evictionQueue.discarded(content);
+    }
+
+    private Collection<QpidByteBuffer> getTransformedContent(final ServerMessage<?> message, final boolean deflate)
+            throws IOException
+    {
+        AbstractServerMessageImpl<?, ?> cacheableMessage =
+                message instanceof AbstractServerMessageImpl ? (AbstractServerMessageImpl<?, ?>) message : null;
+
+        TransformedContent cached = null;
+        if (cacheableMessage != null)
+        {
+            cached = cacheableMessage.getTransformedContent();
+            if (cached != null && cached.isDeflated() == deflate)
+            {
+                Collection<QpidByteBuffer> content = cached.getContent();
+                if (content != null)
+                {
+                    _hitCount.incrementAndGet();
+                    return content;
+                }
+            }
+        }
+        _missCount.incrementAndGet();
+
+        Collection<QpidByteBuffer> transformed = transform(message, deflate);
+        long size = ByteBufferUtils.remaining(transformed);
+        if (cacheableMessage == null || size > _evictionQueue.getMaximumSize())
+        {
+            return transformed;
+        }
+
+        TransformedContent transformedContent = new TransformedContent(transformed, size, deflate, this);
+        Collection<QpidByteBuffer> content = transformedContent.getContent();
+        _evictionQueue.add(transformedContent);
+        if (cacheableMessage.setTransformedContent(cached, transformedContent))
+        {
+            if (cached != null)
+            {
+                cached.dispose();
+            }
+            _evictionQueue.evictIfNecessary();
+        }
+        else
+        {
+            transformedContent.dispose();
+        }
+        return content;
+    }
+
+    private Collection<QpidByteBuffer> transform(final ServerMessage<?> message, final boolean deflate)
+            throws IOException
+    {
+        Collection<QpidByteBuffer> content = message.getContent(0, (int) message.getSize());
+        try
+        {
+            return deflate ? QpidByteBuffer.deflate(content) : QpidByteBuffer.inflate(content);
+        }
+        finally
+        {
+            if (content != null)
+            {
+                for (QpidByteBuffer buf : content)
+                {
+                    buf.dispose();
+                }
+            }
+        }
+    }
+}
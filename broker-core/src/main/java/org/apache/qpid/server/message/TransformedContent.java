@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.virtualhost.CacheEvictionQueue;
+
+/**
+ * Compressed or decompressed content of a message, attached to the message while cached by a
+ * {@link GzipContentCache}.
+ */
+final class TransformedContent implements CacheEvictionQueue.Entry
+{
+    private final Collection<QpidByteBuffer> _buffers;
+    private final long _size;
+    private final boolean _deflated;
+    private final GzipContentCache _cache;
+    private boolean _disposed;
+
+    TransformedContent(final Collection<QpidByteBuffer> buffers,
+                       final long size,
+                       final boolean deflated,
+                       final GzipContentCache cache)
+    {
+        _buffers = buffers;
+        _size = size;
+        _deflated = deflated;
+        _cache = cache;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return _size;
+    }
+
+    /**
+     * Returns true if the content is compressed, or false if it is decompressed.
+     */
+    boolean isDeflated()
+    {
+        return _deflated;
+    }
+
+    /**
+     * Returns duplicates of the content, which the caller must dispose, or null if the content has been disposed.
+     */
+    synchronized Collection<QpidByteBuffer> getContent()
+    {
+        if (_disposed)
+        {
+            return null;
+        }
+        Collection<QpidByteBuffer> content = new ArrayList<>(_buffers.size());
+        for (QpidByteBuffer buf : _buffers)
+        {
+            content.add(buf.duplicate());
+        }
+        return content;
+    }
+
+    @Override
+    public synchronized boolean isDiscarded()
+    {
+        return _disposed;
+    }
+
+    @Override
+    public boolean clearReferenced()
+    {
+        return false;
+    }
+
+    @Override
+    public void evict()
+    {
+        dispose();
+    }
+
+    void dispose()
+    {
+        synchronized (this)
+        {
+            if (_disposed)
+            {
+                return;
+            }
+            _disposed = true;
+            for (QpidByteBuffer buf : _buffers)
+            {
+                buf.dispose();
+            }
+        }
+        _cache.disposed(this);
+    }
+}
@@ -119,6 +119,12 @@ public interface Connection<X extends Connection<X>> extends ConfiguredObject<X>
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Sessions")
     int getSessionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Transport writes")
+    long getTransportWriteCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Average transport write size")
+    long getAverageTransportWriteSize();
+
     //children
     Collection<Session> getSessions();
 
@@ -40,6 +40,12 @@ public interface Exchange<X extends Exchange<X>> extends ConfiguredObject<X>, Me
 
     String ALTERNATE_EXCHANGE                   = "alternateExchange";
 
+    String TOPIC_ROUTING_CACHE_SIZE = "exchange.topicRoutingCacheSize";
+    @ManagedContextDefault(name = TOPIC_ROUTING_CACHE_SIZE,
+                           description = "Maximum number of routing keys for which a topic exchange caches the"
+                                         + " matching bindings.  The cache is disabled if this is zero.")
+    int DEFAULT_TOPIC_ROUTING_CACHE_SIZE = 0;
+
     enum UnroutableMessageBehaviour
     {
         REJECT, DISCARD
@@ -73,6 +79,12 @@ public interface Exchange<X extends Exchange<X>> extends ConfiguredObject<X>, Me
     @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Inbound")
     long getMessagesIn();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Routing cache hits")
+    long getRoutingCacheHits();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Routing cache misses")
+    long getRoutingCacheMisses();
+
 
     //operations
     Binding createBinding(String bindingKey,
@@ -25,6 +25,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageSource;
 import org.apache.qpid.server.model.port.AmqpPort;
@@ -68,4 +70,16 @@ public interface NamedAddressSpace extends Named
     Collection<? extends Connection<?>> getConnections();
 
     List<String> getGlobalAddressDomains();
+
+    /**
+     * Returns the cache of the gzip compressed and decompressed content of messages, or null if content is
+     * transformed for each delivery.
+     */
+    GzipContentCache getGzipContentCache();
+
+    /**
+     * Returns the cache of the messages converted for delivery to consumers using another protocol, or null if
+     * messages are converted for each delivery.
+     */
+    ConvertedMessageCache getConvertedMessageCache();
 }
@@ -37,6 +37,7 @@ import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.transport.AMQPConnection;
 import org.apache.qpid.server.virtualhost.HouseKeepingTask;
+import org.apache.qpid.server.virtualhost.MessageContentCache;
 import org.apache.qpid.server.virtualhost.NodeAutoCreationPolicy;
 
 @ManagedObject( defaultType = "ProvidedStore", description = VirtualHost.CLASS_DESCRIPTION)
@@ -114,6 +115,69 @@ public interface VirtualHost<X extends VirtualHost<X>> extends ConfiguredObject<
     @ManagedAttribute( defaultValue = "${virtualhost.storeTransactionOpenTimeoutWarn}")
     long getStoreTransactionOpenTimeoutWarn();
 
+    String MESSAGE_STORE_RECOVERY_THREADS = "virtualhost.messageStoreRecoveryThreads";
+    @ManagedContextDefault( name = MESSAGE_STORE_RECOVERY_THREADS,
+            description = "The number of threads across which the messages of each queue are recovered from the"
+                          + " message store when recovering asynchronously, or zero to recover each queue on a"
+                          + " single thread")
+    int DEFAULT_MESSAGE_STORE_RECOVERY_THREADS = 0;
+
+    String LAZY_META_DATA_RECOVERY = "virtualhost.lazyMetaDataRecovery";
+    @ManagedContextDefault( name = LAZY_META_DATA_RECOVERY,
+            description = "If true, the meta data of messages recovered from the message store is not kept in memory"
+                          + " but loaded from the store again when the message is delivered or inspected")
+    boolean DEFAULT_LAZY_META_DATA_RECOVERY = false;
+
+    String CONTENT_CACHE_ENABLED = "virtualhost.contentCache.enabled";
+    @ManagedContextDefault( name = CONTENT_CACHE_ENABLED,
+            description = "If true, the message content held in memory by all queues is managed by a single cache"
+                          + " which flows the least recently used content to disk when the target size of the"
+                          + " virtual host is exceeded")
+    boolean DEFAULT_CONTENT_CACHE_ENABLED = false;
+
+    String CONTENT_CACHE_READ_AHEAD = "virtualhost.contentCache.readAhead";
+    @ManagedContextDefault( name = CONTENT_CACHE_READ_AHEAD,
+            description = "The number of queue entries ahead of each consumer whose content is read from the message"
+                          + " store in advance when the content cache is enabled, or zero to disable read ahead")
+    int DEFAULT_CONTENT_CACHE_READ_AHEAD = 16;
+
+    String CONTENT_CACHE_READ_AHEAD_THREADS = "virtualhost.contentCache.readAheadThreads";
+    @ManagedContextDefault( name = CONTENT_CACHE_READ_AHEAD_THREADS,
+            description = "The number of threads reading message content ahead of consumers")
+    int DEFAULT_CONTENT_CACHE_READ_AHEAD_THREADS = 2;
+
+    String GZIP_CONTENT_CACHE_MAXIMUM_SIZE = "virtualhost.gzipContentCache.maximumSize";
+    @ManagedContextDefault( name = GZIP_CONTENT_CACHE_MAXIMUM_SIZE,
+            description = "The maximum size in bytes of the gzip compressed and decompressed message content cached"
+                          + " for delivery to consumers, or zero to compress or decompress the content for each"
+                          + " delivery")
+    long DEFAULT_GZIP_CONTENT_CACHE_MAXIMUM_SIZE = 0L;
+
+    String CONVERTED_MESSAGE_CACHE_MAXIMUM_SIZE = "virtualhost.convertedMessageCache.maximumSize";
+    @ManagedContextDefault( name = CONVERTED_MESSAGE_CACHE_MAXIMUM_SIZE,
+            description = "The maximum total size in bytes of the messages cached after conversion for delivery to"
+                          + " consumers using another protocol, or zero to convert messages for each delivery")
+    long DEFAULT_CONVERTED_MESSAGE_CACHE_MAXIMUM_SIZE = 0L;
+
+    String MEMORY_STORE_OFF_HEAP = "virtualhost.memoryStore.offHeap";
+    @ManagedContextDefault( name = MEMORY_STORE_OFF_HEAP,
+            description = "If true, a memory message store holds the content and encoded meta data of its messages in"
+                          + " slabs of direct memory rather than on the heap")
+    boolean DEFAULT_MEMORY_STORE_OFF_HEAP = false;
+
+    String MEMORY_STORE_SLAB_SIZE = "virtualhost.memoryStore.slabSize";
+    @ManagedContextDefault( name = MEMORY_STORE_SLAB_SIZE,
+            description = "The size in bytes of the slabs of direct memory reserved by an off heap memory message"
+                          + " store, rounded up to a power of two")
+    int DEFAULT_MEMORY_STORE_SLAB_SIZE = 1024 * 1024;
+
+    String MEMORY_STORE_DECODED_META_DATA_LIMIT = "virtualhost.memoryStore.decodedMetaDataLimit";
+    @ManagedContextDefault( name = MEMORY_STORE_DECODED_META_DATA_LIMIT,
+            description = "The number of messages of an off heap memory message store whose decoded meta data is kept"
+                          + " on the heap.  The meta data of the least recently decoded messages is dropped and decoded"
+                          + " again from direct memory when next needed")
+    int DEFAULT_MEMORY_STORE_DECODED_META_DATA_LIMIT = 1024;
+
     @ManagedContextDefault( name = "virtualhost.housekeepingThreadCount")
     public static final int DEFAULT_HOUSEKEEPING_THREAD_COUNT = 4;
 
@@ -144,6 +208,14 @@ public interface VirtualHost<X extends VirtualHost<X>> extends ConfiguredObject<
     @ManagedAttribute( defaultValue = "${" + VIRTUALHOST_CONNECTION_THREAD_POOL_NUMBER_OF_SELECTORS + "}")
     int getNumberOfSelectors();
 
+    String VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING = "virtualhost.connectionThreadPool.workStealing";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING,
+            description = "If true, each thread of the connection thread pool has its own queue of work, a connection"
+                          + " is preferably run by the thread which last ran it, and idle threads steal work from busy"
+                          + " ones")
+    boolean DEFAULT_VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING = false;
+
     @DerivedAttribute( persist = true )
     String getModelVersion();
 
@@ -185,6 +257,61 @@ public interface VirtualHost<X extends VirtualHost<X>> extends ConfiguredObject<
     @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Outbound")
     long getMessagesOut();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Recovered Message Instances")
+    long getRecoveredMessageInstanceCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Recovery Rate")
+    long getRecoveryRate();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Estimated Recovery Time Remaining")
+    long getEstimatedRecoveryTimeRemaining();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Content Cache Size")
+    long getContentCacheSize();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Content Cache Evictions")
+    long getContentCacheEvictionCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Content Read Ahead")
+    long getContentReadAheadCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Gzip Content Cache Size")
+    long getGzipContentCacheSize();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Gzip Content Cache Hits")
+    long getGzipContentCacheHitCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Gzip Content Cache Misses")
+    long getGzipContentCacheMissCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Converted Message Cache Size")
+    long getConvertedMessageCacheSize();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Converted Message Cache Hits")
+    long getConvertedMessageCacheHitCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Converted Message Cache Misses")
+    long getConvertedMessageCacheMissCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Off Heap Slab Capacity")
+    long getOffHeapSlabCapacity();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Off Heap Slab Allocated")
+    long getOffHeapSlabAllocatedSize();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Off Heap Slab Used")
+    long getOffHeapSlabUsedSize();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Connection I/O Tasks Stolen",
+                      description = "The number of I/O tasks a connection thread took from the queue of another connection"
+                                    + " thread.  Zero unless " + VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING + " is true.")
+    long getConnectionThreadPoolTasksStolen();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "Connection Threads Busy Time",
+                      description = "The total time in milliseconds the connection threads have spent running I/O tasks."
+                                    + "  Zero unless " + VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING + " is true.")
+    long getConnectionThreadPoolBusyTime();
+
     Broker<?> getBroker();
 
     @Override
@@ -246,4 +373,10 @@ public interface VirtualHost<X extends VirtualHost<X>> extends ConfiguredObject<
 
     long getTotalQueueDepthBytes();
 
+    /**
+     * Returns the cache managing the message content held in memory by the queues, or null if the content of each
+     * queue is flowed to disk against the queue's own target size.
+     */
+    MessageContentCache getMessageContentCache();
+
 }
@@ -57,8 +57,15 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     String PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "qpid.port.amqp.threadPool.keep_alive_timeout";
 
     String PORT_AMQP_NUMBER_OF_SELECTORS = "qpid.port.amqp.threadPool.numberOfSelectors";
+    String PORT_AMQP_THREAD_POOL_WORK_STEALING = "qpid.port.amqp.threadPool.workStealing";
     String PORT_AMQP_ACCEPT_BACKLOG = "qpid.port.amqp.acceptBacklog";
     String PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE = "qpid.port.amqp.outboundMessageBufferSize";
+    String PORT_AMQP_WRITE_COALESCING = "qpid.port.amqp.writeCoalescing";
+    String PORT_AMQP_WRITE_COALESCING_MAX_BYTES = "qpid.port.amqp.writeCoalescing.maxBytes";
+    String PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS = "qpid.port.amqp.writeCoalescing.maxDelayMicros";
+    String PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE = "qpid.port.amqp.tls.handshakeThreadPool.size";
+    String PORT_AMQP_TLS_SESSION_CACHE_SIZE = "qpid.port.amqp.tls.sessionCacheSize";
+    String PORT_AMQP_TLS_SESSION_TIMEOUT = "qpid.port.amqp.tls.sessionTimeout";
 
     @ManagedContextDefault(name = DEFAULT_AMQP_PROTOCOLS)
     String INSTALLED_PROTOCOLS = AmqpPortImpl.getInstalledProtocolsAsString();
@@ -80,6 +87,12 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedContextDefault(name = PORT_AMQP_NUMBER_OF_SELECTORS)
     long DEFAULT_PORT_AMQP_NUMBER_OF_SELECTORS = Math.max(DEFAULT_PORT_AMQP_THREAD_POOL_SIZE / 8, 1);
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_THREAD_POOL_WORK_STEALING,
+            description = "If true, each thread of the pool has its own queue of work, a connection is preferably"
+                          + " run by the thread which last ran it, and idle threads steal work from busy ones")
+    boolean DEFAULT_PORT_AMQP_THREAD_POOL_WORK_STEALING = false;
+
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = PORT_AMQP_ACCEPT_BACKLOG)
     int DEFAULT_PORT_AMQP_ACCEPT_BACKLOG = 1024;
@@ -93,6 +106,40 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedContextDefault(name = PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE)
     long DEFAULT_PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE = 1024 * 1024;
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_WRITE_COALESCING,
+            description = "If true, while a connection has inbound data still to process its outbound frames are"
+                          + " gathered and written together, up to the byte and delay budgets given by "
+                          + PORT_AMQP_WRITE_COALESCING_MAX_BYTES + " and "
+                          + PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS)
+    boolean DEFAULT_PORT_AMQP_WRITE_COALESCING = false;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_WRITE_COALESCING_MAX_BYTES,
+            description = "The number of outbound bytes gathered at which a coalesced write is made")
+    long DEFAULT_PORT_AMQP_WRITE_COALESCING_MAX_BYTES = 64 * 1024;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS,
+            description = "The time in microseconds after which gathered outbound bytes are written")
+    long DEFAULT_PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS = 200;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE,
+            description = "The number of threads which run the CPU intensive tasks of TLS handshakes, so that"
+                          + " handshakes do not hold up the I/O threads.  If zero, the tasks are run by the I/O threads")
+    int DEFAULT_PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_TLS_SESSION_CACHE_SIZE,
+            description = "The maximum number of TLS sessions cached for resumption.  If zero, the number is unlimited")
+    int DEFAULT_PORT_AMQP_TLS_SESSION_CACHE_SIZE = 20480;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_TLS_SESSION_TIMEOUT,
+            description = "The time in seconds for which a cached TLS session can be resumed.  If zero, there is no limit")
+    int DEFAULT_PORT_AMQP_TLS_SESSION_TIMEOUT = 86400;
+
 
     String PROTOCOL_HANDSHAKE_TIMEOUT = "qpid.port.protocol_handshake_timeout";
 
@@ -143,6 +190,31 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Connections")
     int getConnectionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "TLS handshakes")
+    long getTlsHandshakeCount();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "TLS sessions resumed")
+    long getTlsSessionReuseCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "TLS handshake time (median)")
+    long getTlsHandshakeTimeMedian();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "TLS handshake time (99th percentile)")
+    long getTlsHandshakeTime99thPercentile();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "TLS handshake time (maximum)")
+    long getTlsHandshakeTimeMaximum();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "I/O tasks stolen",
+                      description = "The number of I/O tasks an I/O thread took from the queue of another I/O thread."
+                                    + " Zero unless " + PORT_AMQP_THREAD_POOL_WORK_STEALING + " is true.")
+    long getThreadPoolTasksStolen();
+
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "I/O threads busy time",
+                      description = "The total time in milliseconds the I/O threads have spent running I/O tasks."
+                                    + " Zero unless " + PORT_AMQP_THREAD_POOL_WORK_STEALING + " is true.")
+    long getThreadPoolBusyTime();
+
     @DerivedAttribute(description = "Maximum time allowed for a new connection to send a protocol header."
                                     + " If the connection does not send a protocol header within this time,"
                                     + " the connection will be aborted.")
@@ -156,5 +228,13 @@ public interface AmqpPort<X extends AmqpPort<X>> extends ClientAuthCapablePort<X
 
     int decrementConnectionCount();
 
+    /**
+     * Records a completed TLS handshake.
+     *
+     * @param handshakeTime the time in milliseconds the handshake took
+     * @param sessionReused true if the handshake resumed a cached TLS session
+     */
+    void registerTlsHandshake(long handshakeTime, boolean sessionReused);
+
     int getNetworkBufferSize();
 }
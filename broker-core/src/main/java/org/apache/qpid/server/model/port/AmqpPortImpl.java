@@ -35,9 +35,11 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.security.auth.Subject;
@@ -57,7 +59,9 @@ import org.apache.qpid.server.model.*;
 import org.apache.qpid.server.plugin.ProtocolEngineCreator;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.plugin.TransportProviderFactory;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.transport.AcceptingTransport;
+import org.apache.qpid.server.transport.NetworkConnectionScheduler;
 import org.apache.qpid.server.transport.PortBindFailureException;
 import org.apache.qpid.server.transport.TransportProvider;
 import org.apache.qpid.server.util.PortUtil;
@@ -113,12 +117,15 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
 
     private final AtomicInteger _connectionCount = new AtomicInteger();
     private final AtomicBoolean _connectionCountWarningGiven = new AtomicBoolean();
+    private final AtomicLong _tlsHandshakeCount = new AtomicLong();
+    private final AtomicLong _tlsSessionReuseCount = new AtomicLong();
+    private final LatencyHistogram _tlsHandshakeTime = new LatencyHistogram();
 
     private final Broker<?> _broker;
     private final int _connectionWarnCount;
     private final AtomicBoolean _closing = new AtomicBoolean();
     private final SettableFuture _noConnectionsRemain = SettableFuture.create();
-    private AcceptingTransport _transport;
+    private volatile AcceptingTransport _transport;
     private SSLContext _sslContext;
     private volatile long _protocolHandshakeTimeout;
 
@@ -442,6 +449,13 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
             }
             sslContext.init(keyManagers, trustManagers, null);
 
+            SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+            if (sessionContext != null)
+            {
+                sessionContext.setSessionCacheSize(getContextValue(Integer.class, PORT_AMQP_TLS_SESSION_CACHE_SIZE));
+                sessionContext.setSessionTimeout(getContextValue(Integer.class, PORT_AMQP_TLS_SESSION_TIMEOUT));
+            }
+
             return sslContext;
 
         }
@@ -651,6 +665,67 @@ public class AmqpPortImpl extends AbstractClientAuthCapablePortWithAuthProvider<
         return _connectionCount.get();
     }
 
+    @Override
+    public void registerTlsHandshake(final long handshakeTime, final boolean sessionReused)
+    {
+        _tlsHandshakeCount.incrementAndGet();
+        if (sessionReused)
+        {
+            _tlsSessionReuseCount.incrementAndGet();
+        }
+        _tlsHandshakeTime.recordValue(handshakeTime);
+    }
+
+    @Override
+    public long getTlsHandshakeCount()
+    {
+        return _tlsHandshakeCount.get();
+    }
+
+    @Override
+    public long getTlsSessionReuseCount()
+    {
+        return _tlsSessionReuseCount.get();
+    }
+
+    @Override
+    public long getTlsHandshakeTimeMedian()
+    {
+        return _tlsHandshakeTime.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getTlsHandshakeTime99thPercentile()
+    {
+        return _tlsHandshakeTime.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getTlsHandshakeTimeMaximum()
+    {
+        return _tlsHandshakeTime.getMaximum();
+    }
+
+    @Override
+    public long getThreadPoolTasksStolen()
+    {
+        NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? 0L : scheduler.getTasksStolen();
+    }
+
+    @Override
+    public long getThreadPoolBusyTime()
+    {
+        NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? 0L : scheduler.getBusyTime();
+    }
+
+    private NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        AcceptingTransport transport = _transport;
+        return transport == null ? null : transport.getNetworkConnectionScheduler();
+    }
+
     @Override
     public long getProtocolHandshakeTimeout()
     {
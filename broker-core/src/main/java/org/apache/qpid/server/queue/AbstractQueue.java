@@ -87,6 +87,7 @@ import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.protocol.AMQSessionModel;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.auth.AuthenticatedPrincipal;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.MessageDurability;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -101,6 +102,7 @@ import org.apache.qpid.server.util.Deletable;
 import org.apache.qpid.server.util.MapValueConverter;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
 import org.apache.qpid.server.util.StateChangeListener;
+import org.apache.qpid.server.virtualhost.MessageContentCache;
 import org.apache.qpid.server.virtualhost.VirtualHostUnavailableException;
 import org.apache.qpid.transport.TransportException;
 
@@ -127,6 +129,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     };
 
     private static final long INITIAL_TARGET_QUEUE_SIZE = 102400l;
+    private static final long EXPIRY_INDEX_TICK = 1000L;
 
     private final VirtualHost<?> _virtualHost;
     private final DeletedChildListener _deletedChildListener = new DeletedChildListener();
@@ -138,6 +141,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
 
     private final QueueConsumerList _consumerList = new QueueConsumerList();
+    private final QueueSelectorIndex _selectorIndex = new QueueSelectorIndex();
 
     private volatile QueueConsumer<?> _exclusiveSubscriber;
 
@@ -163,6 +167,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private final AtomicLong _persistentMessageDequeueCount = new AtomicLong();
     private final AtomicLong _unackedMsgCount = new AtomicLong(0);
     private final AtomicLong _unackedMsgBytes = new AtomicLong();
+    private final LatencyHistogram _deliveryLatency = new LatencyHistogram();
 
     private final AtomicInteger _bindingCountHigh = new AtomicInteger();
 
@@ -230,6 +235,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private final AtomicBoolean _overfull = new AtomicBoolean(false);
     private final FlowToDiskChecker _flowToDiskChecker = new FlowToDiskChecker();
+    private final QueueEntryExpiryIndex _expiryIndex = new QueueEntryExpiryIndex(EXPIRY_INDEX_TICK);
     private final long _estimatedAverageMessageHeaderSize = getContextValue(Long.class, QUEUE_ESTIMATED_MESSAGE_MEMORY_OVERHEAD);
     private final CopyOnWriteArrayList<Binding<?>> _bindings = new CopyOnWriteArrayList<>();
     private Map<String, Object> _arguments;
@@ -915,6 +921,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         if (!isDeleted())
         {
             _consumerList.add(consumer);
+            _selectorIndex.addConsumer(consumer, filters);
 
             if (isDeleted())
             {
@@ -954,6 +961,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
         if (removed)
         {
+            _selectorIndex.removeConsumer(consumer);
             consumer.closeAsync();
             // No longer can the queue have an exclusive consumer
             setExclusiveSubscriber(null);
@@ -1120,9 +1128,17 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             doEnqueue(message, action, enqueueRecord);
         }
 
-        long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
-        _flowToDiskChecker.flowToDiskAndReportIfNecessary(message.getStoredMessage(), estimatedQueueSize,
-                                                          _targetQueueSize.get());
+        MessageContentCache contentCache = _virtualHost.getMessageContentCache();
+        if (contentCache == null)
+        {
+            long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
+            _flowToDiskChecker.flowToDiskAndReportIfNecessary(message.getStoredMessage(), estimatedQueueSize,
+                                                              _targetQueueSize.get());
+        }
+        else
+        {
+            contentCache.add(message.getStoredMessage(), message.getSize() + _estimatedAverageMessageHeaderSize);
+        }
     }
 
     public final void recover(ServerMessage message, final MessageEnqueueRecord enqueueRecord)
@@ -1173,6 +1189,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final QueueConsumer<?> exclusiveSub = _exclusiveSubscriber;
         final QueueEntry entry = getEntries().add(message, enqueueRecord);
         updateExpiration(entry);
+        _expiryIndex.add(entry);
 
         try
         {
@@ -1432,10 +1449,39 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
 
         _deliveredMessages.incrementAndGet();
+        _deliveryLatency.recordValue(System.currentTimeMillis() - entry.getMessage().getArrivalTime());
+
+        MessageContentCache contentCache = _virtualHost.getMessageContentCache();
+        if (contentCache != null)
+        {
+            final ServerMessage message = entry.getMessage();
+            contentCache.add(message.getStoredMessage(), message.getSize() + _estimatedAverageMessageHeaderSize);
+            readAheadIfNecessary(sub, entry, contentCache);
+        }
 
         sub.send(entry, batch);
     }
 
+    private void readAheadIfNecessary(final QueueConsumer<?> sub,
+                                      final QueueEntry entry,
+                                      final MessageContentCache contentCache)
+    {
+        final QueueContext context = sub.getQueueContext();
+        if (context != null && contentCache.getReadAhead() > 0)
+        {
+            QueueEntry trigger = context.getReadAheadTrigger();
+            if ((trigger == null || trigger.compareTo(entry) <= 0)
+                && getEntries().next(entry) != null
+                && QueueContext._readAheadScheduledUpdater.compareAndSet(context, 0, 1))
+            {
+                if (!contentCache.readAhead(new ReadAheadTask(context, entry, contentCache)))
+                {
+                    QueueContext._readAheadScheduledUpdater.set(context, 0);
+                }
+            }
+        }
+    }
+
 
     private void setLastSeenEntry(final QueueConsumer<?> sub, final QueueEntry entry)
     {
@@ -1492,6 +1538,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public void dequeue(QueueEntry entry)
     {
+        _expiryIndex.remove(entry);
         decrementQueueCount();
         decrementQueueSize(entry);
         if (entry.acquiredByConsumer())
@@ -1558,6 +1605,20 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _activeSubscriberCount.get();
     }
 
+    @Override
+    public int getMessageGroupCount()
+    {
+        final MessageGroupManager messageGroupManager = _messageGroupManager;
+        return messageGroupManager == null ? 0 : messageGroupManager.getGroupCount();
+    }
+
+    @Override
+    public long getMessageGroupAssignmentCount()
+    {
+        final MessageGroupManager messageGroupManager = _messageGroupManager;
+        return messageGroupManager == null ? 0L : messageGroupManager.getAssignmentCount();
+    }
+
     public boolean isUnused()
     {
         return getConsumerCount() == 0;
@@ -1646,6 +1707,30 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return oldestMessageArrivalTime == 0 ? 0 : System.currentTimeMillis() - oldestMessageArrivalTime;
     }
 
+    @Override
+    public long getDeliveryLatencyMedian()
+    {
+        return _deliveryLatency.getValueAtPercentile(50.0d);
+    }
+
+    @Override
+    public long getDeliveryLatency99thPercentile()
+    {
+        return _deliveryLatency.getValueAtPercentile(99.0d);
+    }
+
+    @Override
+    public long getDeliveryLatencyMaximum()
+    {
+        return _deliveryLatency.getMaximum();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        _deliveryLatency.reset();
+    }
+
     public boolean isDeleted()
     {
         return _deleted.get();
@@ -1723,6 +1808,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _consumerList;
     }
 
+    QueueSelectorIndex getSelectorIndex()
+    {
+        return _selectorIndex;
+    }
+
     public EventLogger getEventLogger()
     {
         return _virtualHost.getEventLogger();
@@ -2475,10 +2565,14 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     public void checkMessageStatus()
     {
-        QueueEntryIterator queueListIterator = getEntries().iterator();
-
-        final long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
-        _flowToDiskChecker.reportFlowToDiskStatusIfNecessary(estimatedQueueSize, _targetQueueSize.get());
+        boolean flowToDisk = _virtualHost.getMessageContentCache() == null;
+        if (flowToDisk)
+        {
+            final long estimatedQueueSize = _atomicQueueSize.get() + _atomicQueueCount.get() * _estimatedAverageMessageHeaderSize;
+            final long targetQueueSize = _targetQueueSize.get();
+            _flowToDiskChecker.reportFlowToDiskStatusIfNecessary(estimatedQueueSize, targetQueueSize);
+            flowToDisk = estimatedQueueSize > targetQueueSize;
+        }
 
         final Set<NotificationCheck> perMessageChecks = new HashSet<>();
         final Set<NotificationCheck> queueLevelChecks = new HashSet<>();
@@ -2498,6 +2592,30 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final long currentTime = System.currentTimeMillis();
         final long thresholdTime = currentTime - getAlertRepeatGap();
 
+        for (QueueEntry node : _expiryIndex.pollExpired(currentTime))
+        {
+            if (!node.isDeleted())
+            {
+                if (node.expired())
+                {
+                    dequeueExpiredEntry(node);
+                }
+                else
+                {
+                    _expiryIndex.add(node);
+                }
+            }
+        }
+
+        // expired entries are found from the index, so the queue is walked only when an entry may need to be
+        // flowed to disk, released from being held or checked for notification
+        if (!flowToDisk && _holdMethods.isEmpty() && perMessageChecks.isEmpty())
+        {
+            checkQueueLevelNotifications(queueLevelChecks, listener, currentTime, thresholdTime);
+            return;
+        }
+
+        QueueEntryIterator queueListIterator = getEntries().iterator();
         long cumulativeQueueSize = 0;
         while (queueListIterator.advance())
         {
@@ -2508,21 +2626,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
                 // If the node has expired then acquire it
                 if (node.expired())
                 {
-                    boolean acquiredForDequeueing = node.acquireOrSteal(new Runnable()
-                    {
-                        @Override
-                        public void run()
-                        {
-                            dequeueEntry(node);
-                        }
-                    });
-
-                    if(acquiredForDequeueing)
-                    {
-                        _logger.debug("Dequeuing expired node {}", node);
-                        // Then dequeue it.
-                        dequeueEntry(node);
-                    }
+                    dequeueExpiredEntry(node);
                 }
                 else
                 {
@@ -2535,9 +2639,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
                     if (msg != null)
                     {
-                        cumulativeQueueSize += msg.getSize() + _estimatedAverageMessageHeaderSize;
-                        _flowToDiskChecker.flowToDiskIfNecessary(msg.getStoredMessage(), cumulativeQueueSize,
-                                                                 _targetQueueSize.get());
+                        if (flowToDisk)
+                        {
+                            cumulativeQueueSize += msg.getSize() + _estimatedAverageMessageHeaderSize;
+                            _flowToDiskChecker.flowToDiskIfNecessary(msg.getStoredMessage(), cumulativeQueueSize,
+                                                                     _targetQueueSize.get());
+                        }
 
                         for(NotificationCheck check : perMessageChecks)
                         {
@@ -2548,11 +2655,37 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
             }
         }
 
+        checkQueueLevelNotifications(queueLevelChecks, listener, currentTime, thresholdTime);
+    }
+
+    private void checkQueueLevelNotifications(final Set<NotificationCheck> queueLevelChecks,
+                                              final QueueNotificationListener listener,
+                                              final long currentTime,
+                                              final long thresholdTime)
+    {
         for(NotificationCheck check : queueLevelChecks)
         {
             checkForNotification(null, listener, currentTime, thresholdTime, check);
         }
+    }
 
+    private void dequeueExpiredEntry(final QueueEntry node)
+    {
+        boolean acquiredForDequeueing = node.acquireOrSteal(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                dequeueEntry(node);
+            }
+        });
+
+        if(acquiredForDequeueing)
+        {
+            _logger.debug("Dequeuing expired node {}", node);
+            // Then dequeue it.
+            dequeueEntry(node);
+        }
     }
 
     @Override
@@ -3445,7 +3578,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         try
         {
-            return selector == null ? null : new JMSSelectorFilter(selector);
+            return selector == null ? null : JMSSelectorFilter.getInstance(selector);
         }
         catch (ParseException | SelectorParsingException | TokenMgrError e)
         {
@@ -3608,6 +3741,89 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
+    /**
+     * Reads ahead the content of the entries following the given entry, continuing from the last entry read ahead
+     * for the consumer if that is further on.  Once the consumer passes the middle of the entries read ahead, the
+     * next read ahead is scheduled.
+     */
+    private class ReadAheadTask implements Runnable
+    {
+        private final QueueContext _context;
+        private final QueueEntry _entry;
+        private final MessageContentCache _contentCache;
+
+        ReadAheadTask(final QueueContext context, final QueueEntry entry, final MessageContentCache contentCache)
+        {
+            _context = context;
+            _entry = entry;
+            _contentCache = contentCache;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                QueueEntry readAheadEntry = _context.getReadAheadEntry();
+                QueueEntry node = readAheadEntry != null && readAheadEntry.compareTo(_entry) > 0
+                        ? readAheadEntry
+                        : _entry;
+                QueueEntry trigger = null;
+                final int readAhead = _contentCache.getReadAhead();
+                QueueEntry next;
+                for (int i = 0; i < readAhead && (next = getEntries().next(node)) != null; i++)
+                {
+                    node = next;
+                    if (i == readAhead / 2)
+                    {
+                        trigger = node;
+                    }
+                    if (!node.isDeleted() && node.isAvailable())
+                    {
+                        load(node);
+                    }
+                }
+                _context.setReadAhead(node, trigger == null ? node : trigger);
+            }
+            catch (RuntimeException e)
+            {
+                _logger.debug("Failed to read ahead message content on queue '{}'", getName(), e);
+            }
+            finally
+            {
+                QueueContext._readAheadScheduledUpdater.set(_context, 0);
+            }
+        }
+
+        private void load(final QueueEntry node)
+        {
+            final MessageReference<?> reference = node.newMessageReference();
+            if (reference != null)
+            {
+                final ServerMessage<?> message = reference.getMessage();
+                try
+                {
+                    if (!node.isDeleted())
+                    {
+                        _contentCache.load(message.getStoredMessage(),
+                                           message.getSize() + _estimatedAverageMessageHeaderSize);
+                    }
+                }
+                finally
+                {
+                    reference.release();
+                }
+
+                // an entry deleted while its content was loaded left the content cached, as the message was still
+                // referenced by the read ahead
+                if (node.isDeleted() && !message.isReferenced())
+                {
+                    _contentCache.remove(message.getStoredMessage());
+                }
+            }
+        }
+    }
+
     private class FlowToDiskChecker
     {
         final AtomicBoolean _lastReportedFlowToDiskStatus = new AtomicBoolean(false);
@@ -20,9 +20,11 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +37,8 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
 
     private final String _groupId;
     private final ConcurrentMap<Integer, QueueConsumer<?>> _groupMap = new ConcurrentHashMap<Integer, QueueConsumer<?>>();
+    private final ConcurrentMap<QueueConsumer<?>, Set<Integer>> _groupsByConsumer = new ConcurrentHashMap<>();
+    private final AtomicLong _assignmentCount = new AtomicLong();
     private final int _groupMask;
 
     public AssignedConsumerMessageGroupManager(final String groupId, final int maxGroups)
@@ -93,8 +97,7 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
                 if(assignedSub == null)
                 {
                     _logger.debug("Assigning group {} to sub {}", groupVal, sub);
-                    assignedSub = _groupMap.putIfAbsent(group, sub);
-                    return assignedSub == null || assignedSub == sub;
+                    return assignGroup(sub, group);
                 }
                 else
                 {
@@ -103,9 +106,56 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
             }
         }
     }
-    
+
+    /**
+     * Assigns the group to the consumer, unless it is already assigned to another consumer.  The group is assigned
+     * and recorded against the consumer while holding the consumer's group set, so that clearing the consumer's
+     * assignments either sees the assignment or happens before it.
+     */
+    private boolean assignGroup(final QueueConsumer<?> sub, final Integer group)
+    {
+        while(true)
+        {
+            Set<Integer> consumerGroups = getConsumerGroups(sub);
+            synchronized (consumerGroups)
+            {
+                if(_groupsByConsumer.get(sub) == consumerGroups)
+                {
+                    QueueConsumer<?> assignedSub = _groupMap.putIfAbsent(group, sub);
+                    if(assignedSub == null)
+                    {
+                        _assignmentCount.incrementAndGet();
+                        consumerGroups.add(group);
+                    }
+                    return assignedSub == null || assignedSub == sub;
+                }
+            }
+        }
+    }
+
+    private Set<Integer> getConsumerGroups(final QueueConsumer<?> sub)
+    {
+        Set<Integer> consumerGroups = _groupsByConsumer.get(sub);
+        if(consumerGroups == null)
+        {
+            consumerGroups = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+            Set<Integer> existing = _groupsByConsumer.putIfAbsent(sub, consumerGroups);
+            if(existing != null)
+            {
+                consumerGroups = existing;
+            }
+        }
+        return consumerGroups;
+    }
+
     public QueueEntry findEarliestAssignedAvailableEntry(QueueConsumer<?> sub)
     {
+        Set<Integer> consumerGroups = _groupsByConsumer.get(sub);
+        if(consumerGroups == null || consumerGroups.isEmpty())
+        {
+            // no groups are assigned to the consumer, so there is no need to visit the queue
+            return null;
+        }
         EntryFinder visitor = new EntryFinder(sub);
         sub.getQueue().visit(visitor);
         return visitor.getEntry();
@@ -155,13 +205,29 @@ public class AssignedConsumerMessageGroupManager implements MessageGroupManager
 
     public void clearAssignments(QueueConsumer<?> sub)
     {
-        Iterator<QueueConsumer<?>> subIter = _groupMap.values().iterator();
-        while(subIter.hasNext())
+        Set<Integer> consumerGroups = _groupsByConsumer.get(sub);
+        if(consumerGroups != null)
         {
-            if(subIter.next() == sub)
+            synchronized (consumerGroups)
             {
-                subIter.remove();
+                _groupsByConsumer.remove(sub, consumerGroups);
+                for(Integer group : consumerGroups)
+                {
+                    _groupMap.remove(group, sub);
+                }
             }
         }
     }
+
+    @Override
+    public int getGroupCount()
+    {
+        return _groupMap.size();
+    }
+
+    @Override
+    public long getAssignmentCount()
+    {
+        return _assignmentCount.get();
+    }
 }
@@ -0,0 +1,224 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * A sorted implementation of QueueEntryList which does not lock.
+ * <p>
+ * Entries are held in a concurrent skip list ordered by sort key and then by entry id, so entries may be added,
+ * found and deleted by many threads at once.  The entry following an entry is found by its position in the ordering
+ * rather than by a link, so it can be found even when the entry itself has been deleted from the list.
+ */
+public class ConcurrentSortedQueueEntryList implements QueueEntryList
+{
+    private final ConcurrentSortedQueueEntry _head;
+    private final ConcurrentSkipListSet<ConcurrentSortedQueueEntry> _entries = new ConcurrentSkipListSet<>();
+    private final AtomicLong _entryId = new AtomicLong(Long.MIN_VALUE);
+    private final SortedQueueImpl _queue;
+    private final String _propertyName;
+
+    public ConcurrentSortedQueueEntryList(final SortedQueueImpl queue)
+    {
+        _queue = queue;
+        _head = new ConcurrentSortedQueueEntry(this);
+        _propertyName = queue.getSortKey();
+    }
+
+    public SortedQueueImpl getQueue()
+    {
+        return _queue;
+    }
+
+    public ConcurrentSortedQueueEntry add(final ServerMessage message, final MessageEnqueueRecord enqueueRecord)
+    {
+        String key = null;
+        final Object val = message.getMessageHeader().getHeader(_propertyName);
+        if(val != null)
+        {
+            key = val.toString();
+        }
+
+        final ConcurrentSortedQueueEntry entry =
+                new ConcurrentSortedQueueEntry(this, message, _entryId.incrementAndGet(), enqueueRecord, key);
+        _entries.add(entry);
+        return entry;
+    }
+
+    public ConcurrentSortedQueueEntry next(final QueueEntry entry)
+    {
+        return _entries.higher((ConcurrentSortedQueueEntry) entry);
+    }
+
+    public QueueEntryIterator iterator()
+    {
+        return new QueueEntryIteratorImpl(_head);
+    }
+
+    public ConcurrentSortedQueueEntry getHead()
+    {
+        return _head;
+    }
+
+    public ConcurrentSortedQueueEntry getTail()
+    {
+        final ConcurrentSortedQueueEntry last = lastOrNull();
+        return last == null ? _head : last;
+    }
+
+    private ConcurrentSortedQueueEntry lastOrNull()
+    {
+        try
+        {
+            return _entries.last();
+        }
+        catch (NoSuchElementException e)
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public QueueEntry getOldestEntry()
+    {
+        QueueEntry oldestEntry = null;
+        for(ConcurrentSortedQueueEntry node : _entries)
+        {
+            if (!node.isDeleted())
+            {
+                ServerMessage msg = node.getMessage();
+                if(msg != null && (oldestEntry == null || oldestEntry.getMessage().getMessageNumber() > msg.getMessageNumber()))
+                {
+                    oldestEntry = node;
+                }
+            }
+        }
+        return oldestEntry;
+    }
+
+    public void entryDeleted(final QueueEntry e)
+    {
+        _entries.remove(e);
+    }
+
+    public int getPriorities()
+    {
+        return 0;
+    }
+
+    public class QueueEntryIteratorImpl implements QueueEntryIterator
+    {
+        private ConcurrentSortedQueueEntry _lastNode;
+
+        public QueueEntryIteratorImpl(final ConcurrentSortedQueueEntry startNode)
+        {
+            _lastNode = startNode;
+        }
+
+        public boolean atTail()
+        {
+            return next(_lastNode) == null;
+        }
+
+        public ConcurrentSortedQueueEntry getNode()
+        {
+            return _lastNode;
+        }
+
+        public boolean advance()
+        {
+            ConcurrentSortedQueueEntry nextNode = next(_lastNode);
+            if(nextNode != null)
+            {
+                ConcurrentSortedQueueEntry following;
+                while(nextNode.isDeleted() && (following = next(nextNode)) != null)
+                {
+                    nextNode = following;
+                }
+                _lastNode = nextNode;
+                return true;
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+
+    static final class ConcurrentSortedQueueEntry extends QueueEntryImpl
+    {
+        private final String _key;
+
+        private ConcurrentSortedQueueEntry(final ConcurrentSortedQueueEntryList queueEntryList)
+        {
+            super(queueEntryList);
+            _key = null;
+        }
+
+        private ConcurrentSortedQueueEntry(final ConcurrentSortedQueueEntryList queueEntryList,
+                                           final ServerMessage message,
+                                           final long entryId,
+                                           final MessageEnqueueRecord messageEnqueueRecord,
+                                           final String key)
+        {
+            super(queueEntryList, message, entryId, messageEnqueueRecord);
+            _key = key;
+        }
+
+        @Override
+        public int compareTo(final QueueEntry other)
+        {
+            ConcurrentSortedQueueEntry o = (ConcurrentSortedQueueEntry)other;
+            final String otherKey = o._key;
+            final int compare = _key == null ? (otherKey == null ? 0 : -1) : otherKey == null ? 1 : _key.compareTo(otherKey);
+            return compare == 0 ? super.compareTo(o) : compare;
+        }
+
+        public String getKey()
+        {
+            return _key;
+        }
+
+        @Override
+        public ConcurrentSortedQueueEntry getNextNode()
+        {
+            return ((ConcurrentSortedQueueEntryList) getQueueEntryList()).next(this);
+        }
+
+        @Override
+        public ConcurrentSortedQueueEntry getNextValidEntry()
+        {
+            return getNextNode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "(" + _key + ")";
+        }
+    }
+}
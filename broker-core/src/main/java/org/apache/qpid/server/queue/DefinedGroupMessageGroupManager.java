@@ -29,23 +29,40 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.ServerMessage;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns each group of messages, identified by the exact value of the group header, to one consumer at a time.
+ * <p>
+ * Groups are held in a concurrent map, and the state of each group is guarded by one of a fixed number of locks
+ * chosen by the group's key, so that messages of different groups can be assigned concurrently.  The groups assigned
+ * to each consumer are also indexed by consumer, so that the entries to redeliver when a consumer is removed can be
+ * found from the entries skipped for its groups rather than by visiting the whole queue.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger _logger = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
 
+    private static final int LOCK_STRIPES = 64;
+
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<Object, Group>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<Object, Group>();
+    private final ConcurrentMap<QueueConsumer<?>, Set<Group>> _groupsByConsumer = new ConcurrentHashMap<>();
+    private final Object[] _locks = new Object[LOCK_STRIPES];
+    private final AtomicLong _assignmentCount = new AtomicLong();
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
     {
         private final Object _group;
+        private final Object _lock;
         private final SortedSet<QueueEntry> _skippedEntries = new TreeSet<>();
         private QueueConsumer<?> _consumer;
         private int _activeCount;
@@ -53,6 +70,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         private Group(final Object key, final QueueConsumer<?> consumer)
         {
             _group = key;
+            _lock = getLock(key);
             _consumer = consumer;
         }
         
@@ -82,8 +100,8 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                     _resetHelper.resetSubPointersForGroups(_skippedEntries.first());
                     _skippedEntries.clear();
                 }
+                removeGroup(this);
                 _consumer = null;
-                _groupMap.remove(_group);
             }
         }
 
@@ -134,6 +152,18 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         {
             _skippedEntries.add(entry);
         }
+
+        public QueueEntry getEarliestAvailableSkippedEntry()
+        {
+            for(QueueEntry entry : _skippedEntries)
+            {
+                if(entry.isAvailable())
+                {
+                    return entry;
+                }
+            }
+            return null;
+        }
     }
 
     public DefinedGroupMessageGroupManager(final String groupId, String defaultGroup, ConsumerResetHelper resetHelper)
@@ -141,36 +171,58 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _groupId = groupId;
         _defaultGroup = defaultGroup;
         _resetHelper = resetHelper;
+        for(int i = 0; i < LOCK_STRIPES; i++)
+        {
+            _locks[i] = new Object();
+        }
     }
-    
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+
+    private Object getLock(final Object groupId)
+    {
+        int hash = groupId.hashCode();
+        hash ^= (hash >>> 16);
+        return _locks[hash & (LOCK_STRIPES - 1)];
+    }
+
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
-        Group group = _groupMap.get(groupId);
-        final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
-        if(!possibleAssignment)
+        synchronized (getLock(groupId))
         {
-            group.addSkippedEntry(entry);
+            Group group = _groupMap.get(groupId);
+            final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
+            if(!possibleAssignment)
+            {
+                group.addSkippedEntry(entry);
+            }
+            return possibleAssignment;
         }
-        return possibleAssignment;
     }
 
-    public synchronized boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        Object groupId = getKey(entry);
+
+        synchronized (getLock(groupId))
+        {
+            return assignMessage(groupId, sub, entry) && entry.acquire(sub);
+        }
     }
 
-    private boolean assignMessage(final QueueConsumer<?> sub, final QueueEntry entry)
+    private boolean assignMessage(final Object groupId, final QueueConsumer<?> sub, final QueueEntry entry)
     {
-        Object groupId = getKey(entry);
         Group group = _groupMap.get(groupId);
 
         if(group == null || !group.isValid())
         {
+            if(group != null)
+            {
+                removeGroup(group);
+            }
             group = new Group(groupId, sub);
 
-            _groupMap.put(groupId, group);
+            addGroup(group);
 
             // there's a small change that the group became empty between the point at which getNextAvailable() was
             // called on the consumer, and when accept message is called... in that case we want to avoid delivering
@@ -195,53 +247,91 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         }
     }
 
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
-    {
-        EntryFinder visitor = new EntryFinder(sub);
-        sub.getQueue().visit(visitor);
-        return visitor.getEntry();
-    }
-
-    private class EntryFinder implements QueueEntryVisitor
+    private void addGroup(final Group group)
     {
-        private QueueEntry _entry;
-        private QueueConsumer _sub;
+        _groupMap.put(group._group, group);
+        _assignmentCount.incrementAndGet();
 
-        public EntryFinder(final QueueConsumer<?> sub)
+        Set<Group> consumerGroups = _groupsByConsumer.get(group.getConsumer());
+        if(consumerGroups == null)
         {
-            _sub = sub;
+            consumerGroups = Collections.newSetFromMap(new ConcurrentHashMap<Group, Boolean>());
+            Set<Group> existing = _groupsByConsumer.putIfAbsent(group.getConsumer(), consumerGroups);
+            if(existing != null)
+            {
+                consumerGroups = existing;
+            }
         }
+        consumerGroups.add(group);
+    }
 
-        public boolean visit(final QueueEntry entry)
+    private void removeGroup(final Group group)
+    {
+        _groupMap.remove(group._group, group);
+        if(group.getConsumer() != null)
         {
-            if(!entry.isAvailable())
+            Set<Group> consumerGroups = _groupsByConsumer.get(group.getConsumer());
+            if(consumerGroups != null)
             {
-                return false;
+                consumerGroups.remove(group);
             }
+        }
+    }
 
-            Object groupId = getKey(entry);
-
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
-            {
-                _entry = entry;
-                return true;
-            }
-            else
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?> sub)
+    {
+        Set<Group> consumerGroups = _groupsByConsumer.get(sub);
+        QueueEntry earliest = null;
+        if(consumerGroups != null)
+        {
+            for(Group group : consumerGroups)
             {
-                return false;
+                synchronized (group._lock)
+                {
+                    if(group.getConsumer() == sub)
+                    {
+                        QueueEntry entry = group.getEarliestAvailableSkippedEntry();
+                        if(entry != null && (earliest == null || entry.compareTo(earliest) < 0))
+                        {
+                            earliest = entry;
+                        }
+                    }
+                }
             }
         }
+        return earliest;
+    }
 
-        public QueueEntry getEntry()
+    public void clearAssignments(final QueueConsumer<?> sub)
+    {
+        Set<Group> consumerGroups = _groupsByConsumer.remove(sub);
+        if(consumerGroups != null)
         {
-            return _entry;
+            for(Group group : consumerGroups)
+            {
+                synchronized (group._lock)
+                {
+                    // groups with acquired messages are removed once those messages are released or dequeued
+                    if(group._activeCount == 0 && group.getConsumer() == sub)
+                    {
+                        _groupMap.remove(group._group, group);
+                        group._consumer = null;
+                    }
+                }
+            }
         }
     }
 
-    
-    public void clearAssignments(final QueueConsumer<?> sub)
+    @Override
+    public int getGroupCount()
+    {
+        return _groupMap.size();
+    }
+
+    @Override
+    public long getAssignmentCount()
     {
+        return _assignmentCount.get();
     }
     
     private Object getKey(QueueEntry entry)
@@ -269,7 +359,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                                  final MessageInstance.State oldState,
                                  final MessageInstance.State newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (_group._lock)
             {
                 if(_group.isValid())
                 {
@@ -36,4 +36,14 @@ public interface MessageGroupManager
     QueueEntry findEarliestAssignedAvailableEntry(QueueConsumer<?> sub);
 
     void clearAssignments(QueueConsumer<?> sub);
+
+    /**
+     * Returns the number of groups currently assigned to consumers.
+     */
+    int getGroupCount();
+
+    /**
+     * Returns the number of times a group has been assigned to a consumer.
+     */
+    long getAssignmentCount();
 }
@@ -20,6 +20,8 @@
 */
 package org.apache.qpid.server.queue;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 
@@ -54,6 +56,13 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
         private final int _priorities;
         private final int _priorityOffset;
 
+        /**
+         * One bit per priority, set when the sub list for the priority may hold entries. The bit is set after an entry
+         * is added to the sub list and is only cleared, when the sub list is found to be empty, before checking that
+         * the sub list is still empty, so a sub list holding entries never has its bit clear for long.
+         */
+        private final AtomicLongArray _occupiedPriorities;
+
         public PriorityQueueMasterList(PriorityQueueImpl queue, int priorities)
         {
             super(queue, DUMMY_HEAD_CREATOR);
@@ -61,6 +70,7 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             _priorityLists = new PriorityQueueEntrySubList[priorities];
             _priorities = priorities;
             _priorityOffset = 5-((priorities + 1)/2);
+            _occupiedPriorities = new AtomicLongArray((priorities + 63) >>> 6);
             for(int i = 0; i < priorities; i++)
             {
                 _priorityLists[i] = new PriorityQueueEntrySubList(queue, i);
@@ -90,8 +100,81 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             {
                 index = 0;
             }
-            return (PriorityQueueEntry) _priorityLists[index].add(message, enqueueRecord);
+            PriorityQueueEntry entry = (PriorityQueueEntry) _priorityLists[index].add(message, enqueueRecord);
+            setOccupied(index);
+            return entry;
+
+        }
+
+        private void setOccupied(final int priority)
+        {
+            final int word = priority >>> 6;
+            final long bit = 1L << priority;
+            long bits;
+            while(((bits = _occupiedPriorities.get(word)) & bit) == 0L)
+            {
+                if(_occupiedPriorities.compareAndSet(word, bits, bits | bit))
+                {
+                    break;
+                }
+            }
+        }
+
+        private void clearOccupied(final int priority)
+        {
+            final int word = priority >>> 6;
+            final long bit = 1L << priority;
+            long bits;
+            while(((bits = _occupiedPriorities.get(word)) & bit) != 0L)
+            {
+                if(_occupiedPriorities.compareAndSet(word, bits, bits & ~bit))
+                {
+                    break;
+                }
+            }
+        }
 
+        /**
+         * Returns the highest priority, no higher than the given priority, whose sub list may hold entries, or -1 if
+         * there is none.
+         */
+        private int getOccupiedPriorityAtOrBelow(final int priority)
+        {
+            if(priority < 0)
+            {
+                return -1;
+            }
+            int word = priority >>> 6;
+            long bits = _occupiedPriorities.get(word) & (-1L >>> (63 - (priority & 63)));
+            while(bits == 0L)
+            {
+                if(--word < 0)
+                {
+                    return -1;
+                }
+                bits = _occupiedPriorities.get(word);
+            }
+            return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+        }
+
+        /**
+         * Returns the first valid entry of the sub list for the given priority, clearing its bit if there is none.
+         */
+        private PriorityQueueEntry getFirstValidEntry(final int priority)
+        {
+            final QueueEntry head = _priorityLists[priority].getHead();
+            PriorityQueueEntry entry = (PriorityQueueEntry) head.getNextValidEntry();
+            if(entry == null)
+            {
+                clearOccupied(priority);
+                // an entry may have been added (and its bit set) since the sub list was found to be empty
+                entry = (PriorityQueueEntry) head.getNextValidEntry();
+                if(entry != null)
+                {
+                    setOccupied(priority);
+                }
+            }
+            return entry;
         }
 
         @Override
@@ -108,17 +191,13 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
 
             if(next == null)
             {
-                final PriorityQueueList nodeEntryList = (PriorityQueueList) ((PriorityQueueEntry)node).getQueueEntryList();
-                int index;
-                for(index = _priorityLists.length-1; _priorityLists[index] != nodeEntryList; index--)
-                {
-                    // do nothing loop is just to find the index
-                }
+                final PriorityQueueEntrySubList nodeEntryList =
+                        (PriorityQueueEntrySubList) ((PriorityQueueEntry)node).getQueueEntryList();
+                int index = nodeEntryList.getListPriority();
 
-                while(next == null && index != 0)
+                while(next == null && (index = getOccupiedPriorityAtOrBelow(index - 1)) >= 0)
                 {
-                    index--;
-                    next = (PriorityQueueEntry) _priorityLists[index].getHead().getNextValidEntry();
+                    next = getFirstValidEntry(index);
                 }
 
             }
@@ -161,7 +240,10 @@ abstract public class PriorityQueueList extends OrderedQueueEntryList
             @Override
             public boolean advance()
             {
-                for(int i = _iterators.length-1; i >= 0; i--)
+                // sub lists without entries cannot advance, so only those which may hold entries are tried
+                for(int i = getOccupiedPriorityAtOrBelow(_iterators.length - 1);
+                    i >= 0;
+                    i = getOccupiedPriorityAtOrBelow(i - 1))
                 {
                     if(_iterators[i].advance())
                     {
@@ -449,6 +449,19 @@ class QueueConsumerImpl
                 {
 
                     Filterable msg = entry.asFilterable();
+                    QueueSelectorIndex selectorIndex = _queue.getSelectorIndex();
+                    if (!selectorIndex.isEmpty())
+                    {
+                        switch (selectorIndex.match(this, entry, msg))
+                        {
+                            case MATCH:
+                                return true;
+                            case NO_MATCH:
+                                return false;
+                            default:
+                                break;
+                        }
+                    }
                     try
                     {
                         return _filters.allAllow(msg);
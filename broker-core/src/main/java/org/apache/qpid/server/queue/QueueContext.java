@@ -21,12 +21,16 @@
 
 package org.apache.qpid.server.queue;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 final class QueueContext
 {
     private volatile QueueEntry _lastSeenEntry;
     private volatile QueueEntry _releasedEntry;
+    private volatile QueueEntry _readAheadEntry;
+    private volatile QueueEntry _readAheadTrigger;
+    private volatile int _readAheadScheduled;
 
     static final AtomicReferenceFieldUpdater<QueueContext, QueueEntry>
             _lastSeenUpdater =
@@ -36,6 +40,10 @@ final class QueueContext
             _releasedUpdater =
         AtomicReferenceFieldUpdater.newUpdater
         (QueueContext.class, QueueEntry.class, "_releasedEntry");
+    static final AtomicIntegerFieldUpdater<QueueContext>
+            _readAheadScheduledUpdater =
+        AtomicIntegerFieldUpdater.newUpdater
+        (QueueContext.class, "_readAheadScheduled");
 
     public QueueContext(QueueEntry head)
     {
@@ -53,6 +61,22 @@ final class QueueContext
         return _releasedEntry;
     }
 
+    QueueEntry getReadAheadEntry()
+    {
+        return _readAheadEntry;
+    }
+
+    QueueEntry getReadAheadTrigger()
+    {
+        return _readAheadTrigger;
+    }
+
+    void setReadAhead(final QueueEntry readAheadEntry, final QueueEntry readAheadTrigger)
+    {
+        _readAheadEntry = readAheadEntry;
+        _readAheadTrigger = readAheadTrigger;
+    }
+
     @Override
     public String toString()
     {
@@ -43,7 +43,13 @@ public interface QueueEntry extends MessageInstance, Comparable<QueueEntry>
 
     void setExpiration(long calculatedExpiration);
 
+    long getExpiration();
+
     MessageReference newMessageReference();
 
     boolean checkHeld(final long evaluationTime);
+
+    QueueSelectorIndex.Matches getSelectorMatches();
+
+    void setSelectorMatches(QueueSelectorIndex.Matches matches);
 }
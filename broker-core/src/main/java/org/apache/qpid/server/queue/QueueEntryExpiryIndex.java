@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of the queue entries which have an expiration, ordered by the tick in which they expire.
+ * <p>
+ * Entries are indexed when enqueued and removed when dequeued, so that the entries which may have expired are
+ * found without walking the queue.  Expirations are rounded up to the end of their tick, so all the entries
+ * expiring within one tick share a bucket.
+ */
+class QueueEntryExpiryIndex
+{
+    private final ConcurrentNavigableMap<Long, Set<QueueEntry>> _buckets = new ConcurrentSkipListMap<>();
+    private final long _tick;
+
+    QueueEntryExpiryIndex(final long tick)
+    {
+        _tick = tick;
+    }
+
+    void add(final QueueEntry entry)
+    {
+        long expiration = entry.getExpiration();
+        if (expiration != 0L)
+        {
+            Long tick = getTick(expiration);
+            while (true)
+            {
+                Set<QueueEntry> bucket = _buckets.get(tick);
+                if (bucket == null)
+                {
+                    Set<QueueEntry> newBucket = Collections.newSetFromMap(new ConcurrentHashMap<QueueEntry, Boolean>());
+                    bucket = _buckets.putIfAbsent(tick, newBucket);
+                    if (bucket == null)
+                    {
+                        bucket = newBucket;
+                    }
+                }
+                bucket.add(entry);
+
+                // the bucket may have been polled concurrently, in which case the entry is added again
+                if (_buckets.get(tick) == bucket)
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    void remove(final QueueEntry entry)
+    {
+        long expiration = entry.getExpiration();
+        if (expiration != 0L)
+        {
+            Set<QueueEntry> bucket = _buckets.get(getTick(expiration));
+            if (bucket != null)
+            {
+                bucket.remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes from the index and returns the entries whose tick has ended by the given time.  An entry that has not
+     * expired by the time it is checked should be added again.
+     */
+    List<QueueEntry> pollExpired(final long time)
+    {
+        List<QueueEntry> entries = new ArrayList<>();
+        Map.Entry<Long, Set<QueueEntry>> bucket;
+        while ((bucket = _buckets.firstEntry()) != null && bucket.getKey() <= time)
+        {
+            if (_buckets.remove(bucket.getKey(), bucket.getValue()))
+            {
+                entries.addAll(bucket.getValue());
+            }
+        }
+        return entries;
+    }
+
+    private long getTick(final long expiration)
+    {
+        long remainder = expiration % _tick;
+        return remainder == 0L ? expiration : expiration - remainder + _tick;
+    }
+}
@@ -39,6 +39,7 @@ import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Exchange;
 import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.txn.LocalTransaction;
@@ -46,6 +47,7 @@ import org.apache.qpid.server.txn.ServerTransaction;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.util.StateChangeListener;
 import org.apache.qpid.server.util.StateChangeListenerEntry;
+import org.apache.qpid.server.virtualhost.MessageContentCache;
 
 public abstract class QueueEntryImpl implements QueueEntry
 {
@@ -113,6 +115,8 @@ public abstract class QueueEntryImpl implements QueueEntry
 
     private final MessageEnqueueRecord _enqueueRecord;
 
+    private volatile QueueSelectorIndex.Matches _selectorMatches;
+
 
     public QueueEntryImpl(QueueEntryList queueEntryList)
     {
@@ -162,6 +166,11 @@ public abstract class QueueEntryImpl implements QueueEntry
         _expiration = expiration;
     }
 
+    public long getExpiration()
+    {
+        return _expiration;
+    }
+
     public InstanceProperties getInstanceProperties()
     {
         return new EntryInstanceProperties();
@@ -577,7 +586,9 @@ public abstract class QueueEntryImpl implements QueueEntry
         {
             _queueEntryList.entryDeleted(this);
             onDelete();
+            final ServerMessage message = _message.getMessage();
             _message.release();
+            removeFromContentCacheIfUnreferenced(message);
 
             return true;
         }
@@ -587,6 +598,16 @@ public abstract class QueueEntryImpl implements QueueEntry
         }
     }
 
+    private void removeFromContentCacheIfUnreferenced(final ServerMessage message)
+    {
+        final VirtualHost<?> virtualHost = getQueue().getVirtualHost();
+        final MessageContentCache contentCache = virtualHost == null ? null : virtualHost.getMessageContentCache();
+        if (contentCache != null && !message.isReferenced())
+        {
+            contentCache.remove(message.getStoredMessage());
+        }
+    }
+
     public void delete()
     {
         if(dequeue())
@@ -719,6 +740,18 @@ public abstract class QueueEntryImpl implements QueueEntry
         return Filterable.Factory.newInstance(getMessage(), getInstanceProperties());
     }
 
+    @Override
+    public QueueSelectorIndex.Matches getSelectorMatches()
+    {
+        return _selectorMatches;
+    }
+
+    @Override
+    public void setSelectorMatches(final QueueSelectorIndex.Matches matches)
+    {
+        _selectorMatches = matches;
+    }
+
     public String toString()
     {
         return "QueueEntryImpl{" +
@@ -0,0 +1,273 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.filter.EqualityPredicate;
+import org.apache.qpid.filter.Expression;
+import org.apache.qpid.filter.FilterableMessage;
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.filter.MessageFilter;
+
+/**
+ * Index over the selectors of the consumers of a queue.
+ * <p>
+ * Consumers whose selector requires a property to equal one of a set of string values (see
+ * {@link EqualityPredicate}) are indexed by property and value.  For each queue entry the index evaluates each
+ * indexed property once and finds the matching consumers by hash lookup; the result is cached on the entry
+ * so that each consumer considering the entry can then determine whether it may be interested with a bit test,
+ * instead of evaluating its own selector.  Consumers whose selector is not fully described by the index
+ * still evaluate their filters, but only for those entries the index has not already ruled out.
+ */
+public final class QueueSelectorIndex
+{
+    public enum Outcome
+    {
+        MATCH,
+        NO_MATCH,
+        EVALUATE
+    }
+
+    private volatile Snapshot _snapshot = new Snapshot(Collections.<QueueConsumer<?>, FilterManager>emptyMap());
+    private final Map<QueueConsumer<?>, FilterManager> _consumers = new LinkedHashMap<>();
+
+    public synchronized void addConsumer(QueueConsumer<?> consumer, FilterManager filters)
+    {
+        if (filters != null && getEqualityPredicate(filters) != null)
+        {
+            _consumers.put(consumer, filters);
+            _snapshot = new Snapshot(_consumers);
+        }
+    }
+
+    public synchronized void removeConsumer(QueueConsumer<?> consumer)
+    {
+        if (_consumers.remove(consumer) != null)
+        {
+            _snapshot = new Snapshot(_consumers);
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return _snapshot.isEmpty();
+    }
+
+    /**
+     * Determines whether the given consumer's filters may match the entry.  A result of {@link Outcome#EVALUATE}
+     * means the index cannot tell, and the consumer must evaluate its filters against the message.
+     */
+    public Outcome match(QueueConsumer<?> consumer, QueueEntry entry, Filterable message)
+    {
+        Snapshot snapshot = _snapshot;
+        IndexedConsumer indexedConsumer = snapshot.getIndexedConsumer(consumer);
+        if (indexedConsumer == null)
+        {
+            return Outcome.EVALUATE;
+        }
+
+        Matches matches = entry.getSelectorMatches();
+        if (matches == null || matches._snapshot != snapshot)
+        {
+            matches = snapshot.evaluate(message);
+            entry.setSelectorMatches(matches);
+        }
+        return matches.getOutcome(indexedConsumer);
+    }
+
+    private static EqualityPredicate<FilterableMessage> getEqualityPredicate(FilterManager filters)
+    {
+        Iterator<MessageFilter> iterator = filters.filters();
+        while (iterator.hasNext())
+        {
+            MessageFilter filter = iterator.next();
+            if (filter instanceof JMSSelectorFilter)
+            {
+                EqualityPredicate<FilterableMessage> predicate = ((JMSSelectorFilter) filter).getEqualityPredicate();
+                if (predicate != null)
+                {
+                    return predicate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasSingleFilter(FilterManager filters)
+    {
+        Iterator<MessageFilter> iterator = filters.filters();
+        if (iterator.hasNext())
+        {
+            iterator.next();
+            return !iterator.hasNext();
+        }
+        return false;
+    }
+
+    /**
+     * The result of evaluating the index against a single message.
+     */
+    public static final class Matches
+    {
+        private final Snapshot _snapshot;
+        private final BitSet _matchingConsumers;
+        private final BitSet _undeterminedProperties;
+
+        private Matches(final Snapshot snapshot,
+                        final BitSet matchingConsumers,
+                        final BitSet undeterminedProperties)
+        {
+            _snapshot = snapshot;
+            _matchingConsumers = matchingConsumers;
+            _undeterminedProperties = undeterminedProperties;
+        }
+
+        private Outcome getOutcome(IndexedConsumer consumer)
+        {
+            if (_undeterminedProperties.get(consumer._propertyNumber))
+            {
+                return Outcome.EVALUATE;
+            }
+            else if (_matchingConsumers.get(consumer._consumerNumber))
+            {
+                return consumer._exact ? Outcome.MATCH : Outcome.EVALUATE;
+            }
+            else
+            {
+                return Outcome.NO_MATCH;
+            }
+        }
+    }
+
+    private static final class IndexedConsumer
+    {
+        private final int _consumerNumber;
+        private final int _propertyNumber;
+        private final boolean _exact;
+
+        private IndexedConsumer(final int consumerNumber, final int propertyNumber, final boolean exact)
+        {
+            _consumerNumber = consumerNumber;
+            _propertyNumber = propertyNumber;
+            _exact = exact;
+        }
+    }
+
+    private static final class PropertyIndex
+    {
+        private final Expression<FilterableMessage> _property;
+        private final Map<String, BitSet> _consumersByValue = new HashMap<>();
+
+        private PropertyIndex(final Expression<FilterableMessage> property)
+        {
+            _property = property;
+        }
+    }
+
+    /**
+     * Immutable state of the index for a given set of consumers.  A new snapshot is created whenever an indexed
+     * consumer is added or removed, which also invalidates any {@link Matches} cached against the old one.
+     */
+    private static final class Snapshot
+    {
+        private final Map<QueueConsumer<?>, IndexedConsumer> _indexedConsumers = new HashMap<>();
+        private final List<PropertyIndex> _properties = new ArrayList<>();
+
+        private Snapshot(final Map<QueueConsumer<?>, FilterManager> consumers)
+        {
+            Map<Expression<FilterableMessage>, Integer> propertyNumbers = new HashMap<>();
+            int consumerNumber = 0;
+            for (Map.Entry<QueueConsumer<?>, FilterManager> entry : consumers.entrySet())
+            {
+                FilterManager filters = entry.getValue();
+                EqualityPredicate<FilterableMessage> predicate = getEqualityPredicate(filters);
+
+                Integer propertyNumber = propertyNumbers.get(predicate.getProperty());
+                if (propertyNumber == null)
+                {
+                    propertyNumber = _properties.size();
+                    propertyNumbers.put(predicate.getProperty(), propertyNumber);
+                    _properties.add(new PropertyIndex(predicate.getProperty()));
+                }
+
+                Map<String, BitSet> consumersByValue = _properties.get(propertyNumber)._consumersByValue;
+                for (String value : predicate.getValues())
+                {
+                    BitSet valueConsumers = consumersByValue.get(value);
+                    if (valueConsumers == null)
+                    {
+                        valueConsumers = new BitSet();
+                        consumersByValue.put(value, valueConsumers);
+                    }
+                    valueConsumers.set(consumerNumber);
+                }
+
+                boolean exact = predicate.isExact() && hasSingleFilter(filters);
+                _indexedConsumers.put(entry.getKey(), new IndexedConsumer(consumerNumber, propertyNumber, exact));
+                consumerNumber++;
+            }
+        }
+
+        private boolean isEmpty()
+        {
+            return _indexedConsumers.isEmpty();
+        }
+
+        private IndexedConsumer getIndexedConsumer(QueueConsumer<?> consumer)
+        {
+            return _indexedConsumers.get(consumer);
+        }
+
+        private Matches evaluate(Filterable message)
+        {
+            BitSet matchingConsumers = new BitSet(_indexedConsumers.size());
+            BitSet undeterminedProperties = new BitSet(_properties.size());
+            for (int i = 0; i < _properties.size(); i++)
+            {
+                PropertyIndex propertyIndex = _properties.get(i);
+                Object value = propertyIndex._property.evaluate(message);
+                if (value instanceof String)
+                {
+                    BitSet valueConsumers = propertyIndex._consumersByValue.get(value);
+                    if (valueConsumers != null)
+                    {
+                        matchingConsumers.or(valueConsumers);
+                    }
+                }
+                else if (value != null)
+                {
+                    undeterminedProperties.set(i);
+                }
+            }
+            return new Matches(this, matchingConsumers, undeterminedProperties);
+        }
+    }
+}
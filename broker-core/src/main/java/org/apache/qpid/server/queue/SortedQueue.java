@@ -21,6 +21,7 @@
 package org.apache.qpid.server.queue;
 
 import org.apache.qpid.server.model.ManagedAttribute;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
 import org.apache.qpid.server.model.Queue;
 
@@ -30,6 +31,13 @@ public interface SortedQueue<X extends SortedQueue<X>> extends Queue<X>
     String SORT_KEY = "sortKey";
     String SORTED_QUEUE_TYPE = "sorted";
 
+    String SORTED_QUEUE_CONCURRENT_ENTRY_LIST = "queue.sorted.concurrentEntryList";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = SORTED_QUEUE_CONCURRENT_ENTRY_LIST,
+            description = "If true, sorted queues hold their entries in a concurrent skip list rather than in a"
+                          + " red-black tree guarded by a single lock")
+    boolean DEFAULT_SORTED_QUEUE_CONCURRENT_ENTRY_LIST = true;
+
     @ManagedAttribute( mandatory = true )
     String getSortKey();
 
@@ -38,7 +38,8 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
 
     @ManagedAttributeField
     private String _sortKey;
-    private SortedQueueEntryList _entries;
+    private QueueEntryList _entries;
+    private boolean _concurrentEntries;
 
     @ManagedObjectFactoryConstructor
     public SortedQueueImpl(Map<String, Object> attributes, VirtualHost<?> virtualHost)
@@ -50,7 +51,15 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
     protected void onOpen()
     {
         super.onOpen();
-        _entries = new SortedQueueEntryList(this);
+        _concurrentEntries = getContextValue(Boolean.class, SORTED_QUEUE_CONCURRENT_ENTRY_LIST);
+        if(_concurrentEntries)
+        {
+            _entries = new ConcurrentSortedQueueEntryList(this);
+        }
+        else
+        {
+            _entries = new SortedQueueEntryList(this);
+        }
     }
 
     @Override
@@ -58,14 +67,22 @@ public class SortedQueueImpl extends OutOfOrderQueue<SortedQueueImpl> implements
                         final Action<? super MessageInstance> action,
                         MessageEnqueueRecord record)
     {
-        synchronized (_sortedQueueLock)
+        if(_concurrentEntries)
         {
+            // the list does not lock, and consumers are moved back to the new entry atomically
             super.doEnqueue(message, action, record);
         }
+        else
+        {
+            synchronized (_sortedQueueLock)
+            {
+                super.doEnqueue(message, action, record);
+            }
+        }
     }
 
     @Override
-    SortedQueueEntryList getEntries()
+    QueueEntryList getEntries()
     {
         return _entries;
     }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies (or any other non-negative values) with bounded relative error.
+ * <p>
+ * Values below {@value #LINEAR_BUCKETS} are counted exactly; larger values are counted in buckets which split each
+ * power of two into {@value #SUB_BUCKETS} equal ranges, so that a value reported from the histogram is within
+ * about six percent of a recorded value.  Values too large to be tracked are counted as the largest trackable value.
+ * Recording a value does not lock.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS << 1;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final long MAX_TRACKABLE_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong _maximum = new AtomicLong();
+
+    public void recordValue(long value)
+    {
+        if (value < 0L)
+        {
+            value = 0L;
+        }
+        _counts.incrementAndGet(getBucket(Math.min(value, MAX_TRACKABLE_VALUE)));
+
+        long maximum;
+        while (value > (maximum = _maximum.get()))
+        {
+            if (_maximum.compareAndSet(maximum, value))
+            {
+                break;
+            }
+        }
+    }
+
+    public long getCount()
+    {
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            count += _counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMaximum()
+    {
+        return _maximum.get();
+    }
+
+    /**
+     * Returns the highest value equivalent to the value below which the given percentage of recorded values fall,
+     * or zero if no values have been recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = _counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0L)
+        {
+            return 0L;
+        }
+
+        long threshold = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0d) / 100.0d * total));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            cumulative += counts[i];
+            if (cumulative >= threshold)
+            {
+                return Math.min(getHighestValue(i), getMaximum());
+            }
+        }
+        return getMaximum();
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            _counts.set(i, 0L);
+        }
+        _maximum.set(0L);
+    }
+
+    static int getBucket(long value)
+    {
+        if (value < LINEAR_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getHighestValue(int bucket)
+    {
+        if (bucket < LINEAR_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -23,10 +23,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This class collects statistics and counts the total, rate per second and
  * peak rate per second values for the events that are registered with it. 
+ * <p>
+ * Recording an event does not lock.  The total is held in a single atomic value until concurrent updates are
+ * seen, at which point the counter switches to a set of striped cells, each updated by a subset of threads, which
+ * are summed when read.  Rather than accumulating the value of the current sample period separately, the total is
+ * recorded at the start of each sample period, and the rate is the difference between consecutive recordings.
  */
 public class StatisticsCounter
 {
@@ -36,14 +42,20 @@ public class StatisticsCounter
 
     private static final String COUNTER = "counter";
     private static final AtomicLong _counterIds = new AtomicLong(0L);
-    
-    private long _peak = 0L;
-    private long _total = 0L;
-    private long _temp = 0L;
-    private long _last = 0L;
-    private long _rate = 0L;
 
-    private long _start;
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors());
+    /** cells are spaced a cache line apart to avoid false sharing */
+    private static final int CELL_SPACING = 8;
+
+    private final AtomicLong _base = new AtomicLong();
+    private volatile AtomicLongArray _cells;
+
+    private volatile long _peak = 0L;
+    private volatile long _rate = 0L;
+    private volatile long _last = 0L;
+    private long _sampleStartTotal = 0L;
+
+    private volatile long _start;
     
     private final long _period;
     private final String _name;
@@ -76,24 +88,57 @@ public class StatisticsCounter
     public void registerEvent(long value, long timestamp)
     {
         long thisSample = (timestamp / _period);
-        synchronized (this)
+        if (thisSample > _last)
+        {
+            startSample(thisSample);
+        }
+
+        if (value != 0L)
+        {
+            add(value);
+        }
+    }
+
+    private synchronized void startSample(long thisSample)
+    {
+        if (thisSample > _last)
         {
-            if (thisSample > _last)
+            long total = getTotal();
+            long rate = total - _sampleStartTotal;
+            _sampleStartTotal = total;
+            _rate = rate;
+            if (rate > _peak)
             {
-                _last = thisSample;
-                _rate = _temp;
-                _temp = 0L;
-                if (_rate > _peak)
-                {
-                    _peak = _rate;
-                }
+                _peak = rate;
             }
-            
-            _total += value;
-            _temp += value;
+            _last = thisSample;
         }
     }
-    
+
+    private void add(long value)
+    {
+        AtomicLongArray cells = _cells;
+        if (cells == null)
+        {
+            long base = _base.get();
+            if (_base.compareAndSet(base, base + value))
+            {
+                return;
+            }
+            cells = getOrCreateCells();
+        }
+        cells.addAndGet(((int) Thread.currentThread().getId() & (STRIPES - 1)) * CELL_SPACING, value);
+    }
+
+    private synchronized AtomicLongArray getOrCreateCells()
+    {
+        if (_cells == null)
+        {
+            _cells = new AtomicLongArray(STRIPES * CELL_SPACING);
+        }
+        return _cells;
+    }
+
     /**
      * Update the current rate and peak - may reset rate to zero if a new
      * sample period has started.
@@ -106,12 +151,21 @@ public class StatisticsCounter
     /**
      * Reset 
      */
-    public void reset()
+    public synchronized void reset()
     {
         _log.info("Resetting statistics for counter: " + _name);
         _peak = 0L;
         _rate = 0L;
-        _total = 0L;
+        _base.set(0L);
+        AtomicLongArray cells = _cells;
+        if (cells != null)
+        {
+            for (int i = 0; i < cells.length(); i += CELL_SPACING)
+            {
+                cells.set(i, 0L);
+            }
+        }
+        _sampleStartTotal = 0L;
         _start = System.currentTimeMillis();
         _last = _start / _period;
     }
@@ -130,7 +184,16 @@ public class StatisticsCounter
 
     public long getTotal()
     {
-        return _total;
+        long total = _base.get();
+        AtomicLongArray cells = _cells;
+        if (cells != null)
+        {
+            for (int i = 0; i < cells.length(); i += CELL_SPACING)
+            {
+                total += cells.get(i);
+            }
+        }
+        return total;
     }
 
     public long getStart()
@@ -152,4 +215,14 @@ public class StatisticsCounter
     {
         return _period;
     }
+
+    private static int stripeCount(int processors)
+    {
+        int stripes = 1;
+        while (stripes < processors)
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
 }
@@ -21,7 +21,6 @@
 package org.apache.qpid.server.store;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -34,11 +33,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -75,6 +79,9 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     private static final int DB_VERSION = 8;
 
+    /** the maximum number of transactions committed together by the {@link CoalescingCommitter} */
+    private static final int MAX_TRANSACTIONS_PER_COMMIT = 1024;
+
     private final AtomicLong _messageId = new AtomicLong(0);
 
     private static final String CREATE_DB_VERSION_TABLE = "CREATE TABLE "+ DB_VERSION_TABLE_NAME + " ( version int not null )";
@@ -87,6 +94,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     private static final String DELETE_FROM_QUEUE_ENTRY = "DELETE FROM " + QUEUE_ENTRY_TABLE_NAME + " WHERE queue_id = ? AND message_id =?";
     private static final String SELECT_FROM_QUEUE_ENTRY = "SELECT queue_id, message_id FROM " + QUEUE_ENTRY_TABLE_NAME + " ORDER BY queue_id, message_id";
     private static final String SELECT_FROM_QUEUE_ENTRY_FOR_QUEUE = "SELECT queue_id, message_id FROM " + QUEUE_ENTRY_TABLE_NAME + " WHERE queue_id = ? ORDER BY queue_id, message_id";
+    private static final String SELECT_LAST_MESSAGE_ID_FROM_QUEUE_ENTRY = "SELECT MAX(message_id) FROM " + QUEUE_ENTRY_TABLE_NAME + " WHERE queue_id = ?";
 
     private static final String INSERT_INTO_MESSAGE_CONTENT = "INSERT INTO " + MESSAGE_CONTENT_TABLE_NAME
                                                               + "( message_id, content ) values (?, ?)";
@@ -123,6 +131,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     protected abstract void checkMessageStoreOpen();
     private ScheduledThreadPoolExecutor _executor;
+    private final CoalescingCommitter _committer = new CoalescingCommitter();
 
     public AbstractJDBCMessageStore()
     {
@@ -451,63 +460,6 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return _messageId.incrementAndGet();
     }
 
-    private void removeMessage(long messageId)
-    {
-        try
-        {
-            Connection conn = newConnection();
-            try
-            {
-                PreparedStatement stmt = conn.prepareStatement(DELETE_FROM_META_DATA);
-                try
-                {
-                    stmt.setLong(1,messageId);
-                    int results = stmt.executeUpdate();
-                    stmt.close();
-
-                    if (results == 0)
-                    {
-                        getLogger().debug("Message id {} not found (attempt to remove failed - probably application initiated rollback)", messageId);
-                    }
-
-                    getLogger().debug("Deleted metadata for message {}", messageId);
-
-                    stmt = conn.prepareStatement(DELETE_FROM_MESSAGE_CONTENT);
-                    stmt.setLong(1, messageId);
-                    results = stmt.executeUpdate();
-                }
-                finally
-                {
-                    stmt.close();
-                }
-                conn.commit();
-            }
-            catch(SQLException e)
-            {
-                try
-                {
-                    conn.rollback();
-                }
-                catch(SQLException t)
-                {
-                    // ignore - we are re-throwing underlying exception
-                }
-
-                throw e;
-
-            }
-            finally
-            {
-                conn.close();
-            }
-        }
-        catch (SQLException e)
-        {
-            throw new StoreException("Error removing message with id " + messageId + " from database: " + e.getMessage(), e);
-        }
-
-    }
-
     /**
      * Convenience method to create a new Connection configured for TRANSACTION_READ_COMMITED
      * isolation and with auto-commit transactions enabled.
@@ -571,71 +523,6 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return new JDBCTransaction();
     }
 
-    private void enqueueMessage(ConnectionWrapper connWrapper, final TransactionLogResource queue, Long messageId) throws StoreException
-    {
-        Connection conn = connWrapper.getConnection();
-
-
-        try
-        {
-            if (getLogger().isDebugEnabled())
-            {
-                getLogger().debug("Enqueuing message {} on queue {} with id {} [Connection {}]",
-                                  messageId, queue.getName(), queue.getId(), conn);
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(INSERT_INTO_QUEUE_ENTRY))
-            {
-                stmt.setString(1, queue.getId().toString());
-                stmt.setLong(2, messageId);
-                stmt.executeUpdate();
-            }
-
-        }
-        catch (SQLException e)
-        {
-            getLogger().error("Failed to enqueue message {}", messageId, e);
-            throw new StoreException("Error writing enqueued message with id " + messageId + " for queue " + queue.getName() + " with id " + queue.getId()
-                                     + " to database", e);
-        }
-
-    }
-
-    private void dequeueMessage(ConnectionWrapper connWrapper, final UUID queueId,
-                                Long messageId) throws StoreException
-    {
-
-        Connection conn = connWrapper.getConnection();
-
-        try
-        {
-            try (PreparedStatement stmt = conn.prepareStatement(DELETE_FROM_QUEUE_ENTRY))
-            {
-                stmt.setString(1, queueId.toString());
-                stmt.setLong(2, messageId);
-                int results = stmt.executeUpdate();
-
-
-                if (results != 1)
-                {
-                    throw new StoreException("Unable to find message with id " + messageId
-                                             + " on queue with id " + queueId);
-                }
-
-                getLogger().debug("Dequeuing message {} on queue with id {}", messageId, queueId);
-
-            }
-
-        }
-        catch (SQLException e)
-        {
-            getLogger().error("Failed to dequeue message {}", messageId, e);
-            throw new StoreException("Error deleting enqueued message with id " + messageId + " for queue with id "
-                                     + queueId + " from database", e);
-        }
-
-    }
-
     private void removeXid(ConnectionWrapper connWrapper, long format, byte[] globalId, byte[] branchId)
             throws StoreException
     {
@@ -734,7 +621,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
                     {
                         stmt.setString(5, record.getResource().getId().toString());
                         stmt.setLong(6, record.getMessage().getMessageNumber());
-                        stmt.executeUpdate();
+                        stmt.addBatch();
                     }
                 }
 
@@ -745,10 +632,15 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
                     {
                         stmt.setString(5, record.getEnqueueRecord().getQueueId().toString());
                         stmt.setLong(6, record.getEnqueueRecord().getMessageNumber());
-                        stmt.executeUpdate();
+                        stmt.addBatch();
                     }
                 }
 
+                if((enqueues != null && enqueues.length != 0) || (dequeues != null && dequeues.length != 0))
+                {
+                    stmt.executeBatch();
+                }
+
             }
             finally
             {
@@ -797,28 +689,6 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         }
     }
 
-    private <X> ListenableFuture<X> commitTranAsync(final ConnectionWrapper connWrapper, final X val) throws StoreException
-    {
-        final SettableFuture<X> future = SettableFuture.create();
-        _executor.submit(new Runnable()
-                        {
-                            @Override
-                            public void run()
-                            {
-                                try
-                                {
-                                    commitTran(connWrapper);
-                                    future.set(val);
-                                }
-                                catch (RuntimeException e)
-                                {
-                                    future.setException(e);
-                                }
-                            }
-                        });
-        return future;
-    }
-
     private void abortTran(ConnectionWrapper connWrapper) throws StoreException
     {
         if (connWrapper == null)
@@ -841,54 +711,17 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     }
 
-    private void storeMetaData(Connection conn, long messageId, StorableMessageMetaData metaData)
-            throws SQLException
+    private static byte[] encodeMetaData(StorableMessageMetaData metaData)
     {
-        getLogger().debug("Adding metadata for message {}", messageId);
-
-        PreparedStatement stmt = conn.prepareStatement(INSERT_INTO_META_DATA);
-        try
-        {
-            stmt.setLong(1, messageId);
-
-            final int bodySize = 1 + metaData.getStorableSize();
-            byte[] underlying = new byte[bodySize];
-            underlying[0] = (byte) metaData.getType().ordinal();
-            QpidByteBuffer buf = QpidByteBuffer.wrap(underlying);
-            buf.position(1);
-            buf = buf.slice();
-
-            metaData.writeToBuffer(buf);
-            ByteArrayInputStream bis = new ByteArrayInputStream(underlying);
-            try
-            {
-                stmt.setBinaryStream(2, bis, underlying.length);
-                int result = stmt.executeUpdate();
-
-                if (result == 0)
-                {
-                    throw new StoreException("Unable to add meta data for message " + messageId);
-                }
-            }
-            finally
-            {
-                try
-                {
-                    bis.close();
-                }
-                catch (IOException e)
-                {
-
-                    throw new SQLException(e);
-                }
-            }
-
-        }
-        finally
-        {
-            stmt.close();
-        }
-
+        final int bodySize = 1 + metaData.getStorableSize();
+        byte[] underlying = new byte[bodySize];
+        underlying[0] = (byte) metaData.getType().ordinal();
+        QpidByteBuffer buf = QpidByteBuffer.wrap(underlying);
+        buf.position(1);
+        buf = buf.slice();
+
+        metaData.writeToBuffer(buf);
+        return underlying;
     }
 
 
@@ -1009,13 +842,8 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     protected abstract byte[] getBlobAsBytes(ResultSet rs, int col) throws SQLException;
 
-    private void addContent(final Connection conn, long messageId,
-                            Collection<QpidByteBuffer> contentBody)
+    private static byte[] encodeContent(Collection<QpidByteBuffer> contentBody)
     {
-        getLogger().debug("Adding content for message {}", messageId);
-
-        PreparedStatement stmt = null;
-
         int size = 0;
 
         for(QpidByteBuffer buf : contentBody)
@@ -1028,23 +856,454 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             buf.copyTo(dst);
         }
+        return data;
+    }
 
-        try
+    /**
+     * Accumulates the writes of one or more transactions in one JDBC batch for each kind of statement, so that the
+     * writes reach the database in a few round trips.  Messages and queue entries are inserted before queue entries
+     * are deleted, and messages are deleted last, so a message may be enqueued, dequeued and removed in one batch.
+     */
+    private final class WriteBatch
+    {
+        private final Connection _connection;
+        private final List<StoredJDBCMessage<?>> _messages = new ArrayList<>();
+        private final List<MessageEnqueueRecord> _dequeues = new ArrayList<>();
+        private final List<Long> _removedMessageIds = new ArrayList<>();
+        private PreparedStatement _metaDataStatement;
+        private PreparedStatement _contentStatement;
+        private PreparedStatement _enqueueStatement;
+        private PreparedStatement _dequeueStatement;
+        private PreparedStatement _removeMetaDataStatement;
+        private PreparedStatement _removeContentStatement;
+
+        private WriteBatch(final Connection connection)
+        {
+            _connection = connection;
+        }
+
+        void addMessage(StoredJDBCMessage<?> message,
+                        StorableMessageMetaData metaData,
+                        Collection<QpidByteBuffer> content) throws SQLException
         {
+            long messageId = message.getMessageNumber();
+            if (_metaDataStatement == null)
+            {
+                _metaDataStatement = _connection.prepareStatement(INSERT_INTO_META_DATA);
+                _contentStatement = _connection.prepareStatement(INSERT_INTO_MESSAGE_CONTENT);
+            }
+
+            byte[] metaDataBytes = encodeMetaData(metaData);
+            _metaDataStatement.setLong(1, messageId);
+            _metaDataStatement.setBinaryStream(2, new ByteArrayInputStream(metaDataBytes), metaDataBytes.length);
+            _metaDataStatement.addBatch();
+
+            byte[] contentBytes = encodeContent(content);
+            _contentStatement.setLong(1, messageId);
+            _contentStatement.setBinaryStream(2, new ByteArrayInputStream(contentBytes), contentBytes.length);
+            _contentStatement.addBatch();
 
-            stmt = conn.prepareStatement(INSERT_INTO_MESSAGE_CONTENT);
-            stmt.setLong(1, messageId);
-            stmt.setBinaryStream(2, new ByteArrayInputStream(data), data.length);
-            stmt.executeUpdate();
+            _messages.add(message);
         }
-        catch (SQLException e)
+
+        void addEnqueue(MessageEnqueueRecord record) throws SQLException
         {
-            JdbcUtils.closeConnection(conn, getLogger());
-            throw new StoreException("Error adding content for message " + messageId + ": " + e.getMessage(), e);
+            if (_enqueueStatement == null)
+            {
+                _enqueueStatement = _connection.prepareStatement(INSERT_INTO_QUEUE_ENTRY);
+            }
+            _enqueueStatement.setString(1, record.getQueueId().toString());
+            _enqueueStatement.setLong(2, record.getMessageNumber());
+            _enqueueStatement.addBatch();
         }
-        finally
+
+        void addDequeue(MessageEnqueueRecord record) throws SQLException
         {
-            JdbcUtils.closePreparedStatement(stmt, getLogger());
+            if (_dequeueStatement == null)
+            {
+                _dequeueStatement = _connection.prepareStatement(DELETE_FROM_QUEUE_ENTRY);
+            }
+            _dequeueStatement.setString(1, record.getQueueId().toString());
+            _dequeueStatement.setLong(2, record.getMessageNumber());
+            _dequeueStatement.addBatch();
+            _dequeues.add(record);
+        }
+
+        void addRemove(long messageId) throws SQLException
+        {
+            if (_removeMetaDataStatement == null)
+            {
+                _removeMetaDataStatement = _connection.prepareStatement(DELETE_FROM_META_DATA);
+                _removeContentStatement = _connection.prepareStatement(DELETE_FROM_MESSAGE_CONTENT);
+            }
+            _removeMetaDataStatement.setLong(1, messageId);
+            _removeMetaDataStatement.addBatch();
+            _removeContentStatement.setLong(1, messageId);
+            _removeContentStatement.addBatch();
+            _removedMessageIds.add(messageId);
+        }
+
+        void execute() throws SQLException
+        {
+            if (_metaDataStatement != null)
+            {
+                int[] results = _metaDataStatement.executeBatch();
+                for (int i = 0; i < results.length; i++)
+                {
+                    if (results[i] == 0)
+                    {
+                        throw new StoreException("Unable to add meta data for message "
+                                                 + _messages.get(i).getMessageNumber());
+                    }
+                }
+                _contentStatement.executeBatch();
+            }
+            if (_enqueueStatement != null)
+            {
+                _enqueueStatement.executeBatch();
+            }
+            if (_dequeueStatement != null)
+            {
+                int[] results = _dequeueStatement.executeBatch();
+                for (int i = 0; i < results.length; i++)
+                {
+                    if (results[i] == 0)
+                    {
+                        MessageEnqueueRecord record = _dequeues.get(i);
+                        throw new StoreException("Unable to find message with id " + record.getMessageNumber()
+                                                 + " on queue with id " + record.getQueueId());
+                    }
+                }
+            }
+            if (_removeMetaDataStatement != null)
+            {
+                int[] results = _removeMetaDataStatement.executeBatch();
+                for (int i = 0; i < results.length; i++)
+                {
+                    if (results[i] == 0)
+                    {
+                        getLogger().debug("Message id {} not found (attempt to remove failed - probably application initiated rollback)",
+                                          _removedMessageIds.get(i));
+                    }
+                }
+                _removeContentStatement.executeBatch();
+            }
+            getLogger().debug("Wrote {} messages, {} dequeues and {} removals in batch",
+                              _messages.size(), _dequeues.size(), _removedMessageIds.size());
+        }
+
+        /**
+         * Notifies the messages added to this batch that the transaction writing them has been rolled back, so that
+         * they are written again when they are next stored.
+         */
+        void rolledBack()
+        {
+            for (StoredJDBCMessage<?> message : _messages)
+            {
+                message.storeRolledBack();
+            }
+        }
+
+        void close()
+        {
+            JdbcUtils.closePreparedStatement(_metaDataStatement, getLogger());
+            JdbcUtils.closePreparedStatement(_contentStatement, getLogger());
+            JdbcUtils.closePreparedStatement(_enqueueStatement, getLogger());
+            JdbcUtils.closePreparedStatement(_dequeueStatement, getLogger());
+            JdbcUtils.closePreparedStatement(_removeMetaDataStatement, getLogger());
+            JdbcUtils.closePreparedStatement(_removeContentStatement, getLogger());
+        }
+    }
+
+    /**
+     * A write made to the store by a transaction or by the removal of a message.
+     */
+    private interface StoreWrite
+    {
+        void writeTo(WriteBatch batch) throws SQLException;
+    }
+
+    private final class MessageRemoval implements StoreWrite
+    {
+        private final long _messageId;
+
+        private MessageRemoval(final long messageId)
+        {
+            _messageId = messageId;
+        }
+
+        @Override
+        public void writeTo(final WriteBatch batch) throws SQLException
+        {
+            batch.addRemove(_messageId);
+        }
+    }
+
+    /**
+     * Commits every write to the store, synchronous or asynchronous, in the order in which the writes are committed.
+     * The writes committed at about the same time are committed together: they are accumulated in one
+     * {@link WriteBatch} and committed on a single connection.  At most one group is being committed at any time,
+     * so the writes committed while it is in progress form the next group.  If a group fails, each of its writes is
+     * committed again on its own, so that only the writes which fail by themselves are aborted.  A write which has
+     * already used a
+     * connection of its own, such as a transaction which has recorded an xid, is committed on that connection after
+     * the writes queued before it.
+     */
+    private final class CoalescingCommitter implements Runnable
+    {
+        private final Queue<CommitJob<?>> _jobQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean _scheduled = new AtomicBoolean();
+        private volatile Thread _committingThread;
+
+        <X> ListenableFuture<X> commitAsync(final StoreWrite write, final ConnectionWrapper connWrapper, final X val)
+        {
+            CommitJob<X> job = new CommitJob<>(write, connWrapper, val);
+            _jobQueue.add(job);
+            scheduleIfNecessary();
+            return job.getFuture();
+        }
+
+        void commit(final StoreWrite write, final ConnectionWrapper connWrapper)
+        {
+            CommitJob<Void> job = new CommitJob<>(write, connWrapper, null);
+            _jobQueue.add(job);
+            if (_committingThread == Thread.currentThread())
+            {
+                // called back from the completion of an earlier group, so commit the queued writes on this thread
+                while (!job.getFuture().isDone())
+                {
+                    commitNextGroup();
+                }
+            }
+            else
+            {
+                scheduleIfNecessary();
+            }
+            job.await();
+        }
+
+        private void scheduleIfNecessary()
+        {
+            if (!_jobQueue.isEmpty() && _scheduled.compareAndSet(false, true))
+            {
+                try
+                {
+                    _executor.execute(this);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    _scheduled.set(false);
+                    StoreException storeException = new StoreException("Message store is closed, transaction aborted", e);
+                    CommitJob<?> job;
+                    while ((job = _jobQueue.poll()) != null)
+                    {
+                        job.abort(storeException);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            _committingThread = Thread.currentThread();
+            try
+            {
+                commitNextGroup();
+            }
+            finally
+            {
+                _committingThread = null;
+                _scheduled.set(false);
+                scheduleIfNecessary();
+            }
+        }
+
+        private void commitNextGroup()
+        {
+            List<CommitJob<?>> jobs = new ArrayList<>();
+            CommitJob<?> job;
+            while (jobs.size() < MAX_TRANSACTIONS_PER_COMMIT && (job = _jobQueue.peek()) != null)
+            {
+                if (job.getConnectionWrapper() != null)
+                {
+                    if (jobs.isEmpty())
+                    {
+                        _jobQueue.poll();
+                        commitOnOwnConnection(job);
+                    }
+                    break;
+                }
+                jobs.add(_jobQueue.poll());
+            }
+            if (!jobs.isEmpty())
+            {
+                commit(jobs);
+            }
+        }
+
+        private void commit(final List<CommitJob<?>> jobs)
+        {
+            RuntimeException failure = commitTogether(jobs);
+            if (failure != null && jobs.size() > 1)
+            {
+                getLogger().debug("Failed to commit {} transactions together, committing them separately",
+                                  jobs.size(), failure);
+                for (CommitJob<?> job : jobs)
+                {
+                    commit(Collections.<CommitJob<?>>singletonList(job));
+                }
+                return;
+            }
+
+            for (CommitJob<?> job : jobs)
+            {
+                if (failure == null)
+                {
+                    job.complete();
+                }
+                else
+                {
+                    job.abort(failure);
+                }
+            }
+        }
+
+        /**
+         * Commits the writes of the given jobs in one transaction, returning the failure if it is rolled back.
+         */
+        private RuntimeException commitTogether(final List<CommitJob<?>> jobs)
+        {
+            RuntimeException failure = null;
+            try (Connection conn = newConnection())
+            {
+                WriteBatch batch = new WriteBatch(conn);
+                try
+                {
+                    for (CommitJob<?> job : jobs)
+                    {
+                        job.getWrite().writeTo(batch);
+                    }
+                    batch.execute();
+                    conn.commit();
+                }
+                catch (SQLException | RuntimeException e)
+                {
+                    conn.rollback();
+                    batch.rolledBack();
+                    throw e;
+                }
+                finally
+                {
+                    batch.close();
+                }
+                getLogger().debug("Committed {} transactions together", jobs.size());
+            }
+            catch (SQLException e)
+            {
+                failure = new StoreException("Error committing transactions", e);
+            }
+            catch (RuntimeException e)
+            {
+                failure = e;
+            }
+            return failure;
+        }
+
+        private void commitOnOwnConnection(final CommitJob<?> job)
+        {
+            ConnectionWrapper connWrapper = job.getConnectionWrapper();
+            WriteBatch batch = new WriteBatch(connWrapper.getConnection());
+            try
+            {
+                try
+                {
+                    job.getWrite().writeTo(batch);
+                    batch.execute();
+                }
+                finally
+                {
+                    batch.close();
+                }
+                commitTran(connWrapper);
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                batch.rolledBack();
+                try
+                {
+                    connWrapper.getConnection().rollback();
+                }
+                catch (SQLException t)
+                {
+                    // ignore - the transaction is aborted with the underlying exception
+                }
+                JdbcUtils.closeConnection(connWrapper.getConnection(), getLogger());
+                job.abort(e instanceof StoreException ? (StoreException) e : new StoreException("Error commit tx", e));
+                return;
+            }
+            job.complete();
+        }
+    }
+
+    private static final class CommitJob<X>
+    {
+        private final StoreWrite _write;
+        private final ConnectionWrapper _connWrapper;
+        private final X _value;
+        private final SettableFuture<X> _future = SettableFuture.create();
+
+        private CommitJob(final StoreWrite write, final ConnectionWrapper connWrapper, final X value)
+        {
+            _write = write;
+            _connWrapper = connWrapper;
+            _value = value;
+        }
+
+        StoreWrite getWrite()
+        {
+            return _write;
+        }
+
+        /**
+         * Returns the connection on which the write must be committed, or null if it may be committed with others.
+         */
+        ConnectionWrapper getConnectionWrapper()
+        {
+            return _connWrapper;
+        }
+
+        ListenableFuture<X> getFuture()
+        {
+            return _future;
+        }
+
+        void complete()
+        {
+            _future.set(_value);
+        }
+
+        void abort(RuntimeException e)
+        {
+            _future.setException(e);
+        }
+
+        void await()
+        {
+            try
+            {
+                _future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new StoreException("Interrupted while waiting for commit", e);
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new StoreException(cause);
+            }
         }
     }
 
@@ -1102,25 +1361,15 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     }
 
 
-    protected class JDBCTransaction implements Transaction
+    protected class JDBCTransaction implements Transaction, StoreWrite
     {
-        private final ConnectionWrapper _connWrapper;
+        private ConnectionWrapper _connWrapper;
         private int _storeSizeIncrease;
-        private final List<Runnable> _preCommitActions = new ArrayList<>();
+        private final List<StoredJDBCMessage<?>> _messagesToStore = new ArrayList<>();
+        private final List<MessageEnqueueRecord> _enqueues = new ArrayList<>();
+        private final List<MessageEnqueueRecord> _dequeues = new ArrayList<>();
         private final List<Runnable> _postCommitActions = new ArrayList<>();
 
-        protected JDBCTransaction()
-        {
-            try
-            {
-                _connWrapper = new ConnectionWrapper(newConnection());
-            }
-            catch (SQLException e)
-            {
-                throw new StoreException(e);
-            }
-        }
-
         @Override
         public MessageEnqueueRecord enqueueMessage(TransactionLogResource queue, EnqueueableMessage message)
         {
@@ -1129,26 +1378,16 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             final StoredMessage storedMessage = message.getStoredMessage();
             if(storedMessage instanceof StoredJDBCMessage)
             {
-                _preCommitActions.add(new Runnable()
-                {
-                    @Override
-                    public void run()
-                    {
-                        try
-                        {
-                            ((StoredJDBCMessage) storedMessage).store(_connWrapper.getConnection());
-                            _storeSizeIncrease += storedMessage.getMetaData().getContentSize();
-                        }
-                        catch (SQLException e)
-                        {
-                            throw new StoreException("Exception on enqueuing message into message store" + _messageId,
-                                                     e);
-                        }
-                    }
-                });
+                _messagesToStore.add((StoredJDBCMessage<?>) storedMessage);
+                _storeSizeIncrease += storedMessage.getMetaData().getContentSize();
             }
-            AbstractJDBCMessageStore.this.enqueueMessage(_connWrapper, queue, message.getMessageNumber());
-            return new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+
+            getLogger().debug("Enqueuing message {} on queue {} with id {}",
+                              message.getMessageNumber(), queue.getName(), queue.getId());
+
+            JDBCEnqueueRecord record = new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+            _enqueues.add(record);
+            return record;
         }
 
         @Override
@@ -1156,17 +1395,17 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.dequeueMessage(_connWrapper,
-                                                         enqueueRecord.getQueueId(),
-                                                         enqueueRecord.getMessageNumber());
+            getLogger().debug("Dequeuing message {} on queue with id {}",
+                              enqueueRecord.getMessageNumber(), enqueueRecord.getQueueId());
+
+            _dequeues.add(enqueueRecord);
         }
 
         @Override
         public void commitTran()
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
-            AbstractJDBCMessageStore.this.commitTran(_connWrapper);
+            _committer.commit(this, prepareCommit());
             storedSizeChange(_storeSizeIncrease);
             doPostCommitActions();
         }
@@ -1175,20 +1414,58 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         public <X> ListenableFuture<X> commitTranAsync(final X val)
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
-            ListenableFuture<X> futureResult = AbstractJDBCMessageStore.this.commitTranAsync(_connWrapper, val);
+            ListenableFuture<X> futureResult = _committer.commitAsync(this, prepareCommit(), val);
             storedSizeChange(_storeSizeIncrease);
             doPostCommitActions();
             return futureResult;
         }
 
-        private void doPreCommitActions()
+        /**
+         * Marks the messages of this transaction as being stored and returns the connection of this transaction's own
+         * on which it must be committed, or null if it may be committed together with other transactions.
+         */
+        private ConnectionWrapper prepareCommit()
         {
-            for(Runnable action : _preCommitActions)
+            for (StoredJDBCMessage<?> storedMessage : _messagesToStore)
             {
-                action.run();
+                storedMessage.storeScheduled();
+            }
+            ConnectionWrapper connWrapper = _connWrapper;
+            _connWrapper = null;
+            return connWrapper;
+        }
+
+        @Override
+        public void writeTo(final WriteBatch batch) throws SQLException
+        {
+            for (StoredJDBCMessage<?> storedMessage : _messagesToStore)
+            {
+                storedMessage.store(batch);
+            }
+            for (MessageEnqueueRecord record : _enqueues)
+            {
+                batch.addEnqueue(record);
+            }
+            for (MessageEnqueueRecord record : _dequeues)
+            {
+                batch.addDequeue(record);
             }
-            _preCommitActions.clear();
+        }
+
+        private ConnectionWrapper getConnectionWrapper()
+        {
+            if (_connWrapper == null)
+            {
+                try
+                {
+                    _connWrapper = new ConnectionWrapper(newConnection());
+                }
+                catch (SQLException e)
+                {
+                    throw new StoreException(e);
+                }
+            }
+            return _connWrapper;
         }
 
         private void doPostCommitActions()
@@ -1204,8 +1481,13 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         public void abortTran()
         {
             checkMessageStoreOpen();
-            _preCommitActions.clear();
-            AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            _messagesToStore.clear();
+            _enqueues.clear();
+            _dequeues.clear();
+            if (_connWrapper != null)
+            {
+                AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            }
         }
 
         @Override
@@ -1213,7 +1495,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.removeXid(_connWrapper,
+            AbstractJDBCMessageStore.this.removeXid(getConnectionWrapper(),
                                                     record.getFormat(),
                                                     record.getGlobalId(),
                                                     record.getBranchId());
@@ -1228,7 +1510,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            _postCommitActions.addAll(AbstractJDBCMessageStore.this.recordXid(_connWrapper, format, globalId, branchId, enqueues, dequeues));
+            _postCommitActions.addAll(AbstractJDBCMessageStore.this.recordXid(getConnectionWrapper(), format, globalId, branchId, enqueues, dequeues));
             return new JDBCStoredXidRecord(format, globalId, branchId);
         }
 
@@ -1400,6 +1682,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         private final long _messageId;
 
         private MessageDataRef<T> _messageDataRef;
+        private boolean _storeScheduled;
 
 
         StoredJDBCMessage(long messageId, T metaData)
@@ -1553,15 +1836,34 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         }
 
         synchronized void store(final Connection conn) throws SQLException
+        {
+            WriteBatch batch = new WriteBatch(conn);
+            try
+            {
+                store(batch);
+                batch.execute();
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                batch.rolledBack();
+                throw e;
+            }
+            finally
+            {
+                batch.close();
+            }
+        }
+
+        synchronized void store(final WriteBatch batch) throws SQLException
         {
             if (!stored())
             {
 
-                AbstractJDBCMessageStore.this.storeMetaData(conn, _messageId, _messageDataRef.getMetaData());
-                AbstractJDBCMessageStore.this.addContent(conn, _messageId,
-                                                         _messageDataRef.getData() == null
-                                                                ? Collections.<QpidByteBuffer>emptySet()
-                                                                : _messageDataRef.getData());
+                batch.addMessage(this,
+                                 _messageDataRef.getMetaData(),
+                                 _messageDataRef.getData() == null
+                                         ? Collections.<QpidByteBuffer>emptySet()
+                                         : _messageDataRef.getData());
 
                 getLogger().debug("Storing message {} to store", _messageId);
 
@@ -1576,6 +1878,29 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             }
         }
 
+        /**
+         * Reverts the message to being held in memory only if the transaction storing it was rolled back, unless its
+         * data has since been flowed to disk.
+         */
+        synchronized void storeRolledBack()
+        {
+            if (stored() && _messageDataRef.getMetaData() != null)
+            {
+                MessageDataRef<T> hardRef = new MessageDataHardRef<>(_messageDataRef.getMetaData());
+                hardRef.setData(_messageDataRef.getData());
+                _messageDataRef = hardRef;
+            }
+        }
+
+        /**
+         * Records that a committed transaction is storing the message, so that its removal must be written to the
+         * store even if the transaction has not yet been written.
+         */
+        synchronized void storeScheduled()
+        {
+            _storeScheduled = true;
+        }
+
         synchronized ListenableFuture<Void> flushToStore()
         {
             if (_messageDataRef != null)
@@ -1599,20 +1924,32 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         }
 
         @Override
-        public synchronized void remove()
+        public void remove()
         {
             getLogger().debug("REMOVE called on message: {}", _messageId);
 
             checkMessageStoreOpen();
-            Collection<QpidByteBuffer> data = _messageDataRef.getData();
+            final boolean removeFromStore;
+            final T metaData;
+            synchronized (this)
+            {
+                removeFromStore = stored() || _storeScheduled;
+                metaData = getMetaData();
+            }
 
-            final T metaData = getMetaData();
-            int delta = metaData.getContentSize();
-            if(stored())
+            // the removal is committed after the writes of the transactions storing the message, which must not be
+            // waited for while holding this message's lock
+            if (removeFromStore)
             {
-                AbstractJDBCMessageStore.this.removeMessage(_messageId);
-                storedSizeChange(-delta);
+                _committer.commit(new MessageRemoval(_messageId), null);
+                storedSizeChange(-metaData.getContentSize());
             }
+            disposeData(metaData);
+        }
+
+        private synchronized void disposeData(final T metaData)
+        {
+            Collection<QpidByteBuffer> data = _messageDataRef.getData();
             if(data != null)
             {
                 _messageDataRef.setData(null);
@@ -1822,6 +2159,39 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
         }
 
+        @Override
+        public long getLastMessageId(TransactionLogResource queue) throws StoreException
+        {
+            checkMessageStoreOpen();
+
+            Connection conn = null;
+            try
+            {
+                conn = newAutoCommitConnection();
+                try (PreparedStatement stmt = conn.prepareStatement(SELECT_LAST_MESSAGE_ID_FROM_QUEUE_ENTRY))
+                {
+                    stmt.setString(1, queue.getId().toString());
+                    try (ResultSet rs = stmt.executeQuery())
+                    {
+                        if (rs.next())
+                        {
+                            long lastMessageId = rs.getLong(1);
+                            return rs.wasNull() ? -1L : lastMessageId;
+                        }
+                        return -1L;
+                    }
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new StoreException("Error encountered when finding the last message instance", e);
+            }
+            finally
+            {
+                JdbcUtils.closeConnection(conn, getLogger());
+            }
+        }
+
         @Override
         public void visitMessageInstances(MessageInstanceHandler handler) throws StoreException
         {
@@ -25,17 +25,22 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import org.apache.qpid.bytebuffer.SlabAllocator;
 import org.apache.qpid.server.message.EnqueueableMessage;
 import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.store.handler.DistributedTransactionHandler;
 import org.apache.qpid.server.store.handler.MessageHandler;
 import org.apache.qpid.server.store.handler.MessageInstanceHandler;
@@ -45,12 +50,18 @@ public class MemoryMessageStore implements MessageStore
 {
     public static final String TYPE = "Memory";
 
+    private static final int MINIMUM_CHUNK_SIZE = 64;
+
     private final AtomicLong _messageId = new AtomicLong(1);
 
-    private final ConcurrentMap<Long, StoredMemoryMessage> _messages = new ConcurrentHashMap<Long, StoredMemoryMessage>();
+    private final ConcurrentMap<Long, StoredMessage<?>> _messages = new ConcurrentHashMap<Long, StoredMessage<?>>();
     private final Object _transactionLock = new Object();
     private final Map<UUID, Set<Long>> _messageInstances = new HashMap<UUID, Set<Long>>();
     private final Map<Xid, DistributedTransactionRecords> _distributedTransactions = new HashMap<Xid, DistributedTransactionRecords>();
+    private volatile SlabAllocator _slabAllocator;
+    private volatile int _decodedMetaDataLimit;
+    private final Queue<StoredOffHeapMessage<?>> _decodedMetaData = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _decodedMetaDataCount = new AtomicInteger();
 
 
     private final class MemoryMessageStoreTransaction implements Transaction
@@ -71,9 +82,10 @@ public class MemoryMessageStore implements MessageStore
         public MessageEnqueueRecord enqueueMessage(TransactionLogResource queue, EnqueueableMessage message)
         {
 
-            if(message.getStoredMessage() instanceof StoredMemoryMessage)
+            StoredMessage<?> storedMessage = message.getStoredMessage();
+            if(storedMessage instanceof StoredMemoryMessage || storedMessage instanceof StoredOffHeapMessage)
             {
-                _messages.putIfAbsent(message.getMessageNumber(), (StoredMemoryMessage) message.getStoredMessage());
+                _messages.putIfAbsent(message.getMessageNumber(), storedMessage);
             }
 
             Set<Long> messageIds = _localEnqueueMap.get(queue.getId());
@@ -271,6 +283,32 @@ public class MemoryMessageStore implements MessageStore
     @Override
     public void openMessageStore(final ConfiguredObject<?> parent)
     {
+        if (Boolean.TRUE.equals(parent.getContextValue(Boolean.class, VirtualHost.MEMORY_STORE_OFF_HEAP)))
+        {
+            _decodedMetaDataLimit = parent.getContextValue(Integer.class,
+                                                           VirtualHost.MEMORY_STORE_DECODED_META_DATA_LIMIT);
+            _slabAllocator = new SlabAllocator(parent.getContextValue(Integer.class, VirtualHost.MEMORY_STORE_SLAB_SIZE),
+                                               MINIMUM_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Records that the given off heap message holds decoded meta data, and drops the decoded meta data of the least
+     * recently decoded message if more than the limit hold it.  Messages being enqueued or delivered are recently
+     * decoded and so keep their meta data, while the meta data of messages left waiting on queues is dropped.
+     */
+    private void metaDataDecoded(final StoredOffHeapMessage<?> message)
+    {
+        _decodedMetaData.add(message);
+        if (_decodedMetaDataCount.incrementAndGet() > _decodedMetaDataLimit)
+        {
+            StoredOffHeapMessage<?> leastRecentlyDecoded = _decodedMetaData.poll();
+            if (leastRecentlyDecoded != null)
+            {
+                _decodedMetaDataCount.decrementAndGet();
+                leastRecentlyDecoded.flowToDisk();
+            }
+        }
     }
 
     @Override
@@ -284,6 +322,30 @@ public class MemoryMessageStore implements MessageStore
     {
         long id = getNextMessageId();
 
+        SlabAllocator slabAllocator = _slabAllocator;
+        if (slabAllocator != null)
+        {
+            StoredOffHeapMessage<T> storedOffHeapMessage = new StoredOffHeapMessage<T>(id, metaData, slabAllocator)
+            {
+
+                @Override
+                public void remove()
+                {
+                    _messages.remove(getMessageNumber());
+                    super.remove();
+                }
+
+                @Override
+                protected void metaDataDecoded()
+                {
+                    MemoryMessageStore.this.metaDataDecoded(this);
+                }
+
+            };
+            metaDataDecoded(storedOffHeapMessage);
+            return storedOffHeapMessage;
+        }
+
         StoredMemoryMessage<T> storedMemoryMessage = new StoredMemoryMessage<T>(id, metaData)
         {
 
@@ -312,6 +374,14 @@ public class MemoryMessageStore implements MessageStore
         return false;
     }
 
+    /**
+     * Returns the allocator of the direct memory holding the messages, or null if messages are held on the heap.
+     */
+    public SlabAllocator getSlabAllocator()
+    {
+        return _slabAllocator;
+    }
+
     @Override
     public Transaction newTransaction()
     {
@@ -322,6 +392,8 @@ public class MemoryMessageStore implements MessageStore
     public void closeMessageStore()
     {
         _messages.clear();
+        _decodedMetaData.clear();
+        _decodedMetaDataCount.set(0);
         synchronized (_transactionLock)
         {
             _messageInstances.clear();
@@ -435,10 +507,28 @@ public class MemoryMessageStore implements MessageStore
         }
 
 
+        @Override
+        public long getLastMessageId(final TransactionLogResource queue) throws StoreException
+        {
+            synchronized (_transactionLock)
+            {
+                long lastMessageId = -1L;
+                Set<Long> ids = _messageInstances.get(queue.getId());
+                if(ids != null)
+                {
+                    for (long id : ids)
+                    {
+                        lastMessageId = Math.max(lastMessageId, id);
+                    }
+                }
+                return lastMessageId;
+            }
+        }
+
         @Override
         public void visitMessages(final MessageHandler handler) throws StoreException
         {
-            for (StoredMemoryMessage message : _messages.values())
+            for (StoredMessage<?> message : _messages.values())
             {
                 if(!handler.handle(message))
                 {
@@ -88,6 +88,15 @@ public interface MessageStore
 
         void visitDistributedTransactions(DistributedTransactionHandler handler) throws StoreException;
 
+        /**
+         * Returns the highest id of the messages enqueued on the given queue, or -1 if none are enqueued.
+         */
+        long getLastMessageId(TransactionLogResource queue) throws StoreException;
+
+        /**
+         * Returns the message with the given id, or null if there is none.  Recovery may call this from several
+         * threads at once, so implementations must be thread safe.
+         */
         StoredMessage<?> getMessage(long messageId);
         void close();
     }
@@ -172,6 +172,12 @@ public abstract class NullMessageStore implements MessageStore, DurableConfigura
         return 0;
     }
 
+    @Override
+    public long getLastMessageId(final TransactionLogResource queue) throws StoreException
+    {
+        return -1L;
+    }
+
     @Override
     public StoredMessage<?> getMessage(final long messageId)
     {
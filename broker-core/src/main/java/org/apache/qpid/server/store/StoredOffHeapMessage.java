@@ -0,0 +1,186 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.bytebuffer.SlabAllocator;
+import org.apache.qpid.server.plugin.MessageMetaDataType;
+
+/**
+ * Message held in a single buffer of slab allocated direct memory, the encoded meta data followed by the content.
+ * <p>
+ * The decoded meta data is kept on the heap only until the message is flowed to disk.  The meta data is then decoded
+ * again from the direct memory whenever it is needed, and {@link #metaDataDecoded()} is called, so that the store can
+ * bound the number of messages holding decoded meta data.
+ */
+public class StoredOffHeapMessage<T extends StorableMessageMetaData> implements StoredMessage<T>, MessageHandle<T>
+{
+    private final long _messageNumber;
+    private final SlabAllocator _allocator;
+    private final MessageMetaDataType<?> _type;
+    private final int _metaDataSize;
+    private QpidByteBuffer _buffer;
+    private int _contentSize;
+    private boolean _contentAdded;
+    private volatile T _metaData;
+
+    public StoredOffHeapMessage(long messageNumber, T metaData, SlabAllocator allocator)
+    {
+        _messageNumber = messageNumber;
+        _allocator = allocator;
+        _type = metaData.getType();
+        _metaDataSize = metaData.getStorableSize();
+        _metaData = metaData;
+
+        _buffer = allocator.allocate(_metaDataSize + metaData.getContentSize());
+        QpidByteBuffer encodedMetaData = _buffer.view(0, _metaDataSize);
+        metaData.writeToBuffer(encodedMetaData);
+        encodedMetaData.dispose();
+    }
+
+    @Override
+    public long getMessageNumber()
+    {
+        return _messageNumber;
+    }
+
+    @Override
+    public synchronized void addContent(QpidByteBuffer src)
+    {
+        int required = _metaDataSize + _contentSize + src.remaining();
+        if (required > _buffer.limit())
+        {
+            QpidByteBuffer buffer = _allocator.allocate(required);
+            QpidByteBuffer existing = _buffer.view(0, _metaDataSize + _contentSize);
+            QpidByteBuffer copy = buffer.duplicate();
+            copy.putCopyOf(existing);
+            copy.dispose();
+            existing.dispose();
+            _buffer.dispose();
+            _buffer = buffer;
+        }
+
+        QpidByteBuffer dest = _buffer.duplicate();
+        dest.position(_metaDataSize + _contentSize);
+        dest.putCopyOf(src);
+        dest.dispose();
+        _contentSize += src.remaining();
+        _contentAdded = true;
+    }
+
+    @Override
+    public synchronized StoredMessage<T> allContentAdded()
+    {
+        _contentAdded = true;
+        return this;
+    }
+
+    @Override
+    public synchronized Collection<QpidByteBuffer> getContent(int offset, int length)
+    {
+        if (_buffer == null || !_contentAdded)
+        {
+            return null;
+        }
+        int position = Math.min(offset, _contentSize);
+        return Collections.singleton(_buffer.view(_metaDataSize + position,
+                                                  Math.min(length, _contentSize - position)));
+    }
+
+    @Override
+    public T getMetaData()
+    {
+        T metaData = _metaData;
+        if (metaData == null)
+        {
+            synchronized (this)
+            {
+                metaData = _metaData;
+                if (metaData == null && _buffer != null)
+                {
+                    byte[] encodedMetaData = new byte[_metaDataSize];
+                    QpidByteBuffer view = _buffer.view(0, _metaDataSize);
+                    view.get(encodedMetaData);
+                    view.dispose();
+
+                    QpidByteBuffer buf = QpidByteBuffer.wrap(encodedMetaData);
+                    metaData = (T) _type.createMetaData(buf);
+                    buf.dispose();
+                    _metaData = metaData;
+                }
+                else
+                {
+                    return metaData;
+                }
+            }
+            metaDataDecoded();
+        }
+        return metaData;
+    }
+
+    /**
+     * Called, without holding the lock of this message, once its meta data has been decoded from direct memory.
+     */
+    protected void metaDataDecoded()
+    {
+    }
+
+    @Override
+    public synchronized void remove()
+    {
+        if (_metaData != null)
+        {
+            _metaData.dispose();
+            _metaData = null;
+        }
+        if (_buffer != null)
+        {
+            _buffer.dispose();
+            _buffer = null;
+        }
+    }
+
+    @Override
+    public boolean isInMemory()
+    {
+        return _metaData != null;
+    }
+
+    @Override
+    public synchronized boolean flowToDisk()
+    {
+        if (_metaData != null)
+        {
+            _metaData.clearEncodedForm();
+            _metaData = null;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "[messageNumber=" + _messageNumber + "]";
+    }
+}
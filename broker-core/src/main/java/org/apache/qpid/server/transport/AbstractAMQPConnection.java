@@ -767,6 +767,19 @@ public abstract class AbstractAMQPConnection<C extends AbstractAMQPConnection<C>
         return getSessionModels().size();
     }
 
+    @Override
+    public long getTransportWriteCount()
+    {
+        return _network.getTransportWriteCount();
+    }
+
+    @Override
+    public long getAverageTransportWriteSize()
+    {
+        long writeCount = _network.getTransportWriteCount();
+        return writeCount == 0L ? 0L : _network.getTransportBytesWritten() / writeCount;
+    }
+
     @Override
     public void reserveOutboundMessageSpace(final long size)
     {
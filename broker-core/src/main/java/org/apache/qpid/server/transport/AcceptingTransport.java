@@ -27,4 +27,9 @@ public interface AcceptingTransport
     void close();
 
     int getAcceptingPort();
+
+    /**
+     * Returns the scheduler running the I/O of the transport's connections, or null if the transport has none.
+     */
+    NetworkConnectionScheduler getNetworkConnectionScheduler();
 }
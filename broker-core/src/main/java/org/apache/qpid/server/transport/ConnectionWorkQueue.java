@@ -0,0 +1,76 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+/**
+ * The queue of work from which the worker threads of a {@link NetworkConnectionScheduler} take the selection tasks,
+ * connections and other tasks they run.
+ */
+interface ConnectionWorkQueue
+{
+    int NO_WORKER = -1;
+
+    /**
+     * Registers the calling thread as a worker taking work from this queue.  Registering a thread which is already
+     * registered has no effect.
+     */
+    void registerWorker();
+
+    /**
+     * Deregisters the calling thread, so that a thread replacing it can be registered.
+     */
+    void deregisterWorker();
+
+    /**
+     * Returns the index of the worker running on the calling thread, or {@link #NO_WORKER}.
+     */
+    int getCurrentWorker();
+
+    void add(Runnable task);
+
+    /**
+     * Adds the task, preferring it to be run by the given worker if it is not busy.
+     */
+    void add(Runnable task, int preferredWorker);
+
+    Runnable take() throws InterruptedException;
+
+    /**
+     * Returns the number of workers for which statistics are kept, which may be zero.
+     */
+    int getNumberOfWorkers();
+
+    /**
+     * Returns the time in nanoseconds the worker has spent running tasks, or zero if no statistics are kept for it.
+     */
+    long getBusyTime(int worker);
+
+    /**
+     * Returns the number of tasks the worker has run, or zero if no statistics are kept for it.
+     */
+    long getTasksRun(int worker);
+
+    /**
+     * Returns the number of tasks the worker has taken from the queues of other workers, or zero if no statistics
+     * are kept for it.
+     */
+    long getTasksStolen(int worker);
+}
@@ -22,12 +22,15 @@ package org.apache.qpid.server.transport;
 
 import java.io.IOException;
 import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,11 +47,24 @@ public class NetworkConnectionScheduler
     private final long _threadKeepAliveTimeout;
     private final String _name;
     private final int _numberOfSelectors;
+    private final boolean _workStealing;
+    private final List<SchedulingDelayNotificationListener> _schedulingDelayNotificationListeners =
+            new CopyOnWriteArrayList<>();
+    private volatile ConnectionWorkQueue _workQueue;
+    private volatile AtomicLongArray _maximumSchedulingDelays;
     private SelectorThread _selectorThread;
 
     public NetworkConnectionScheduler(final String name,
                                       final int numberOfSelectors, int threadPoolSize,
                                       long threadKeepAliveTimeout)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, false);
+    }
+
+    public NetworkConnectionScheduler(final String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      boolean workStealing)
     {
         this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, new ThreadFactory()
                                     {
@@ -61,7 +77,7 @@ public class NetworkConnectionScheduler
                                             t.setName("IO-pool-" + name + "-" + _count.incrementAndGet());
                                             return t;
                                         }
-                                    });
+                                    }, workStealing);
     }
 
     @Override
@@ -75,6 +91,7 @@ public class NetworkConnectionScheduler
                ", _threadKeepAliveTimeout=" + _threadKeepAliveTimeout +
                ", _name='" + _name + '\'' +
                ", _numberOfSelectors=" + _numberOfSelectors +
+               ", _workStealing=" + _workStealing +
                ", _selectorThread=" + _selectorThread +
                '}';
     }
@@ -83,12 +100,27 @@ public class NetworkConnectionScheduler
                                       final int numberOfSelectors, int threadPoolSize,
                                       long threadKeepAliveTimeout,
                                       ThreadFactory factory)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, factory, false);
+    }
+
+    /**
+     * @param workStealing if true, each worker thread has its own queue of work, work for a connection is preferably
+     *                     run by the worker which last ran it, and idle workers steal work from busy ones; otherwise
+     *                     all workers take work from a single shared queue
+     */
+    public NetworkConnectionScheduler(String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      ThreadFactory factory,
+                                      boolean workStealing)
     {
         _name = name;
         _poolSize = threadPoolSize;
         _threadKeepAliveTimeout = threadKeepAliveTimeout;
         _factory = factory;
         _numberOfSelectors = numberOfSelectors;
+        _workStealing = workStealing;
     }
 
 
@@ -96,7 +128,11 @@ public class NetworkConnectionScheduler
     {
         try
         {
-            _selectorThread = new SelectorThread(this, _numberOfSelectors);
+            _workQueue = _workStealing
+                    ? new WorkStealingConnectionWorkQueue(_poolSize)
+                    : new SharedConnectionWorkQueue();
+            _maximumSchedulingDelays = new AtomicLongArray(_workQueue.getNumberOfWorkers());
+            _selectorThread = new SelectorThread(this, _numberOfSelectors, _workQueue);
             _executor = new ThreadPoolExecutor(_poolSize, _poolSize,
                                                _threadKeepAliveTimeout, TimeUnit.MINUTES,
                                                new LinkedBlockingQueue<Runnable>(), _factory);
@@ -116,6 +152,9 @@ public class NetworkConnectionScheduler
     void processConnection(final NonBlockingConnection connection)
     {
         Thread.currentThread().setName(connection.getThreadName());
+        int worker = _workQueue.getCurrentWorker();
+        connection.setLastWorker(worker);
+        notifySchedulingDelay(connection, worker);
         connection.doPreWork();
         boolean rerun;
         do
@@ -161,6 +200,30 @@ public class NetworkConnectionScheduler
 
     }
 
+    private void notifySchedulingDelay(final NonBlockingConnection connection, final int worker)
+    {
+        long scheduledTime = connection.getScheduledTime();
+        if (scheduledTime != 0L)
+        {
+            long schedulingDelay = System.currentTimeMillis() - scheduledTime;
+            if (worker != ConnectionWorkQueue.NO_WORKER)
+            {
+                long maximum;
+                while (schedulingDelay > (maximum = _maximumSchedulingDelays.get(worker)))
+                {
+                    if (_maximumSchedulingDelays.compareAndSet(worker, maximum, schedulingDelay))
+                    {
+                        break;
+                    }
+                }
+            }
+            for (SchedulingDelayNotificationListener listener : _schedulingDelayNotificationListeners)
+            {
+                listener.notifySchedulingDelay(schedulingDelay);
+            }
+        }
+    }
+
     void decrementRunningCount()
     {
         _running.decrementAndGet();
@@ -173,6 +236,18 @@ public class NetworkConnectionScheduler
 
     public void close()
     {
+        ConnectionWorkQueue workQueue = _workQueue;
+        if (LOGGER.isDebugEnabled() && workQueue != null)
+        {
+            for (int worker = 0; worker < workQueue.getNumberOfWorkers(); worker++)
+            {
+                LOGGER.debug("Scheduler {} worker {}: busy time {} ms, tasks run {}, tasks stolen {},"
+                             + " maximum scheduling delay {} ms",
+                             _name, worker, TimeUnit.NANOSECONDS.toMillis(workQueue.getBusyTime(worker)),
+                             workQueue.getTasksRun(worker), workQueue.getTasksStolen(worker),
+                             getWorkerMaximumSchedulingDelay(worker));
+            }
+        }
         if(_selectorThread != null)
         {
             _selectorThread.close();
@@ -215,6 +290,67 @@ public class NetworkConnectionScheduler
         return _poolSize;
     }
 
+    /**
+     * Adds a listener notified of the delay between each connection being scheduled and a worker starting to run it.
+     */
+    public void addSchedulingDelayNotificationListener(final SchedulingDelayNotificationListener listener)
+    {
+        _schedulingDelayNotificationListeners.add(listener);
+    }
+
+    public void removeSchedulingDelayNotificationListener(final SchedulingDelayNotificationListener listener)
+    {
+        _schedulingDelayNotificationListeners.remove(listener);
+    }
+
+    /**
+     * Returns the longest delay in milliseconds between a connection being scheduled and the given worker starting
+     * to run it, or zero if no statistics are kept for the worker.
+     */
+    public long getWorkerMaximumSchedulingDelay(final int worker)
+    {
+        AtomicLongArray maximumSchedulingDelays = _maximumSchedulingDelays;
+        return maximumSchedulingDelays == null || worker >= maximumSchedulingDelays.length()
+                ? 0L
+                : maximumSchedulingDelays.get(worker);
+    }
+
+    /**
+     * Returns the number of tasks which worker threads have taken from the queues of other workers.  This is zero
+     * unless work stealing.
+     */
+    public long getTasksStolen()
+    {
+        ConnectionWorkQueue workQueue = _workQueue;
+        long tasksStolen = 0L;
+        if (workQueue != null)
+        {
+            for (int worker = 0; worker < workQueue.getNumberOfWorkers(); worker++)
+            {
+                tasksStolen += workQueue.getTasksStolen(worker);
+            }
+        }
+        return tasksStolen;
+    }
+
+    /**
+     * Returns the total time in milliseconds which worker threads have spent running tasks.  This is zero unless
+     * work stealing.
+     */
+    public long getBusyTime()
+    {
+        ConnectionWorkQueue workQueue = _workQueue;
+        long busyTime = 0L;
+        if (workQueue != null)
+        {
+            for (int worker = 0; worker < workQueue.getNumberOfWorkers(); worker++)
+            {
+                busyTime += workQueue.getBusyTime(worker);
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(busyTime);
+    }
+
     public void schedule(final NonBlockingConnection connection)
     {
         _selectorThread.addToWork(connection);
@@ -33,6 +33,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -63,14 +65,20 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     private final Runnable _onTransportEncryptionAction;
     private final AtomicLong _usedOutboundMessageSpace = new AtomicLong();
     private final long _outboundMessageBufferLimit;
+    private final Executor _tlsHandshakeExecutor;
+    private final WriteCoalescer _writeCoalescer;
+    private final AtomicLong _transportWriteCount = new AtomicLong();
+    private final AtomicLong _transportBytesWritten = new AtomicLong();
 
     private volatile boolean _fullyWritten = true;
 
     private boolean _partialRead = false;
+    private boolean _readBufferFilled;
 
     private final AmqpPort _port;
     private final AtomicBoolean _scheduled = new AtomicBoolean();
     private volatile long _scheduledTime;
+    private volatile int _lastWorker = ConnectionWorkQueue.NO_WORKER;
     private volatile boolean _unexpectedByteBufferSizeReported;
     private final String _threadName;
     private volatile SelectorThread.SelectionTask _selectionTask;
@@ -85,6 +93,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                                  final Set<TransportEncryption> encryptionSet,
                                  final Runnable onTransportEncryptionAction,
                                  final NetworkConnectionScheduler scheduler,
+                                 final Executor tlsHandshakeExecutor,
                                  final AmqpPort port)
     {
         _socketChannel = socketChannel;
@@ -92,6 +101,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
         _protocolEngine = protocolEngine;
         _onTransportEncryptionAction = onTransportEncryptionAction;
+        _tlsHandshakeExecutor = tlsHandshakeExecutor;
 
         _remoteSocketAddress = _socketChannel.socket().getRemoteSocketAddress().toString();
         _port = port;
@@ -99,6 +109,11 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
         _outboundMessageBufferLimit = (long) _port.getContextValue(Long.class,
                                                                    AmqpPort.PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE);
+        _writeCoalescer =
+                new WriteCoalescer(_port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_WRITE_COALESCING),
+                                   _port.getContextValue(Long.class, AmqpPort.PORT_AMQP_WRITE_COALESCING_MAX_BYTES),
+                                   TimeUnit.MICROSECONDS.toNanos(_port.getContextValue(Long.class,
+                                                                                       AmqpPort.PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS)));
 
         protocolEngine.setWorkListener(new Action<ProtocolEngine>()
         {
@@ -125,6 +140,19 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return _threadName;
     }
 
+    /**
+     * Returns the executor which runs the tasks of TLS handshakes, or null if they are run by the I/O thread.
+     */
+    Executor getTlsHandshakeExecutor()
+    {
+        return _tlsHandshakeExecutor;
+    }
+
+    void notifyWork()
+    {
+        getScheduler().schedule(this);
+    }
+
     public boolean isPartialRead()
     {
         return _partialRead;
@@ -280,9 +308,14 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                     _pendingIterator = null;
                     _protocolEngine.setTransportBlockedForWriting(false);
                     boolean dataRead = doRead();
-                    _protocolEngine.setTransportBlockedForWriting(!doWrite());
-
-                    if (!_fullyWritten || dataRead || (_delegate.needsWork() && _delegate.getNetInputBuffer().position() != 0))
+                    boolean unprocessedInput = _delegate.needsWork() && _delegate.getNetInputBuffer().position() != 0;
+                    boolean coalescing = _writeCoalescer.shouldCoalesce(dataRead || unprocessedInput || _readBufferFilled,
+                                                                        _fullyWritten,
+                                                                        getBufferedSize(),
+                                                                        System.nanoTime());
+                    _protocolEngine.setTransportBlockedForWriting(!coalescing && !doWrite());
+
+                    if (!_fullyWritten || dataRead || coalescing || unprocessedInput)
                     {
                         _protocolEngine.notifyWork();
                     }
@@ -495,11 +528,12 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     boolean doRead() throws IOException
     {
         _partialRead = false;
+        _readBufferFilled = false;
         if(!_closed.get() && _delegate.readyForRead())
         {
             int readData = readFromNetwork();
 
-            if (readData > 0)
+            if (readData > 0 || _delegate.hasUnprocessedInput())
             {
                 return _delegate.processData();
             }
@@ -517,6 +551,11 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     long writeToTransport(Collection<QpidByteBuffer> buffers) throws IOException
     {
         long written  = QpidByteBuffer.write(_socketChannel, buffers);
+        _transportWriteCount.incrementAndGet();
+        if (written > 0L)
+        {
+            _transportBytesWritten.addAndGet(written);
+        }
         if (LOGGER.isDebugEnabled())
         {
             LOGGER.debug("Written " + written + " bytes");
@@ -526,6 +565,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
     private boolean doWrite() throws IOException
     {
+        _writeCoalescer.writing();
         _fullyWritten = _delegate.doWrite(_buffers);
         while(!_buffers.isEmpty())
         {
@@ -556,6 +596,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         }
 
         _partialRead = read != 0;
+        _readBufferFilled = read > 0 && !buffer.hasRemaining();
 
         if (LOGGER.isDebugEnabled())
         {
@@ -657,12 +698,34 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         _scheduledTime = 0;
     }
 
+    @Override
+    public long getTransportWriteCount()
+    {
+        return _transportWriteCount.get();
+    }
+
+    @Override
+    public long getTransportBytesWritten()
+    {
+        return _transportBytesWritten.get();
+    }
+
     @Override
     public long getScheduledTime()
     {
         return _scheduledTime;
     }
 
+    int getLastWorker()
+    {
+        return _lastWorker;
+    }
+
+    void setLastWorker(final int lastWorker)
+    {
+        _lastWorker = lastWorker;
+    }
+
     void reportUnexpectedByteBufferSizeUsage()
     {
         if (!_unexpectedByteBufferSizeReported)
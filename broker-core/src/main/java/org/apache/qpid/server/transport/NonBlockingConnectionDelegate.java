@@ -41,6 +41,11 @@ interface NonBlockingConnectionDelegate
 
     boolean needsWork();
 
+    /**
+     * Returns true if input already read from the network is waiting to be processed.
+     */
+    boolean hasUnprocessedInput();
+
     QpidByteBuffer getNetInputBuffer();
 
     void shutdownInput();
@@ -40,6 +40,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDelegate
 {
@@ -47,6 +49,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 
     private final SSLEngine _sslEngine;
     private final NonBlockingConnection _parent;
+    private final AmqpPort<?> _port;
+    private final Executor _handshakeExecutor;
     private final int _networkBufferSize;
     private SSLEngineResult _status;
     private final List<QpidByteBuffer> _encryptedOutput = new ArrayList<>();
@@ -56,11 +60,16 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     private QpidByteBuffer _netInputBuffer;
     private QpidByteBuffer _netOutputBuffer;
     private QpidByteBuffer _applicationBuffer;
+    private volatile boolean _handshakeTasksRunning;
+    private volatile boolean _handshakeTasksCompleted;
+    private long _handshakeStartTime;
 
 
     public NonBlockingConnectionTLSDelegate(NonBlockingConnection parent, AmqpPort port)
     {
         _parent = parent;
+        _port = port;
+        _handshakeExecutor = parent.getTlsHandshakeExecutor();
         _sslEngine = createSSLEngine(port);
         _networkBufferSize = port.getNetworkBufferSize();
 
@@ -79,12 +88,24 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public boolean readyForRead()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP;
+        return _handshakeTasksRunning
+               || _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP;
     }
 
     @Override
     public boolean processData() throws IOException
     {
+        _handshakeTasksCompleted = false;
+        if (_handshakeTasksRunning)
+        {
+            // the engine cannot make progress until the tasks complete; the input is processed then
+            return false;
+        }
+        if (_handshakeStartTime == 0L)
+        {
+            _handshakeStartTime = System.currentTimeMillis();
+        }
+
         _netInputBuffer.flip();
         boolean readData = false;
         boolean tasksRun;
@@ -95,6 +116,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             oldNetBufferPos = _netInputBuffer.position();
 
             _status = _netInputBuffer.decryptSSL(_sslEngine, _applicationBuffer);
+            checkHandshakeFinished(_status);
             if (_status.getStatus() == SSLEngineResult.Status.CLOSED)
             {
                 int remaining = _netInputBuffer.remaining();
@@ -115,7 +137,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             restoreApplicationBufferForWrite();
 
         }
-        while((_netInputBuffer.hasRemaining() && (_netInputBuffer.position()>oldNetBufferPos)) || tasksRun);
+        while(!_handshakeTasksRunning
+              && ((_netInputBuffer.hasRemaining() && (_netInputBuffer.position()>oldNetBufferPos)) || tasksRun));
 
         if(_netInputBuffer.hasRemaining())
         {
@@ -133,7 +156,10 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     {
         final int bufCount = bufferArray.size();
 
-        wrapBufferArray(bufferArray);
+        if (!_handshakeTasksRunning)
+        {
+            wrapBufferArray(bufferArray);
+        }
 
         boolean bufsSent = true;
         final Iterator<QpidByteBuffer> itr = bufferArray.iterator();
@@ -163,7 +189,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 }
             }
         }
-        return bufsSent && _encryptedOutput.isEmpty();
+        // while handshake tasks are running nothing can be wrapped, and the connection is notified when they complete
+        return (bufsSent || _handshakeTasksRunning) && _encryptedOutput.isEmpty();
     }
 
     protected void restoreApplicationBufferForWrite()
@@ -223,6 +250,7 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 
                 _status = QpidByteBuffer.encryptSSL(_sslEngine, bufferArray, _netOutputBuffer);
                 encrypted = _status.bytesProduced() > 0;
+                checkHandshakeFinished(_status);
                 runSSLEngineTasks(_status);
                 if(encrypted && _netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
@@ -238,7 +266,9 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             }
 
         }
-        while(encrypted && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP);
+        while(encrypted
+              && !_handshakeTasksRunning
+              && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP);
 
         if(_netOutputBuffer.position() != 0)
         {
@@ -253,22 +283,78 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 
     }
 
+    /**
+     * Runs the delegated tasks of the engine, returning true if they have been run.  If the port has a handshake
+     * executor the tasks are handed to it instead, so that handshakes do not hold up the I/O thread, and false is
+     * returned; the connection is notified of work once they have completed.
+     */
     private boolean runSSLEngineTasks(final SSLEngineResult status)
     {
         if(status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
         {
+            final List<Runnable> tasks = new ArrayList<>();
             Runnable task;
             while((task = _sslEngine.getDelegatedTask()) != null)
             {
-                task.run();
+                tasks.add(task);
+            }
+
+            if (_handshakeExecutor != null && !tasks.isEmpty())
+            {
+                _handshakeTasksRunning = true;
+                try
+                {
+                    _handshakeExecutor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            try
+                            {
+                                for (Runnable task : tasks)
+                                {
+                                    task.run();
+                                }
+                            }
+                            finally
+                            {
+                                _handshakeTasksRunning = false;
+                                _handshakeTasksCompleted = true;
+                                _parent.notifyWork();
+                            }
+                        }
+                    });
+                    return false;
+                }
+                catch (RejectedExecutionException e)
+                {
+                    LOGGER.debug("TLS handshake executor rejected tasks, running them on the I/O thread", e);
+                    _handshakeTasksRunning = false;
+                }
             }
 
+            for (Runnable t : tasks)
+            {
+                t.run();
+            }
             return true;
         }
 
         return false;
     }
 
+    private void checkHandshakeFinished(final SSLEngineResult result)
+    {
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED)
+        {
+            long now = System.currentTimeMillis();
+            long handshakeStartTime = _handshakeStartTime == 0L ? now : _handshakeStartTime;
+            boolean sessionReused = _sslEngine.getSession().getCreationTime() < handshakeStartTime;
+            _port.registerTlsHandshake(now - handshakeStartTime, sessionReused);
+            _handshakeStartTime = 0L;
+        }
+    }
+
     @Override
     public Principal getPeerPrincipal()
     {
@@ -286,7 +372,14 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public boolean needsWork()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+        return !_handshakeTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+    }
+
+    @Override
+    public boolean hasUnprocessedInput()
+    {
+        return _handshakeTasksCompleted && _netInputBuffer != null && _netInputBuffer.position() != 0;
     }
 
     private synchronized void checkPeerPrincipal()
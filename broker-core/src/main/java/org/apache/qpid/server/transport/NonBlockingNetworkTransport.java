@@ -29,6 +29,7 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.qpid.server.model.port.AmqpPort;
 import org.slf4j.Logger;
@@ -51,12 +52,14 @@ public class NonBlockingNetworkTransport
     private final ServerSocketChannel _serverSocket;
     private final int _timeout;
     private final NetworkConnectionScheduler _scheduler;
+    private final Executor _tlsHandshakeExecutor;
     private final AmqpPort<?> _port;
     private final InetSocketAddress _address;
 
     public NonBlockingNetworkTransport(final MultiVersionProtocolEngineFactory factory,
                                        final EnumSet<TransportEncryption> encryptionSet,
                                        final NetworkConnectionScheduler scheduler,
+                                       final Executor tlsHandshakeExecutor,
                                        final AmqpPort<?> port)
     {
         try
@@ -96,6 +99,7 @@ public class NonBlockingNetworkTransport
             _serverSocket.configureBlocking(false);
             _encryptionSet = encryptionSet;
             _scheduler = scheduler;
+            _tlsHandshakeExecutor = tlsHandshakeExecutor;
             _port = port;
 
         }
@@ -169,6 +173,7 @@ public class NonBlockingNetworkTransport
                                                           }
                                                       },
                                                       _scheduler,
+                                                      _tlsHandshakeExecutor,
                                                       _port);
 
                     engine.setNetworkConnection(connection);
@@ -34,9 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -54,7 +52,7 @@ class SelectorThread extends Thread
     private final AtomicBoolean _closed = new AtomicBoolean();
     private final NetworkConnectionScheduler _scheduler;
 
-    private final BlockingQueue<Runnable> _workQueue = new LinkedBlockingQueue<>();
+    private final ConnectionWorkQueue _workQueue;
     private final  AtomicInteger _nextSelectorTaskIndex = new AtomicInteger();
 
     public final class SelectionTask implements Runnable
@@ -330,7 +328,10 @@ class SelectorThread extends Thread
                         {
                             clearSelecting();
                         }
-                        _workQueue.addAll(connections);
+                        for (ConnectionProcessor connectionProcessor : connections)
+                        {
+                            _workQueue.add(connectionProcessor, connectionProcessor.getConnection().getLastWorker());
+                        }
                         _workQueue.add(this);
                         for (ConnectionProcessor connectionProcessor : connections)
                         {
@@ -383,9 +384,12 @@ class SelectorThread extends Thread
 
     private SelectionTask[] _selectionTasks;
 
-    SelectorThread(final NetworkConnectionScheduler scheduler, final int numberOfSelectors) throws IOException
+    SelectorThread(final NetworkConnectionScheduler scheduler,
+                   final int numberOfSelectors,
+                   final ConnectionWorkQueue workQueue) throws IOException
     {
         _scheduler = scheduler;
+        _workQueue = workQueue;
         _selectionTasks = new SelectionTask[numberOfSelectors];
         for(int i = 0; i < numberOfSelectors; i++)
         {
@@ -453,6 +457,7 @@ class SelectorThread extends Thread
     {
 
         final String name = Thread.currentThread().getName();
+        _workQueue.registerWorker();
         try
         {
             do
@@ -467,6 +472,10 @@ class SelectorThread extends Thread
         {
             Thread.currentThread().interrupt();
         }
+        finally
+        {
+            _workQueue.deregisterWorker();
+        }
 
     }
 
@@ -497,6 +506,11 @@ class SelectorThread extends Thread
             }
         }
 
+        NonBlockingConnection getConnection()
+        {
+            return _connection;
+        }
+
         public void processConnection()
         {
             if (_running.compareAndSet(false, true))
@@ -621,7 +635,7 @@ class SelectorThread extends Thread
         int count = _scheduler.getPoolSize();
         while(count-- > 0)
         {
-            _workQueue.offer(goodNight);
+            _workQueue.add(goodNight);
         }
 
         for(SelectionTask task : _selectionTasks)
@@ -639,7 +653,7 @@ class SelectorThread extends Thread
          }
          if(connection.setScheduled())
          {
-             _workQueue.add(new ConnectionProcessor(_scheduler, connection));
+             _workQueue.add(new ConnectionProcessor(_scheduler, connection), connection.getLastWorker());
          }
          SelectionTask selectionTask = connection.getSelectionTask();
          if (selectionTask != null)
@@ -29,6 +29,13 @@ public interface ServerNetworkConnection extends NetworkConnection
 
     long getScheduledTime();
 
+    /**
+     * Returns the number of writes made to the underlying transport.
+     */
+    long getTransportWriteCount();
+
+    long getTransportBytesWritten();
+
     void addSchedulingDelayNotificationListeners(SchedulingDelayNotificationListener listener);
 
     void removeSchedulingDelayNotificationListeners(SchedulingDelayNotificationListener listener);
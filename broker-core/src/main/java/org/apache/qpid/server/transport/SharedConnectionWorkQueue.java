@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A single queue shared by all workers, which take whatever work is next.
+ */
+class SharedConnectionWorkQueue implements ConnectionWorkQueue
+{
+    private final BlockingQueue<Runnable> _workQueue = new LinkedBlockingQueue<>();
+
+    @Override
+    public void registerWorker()
+    {
+    }
+
+    @Override
+    public void deregisterWorker()
+    {
+    }
+
+    @Override
+    public int getCurrentWorker()
+    {
+        return NO_WORKER;
+    }
+
+    @Override
+    public void add(final Runnable task)
+    {
+        _workQueue.add(task);
+    }
+
+    @Override
+    public void add(final Runnable task, final int preferredWorker)
+    {
+        _workQueue.add(task);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException
+    {
+        return _workQueue.take();
+    }
+
+    @Override
+    public int getNumberOfWorkers()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getBusyTime(final int worker)
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTasksRun(final int worker)
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getTasksStolen(final int worker)
+    {
+        return 0L;
+    }
+}
@@ -22,6 +22,10 @@ package org.apache.qpid.server.transport;
 
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.Protocol;
@@ -37,6 +41,7 @@ class TCPandSSLTransport implements AcceptingTransport
     private Set<Protocol> _supported;
     private Protocol _defaultSupportedProtocolReply;
     private NetworkConnectionScheduler _scheduler;
+    private ExecutorService _tlsHandshakeExecutor;
 
     TCPandSSLTransport(final Set<Transport> transports,
                        final AmqpPort<?> port,
@@ -72,11 +77,35 @@ class TCPandSSLTransport implements AcceptingTransport
 
         long threadPoolKeepAliveTimeout = _port.getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT);
 
+        boolean workStealing = _port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_THREAD_POOL_WORK_STEALING);
+
         _scheduler = new NetworkConnectionScheduler("Port-"+_port.getName(), _port.getNumberOfSelectors(),
-                                                    _port.getThreadPoolSize(), threadPoolKeepAliveTimeout);
+                                                    _port.getThreadPoolSize(), threadPoolKeepAliveTimeout,
+                                                    workStealing);
         _scheduler.start();
+
+        int tlsHandshakeThreadPoolSize = _port.getContextValue(Integer.class,
+                                                               AmqpPort.PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE);
+        if (encryptionSet.contains(TransportEncryption.TLS) && tlsHandshakeThreadPoolSize > 0)
+        {
+            final String name = _port.getName();
+            _tlsHandshakeExecutor = Executors.newFixedThreadPool(tlsHandshakeThreadPoolSize, new ThreadFactory()
+            {
+                final AtomicInteger _count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable r)
+                {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("TLS-handshake-Port-" + name + "-" + _count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
         _networkTransport = new NonBlockingNetworkTransport(protocolEngineFactory,
-                                                            encryptionSet, _scheduler, _port);
+                                                            encryptionSet, _scheduler, _tlsHandshakeExecutor, _port);
         _networkTransport.start();
     }
 
@@ -86,6 +115,12 @@ class TCPandSSLTransport implements AcceptingTransport
         return _networkTransport.getAcceptingPort();
     }
 
+    @Override
+    public NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        return _scheduler;
+    }
+
     @Override
     public void close()
     {
@@ -97,5 +132,9 @@ class TCPandSSLTransport implements AcceptingTransport
         {
             _scheduler.close();
         }
+        if (_tlsHandshakeExecutor != null)
+        {
+            _tlsHandshakeExecutor.shutdown();
+        }
     }
 }
@@ -0,0 +1,323 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A queue of work with a deque for each worker, from which idle workers steal.
+ * <p>
+ * Work for a connection is added to the deque of the worker which last ran the connection, so that the connection
+ * tends to stay on one thread (and its state in that processor's caches).  The affinity is soft: if that worker has
+ * other work waiting or has been busy for longer than {@value #AFFINITY_NANOS} nanoseconds, an idle worker is woken
+ * to steal the work.  Work without a preferred worker is added to a queue shared by all workers.
+ */
+class WorkStealingConnectionWorkQueue implements ConnectionWorkQueue
+{
+    private static final long AFFINITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Worker[] _workers;
+    private final AtomicInteger _nextWorkerToWake = new AtomicInteger();
+    private final Queue<Runnable> _sharedQueue = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Worker> _currentWorker = new ThreadLocal<>();
+
+    WorkStealingConnectionWorkQueue(final int numberOfWorkers)
+    {
+        _workers = new Worker[numberOfWorkers];
+        for (int i = 0; i < numberOfWorkers; i++)
+        {
+            _workers[i] = new Worker(i);
+        }
+    }
+
+    /**
+     * Registers the calling thread as the worker of the first slot which is free, or whose thread has died, so that
+     * a thread replacing a dead worker takes over its queued work.
+     */
+    @Override
+    public synchronized void registerWorker()
+    {
+        if (_currentWorker.get() != null)
+        {
+            return;
+        }
+        for (Worker worker : _workers)
+        {
+            Thread thread = worker._thread;
+            if (thread == null || !thread.isAlive())
+            {
+                worker.register(Thread.currentThread());
+                _currentWorker.set(worker);
+                return;
+            }
+        }
+        throw new IllegalStateException("Cannot register more than " + _workers.length + " workers");
+    }
+
+    @Override
+    public synchronized void deregisterWorker()
+    {
+        Worker worker = _currentWorker.get();
+        if (worker != null)
+        {
+            _currentWorker.remove();
+            worker.deregister();
+            // the worker's queued work is left for other workers to steal
+            wakeIdleWorker(worker);
+        }
+    }
+
+    @Override
+    public int getCurrentWorker()
+    {
+        Worker worker = _currentWorker.get();
+        return worker == null ? NO_WORKER : worker._index;
+    }
+
+    @Override
+    public void add(final Runnable task)
+    {
+        _sharedQueue.add(task);
+        wakeIdleWorker(null);
+    }
+
+    @Override
+    public void add(final Runnable task, final int preferredWorker)
+    {
+        if (preferredWorker < 0 || preferredWorker >= _workers.length)
+        {
+            add(task);
+            return;
+        }
+
+        Worker worker = _workers[preferredWorker];
+        int queued = worker._queued.incrementAndGet();
+        worker._deque.addLast(task);
+        if (worker._parked)
+        {
+            LockSupport.unpark(worker._thread);
+        }
+        else if (queued > 1 || worker.isBusyFor(AFFINITY_NANOS) || worker._thread == null)
+        {
+            wakeIdleWorker(worker);
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException
+    {
+        Worker worker = _currentWorker.get();
+        if (worker == null)
+        {
+            throw new IllegalStateException("Work can only be taken by a registered worker");
+        }
+        worker.taskCompleted();
+
+        while (true)
+        {
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+
+            Runnable task = poll(worker);
+            if (task == null)
+            {
+                worker._parked = true;
+                try
+                {
+                    // check again now that producers can see this worker is parked, so no wake up is missed
+                    task = poll(worker);
+                    if (task == null)
+                    {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                }
+                finally
+                {
+                    worker._parked = false;
+                }
+            }
+
+            if (task != null)
+            {
+                worker.taskStarted();
+                if (worker._queued.get() > 0)
+                {
+                    // this worker is about to be busy, so let an idle worker take the rest of its work
+                    wakeIdleWorker(worker);
+                }
+                return task;
+            }
+        }
+    }
+
+    @Override
+    public int getNumberOfWorkers()
+    {
+        return _workers.length;
+    }
+
+    @Override
+    public long getBusyTime(final int worker)
+    {
+        return isWorker(worker) ? _workers[worker].getBusyTime() : 0L;
+    }
+
+    @Override
+    public long getTasksRun(final int worker)
+    {
+        return isWorker(worker) ? _workers[worker]._tasksRun : 0L;
+    }
+
+    @Override
+    public long getTasksStolen(final int worker)
+    {
+        return isWorker(worker) ? _workers[worker]._tasksStolen : 0L;
+    }
+
+    private boolean isWorker(final int worker)
+    {
+        return worker >= 0 && worker < _workers.length;
+    }
+
+    private Runnable poll(final Worker worker)
+    {
+        Runnable task = worker.pollFirst();
+        if (task == null)
+        {
+            task = _sharedQueue.poll();
+        }
+        if (task == null)
+        {
+            for (int i = 1; i < _workers.length && task == null; i++)
+            {
+                task = _workers[(worker._index + i) % _workers.length].pollLast();
+            }
+            if (task != null)
+            {
+                worker._tasksStolen++;
+            }
+        }
+        return task;
+    }
+
+    private void wakeIdleWorker(final Worker excluded)
+    {
+        int start = _nextWorkerToWake.getAndIncrement();
+        for (int i = 0; i < _workers.length; i++)
+        {
+            Worker worker = _workers[Math.abs((start + i) % _workers.length)];
+            if (worker != excluded && worker._parked)
+            {
+                LockSupport.unpark(worker._thread);
+                return;
+            }
+        }
+    }
+
+    private static final class Worker
+    {
+        private final int _index;
+        private final Deque<Runnable> _deque = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger _queued = new AtomicInteger();
+        private volatile Thread _thread;
+        private volatile boolean _parked;
+        private volatile long _busySince;
+        private volatile long _busyNanos;
+        private volatile long _tasksRun;
+        private volatile long _tasksStolen;
+
+        private Worker(final int index)
+        {
+            _index = index;
+        }
+
+        private void register(final Thread thread)
+        {
+            _busySince = 0L;
+            _thread = thread;
+        }
+
+        private void deregister()
+        {
+            taskCompleted();
+            _thread = null;
+        }
+
+        private Runnable pollFirst()
+        {
+            Runnable task = _deque.pollFirst();
+            if (task != null)
+            {
+                _queued.decrementAndGet();
+            }
+            return task;
+        }
+
+        private Runnable pollLast()
+        {
+            Runnable task = _deque.pollLast();
+            if (task != null)
+            {
+                _queued.decrementAndGet();
+            }
+            return task;
+        }
+
+        // the following are only called by the worker's own thread
+
+        private void taskStarted()
+        {
+            _busySince = System.nanoTime();
+            _tasksRun++;
+        }
+
+        private void taskCompleted()
+        {
+            long busySince = _busySince;
+            if (busySince != 0L)
+            {
+                _busyNanos += System.nanoTime() - busySince;
+                _busySince = 0L;
+            }
+        }
+
+        private boolean isBusyFor(final long nanos)
+        {
+            long busySince = _busySince;
+            return busySince != 0L && System.nanoTime() - busySince > nanos;
+        }
+
+        private long getBusyTime()
+        {
+            long busySince = _busySince;
+            return _busyNanos + (busySince == 0L ? 0L : Math.max(0L, System.nanoTime() - busySince));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+/**
+ * Decides whether a connection should put off writing its buffered frames so that they can be written together with
+ * the frames it is about to produce.  Writes are put off only while a read is pending, and only until the buffered
+ * frames reach the byte budget or the oldest of them has waited for the delay budget.
+ * <p>
+ * Instances are used by the single thread performing the I/O of a connection and are not thread safe.
+ */
+final class WriteCoalescer
+{
+    private final boolean _enabled;
+    private final long _maxBytes;
+    private final long _maxDelayNanos;
+
+    private boolean _coalescing;
+    private long _coalescingSince;
+
+    WriteCoalescer(final boolean enabled, final long maxBytes, final long maxDelayNanos)
+    {
+        _enabled = enabled;
+        _maxBytes = maxBytes;
+        _maxDelayNanos = maxDelayNanos;
+    }
+
+    /**
+     * Returns true if writing the buffered frames should be put off.
+     *
+     * @param readPending true if the connection has read data that it has yet to process
+     * @param fullyWritten true if the previous write wrote all the frames that were buffered
+     * @param bufferedSize the number of bytes buffered for writing
+     * @param currentTimeNanos the current value of {@link System#nanoTime()}
+     */
+    boolean shouldCoalesce(final boolean readPending,
+                           final boolean fullyWritten,
+                           final long bufferedSize,
+                           final long currentTimeNanos)
+    {
+        if (!_enabled || !readPending || !fullyWritten || bufferedSize == 0L || bufferedSize >= _maxBytes)
+        {
+            return false;
+        }
+
+        if (!_coalescing)
+        {
+            _coalescing = true;
+            _coalescingSince = currentTimeNanos;
+            return true;
+        }
+        return currentTimeNanos - _coalescingSince < _maxDelayNanos;
+    }
+
+    /**
+     * Notifies that the buffered frames are being written, so that the delay budget applies afresh to the frames
+     * buffered next.
+     */
+    void writing()
+    {
+        _coalescing = false;
+    }
+
+    boolean isCoalescing()
+    {
+        return _coalescing;
+    }
+}
@@ -55,6 +55,7 @@ import com.google.common.util.concurrent.SettableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.qpid.bytebuffer.SlabAllocator;
 import org.apache.qpid.exchange.ExchangeDefaults;
 import org.apache.qpid.pool.SuppressingInheritedAccessControlContextThreadFactory;
 import org.apache.qpid.server.configuration.updater.Task;
@@ -67,6 +68,8 @@ import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.messages.MessageStoreMessages;
 import org.apache.qpid.server.logging.messages.VirtualHostMessages;
 import org.apache.qpid.server.logging.subjects.MessageStoreLogSubject;
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageNode;
 import org.apache.qpid.server.message.MessageSource;
@@ -92,6 +95,7 @@ import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.Event;
 import org.apache.qpid.server.store.EventListener;
 import org.apache.qpid.server.store.GenericRecoverer;
+import org.apache.qpid.server.store.MemoryMessageStore;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.MessageStoreProvider;
@@ -168,7 +172,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
     private final Set<BlockingType> _blockingReasons = Collections.synchronizedSet(EnumSet.noneOf(BlockingType.class));
 
-    private NetworkConnectionScheduler _networkConnectionScheduler;
+    private volatile NetworkConnectionScheduler _networkConnectionScheduler;
 
     private final VirtualHostPrincipal _principal;
 
@@ -260,7 +264,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private MessageDestination _defaultDestination;
 
     private MessageStore _messageStore;
-    private MessageStoreRecoverer _messageStoreRecoverer;
+    private volatile MessageStoreRecoverer _messageStoreRecoverer;
+    private volatile MessageContentCache _messageContentCache;
+    private volatile GzipContentCache _gzipContentCache;
+    private volatile ConvertedMessageCache _convertedMessageCache;
     private final FileSystemSpaceChecker _fileSystemSpaceChecker;
     private int _fileSystemMaxUsagePercent;
     private Collection<VirtualHostLogger> _virtualHostLoggersToClose;
@@ -1134,6 +1141,13 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
     private void closeMessageStore()
     {
+        MessageContentCache messageContentCache = _messageContentCache;
+        if (messageContentCache != null)
+        {
+            _messageContentCache = null;
+            messageContentCache.close();
+        }
+
         if (getMessageStore() != null)
         {
             try
@@ -1203,6 +1217,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         {
             connection.resetStatistics();
         }
+        for (Queue<?> queue : getChildren(Queue.class))
+        {
+            queue.resetStatistics();
+        }
     }
 
     public synchronized LinkRegistry getLinkRegistry(String remoteContainerId)
@@ -1623,6 +1641,151 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return getMessageDeliveryStatistics().getTotal();
     }
 
+    @Override
+    public long getRecoveredMessageInstanceCount()
+    {
+        MessageStoreRecoverer recoverer = _messageStoreRecoverer;
+        return recoverer == null ? 0L : recoverer.getRecoveredMessageInstanceCount();
+    }
+
+    @Override
+    public long getRecoveryRate()
+    {
+        MessageStoreRecoverer recoverer = _messageStoreRecoverer;
+        return recoverer == null ? 0L : recoverer.getRecoveryRate();
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining()
+    {
+        MessageStoreRecoverer recoverer = _messageStoreRecoverer;
+        return recoverer == null ? 0L : recoverer.getEstimatedRecoveryTimeRemaining();
+    }
+
+    @Override
+    public long getContentCacheSize()
+    {
+        MessageContentCache messageContentCache = _messageContentCache;
+        return messageContentCache == null ? 0L : messageContentCache.getSize();
+    }
+
+    @Override
+    public long getContentCacheEvictionCount()
+    {
+        MessageContentCache messageContentCache = _messageContentCache;
+        return messageContentCache == null ? 0L : messageContentCache.getEvictionCount();
+    }
+
+    @Override
+    public long getContentReadAheadCount()
+    {
+        MessageContentCache messageContentCache = _messageContentCache;
+        return messageContentCache == null ? 0L : messageContentCache.getReadAheadCount();
+    }
+
+    @Override
+    public long getGzipContentCacheSize()
+    {
+        GzipContentCache gzipContentCache = _gzipContentCache;
+        return gzipContentCache == null ? 0L : gzipContentCache.getSize();
+    }
+
+    @Override
+    public long getGzipContentCacheHitCount()
+    {
+        GzipContentCache gzipContentCache = _gzipContentCache;
+        return gzipContentCache == null ? 0L : gzipContentCache.getHitCount();
+    }
+
+    @Override
+    public long getGzipContentCacheMissCount()
+    {
+        GzipContentCache gzipContentCache = _gzipContentCache;
+        return gzipContentCache == null ? 0L : gzipContentCache.getMissCount();
+    }
+
+    @Override
+    public GzipContentCache getGzipContentCache()
+    {
+        return _gzipContentCache;
+    }
+
+    @Override
+    public long getConvertedMessageCacheSize()
+    {
+        ConvertedMessageCache convertedMessageCache = _convertedMessageCache;
+        return convertedMessageCache == null ? 0L : convertedMessageCache.getSize();
+    }
+
+    @Override
+    public long getConvertedMessageCacheHitCount()
+    {
+        ConvertedMessageCache convertedMessageCache = _convertedMessageCache;
+        return convertedMessageCache == null ? 0L : convertedMessageCache.getHitCount();
+    }
+
+    @Override
+    public long getConvertedMessageCacheMissCount()
+    {
+        ConvertedMessageCache convertedMessageCache = _convertedMessageCache;
+        return convertedMessageCache == null ? 0L : convertedMessageCache.getMissCount();
+    }
+
+    @Override
+    public ConvertedMessageCache getConvertedMessageCache()
+    {
+        return _convertedMessageCache;
+    }
+
+    @Override
+    public long getOffHeapSlabCapacity()
+    {
+        SlabAllocator slabAllocator = getSlabAllocator();
+        return slabAllocator == null ? 0L : slabAllocator.getCapacity();
+    }
+
+    @Override
+    public long getOffHeapSlabAllocatedSize()
+    {
+        SlabAllocator slabAllocator = getSlabAllocator();
+        return slabAllocator == null ? 0L : slabAllocator.getAllocatedSize();
+    }
+
+    @Override
+    public long getOffHeapSlabUsedSize()
+    {
+        SlabAllocator slabAllocator = getSlabAllocator();
+        return slabAllocator == null ? 0L : slabAllocator.getRequestedSize();
+    }
+
+    @Override
+    public long getConnectionThreadPoolTasksStolen()
+    {
+        NetworkConnectionScheduler networkConnectionScheduler = _networkConnectionScheduler;
+        return networkConnectionScheduler == null ? 0L : networkConnectionScheduler.getTasksStolen();
+    }
+
+    @Override
+    public long getConnectionThreadPoolBusyTime()
+    {
+        NetworkConnectionScheduler networkConnectionScheduler = _networkConnectionScheduler;
+        return networkConnectionScheduler == null ? 0L : networkConnectionScheduler.getBusyTime();
+    }
+
+    private SlabAllocator getSlabAllocator()
+    {
+        MessageStore messageStore = _messageStore;
+        return messageStore instanceof MemoryMessageStore
+                ? ((MemoryMessageStore) messageStore).getSlabAllocator()
+                : null;
+    }
+
+    @Override
+    public MessageContentCache getMessageContentCache()
+    {
+        return _messageContentCache;
+    }
+
     @Override
     public int getHousekeepingThreadCount()
     {
@@ -1876,6 +2039,11 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     public void setTargetSize(final long targetSize)
     {
         _targetSize.set(targetSize);
+        MessageContentCache messageContentCache = _messageContentCache;
+        if (messageContentCache != null)
+        {
+            messageContentCache.setMaximumSize(targetSize);
+        }
         allocateTargetSizeToQueues();
     }
 
@@ -2039,7 +2207,9 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                                                                      getNumberOfSelectors(),
                                                                      getConnectionThreadPoolSize(),
                                                                      threadPoolKeepAliveTimeout,
-                                                                     connectionThreadFactory);
+                                                                     connectionThreadFactory,
+                                                                     getContextValue(Boolean.class,
+                                                                                     VIRTUALHOST_CONNECTION_THREAD_POOL_WORK_STEALING));
         _networkConnectionScheduler.start();
 
         updateAccessControl();
@@ -2058,6 +2228,27 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
         messageStore.upgradeStoreStructure();
 
+        if (messageStore.isPersistent() && getContextValue(Boolean.class, CONTENT_CACHE_ENABLED))
+        {
+            _messageContentCache = new MessageContentCache(getName(),
+                                                           _targetSize.get(),
+                                                           getContextValue(Integer.class, CONTENT_CACHE_READ_AHEAD),
+                                                           getContextValue(Integer.class,
+                                                                           CONTENT_CACHE_READ_AHEAD_THREADS));
+        }
+
+        long gzipContentCacheMaximumSize = getContextValue(Long.class, GZIP_CONTENT_CACHE_MAXIMUM_SIZE);
+        if (gzipContentCacheMaximumSize > 0L)
+        {
+            _gzipContentCache = new GzipContentCache(gzipContentCacheMaximumSize);
+        }
+
+        long convertedMessageCacheMaximumSize = getContextValue(Long.class, CONVERTED_MESSAGE_CACHE_MAXIMUM_SIZE);
+        if (convertedMessageCacheMaximumSize > 0L)
+        {
+            _convertedMessageCache = new ConvertedMessageCache(convertedMessageCacheMaximumSize);
+        }
+
         getBroker().assignTargetSizes();
 
         if (isStoreEmpty())
@@ -2082,11 +2273,14 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     {
         if(getContextValue(Boolean.class, USE_ASYNC_RECOVERY))
         {
-            _messageStoreRecoverer = new AsynchronousMessageStoreRecoverer();
+            _messageStoreRecoverer =
+                    new AsynchronousMessageStoreRecoverer(getContextValue(Integer.class, MESSAGE_STORE_RECOVERY_THREADS),
+                                                          getContextValue(Boolean.class, LAZY_META_DATA_RECOVERY));
         }
         else
         {
-           _messageStoreRecoverer = new SynchronousMessageStoreRecoverer();
+           _messageStoreRecoverer =
+                   new SynchronousMessageStoreRecoverer(getContextValue(Boolean.class, LAZY_META_DATA_RECOVERY));
         }
 
         // propagate any exception thrown during recovery into HouseKeepingTaskExecutor to handle them accordingly
@@ -20,14 +20,19 @@
  */
 package org.apache.qpid.server.virtualhost;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -48,6 +53,7 @@ import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.plugin.MessageMetaDataType;
 import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.stats.StatisticsCounter;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -67,16 +73,56 @@ import org.apache.qpid.transport.util.Functions;
 public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 {
     private static final Logger _logger = LoggerFactory.getLogger(AsynchronousMessageStoreRecoverer.class);
-    private AsynchronousRecoverer _asynchronousRecoverer;
+    private final int _recoveryThreads;
+    private final boolean _lazyMetaDataRecovery;
+    private volatile AsynchronousRecoverer _asynchronousRecoverer;
+
+    public AsynchronousMessageStoreRecoverer()
+    {
+        this(0, false);
+    }
+
+    /**
+     * @param recoveryThreads the number of threads across which the messages of each queue are recovered in ranges
+     *                        of consecutive queue entries, or zero for each queue to be recovered on a single thread
+     * @param lazyMetaDataRecovery whether the meta data of each recovered message is released once the message has
+     *                             been added to its queue, to be loaded from the store again only when it is needed
+     */
+    public AsynchronousMessageStoreRecoverer(final int recoveryThreads, final boolean lazyMetaDataRecovery)
+    {
+        _recoveryThreads = recoveryThreads;
+        _lazyMetaDataRecovery = lazyMetaDataRecovery;
+    }
 
     @Override
     public ListenableFuture<Void> recover(final VirtualHost<?> virtualHost)
     {
-        _asynchronousRecoverer = new AsynchronousRecoverer(virtualHost);
+        _asynchronousRecoverer = new AsynchronousRecoverer(virtualHost, _recoveryThreads, _lazyMetaDataRecovery);
 
         return _asynchronousRecoverer.recover();
     }
 
+    @Override
+    public long getRecoveredMessageInstanceCount()
+    {
+        AsynchronousRecoverer recoverer = _asynchronousRecoverer;
+        return recoverer == null ? 0L : recoverer.getRecoveredMessageInstanceCount();
+    }
+
+    @Override
+    public long getRecoveryRate()
+    {
+        AsynchronousRecoverer recoverer = _asynchronousRecoverer;
+        return recoverer == null ? 0L : recoverer.getRecoveryRate();
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining()
+    {
+        AsynchronousRecoverer recoverer = _asynchronousRecoverer;
+        return recoverer == null ? 0L : recoverer.getEstimatedRecoveryTimeRemaining();
+    }
+
     @Override
     public void cancel()
     {
@@ -91,6 +137,14 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousRecoverer.class);
 
         public static final int THREAD_POOL_SHUTDOWN_TIMEOUT = 5000;
+        /** the number of consecutive queue entries whose messages are recovered as one range */
+        private static final int RECOVERY_RANGE_SIZE = 1024;
+        /** the number of entries in a range below which its messages are recovered without splitting the range */
+        private static final int RECOVERY_SPLIT_THRESHOLD = 64;
+        /** the number of ranges of a queue which may be recovering ahead of the queue entries being added */
+        private static final int MAX_RANGES_IN_PROGRESS = 32;
+        private static final int MESSAGE_LOCK_COUNT = 64;
+
         private final VirtualHost<?> _virtualHost;
         private final EventLogger _eventLogger;
         private final MessageStore _store;
@@ -98,14 +152,29 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private final long _maxMessageId;
         private final Set<Queue<?>> _recoveringQueues = new CopyOnWriteArraySet<>();
         private final AtomicBoolean _recoveryComplete = new AtomicBoolean();
-        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new HashMap<>();
+        private final ConcurrentMap<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages =
+                new ConcurrentHashMap<>();
+        private final Object[] _messageLocks = new Object[MESSAGE_LOCK_COUNT];
         private final ListeningExecutorService _queueRecoveryExecutor = MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+        private final ForkJoinPool _messageRecoveryPool;
+        private final boolean _lazyMetaDataRecovery;
         private final MessageStore.MessageStoreReader _storeReader;
         private AtomicBoolean _continueRecovery = new AtomicBoolean(true);
+        private final StatisticsCounter _recoveredMessageInstances =
+                new StatisticsCounter("recovered-message-instances");
+        private final ConcurrentMap<Queue<?>, QueueRecoveryProgress> _queueRecoveryProgress = new ConcurrentHashMap<>();
 
-        private AsynchronousRecoverer(final VirtualHost<?> virtualHost)
+        private AsynchronousRecoverer(final VirtualHost<?> virtualHost,
+                                      final int recoveryThreads,
+                                      final boolean lazyMetaDataRecovery)
         {
             _virtualHost = virtualHost;
+            _lazyMetaDataRecovery = lazyMetaDataRecovery;
+            for (int i = 0; i < _messageLocks.length; i++)
+            {
+                _messageLocks[i] = new Object();
+            }
+            _messageRecoveryPool = recoveryThreads > 0 ? new ForkJoinPool(recoveryThreads) : null;
             _eventLogger = virtualHost.getEventLogger();
             _store = virtualHost.getMessageStore();
             _storeReader = _store.newMessageStoreReader();
@@ -163,10 +232,41 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             return _recoveringQueues.contains(queue);
         }
 
+        public long getRecoveredMessageInstanceCount()
+        {
+            return _recoveredMessageInstances.getTotal();
+        }
+
+        public long getRecoveryRate()
+        {
+            return _recoveringQueues.isEmpty() ? 0L : (long) _recoveredMessageInstances.getRate();
+        }
+
+        public long getEstimatedRecoveryTimeRemaining()
+        {
+            long now = System.currentTimeMillis();
+            long remaining = 0L;
+            for (QueueRecoveryProgress progress : _queueRecoveryProgress.values())
+            {
+                remaining = Math.max(remaining, progress.getEstimatedTimeRemaining(now));
+            }
+            return remaining;
+        }
+
         private void recoverQueue(Queue<?> queue)
         {
-            MessageInstanceVisitor handler = new MessageInstanceVisitor(queue);
-            _storeReader.visitMessageInstances(queue, handler);
+            MessageInstanceVisitor handler =
+                    new MessageInstanceVisitor(queue, new QueueRecoveryProgress(_storeReader.getLastMessageId(queue)));
+            _queueRecoveryProgress.put(queue, handler.getProgress());
+            try
+            {
+                _storeReader.visitMessageInstances(queue, handler);
+                handler.complete();
+            }
+            finally
+            {
+                _queueRecoveryProgress.remove(queue);
+            }
 
             getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERED(handler.getRecoveredCount(), queue.getName()));
             getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERY_COMPLETE(queue.getName(), true));
@@ -181,11 +281,15 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
         private synchronized void completeRecovery()
         {
+            if (_messageRecoveryPool != null)
+            {
+                _messageRecoveryPool.shutdown();
+            }
+
             // at this point nothing should be writing to the map of recovered messages
-            for (Map.Entry<Long,MessageReference<? extends ServerMessage<?>>> entry : _recoveredMessages.entrySet())
+            for (MessageReference<? extends ServerMessage<?>> reference : _recoveredMessages.values())
             {
-                entry.getValue().release();
-                entry.setValue(null); // free up any memory associated with the reference object
+                reference.release();
             }
             final List<StoredMessage<?>> messagesToDelete = new ArrayList<>();
             getStoreReader().visitMessages(new MessageHandler()
@@ -218,24 +322,34 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             _storeReader.close();
         }
 
-        private synchronized ServerMessage<?> getRecoveredMessage(final long messageId)
+        private ServerMessage<?> getRecoveredMessage(final long messageId)
         {
             MessageReference<? extends ServerMessage<?>> ref = _recoveredMessages.get(messageId);
             if (ref == null)
             {
-                StoredMessage<?> message = _storeReader.getMessage(messageId);
-                if(message != null)
+                // Message store readers are thread safe, so only reads of the same message need to be serialised.
+                // A message on several queues may be wanted by several threads at once, but it must only be
+                // recovered once: releasing a surplus reference would remove the message from the store
+                synchronized (_messageLocks[(int) (messageId & (MESSAGE_LOCK_COUNT - 1))])
                 {
-                    StorableMessageMetaData metaData = message.getMetaData();
+                    ref = _recoveredMessages.get(messageId);
+                    if (ref == null)
+                    {
+                        StoredMessage<?> message = _storeReader.getMessage(messageId);
+                        if(message != null)
+                        {
+                            StorableMessageMetaData metaData = message.getMetaData();
 
-                    @SuppressWarnings("rawtypes")
-                    MessageMetaDataType type = metaData.getType();
+                            @SuppressWarnings("rawtypes")
+                            MessageMetaDataType type = metaData.getType();
 
-                    @SuppressWarnings("unchecked")
-                    ServerMessage<?> serverMessage = type.createMessage(message);
+                            @SuppressWarnings("unchecked")
+                            ServerMessage<?> serverMessage = type.createMessage(message);
 
-                    ref = serverMessage.newReference();
-                    _recoveredMessages.put(messageId, ref);
+                            ref = serverMessage.newReference();
+                            _recoveredMessages.put(messageId, ref);
+                        }
+                    }
                 }
             }
             return ref == null ? null : ref.getMessage();
@@ -244,6 +358,10 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         public void cancel()
         {
             _continueRecovery.set(false);
+            if (_messageRecoveryPool != null)
+            {
+                _messageRecoveryPool.shutdown();
+            }
             _queueRecoveryExecutor.shutdown();
             try
             {
@@ -459,46 +577,47 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
         }
 
+        /**
+         * Adds the message instances of a queue to the queue in the order in which they are visited.
+         * <p>
+         * If there is a message recovery pool, the visited enqueue records are divided into ranges whose messages
+         * are recovered from the store by the pool, while the instances of earlier ranges are added to the queue
+         * as soon as their messages are available.  Consumers of the queue can thus receive the messages at the
+         * head of the queue while those at the tail are still being recovered.
+         */
         private class MessageInstanceVisitor implements MessageInstanceHandler
         {
             private final Queue<?> _queue;
+            private final QueueRecoveryProgress _progress;
+            private final Deque<MessageRecoveryTask> _rangesInProgress = new ArrayDeque<>();
+            private List<MessageEnqueueRecord> _pendingRecords = new ArrayList<>(RECOVERY_RANGE_SIZE);
             long _recoveredCount;
 
-            private MessageInstanceVisitor(Queue<?> queue)
+            private MessageInstanceVisitor(Queue<?> queue, QueueRecoveryProgress progress)
             {
                 _queue = queue;
+                _progress = progress;
             }
 
             @Override
             public boolean handle(final MessageEnqueueRecord record)
             {
                 long messageId = record.getMessageNumber();
-                String queueName = _queue.getName();
 
                 if(messageId < _maxMessageId)
                 {
-                    ServerMessage<?> message = getRecoveredMessage(messageId);
-
-                    if (message != null)
+                    if (_messageRecoveryPool == null)
                     {
-                        if (_logger.isDebugEnabled())
-                        {
-                            _logger.debug("On recovery, delivering " + message.getMessageNumber() + " to " + queueName);
-                        }
-
-                        _queue.recover(message, record);
-                        _recoveredCount++;
+                        recoverMessageInstance(record, getRecoveredMessage(messageId));
                     }
                     else
                     {
-                        _logger.warn("Message id "
-                                     + messageId
-                                     + " referenced in log as enqueued in queue "
-                                     + queueName
-                                     + " is unknown, entry will be discarded");
-                        Transaction txn = _store.newTransaction();
-                        txn.dequeueMessage(record);
-                        txn.commitTranAsync((Void) null);
+                        _pendingRecords.add(record);
+                        if (_pendingRecords.size() == RECOVERY_RANGE_SIZE)
+                        {
+                            startRange();
+                        }
+                        enqueueRecoveredRanges(false);
                     }
                     return _continueRecovery.get();
                 }
@@ -509,10 +628,189 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
             }
 
+            /**
+             * Adds any message instances still being recovered to the queue, once all have been visited.
+             */
+            public void complete()
+            {
+                if (!_pendingRecords.isEmpty())
+                {
+                    startRange();
+                }
+                enqueueRecoveredRanges(true);
+            }
+
+            private void startRange()
+            {
+                List<MessageEnqueueRecord> records = _pendingRecords;
+                _pendingRecords = new ArrayList<>(RECOVERY_RANGE_SIZE);
+                if (!_continueRecovery.get())
+                {
+                    return;
+                }
+
+                MessageRecoveryTask range = new MessageRecoveryTask(records,
+                                                                   new ServerMessage<?>[records.size()],
+                                                                   0,
+                                                                   records.size());
+                try
+                {
+                    _messageRecoveryPool.execute(range);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the pool is only shut down while queues are recovering if recovery has been cancelled
+                    if (_continueRecovery.get())
+                    {
+                        throw e;
+                    }
+                    return;
+                }
+                _rangesInProgress.add(range);
+            }
+
+            private void enqueueRecoveredRanges(boolean waitForAll)
+            {
+                while (!_rangesInProgress.isEmpty()
+                       && (waitForAll
+                           || _rangesInProgress.size() > MAX_RANGES_IN_PROGRESS
+                           || _rangesInProgress.peek().isDone()))
+                {
+                    MessageRecoveryTask range = _rangesInProgress.poll();
+                    range.join();
+                    if (_continueRecovery.get())
+                    {
+                        for (int i = 0; i < range._records.size(); i++)
+                        {
+                            recoverMessageInstance(range._records.get(i), range._messages[i]);
+                        }
+                    }
+                }
+            }
+
+            private void recoverMessageInstance(final MessageEnqueueRecord record, final ServerMessage<?> message)
+            {
+                long messageId = record.getMessageNumber();
+                String queueName = _queue.getName();
+
+                if (message != null)
+                {
+                    if (_logger.isDebugEnabled())
+                    {
+                        _logger.debug("On recovery, delivering " + message.getMessageNumber() + " to " + queueName);
+                    }
+
+                    _queue.recover(message, record);
+                    if (_lazyMetaDataRecovery)
+                    {
+                        // the queue entry holds what it needs of the meta data, so release it until delivery
+                        message.getStoredMessage().flowToDisk();
+                    }
+                    _recoveredCount++;
+                    _recoveredMessageInstances.registerEvent(1L);
+                    _progress.update(messageId);
+                }
+                else
+                {
+                    _logger.warn("Message id "
+                                 + messageId
+                                 + " referenced in log as enqueued in queue "
+                                 + queueName
+                                 + " is unknown, entry will be discarded");
+                    Transaction txn = _store.newTransaction();
+                    txn.dequeueMessage(record);
+                    txn.commitTranAsync((Void) null);
+                }
+            }
+
             public long getRecoveredCount()
             {
                 return _recoveredCount;
             }
+
+            public QueueRecoveryProgress getProgress()
+            {
+                return _progress;
+            }
+        }
+
+        /**
+         * Recovers the messages of a range of enqueue records, splitting the range across the pool.
+         */
+        private class MessageRecoveryTask extends RecursiveAction
+        {
+            private final List<MessageEnqueueRecord> _records;
+            private final ServerMessage<?>[] _messages;
+            private final int _from;
+            private final int _to;
+
+            private MessageRecoveryTask(final List<MessageEnqueueRecord> records,
+                                        final ServerMessage<?>[] messages,
+                                        final int from,
+                                        final int to)
+            {
+                _records = records;
+                _messages = messages;
+                _from = from;
+                _to = to;
+            }
+
+            @Override
+            protected void compute()
+            {
+                if (_to - _from <= RECOVERY_SPLIT_THRESHOLD)
+                {
+                    for (int i = _from; i < _to && _continueRecovery.get(); i++)
+                    {
+                        _messages[i] = getRecoveredMessage(_records.get(i).getMessageNumber());
+                    }
+                }
+                else
+                {
+                    int middle = (_from + _to) >>> 1;
+                    invokeAll(new MessageRecoveryTask(_records, _messages, _from, middle),
+                              new MessageRecoveryTask(_records, _messages, middle, _to));
+                }
+            }
+        }
+
+        /**
+         * Estimates the time remaining to recover a queue from the proportion of the range of message ids enqueued
+         * on the queue which has been recovered so far.
+         */
+        private class QueueRecoveryProgress
+        {
+            private final long _startTime = System.currentTimeMillis();
+            private final long _queueLastMessageId;
+            private volatile long _firstMessageId = -1L;
+            private volatile long _lastMessageId = -1L;
+
+            private QueueRecoveryProgress(final long queueLastMessageId)
+            {
+                _queueLastMessageId = queueLastMessageId;
+            }
+
+            private void update(long messageId)
+            {
+                if (_firstMessageId < 0L)
+                {
+                    _firstMessageId = messageId;
+                }
+                _lastMessageId = messageId;
+            }
+
+            private long getEstimatedTimeRemaining(long now)
+            {
+                long firstMessageId = _firstMessageId;
+                long lastMessageId = _lastMessageId;
+                if (firstMessageId < 0L || lastMessageId <= firstMessageId || _queueLastMessageId <= lastMessageId)
+                {
+                    return 0L;
+                }
+                double recovered = (double) (lastMessageId - firstMessageId)
+                                   / (double) (_queueLastMessageId - firstMessageId);
+                return (long) ((now - _startTime) * (1.0d - recovered) / recovered);
+            }
         }
     }
 
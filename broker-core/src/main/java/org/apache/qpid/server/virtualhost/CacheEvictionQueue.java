@@ -0,0 +1,167 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entries of a cache bounded by the total size of its entries, queued in the order in which they are evicted.
+ * <p>
+ * Whenever the total size exceeds the maximum size, entries are evicted from the head of the queue, oldest first,
+ * except that an entry which has been referenced since it was last passed over is moved to the tail instead, giving
+ * the clock approximation of LRU.  Entries discarded by the cache itself are left in the queue until they outnumber
+ * the cached entries, when the queue is compacted.  Adding an entry does not lock, and at most one thread evicts or
+ * compacts at any time.
+ */
+public final class CacheEvictionQueue<E extends CacheEvictionQueue.Entry>
+{
+    private static final int MINIMUM_DISCARDED_TO_COMPACT = 64;
+
+    public interface Entry
+    {
+        long getSize();
+
+        boolean isDiscarded();
+
+        /**
+         * Returns true if the entry has been referenced since this method was last called, clearing the reference.
+         */
+        boolean clearReferenced();
+
+        /**
+         * Evicts the entry from its cache, which must then report the entry as {@link #discarded discarded}.
+         */
+        void evict();
+    }
+
+    private final Queue<E> _queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _cachedCount = new AtomicInteger();
+    private final AtomicInteger _queueLength = new AtomicInteger();
+    private final AtomicLong _size = new AtomicLong();
+    private final AtomicBoolean _evicting = new AtomicBoolean();
+    private volatile long _maximumSize;
+
+    public CacheEvictionQueue(final long maximumSize)
+    {
+        _maximumSize = maximumSize;
+    }
+
+    /**
+     * Adds an entry to the tail of the queue.  The caller must then call {@link #evictIfNecessary()}.
+     */
+    public void add(final E entry)
+    {
+        _cachedCount.incrementAndGet();
+        _size.addAndGet(entry.getSize());
+        _queue.add(entry);
+        _queueLength.incrementAndGet();
+    }
+
+    /**
+     * Records that an added entry has been discarded, whether by the cache or by its eviction.
+     */
+    public void discarded(final E entry)
+    {
+        _cachedCount.decrementAndGet();
+        _size.addAndGet(-entry.getSize());
+    }
+
+    public void evictIfNecessary()
+    {
+        if ((_size.get() > _maximumSize || mustCompact()) && _evicting.compareAndSet(false, true))
+        {
+            try
+            {
+                evict();
+                if (mustCompact())
+                {
+                    compact();
+                }
+            }
+            finally
+            {
+                _evicting.set(false);
+            }
+        }
+    }
+
+    public void setMaximumSize(final long maximumSize)
+    {
+        _maximumSize = maximumSize;
+        evictIfNecessary();
+    }
+
+    public long getMaximumSize()
+    {
+        return _maximumSize;
+    }
+
+    public long getSize()
+    {
+        return _size.get();
+    }
+
+    private void evict()
+    {
+        // each entry is passed over at most once after its reference has been cleared
+        int remaining = 2 * _queueLength.get();
+        E entry;
+        while (_size.get() > _maximumSize && remaining-- > 0 && (entry = _queue.poll()) != null)
+        {
+            if (!entry.isDiscarded() && entry.clearReferenced())
+            {
+                _queue.add(entry);
+            }
+            else
+            {
+                _queueLength.decrementAndGet();
+                if (!entry.isDiscarded())
+                {
+                    entry.evict();
+                }
+            }
+        }
+    }
+
+    private boolean mustCompact()
+    {
+        int discarded = _queueLength.get() - _cachedCount.get();
+        return discarded > MINIMUM_DISCARDED_TO_COMPACT && discarded > _cachedCount.get();
+    }
+
+    private void compact()
+    {
+        Iterator<E> iterator = _queue.iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().isDiscarded())
+            {
+                iterator.remove();
+                _queueLength.decrementAndGet();
+            }
+        }
+    }
+}
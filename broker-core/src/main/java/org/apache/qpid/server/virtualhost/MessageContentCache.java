@@ -0,0 +1,286 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.util.DaemonThreadFactory;
+
+/**
+ * Cache of the message content held in memory by all the queues of a virtual host.
+ * <p>
+ * Messages are added to the cache when they are enqueued, delivered or read ahead, and removed once no queue holds
+ * them.  Whenever the cache grows beyond its maximum size, the content of the least recently used messages is flowed
+ * to disk, using the clock approximation of LRU so that recording a use does not lock.
+ * <p>
+ * Queues may also read ahead the content of the entries their consumers will receive next.  Read ahead runs on
+ * threads of the cache so that consumers do not block on store reads.
+ */
+public class MessageContentCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageContentCache.class);
+
+    private static final int MAXIMUM_PENDING_READ_AHEADS = 1024;
+    private static final int SHUTDOWN_TIMEOUT = 5;
+
+    private final ConcurrentMap<StoredMessage<?>, CachedContent> _cachedContent = new ConcurrentHashMap<>();
+    private final CacheEvictionQueue<CachedContent> _evictionQueue;
+    private final AtomicLong _evictionCount = new AtomicLong();
+    private final AtomicLong _readAheadCount = new AtomicLong();
+    private final int _readAhead;
+    private final ThreadPoolExecutor _readAheadExecutor;
+
+    public MessageContentCache(final String name, final long maximumSize, final int readAhead, final int readAheadThreads)
+    {
+        _evictionQueue = new CacheEvictionQueue<>(maximumSize);
+        if (readAhead > 0 && readAheadThreads > 0)
+        {
+            _readAhead = readAhead;
+            _readAheadExecutor = new ThreadPoolExecutor(readAheadThreads, readAheadThreads,
+                                                        0L, TimeUnit.MILLISECONDS,
+                                                        new LinkedBlockingQueue<Runnable>(MAXIMUM_PENDING_READ_AHEADS),
+                                                        new DaemonThreadFactory("ContentReadAhead-" + name));
+        }
+        else
+        {
+            _readAhead = 0;
+            _readAheadExecutor = null;
+        }
+    }
+
+    /**
+     * Records a use of the content of the given message, adding the message to the cache if it is not cached.
+     */
+    public void add(final StoredMessage<?> message, final long size)
+    {
+        CachedContent cachedContent = _cachedContent.get(message);
+        if (cachedContent != null)
+        {
+            cachedContent.setReferenced();
+        }
+        else
+        {
+            cachedContent = new CachedContent(message, size);
+            if (_cachedContent.putIfAbsent(message, cachedContent) == null)
+            {
+                _evictionQueue.add(cachedContent);
+                _evictionQueue.evictIfNecessary();
+            }
+        }
+    }
+
+    /**
+     * Removes the given message from the cache without flowing its content to disk.
+     */
+    public void remove(final StoredMessage<?> message)
+    {
+        CachedContent cachedContent = _cachedContent.remove(message);
+        if (cachedContent != null)
+        {
+            cachedContent.discard();
+            _evictionQueue.discarded(cachedContent);
+            _evictionQueue.evictIfNecessary();
+        }
+    }
+
+    /**
+     * Loads the content of the given message from the store, if it is not in memory, and adds it to the cache.
+     */
+    public void load(final StoredMessage<?> message, final long size)
+    {
+        if (!message.isInMemory())
+        {
+            message.getMetaData();
+            Collection<QpidByteBuffer> content = message.getContent(0, Integer.MAX_VALUE);
+            if (content != null)
+            {
+                for (QpidByteBuffer buf : content)
+                {
+                    buf.dispose();
+                }
+            }
+            _readAheadCount.incrementAndGet();
+        }
+        add(message, size);
+    }
+
+    /**
+     * Returns the number of entries ahead of each consumer whose content should be read ahead, or zero if read ahead
+     * is disabled.
+     */
+    public int getReadAhead()
+    {
+        return _readAhead;
+    }
+
+    /**
+     * Runs the given read ahead task on a read ahead thread.
+     *
+     * @return false if read ahead is disabled or too many read ahead tasks are pending
+     */
+    public boolean readAhead(final Runnable task)
+    {
+        if (_readAheadExecutor != null)
+        {
+            try
+            {
+                _readAheadExecutor.execute(task);
+                return true;
+            }
+            catch (RejectedExecutionException e)
+            {
+                LOGGER.debug("Read ahead rejected", e);
+            }
+        }
+        return false;
+    }
+
+    public void setMaximumSize(final long maximumSize)
+    {
+        _evictionQueue.setMaximumSize(maximumSize);
+    }
+
+    public long getMaximumSize()
+    {
+        return _evictionQueue.getMaximumSize();
+    }
+
+    public long getSize()
+    {
+        return _evictionQueue.getSize();
+    }
+
+    public long getEvictionCount()
+    {
+        return _evictionCount.get();
+    }
+
+    public long getReadAheadCount()
+    {
+        return _readAheadCount.get();
+    }
+
+    public void close()
+    {
+        if (_readAheadExecutor != null)
+        {
+            _readAheadExecutor.shutdown();
+            try
+            {
+                if (!_readAheadExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS))
+                {
+                    _readAheadExecutor.shutdownNow();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                LOGGER.warn("Interrupted during shutdown of content read ahead");
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void evict(final CachedContent cachedContent)
+    {
+        StoredMessage<?> message = cachedContent.getMessage();
+        if (message != null && _cachedContent.remove(message, cachedContent))
+        {
+            cachedContent.discard();
+            _evictionQueue.discarded(cachedContent);
+            if (message.isInMemory() && message.flowToDisk())
+            {
+                _evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private final class CachedContent implements CacheEvictionQueue.Entry
+    {
+        private final long _size;
+        private volatile StoredMessage<?> _message;
+        private volatile boolean _referenced;
+
+        private CachedContent(final StoredMessage<?> message, final long size)
+        {
+            _message = message;
+            _size = size;
+        }
+
+        StoredMessage<?> getMessage()
+        {
+            return _message;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return _size;
+        }
+
+        void setReferenced()
+        {
+            if (!_referenced)
+            {
+                _referenced = true;
+            }
+        }
+
+        @Override
+        public boolean clearReferenced()
+        {
+            boolean referenced = _referenced;
+            if (referenced)
+            {
+                _referenced = false;
+            }
+            return referenced;
+        }
+
+        void discard()
+        {
+            _message = null;
+        }
+
+        @Override
+        public boolean isDiscarded()
+        {
+            return _message == null;
+        }
+
+        @Override
+        public void evict()
+        {
+            MessageContentCache.this.evict(this);
+        }
+    }
+}
@@ -33,4 +33,21 @@ public interface MessageStoreRecoverer
      * completed, this method call has no effect.
      */
     void cancel();
+
+    /**
+     * @return the number of message instances recovered onto queues so far
+     */
+    long getRecoveredMessageInstanceCount();
+
+    /**
+     * @return the number of message instances recovered per second over the most recent sampling period, or zero if
+     * recovery is not in progress
+     */
+    long getRecoveryRate();
+
+    /**
+     * @return an estimate of the time in milliseconds until recovery completes, or zero if recovery is not in
+     * progress or no estimate is yet available
+     */
+    long getEstimatedRecoveryTimeRemaining();
 }
@@ -61,6 +61,23 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 {
     private static final Logger _logger = LoggerFactory.getLogger(SynchronousMessageStoreRecoverer.class);
 
+    private final boolean _lazyMetaDataRecovery;
+    private volatile long _recoveredMessageInstanceCount;
+
+    public SynchronousMessageStoreRecoverer()
+    {
+        this(false);
+    }
+
+    /**
+     * @param lazyMetaDataRecovery whether the meta data of each recovered message is released once the message has
+     *                             been recovered, to be loaded from the store again only when it is needed
+     */
+    public SynchronousMessageStoreRecoverer(final boolean lazyMetaDataRecovery)
+    {
+        _lazyMetaDataRecovery = lazyMetaDataRecovery;
+    }
+
     @Override
     public ListenableFuture<Void> recover(VirtualHost<?> virtualHost)
     {
@@ -80,9 +97,11 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
         eventLogger.message(logSubject, TransactionLogMessages.RECOVERY_START(null, false));
         storeReader.visitMessageInstances(new MessageInstanceVisitor(virtualHost, store, queueRecoveries,
-                                                               recoveredMessages, unusedMessages));
+                                                               recoveredMessages, unusedMessages,
+                                                               _lazyMetaDataRecovery));
         for(Map.Entry<String,Integer> entry : queueRecoveries.entrySet())
         {
+            _recoveredMessageInstanceCount += entry.getValue();
             eventLogger.message(logSubject, TransactionLogMessages.RECOVERED(entry.getValue(), entry.getKey()));
             eventLogger.message(logSubject, TransactionLogMessages.RECOVERY_COMPLETE(entry.getKey(), true));
             virtualHost.getAttainedChildFromAddress(Queue.class, entry.getKey()).completeRecovery();
@@ -121,6 +140,24 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         // No-op
     }
 
+    @Override
+    public long getRecoveredMessageInstanceCount()
+    {
+        return _recoveredMessageInstanceCount;
+    }
+
+    @Override
+    public long getRecoveryRate()
+    {
+        return 0L;
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining()
+    {
+        return 0L;
+    }
+
     private static class MessageVisitor implements MessageHandler
     {
 
@@ -160,18 +197,21 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private final Map<String, Integer> _queueRecoveries;
         private final Map<Long, ServerMessage<?>> _recoveredMessages;
         private final Map<Long, StoredMessage<?>> _unusedMessages;
+        private final boolean _lazyMetaDataRecovery;
 
         private MessageInstanceVisitor(final VirtualHost<?> virtualHost,
                                        final MessageStore store,
                                        final Map<String, Integer> queueRecoveries,
                                        final Map<Long, ServerMessage<?>> recoveredMessages,
-                                       final Map<Long, StoredMessage<?>> unusedMessages)
+                                       final Map<Long, StoredMessage<?>> unusedMessages,
+                                       final boolean lazyMetaDataRecovery)
         {
             _virtualHost = virtualHost;
             _store = store;
             _queueRecoveries = queueRecoveries;
             _recoveredMessages = recoveredMessages;
             _unusedMessages = unusedMessages;
+            _lazyMetaDataRecovery = lazyMetaDataRecovery;
         }
 
         @Override
@@ -200,6 +240,11 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
                     }
 
                     queue.recover(message, record);
+                    if (_lazyMetaDataRecovery)
+                    {
+                        // the queue entry holds what it needs of the meta data, so release it until delivery
+                        message.getStoredMessage().flowToDisk();
+                    }
 
                     _queueRecoveries.put(queueName, ++count);
                 }
@@ -34,6 +34,8 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import org.apache.qpid.server.configuration.IllegalConfigurationException;
 import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageSource;
 import org.apache.qpid.server.model.AbstractConfiguredObject;
@@ -297,6 +299,120 @@ class RedirectingVirtualHostImpl
         return 0;
     }
 
+    @Override
+    public long getRecoveredMessageInstanceCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getRecoveryRate()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getContentCacheSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getContentCacheEvictionCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getContentReadAheadCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getGzipContentCacheSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getGzipContentCacheHitCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getGzipContentCacheMissCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public GzipContentCache getGzipContentCache()
+    {
+        return null;
+    }
+
+    @Override
+    public long getConvertedMessageCacheSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getConvertedMessageCacheHitCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getConvertedMessageCacheMissCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public ConvertedMessageCache getConvertedMessageCache()
+    {
+        return null;
+    }
+
+    @Override
+    public long getOffHeapSlabCapacity()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getOffHeapSlabAllocatedSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getOffHeapSlabUsedSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getConnectionThreadPoolTasksStolen()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getConnectionThreadPoolBusyTime()
+    {
+        return 0;
+    }
+
     @Override
     public Collection<? extends Connection<?>> getConnections()
     {
@@ -379,6 +495,12 @@ class RedirectingVirtualHostImpl
         return 0l;
     }
 
+    @Override
+    public MessageContentCache getMessageContentCache()
+    {
+        return null;
+    }
+
     @Override
     public void scheduleHouseKeepingTask(final long period, final HouseKeepingTask task)
     {
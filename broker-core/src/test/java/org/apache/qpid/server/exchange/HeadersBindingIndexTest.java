@@ -0,0 +1,192 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.model.Binding;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class HeadersBindingIndexTest extends QpidTestCase
+{
+    private HeadersBindingIndex _index;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _index = new HeadersBindingIndex();
+    }
+
+    public void testMatchAllIndexedOnRequiredValue() throws Exception
+    {
+        Binding<?> red = addBinding("x-match", "all", "colour", "red", "size", null);
+        Binding<?> blue = addBinding("x-match", "all", "colour", "blue", "size", null);
+        Binding<?> sized = addBinding("x-match", "all", "size", null);
+
+        assertCandidates(createHeaders("colour", "red", "size", 1), red, sized);
+        assertCandidates(createHeaders("colour", "green"));
+        assertCandidates(createHeaders("colour", "blue"), blue);
+    }
+
+    public void testMatchAnyIndexedOnEachHeader() throws Exception
+    {
+        Binding<?> any = addBinding("x-match", "any", "colour", "red", "size", null);
+
+        assertCandidates(createHeaders("colour", "red"), any);
+        assertCandidates(createHeaders("size", 1), any);
+        assertCandidates(createHeaders("colour", "red", "size", 1), any);
+        assertCandidates(createHeaders("colour", "blue"));
+    }
+
+    public void testBindingWithoutRequirementsIsAlwaysCandidate() throws Exception
+    {
+        Binding<?> unconditional = addBinding("x-match", "all");
+
+        assertCandidates(createHeaders(), unconditional);
+        assertCandidates(createHeaders("colour", "red"), unconditional);
+        assertCandidates(null, unconditional);
+    }
+
+    public void testReplaceAndRemove() throws Exception
+    {
+        Binding<?> binding = addBinding("colour", "red");
+
+        when(binding.getArguments()).thenReturn(createArguments("colour", "blue"));
+        _index.add(new HeadersBinding(binding));
+
+        assertCandidates(createHeaders("colour", "red"));
+        assertCandidates(createHeaders("colour", "blue"), binding);
+
+        assertTrue(_index.remove(binding));
+        assertFalse(_index.remove(binding));
+        assertCandidates(createHeaders("colour", "blue"));
+    }
+
+    public void testCandidatesInBindingOrder() throws Exception
+    {
+        Binding<?> first = addBinding("x-match", "any", "colour", "red", "size", null);
+        Binding<?> second = addBinding("x-match", "all");
+        Binding<?> third = addBinding("x-match", "all", "size", null);
+        Binding<?> fourth = addBinding("x-match", "all", "colour", "red");
+
+        assertCandidateOrder(createHeaders("size", 1, "colour", "red"), first, second, third, fourth);
+
+        when(first.getArguments()).thenReturn(createArguments("x-match", "all", "colour", "red"));
+        _index.add(new HeadersBinding(first));
+
+        assertCandidateOrder(createHeaders("size", 1, "colour", "red"), first, second, third, fourth);
+    }
+
+    public void testReplacedBindingAlwaysCandidate() throws Exception
+    {
+        final Binding<?> binding = addBinding("colour", "red");
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread replacer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (!done.get())
+                {
+                    _index.add(new HeadersBinding(binding));
+                }
+            }
+        });
+        replacer.start();
+        try
+        {
+            AMQMessageHeader headers = createHeaders("colour", "red");
+            for (int i = 0; i < 10000; i++)
+            {
+                assertCandidates(headers, binding);
+            }
+        }
+        finally
+        {
+            done.set(true);
+            replacer.join();
+        }
+    }
+
+    private Binding<?> addBinding(Object... arguments)
+    {
+        Binding<?> binding = mock(Binding.class);
+        when(binding.getArguments()).thenReturn(createArguments(arguments));
+        _index.add(new HeadersBinding(binding));
+        return binding;
+    }
+
+    private Map<String, Object> createArguments(Object... keysAndValues)
+    {
+        Map<String, Object> arguments = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            arguments.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return arguments;
+    }
+
+    private AMQMessageHeader createHeaders(Object... keysAndValues)
+    {
+        Map<String, Object> headers = createArguments(keysAndValues);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeaderNames()).thenReturn(headers.keySet());
+        for (Map.Entry<String, Object> entry : headers.entrySet())
+        {
+            when(header.getHeader(entry.getKey())).thenReturn(entry.getValue());
+        }
+        return header;
+    }
+
+    private void assertCandidates(AMQMessageHeader headers, Binding<?>... expected)
+    {
+        Set<Binding<?>> candidates = new HashSet<>();
+        Collection<HeadersBinding> headersBindings = _index.getCandidates(headers);
+        for (HeadersBinding headersBinding : headersBindings)
+        {
+            candidates.add(headersBinding.getBinding());
+        }
+        assertEquals("Unexpected candidate bindings", new HashSet<>(Arrays.asList(expected)), candidates);
+    }
+
+    private void assertCandidateOrder(AMQMessageHeader headers, Binding<?>... expected)
+    {
+        List<Binding<?>> candidates = new ArrayList<>();
+        for (HeadersBinding headersBinding : _index.getCandidates(headers))
+        {
+            candidates.add(headersBinding.getBinding());
+        }
+        assertEquals("Unexpected candidate binding order", Arrays.asList(expected), candidates);
+    }
+}
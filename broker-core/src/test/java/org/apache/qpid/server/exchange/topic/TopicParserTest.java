@@ -0,0 +1,174 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class TopicParserTest extends QpidTestCase
+{
+    private TopicParser _parser;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _parser = new TopicParser();
+    }
+
+    public void testLiteralAndWildcardBindings() throws Exception
+    {
+        TopicMatcherResult literal = addBinding("a.b.c");
+        TopicMatcherResult literalWithWildcard = addBinding("a.*.c");
+        TopicMatcherResult leadingWildcard = addBinding("*.b.c");
+        TopicMatcherResult matchAll = addBinding("#");
+        TopicMatcherResult trailingWildcard = addBinding("a.#");
+        TopicMatcherResult other = addBinding("x.b.c");
+
+        assertMatches("a.b.c", literal, literalWithWildcard, leadingWildcard, matchAll, trailingWildcard);
+        assertMatches("a.d.c", literalWithWildcard, matchAll, trailingWildcard);
+        assertMatches("a", matchAll, trailingWildcard);
+        assertMatches("x.b.c", leadingWildcard, matchAll, other);
+        assertMatches("unknown.b.c", leadingWildcard, matchAll);
+        assertMatches("", matchAll);
+    }
+
+    public void testEmptyBindingKey() throws Exception
+    {
+        TopicMatcherResult empty = addBinding("");
+        assertMatches("", empty);
+        assertMatches("a");
+    }
+
+    public void testRemoveBinding() throws Exception
+    {
+        TopicMatcherResult literal = addBinding("a.b");
+        TopicMatcherResult wildcard = addBinding("*.b");
+
+        _parser.removeBinding("a.b", literal);
+        assertMatches("a.b", wildcard);
+
+        _parser.removeBinding("*.b", wildcard);
+        assertMatches("a.b");
+
+        TopicMatcherResult readded = addBinding("a.b");
+        assertMatches("a.b", readded);
+    }
+
+    public void testRemoveOnlyAffectsGivenResult() throws Exception
+    {
+        TopicMatcherResult first = addBinding("a.b");
+        TopicMatcherResult second = addBinding("a.b");
+
+        _parser.removeBinding("a.b", first);
+
+        assertMatches("a.b", second);
+    }
+
+    public void testStatesDiscardedOnRemoval() throws Exception
+    {
+        TopicMatcherResult retained = addBinding("a.b.c");
+        int initialStateCount = _parser.getStateCount();
+
+        TopicMatcherResult[] results = new TopicMatcherResult[100];
+        for(int i = 0; i < results.length; i++)
+        {
+            results[i] = addBinding("a.b" + i + ".*.#");
+        }
+        assertTrue("State count should grow as bindings are added", _parser.getStateCount() > initialStateCount);
+
+        for(int i = 0; i < results.length; i++)
+        {
+            _parser.removeBinding("a.b" + i + ".*.#", results[i]);
+        }
+
+        assertEquals("Unexpected state count after bindings removed", initialStateCount, _parser.getStateCount());
+        assertMatches("a.b.c", retained);
+
+        _parser.removeBinding("a.b.c", retained);
+        assertEquals("Unexpected state count after all bindings removed", 0, _parser.getStateCount());
+    }
+
+    public void testRemoveOverlappingWildcardBinding() throws Exception
+    {
+        TopicMatcherResult matchAll = addBinding("#");
+        TopicMatcherResult leadingWildcard = addBinding("*.b");
+        TopicMatcherResult trailingWildcard = addBinding("#.c");
+
+        _parser.removeBinding("#", matchAll);
+
+        assertMatches("a.b", leadingWildcard);
+        assertMatches("a.b.c", trailingWildcard);
+        assertMatches("c", trailingWildcard);
+        assertMatches("a");
+
+        _parser.removeBinding("#.c", trailingWildcard);
+
+        assertMatches("a.b", leadingWildcard);
+        assertMatches("a.b.c");
+    }
+
+    public void testWildcardStatesDiscardedOnRemoval() throws Exception
+    {
+        TopicMatcherResult retained = addBinding("#.b");
+        int initialStateCount = _parser.getStateCount();
+
+        TopicMatcherResult[] results = new TopicMatcherResult[100];
+        for(int i = 0; i < results.length; i++)
+        {
+            results[i] = addBinding("*.c" + i + ".#");
+        }
+        assertTrue("State count should grow as bindings are added", _parser.getStateCount() > initialStateCount);
+        assertMatches("a.c7.b", retained, results[7]);
+
+        for(int i = 0; i < results.length; i++)
+        {
+            _parser.removeBinding("*.c" + i + ".#", results[i]);
+            assertMatches("a.c" + i + ".b", retained);
+        }
+
+        assertEquals("Unexpected state count after bindings removed", initialStateCount, _parser.getStateCount());
+
+        _parser.removeBinding("#.b", retained);
+        assertEquals("Unexpected state count after all bindings removed", 0, _parser.getStateCount());
+    }
+
+    private TopicMatcherResult addBinding(final String bindingKey)
+    {
+        TopicMatcherResult result = mock(TopicMatcherResult.class);
+        _parser.addBinding(bindingKey, result);
+        return result;
+    }
+
+    private void assertMatches(final String routingKey, final TopicMatcherResult... expected)
+    {
+        Set<TopicMatcherResult> expectedResults = new HashSet<>(Arrays.asList(expected));
+        assertEquals("Unexpected results for routing key '" + routingKey + "'",
+                     expectedResults,
+                     new HashSet<>(_parser.parse(routingKey)));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class TopicRoutingCacheTest extends QpidTestCase
+{
+    private TopicRoutingCache _cache;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _cache = new TopicRoutingCache(new TopicParser(), 10);
+    }
+
+    public void testHitsAndMisses() throws Exception
+    {
+        TopicMatcherResult result = addBinding("a.*");
+
+        assertMatches("a.b", result);
+        assertMatches("a.b", result);
+        assertMatches("c.d");
+
+        assertEquals("Unexpected hit count", 1, _cache.getHitCount());
+        assertEquals("Unexpected miss count", 2, _cache.getMissCount());
+    }
+
+    public void testAddBindingInvalidatesMatchingRoutingKeys() throws Exception
+    {
+        TopicMatcherResult first = addBinding("a.*");
+        assertMatches("a.b", first);
+        assertMatches("c.d");
+
+        TopicMatcherResult second = addBinding("#.b");
+        assertMatches("a.b", first, second);
+        assertMatches("c.d");
+
+        assertEquals("Only the routing key matched by the new binding should have been invalidated",
+                     1, _cache.getHitCount());
+    }
+
+    public void testRemoveBindingInvalidatesAffectedRoutingKeys() throws Exception
+    {
+        TopicMatcherResult first = addBinding("a.*");
+        TopicMatcherResult second = addBinding("c.*");
+        assertMatches("a.b", first);
+        assertMatches("c.d", second);
+
+        _cache.removeBinding("a.*", first);
+
+        assertMatches("a.b");
+        assertMatches("c.d", second);
+
+        assertEquals("Only the routing key matched by the removed binding should have been invalidated",
+                     1, _cache.getHitCount());
+    }
+
+    public void testCacheIsBounded() throws Exception
+    {
+        addBinding("#");
+        for(int i = 0; i < 20; i++)
+        {
+            _cache.parse("key" + i);
+        }
+        _cache.parse("key0");
+
+        assertEquals("Least recently used routing key should have been evicted", 0, _cache.getHitCount());
+    }
+
+    private TopicMatcherResult addBinding(final String bindingKey)
+    {
+        TopicMatcherResult result = mock(TopicMatcherResult.class);
+        _cache.addBinding(bindingKey, result);
+        return result;
+    }
+
+    private void assertMatches(final String routingKey, final TopicMatcherResult... expected)
+    {
+        Set<TopicMatcherResult> expectedResults = new HashSet<>(Arrays.asList(expected));
+        assertEquals("Unexpected results for routing key '" + routingKey + "'",
+                     expectedResults,
+                     new HashSet<>(_cache.parse(routingKey)));
+    }
+}
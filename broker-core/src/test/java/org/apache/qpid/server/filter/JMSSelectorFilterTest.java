@@ -37,6 +37,18 @@ public class JMSSelectorFilterTest extends QpidTestCase
         assertNotEqual(filter1, differentFilter);
     }
 
+    public void testGetInstanceSharesFilterForSameSelector() throws Exception
+    {
+        final String selectorString = "colour = 'red' AND size > 10";
+
+        JMSSelectorFilter filter1 = JMSSelectorFilter.getInstance(new String(selectorString));
+        JMSSelectorFilter filter2 = JMSSelectorFilter.getInstance(new String(selectorString));
+
+        assertSame("Filters for the same selector should be shared", filter1, filter2);
+        assertNotSame("Filters for different selectors should not be shared",
+                      filter1, JMSSelectorFilter.getInstance("colour = 'blue'"));
+    }
+
     private void assertEqualsAndHashCodeMatch(JMSSelectorFilter filter1, JMSSelectorFilter filter2)
     {
         String message = filter1 + " and " + filter2 + " should be equal";
@@ -0,0 +1,191 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import static org.mockito.Mockito.mock;
+
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ConvertedMessageCacheTest extends QpidTestCase
+{
+    private static final long MESSAGE_SIZE = 100L;
+
+    private NamedAddressSpace _addressSpace;
+    private TestConverter<SourceMessage> _converter;
+    private TestConverter<OtherTargetMessage> _otherConverter;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _addressSpace = mock(NamedAddressSpace.class);
+        _converter = new TestConverter<>(SourceMessage.class);
+        _otherConverter = new TestConverter<>(OtherTargetMessage.class);
+    }
+
+    public void testMessageConvertedOncePerOutputClass() throws Exception
+    {
+        ConvertedMessageCache cache = new ConvertedMessageCache(10 * MESSAGE_SIZE);
+        SourceMessage message = new SourceMessage();
+
+        SourceMessage first = cache.convert(message, _converter, _addressSpace);
+        SourceMessage second = cache.convert(message, _converter, _addressSpace);
+        OtherTargetMessage other = cache.convert(message, _otherConverter, _addressSpace);
+
+        assertSame("Converted message should have been shared", first, second);
+        assertNotNull("Unexpected converted message", other);
+        assertEquals("Unexpected number of conversions", 1, _converter.getConversionCount());
+        assertEquals("Unexpected number of conversions", 1, _otherConverter.getConversionCount());
+        assertEquals("Unexpected hit count", 1L, cache.getHitCount());
+        assertEquals("Unexpected miss count", 2L, cache.getMissCount());
+        assertEquals("Unexpected cache size", 2 * MESSAGE_SIZE, cache.getSize());
+    }
+
+    public void testConvertedMessagesDiscardedWhenMessageDeleted() throws Exception
+    {
+        ConvertedMessageCache cache = new ConvertedMessageCache(10 * MESSAGE_SIZE);
+        SourceMessage message = new SourceMessage();
+        MessageReference<SourceMessage> reference = message.newReference();
+
+        cache.convert(message, _converter, _addressSpace);
+        cache.convert(message, _otherConverter, _addressSpace);
+
+        reference.release();
+
+        assertEquals("Converted messages should have been discarded", 0L, cache.getSize());
+    }
+
+    public void testOldestConvertedMessageEvicted() throws Exception
+    {
+        ConvertedMessageCache cache = new ConvertedMessageCache(MESSAGE_SIZE + MESSAGE_SIZE / 2);
+        SourceMessage first = new SourceMessage();
+        SourceMessage second = new SourceMessage();
+
+        cache.convert(first, _converter, _addressSpace);
+        cache.convert(second, _converter, _addressSpace);
+        assertEquals("Unexpected cache size", MESSAGE_SIZE, cache.getSize());
+
+        cache.convert(second, _converter, _addressSpace);
+        assertEquals("Newest converted message should have been retained", 1L, cache.getHitCount());
+
+        cache.convert(first, _converter, _addressSpace);
+        assertEquals("Oldest converted message should have been evicted", 3, _converter.getConversionCount());
+    }
+
+    private static class TestConverter<N extends AbstractTestMessage<N>> implements MessageConverter<SourceMessage, N>
+    {
+        private final Class<N> _outputClass;
+        private int _conversionCount;
+
+        TestConverter(final Class<N> outputClass)
+        {
+            _outputClass = outputClass;
+        }
+
+        @Override
+        public Class<SourceMessage> getInputClass()
+        {
+            return SourceMessage.class;
+        }
+
+        @Override
+        public Class<N> getOutputClass()
+        {
+            return _outputClass;
+        }
+
+        @Override
+        public N convert(final SourceMessage message, final NamedAddressSpace addressSpace)
+        {
+            _conversionCount++;
+            try
+            {
+                return _outputClass.newInstance();
+            }
+            catch (InstantiationException | IllegalAccessException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public String getType()
+        {
+            return "Test";
+        }
+
+        int getConversionCount()
+        {
+            return _conversionCount;
+        }
+    }
+
+    private static abstract class AbstractTestMessage<X extends AbstractTestMessage<X>>
+            extends AbstractServerMessageImpl<X, StorableMessageMetaData>
+    {
+        AbstractTestMessage()
+        {
+            super(mock(StoredMessage.class), null);
+        }
+
+        @Override
+        public String getInitialRoutingAddress()
+        {
+            return null;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return MESSAGE_SIZE;
+        }
+
+        @Override
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+    }
+
+    public static class SourceMessage extends AbstractTestMessage<SourceMessage>
+    {
+    }
+
+    public static class OtherTargetMessage extends AbstractTestMessage<OtherTargetMessage>
+    {
+    }
+}
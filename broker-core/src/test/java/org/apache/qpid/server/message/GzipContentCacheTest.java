@@ -0,0 +1,220 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class GzipContentCacheTest extends QpidTestCase
+{
+    private static final byte[] CONTENT = createContent();
+
+    public void testDeflatedContentTransformedOnce() throws Exception
+    {
+        GzipContentCache cache = new GzipContentCache(1024 * 1024);
+        TestMessage message = new TestMessage(CONTENT);
+
+        byte[] first = toBytes(cache.getDeflatedContent(message));
+        byte[] second = toBytes(cache.getDeflatedContent(message));
+
+        assertEquals("Unexpected miss count", 1L, cache.getMissCount());
+        assertEquals("Unexpected hit count", 1L, cache.getHitCount());
+        assertEquals("Unexpected cache size", (long) first.length, cache.getSize());
+        assertTrue("Cached content differs", Arrays.equals(first, second));
+        assertTrue("Content was not compressed", first.length < CONTENT.length);
+        assertTrue("Unexpected decompressed content",
+                   Arrays.equals(CONTENT,
+                                 toBytes(QpidByteBuffer.inflate(Collections.singletonList(QpidByteBuffer.wrap(first))))));
+    }
+
+    public void testInflatedContent() throws Exception
+    {
+        GzipContentCache cache = new GzipContentCache(1024 * 1024);
+        TestMessage message = new TestMessage(gzip(CONTENT));
+
+        assertTrue("Unexpected decompressed content",
+                   Arrays.equals(CONTENT, toBytes(cache.getInflatedContent(message))));
+        assertTrue("Unexpected decompressed content",
+                   Arrays.equals(CONTENT, toBytes(cache.getInflatedContent(message))));
+        assertEquals("Unexpected hit count", 1L, cache.getHitCount());
+        assertEquals("Unexpected cache size", (long) CONTENT.length, cache.getSize());
+    }
+
+    public void testContentDisposedWhenMessageDeleted() throws Exception
+    {
+        GzipContentCache cache = new GzipContentCache(1024 * 1024);
+        TestMessage message = new TestMessage(CONTENT);
+        MessageReference<TestMessage> reference = message.newReference();
+
+        toBytes(cache.getDeflatedContent(message));
+        assertTrue("Content should be cached", cache.getSize() > 0L);
+
+        reference.release();
+
+        assertEquals("Content should have been disposed", 0L, cache.getSize());
+    }
+
+    public void testOldestContentEvicted() throws Exception
+    {
+        TestMessage first = new TestMessage(CONTENT);
+        TestMessage second = new TestMessage(CONTENT);
+        int deflatedSize = toBytes(QpidByteBuffer.deflate(Collections.singletonList(QpidByteBuffer.wrap(CONTENT)))).length;
+        GzipContentCache cache = new GzipContentCache(deflatedSize + deflatedSize / 2);
+
+        toBytes(cache.getDeflatedContent(first));
+        toBytes(cache.getDeflatedContent(second));
+
+        assertEquals("Unexpected cache size", (long) deflatedSize, cache.getSize());
+
+        toBytes(cache.getDeflatedContent(second));
+        assertEquals("Newest content should have been retained", 1L, cache.getHitCount());
+
+        toBytes(cache.getDeflatedContent(first));
+        assertEquals("Oldest content should have been evicted", 3L, cache.getMissCount());
+    }
+
+    private static byte[] createContent()
+    {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 256; i++)
+        {
+            content.append("compressible message content ").append(i % 8);
+        }
+        return content.toString().getBytes();
+    }
+
+    private static byte[] gzip(final byte[] content) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes))
+        {
+            gzipOutputStream.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] toBytes(final Collection<QpidByteBuffer> buffers)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (QpidByteBuffer buf : buffers)
+        {
+            byte[] data = new byte[buf.remaining()];
+            buf.get(data);
+            bytes.write(data, 0, data.length);
+            buf.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class TestMessage extends AbstractServerMessageImpl<TestMessage, StorableMessageMetaData>
+    {
+        private final int _size;
+
+        TestMessage(final byte[] content)
+        {
+            super(new TestStoredMessage(content), null);
+            _size = content.length;
+        }
+
+        @Override
+        public String getInitialRoutingAddress()
+        {
+            return null;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return _size;
+        }
+
+        @Override
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+    }
+
+    private static class TestStoredMessage implements StoredMessage<StorableMessageMetaData>
+    {
+        private final byte[] _content;
+
+        TestStoredMessage(final byte[] content)
+        {
+            _content = content;
+        }
+
+        @Override
+        public StorableMessageMetaData getMetaData()
+        {
+            return null;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return 0;
+        }
+
+        @Override
+        public Collection<QpidByteBuffer> getContent(final int offset, final int length)
+        {
+            return Collections.singletonList(QpidByteBuffer.wrap(_content, offset, length));
+        }
+
+        @Override
+        public void remove()
+        {
+        }
+
+        @Override
+        public boolean isInMemory()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean flowToDisk()
+        {
+            return false;
+        }
+    }
+}
@@ -183,6 +183,23 @@ public class AmqpPortImplTest extends QpidTestCase
         }
     }
 
+    public void testTlsHandshakeStatistics()
+    {
+        _port = createPort(getTestName());
+
+        assertEquals("Unexpected handshake count", 0L, _port.getTlsHandshakeCount());
+        assertEquals("Unexpected session reuse count", 0L, _port.getTlsSessionReuseCount());
+
+        _port.registerTlsHandshake(20L, false);
+        _port.registerTlsHandshake(2L, true);
+        _port.registerTlsHandshake(3L, true);
+
+        assertEquals("Unexpected handshake count", 3L, _port.getTlsHandshakeCount());
+        assertEquals("Unexpected session reuse count", 2L, _port.getTlsSessionReuseCount());
+        assertEquals("Unexpected median handshake time", 3L, _port.getTlsHandshakeTimeMedian());
+        assertEquals("Unexpected maximum handshake time", 20L, _port.getTlsHandshakeTimeMaximum());
+    }
+
     private AmqpPortImpl createPort(final String portName)
     {
         return createPort(portName, Collections.<String, Object>emptyMap());
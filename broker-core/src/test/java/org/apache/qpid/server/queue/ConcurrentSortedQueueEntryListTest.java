@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObjectFactory;
+import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
+import org.apache.qpid.server.model.LifetimePolicy;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.TransactionLogResource;
+
+public class ConcurrentSortedQueueEntryListTest extends QueueEntryListTestBase
+{
+    private static final String[] KEYS = SortedQueueEntryListTest.keys;
+
+    private final String[] _keysSorted = KEYS.clone();
+    private SortedQueueImpl _testQueue;
+    private ConcurrentSortedQueueEntryList _list;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        Map<String,Object> attributes = new HashMap<String,Object>();
+        attributes.put(Queue.ID, UUID.randomUUID());
+        attributes.put(Queue.NAME, getName());
+        attributes.put(Queue.DURABLE, false);
+        attributes.put(Queue.LIFETIME_POLICY, LifetimePolicy.PERMANENT);
+        attributes.put(SortedQueue.SORT_KEY, "KEY");
+
+        final VirtualHost virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getEventLogger()).thenReturn(new EventLogger());
+        ConfiguredObjectFactory factory = new ConfiguredObjectFactoryImpl(BrokerModel.getInstance());
+        when(virtualHost.getObjectFactory()).thenReturn(factory);
+        when(virtualHost.getModel()).thenReturn(factory.getModel());
+        when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
+        TaskExecutor taskExecutor = CurrentThreadTaskExecutor.newStartedInstance();
+        when(virtualHost.getTaskExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
+        _testQueue = new SortedQueueImpl(attributes, virtualHost);
+        _testQueue.open();
+        _list = new ConcurrentSortedQueueEntryList(_testQueue);
+
+        super.setUp();
+
+        Arrays.sort(_keysSorted);
+
+        long messageId = 0L;
+        for(final String key : KEYS)
+        {
+            _list.add(generateTestMessage(messageId++, key), null);
+        }
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList()
+    {
+        return getTestList(false);
+    }
+
+    @Override
+    public ConcurrentSortedQueueEntryList getTestList(boolean newList)
+    {
+        return newList ? new ConcurrentSortedQueueEntryList(_testQueue) : _list;
+    }
+
+    @Override
+    public int getExpectedListLength()
+    {
+        return KEYS.length;
+    }
+
+    @Override
+    public long getExpectedFirstMsgId()
+    {
+        return 67L;
+    }
+
+    @Override
+    public ServerMessage getTestMessageToAdd()
+    {
+        return generateTestMessage(1, "test value");
+    }
+
+    @Override
+    protected SortedQueueImpl getTestQueue()
+    {
+        return _testQueue;
+    }
+
+    public void testQueueUsesConcurrentEntryListByDefault()
+    {
+        assertTrue("Unexpected entry list type", _testQueue.getEntries() instanceof ConcurrentSortedQueueEntryList);
+    }
+
+    @Override
+    public void testIterator()
+    {
+        super.testIterator();
+
+        final QueueEntryIterator iter = getTestList().iterator();
+        int count = 0;
+        while(iter.advance())
+        {
+            assertEquals("Sorted queue entry value does not match sorted key array",
+                         _keysSorted[count++], iter.getNode().getMessage().getMessageHeader().getHeader("KEY"));
+        }
+        assertEquals("Unexpected number of entries", KEYS.length, count);
+    }
+
+    public void testEqualKeysRetainEnqueueOrder()
+    {
+        final ConcurrentSortedQueueEntryList list = getTestList(true);
+        final QueueEntry first = list.add(generateTestMessage(1, "A"), null);
+        final QueueEntry second = list.add(generateTestMessage(2, "A"), null);
+        final QueueEntry third = list.add(generateTestMessage(3, "A"), null);
+
+        assertSame(first, list.next(list.getHead()));
+        assertSame(second, list.next(first));
+        assertSame(third, list.next(second));
+        assertSame(third, list.getTail());
+    }
+
+    public void testNullKeysSortFirst()
+    {
+        final ConcurrentSortedQueueEntryList list = getTestList(true);
+        final QueueEntry keyed = list.add(generateTestMessage(1, "A"), null);
+        final QueueEntry unkeyed = list.add(generateTestMessage(2, null), null);
+
+        assertSame(unkeyed, list.next(list.getHead()));
+        assertSame(keyed, list.next(unkeyed));
+    }
+
+    public void testConcurrentAdds() throws Exception
+    {
+        final ConcurrentSortedQueueEntryList list = getTestList(true);
+        final int threadCount = 4;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < threadCount; t++)
+        {
+            final int offset = t;
+            Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for(int i = offset; i < KEYS.length; i += threadCount)
+                    {
+                        list.add(generateTestMessage(i, KEYS[i]), null);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for(Thread thread : threads)
+        {
+            thread.join(10000L);
+        }
+
+        final QueueEntryIterator iter = list.iterator();
+        int count = 0;
+        while(iter.advance())
+        {
+            assertEquals("Sorted queue entry value does not match sorted key array",
+                         _keysSorted[count++], iter.getNode().getMessage().getMessageHeader().getHeader("KEY"));
+        }
+        assertEquals("Unexpected number of entries", KEYS.length, count);
+    }
+
+    private ServerMessage generateTestMessage(final long id, final String keyValue)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        AMQMessageHeader hdr = mock(AMQMessageHeader.class);
+        when(message.getMessageHeader()).thenReturn(hdr);
+        when(hdr.getHeader(eq("KEY"))).thenReturn(keyValue);
+        when(hdr.containsHeader(eq("KEY"))).thenReturn(keyValue != null);
+        when(hdr.getHeaderNames()).thenReturn(keyValue == null
+                                                      ? Collections.<String>emptySet()
+                                                      : Collections.singleton("KEY"));
+        MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        when(message.getMessageNumber()).thenReturn(id);
+
+        return message;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
+import org.apache.qpid.server.configuration.updater.TaskExecutor;
+import org.apache.qpid.server.consumer.ConsumerImpl;
+import org.apache.qpid.server.logging.EventLogger;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerModel;
+import org.apache.qpid.server.model.ConfiguredObjectFactory;
+import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DefinedGroupMessageGroupManagerTest extends QpidTestCase
+{
+    private static final String GROUP_HEADER = "group";
+    private static final String DEFAULT_GROUP = "qpid.no-group";
+
+    private StandardQueueImpl _queue;
+    private TestResetHelper _resetHelper;
+    private DefinedGroupMessageGroupManager _groupManager;
+    private long _messageNumber;
+    private long _consumerNumber;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        Map<String,Object> queueAttributes = new HashMap<String, Object>();
+        queueAttributes.put(Queue.ID, UUID.randomUUID());
+        queueAttributes.put(Queue.NAME, getName());
+        final VirtualHost virtualHost = mock(VirtualHost.class);
+        when(virtualHost.getEventLogger()).thenReturn(new EventLogger());
+        ConfiguredObjectFactory factory = new ConfiguredObjectFactoryImpl(BrokerModel.getInstance());
+        when(virtualHost.getObjectFactory()).thenReturn(factory);
+        when(virtualHost.getModel()).thenReturn(factory.getModel());
+        when(virtualHost.getPrincipal()).thenReturn(mock(Principal.class));
+        TaskExecutor taskExecutor = CurrentThreadTaskExecutor.newStartedInstance();
+        when(virtualHost.getTaskExecutor()).thenReturn(taskExecutor);
+        when(virtualHost.getChildExecutor()).thenReturn(taskExecutor);
+        _queue = new StandardQueueImpl(queueAttributes, virtualHost);
+        _queue.open();
+
+        _resetHelper = new TestResetHelper();
+        _groupManager = new DefinedGroupMessageGroupManager(GROUP_HEADER, DEFAULT_GROUP, _resetHelper);
+    }
+
+    public void testGroupReassignedAfterConsumerClosed()
+    {
+        QueueConsumer<?> consumer1 = newConsumer();
+        QueueConsumer<?> consumer2 = newConsumer();
+        QueueEntry entry1 = addEntry("A");
+        QueueEntry entry2 = addEntry("A");
+
+        assertTrue("First entry should be assigned", _groupManager.acceptMessage(consumer1, entry1));
+        assertFalse("Group should not be available to another consumer", _groupManager.mightAssign(entry2, consumer2));
+
+        when(consumer1.isClosed()).thenReturn(true);
+        assertFalse("Group should remain assigned while the closed consumer holds a message",
+                    _groupManager.acceptMessage(consumer2, entry2));
+
+        entry1.delete();
+
+        assertSame("Consumers should be reset to the entry skipped for the group",
+                   entry2, _resetHelper.getResetEntry());
+        assertEquals("Unexpected group count", 0, _groupManager.getGroupCount());
+        assertTrue("Group should be reassigned to the remaining consumer",
+                   _groupManager.acceptMessage(consumer2, entry2));
+        assertSame("Unexpected acquiring consumer", consumer2, entry2.getAcquiringConsumer());
+        assertEquals("Unexpected assignment count", 2L, _groupManager.getAssignmentCount());
+    }
+
+    public void testClearAssignmentsRemovesGroups()
+    {
+        QueueConsumer<?> consumer1 = newConsumer();
+        QueueConsumer<?> consumer2 = newConsumer();
+        QueueEntry entryA = addEntry("A");
+        QueueEntry entryB = addEntry("B");
+
+        entryA.acquire();
+        assertFalse("Entry acquired elsewhere should not be accepted", _groupManager.acceptMessage(consumer1, entryA));
+        assertTrue("Entry should be assigned", _groupManager.acceptMessage(consumer1, entryB));
+        assertEquals("Unexpected group count", 2, _groupManager.getGroupCount());
+
+        _groupManager.clearAssignments(consumer1);
+
+        assertEquals("Only the group with an acquired message should remain", 1, _groupManager.getGroupCount());
+        assertTrue("Cleared group should be available to another consumer",
+                   _groupManager.mightAssign(entryA, consumer2));
+        assertFalse("Group with an acquired message should remain assigned",
+                    _groupManager.mightAssign(addEntry("B"), consumer2));
+        assertNull("No entries should be found for a cleared consumer",
+                   _groupManager.findEarliestAssignedAvailableEntry(consumer1));
+
+        entryB.delete();
+
+        assertEquals("Unexpected group count", 0, _groupManager.getGroupCount());
+    }
+
+    public void testOrderingWithinGroupMaintainedForSkippedEntries()
+    {
+        QueueConsumer<?> consumer1 = newConsumer();
+        QueueConsumer<?> consumer2 = newConsumer();
+        QueueEntry entry1 = addEntry("A");
+        QueueEntry entry2 = addEntry("A");
+        QueueEntry entry3 = addEntry("A");
+
+        assertTrue("First entry should be assigned", _groupManager.acceptMessage(consumer1, entry1));
+        assertFalse("Second entry should be skipped", _groupManager.mightAssign(entry2, consumer2));
+        assertFalse("Third entry should be skipped", _groupManager.mightAssign(entry3, consumer2));
+        assertSame("Unexpected earliest skipped entry",
+                   entry2, _groupManager.findEarliestAssignedAvailableEntry(consumer1));
+
+        entry1.delete();
+
+        assertSame("Consumers should be reset to the earliest skipped entry", entry2, _resetHelper.getResetEntry());
+        assertFalse("Entry behind the reset point should not be delivered first",
+                    _groupManager.acceptMessage(consumer2, entry3));
+        assertTrue("Earliest entry should be delivered first", _groupManager.acceptMessage(consumer2, entry2));
+        assertTrue("Later entry should then be delivered", _groupManager.acceptMessage(consumer2, entry3));
+    }
+
+    public void testConcurrentAssignment() throws Exception
+    {
+        final int numberOfGroups = 8;
+        final int entriesPerGroup = 16;
+        final int numberOfConsumers = 4;
+
+        final List<QueueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < entriesPerGroup; i++)
+        {
+            for (int group = 0; group < numberOfGroups; group++)
+            {
+                entries.add(addEntry("group" + group));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfConsumers);
+        try
+        {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numberOfConsumers; i++)
+            {
+                final QueueConsumer<?> consumer = newConsumer();
+                futures.add(executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            start.await();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        for (QueueEntry entry : entries)
+                        {
+                            if (_groupManager.mightAssign(entry, consumer))
+                            {
+                                _groupManager.acceptMessage(consumer, entry);
+                            }
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+            {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        Map<Object, ConsumerImpl> groupConsumers = new HashMap<>();
+        for (QueueEntry entry : entries)
+        {
+            assertTrue("Entry should have been acquired", entry.isAcquired());
+            Object group = entry.getMessage().getMessageHeader().getHeader(GROUP_HEADER);
+            ConsumerImpl consumer = entry.getAcquiringConsumer();
+            if (groupConsumers.containsKey(group))
+            {
+                assertSame("Group delivered to more than one consumer", groupConsumers.get(group), consumer);
+            }
+            else
+            {
+                groupConsumers.put(group, consumer);
+            }
+        }
+        assertEquals("Unexpected group count", numberOfGroups, _groupManager.getGroupCount());
+        assertEquals("Each group should have been assigned once",
+                     (long) numberOfGroups, _groupManager.getAssignmentCount());
+    }
+
+    private QueueEntry addEntry(final Object group)
+    {
+        ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageNumber()).thenReturn(++_messageNumber);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader(GROUP_HEADER)).thenReturn(group);
+        when(message.getMessageHeader()).thenReturn(header);
+        final MessageReference reference = mock(MessageReference.class);
+        when(reference.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(reference);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(reference);
+        return _queue.getEntries().add(message, null);
+    }
+
+    private QueueConsumer<?> newConsumer()
+    {
+        final QueueConsumer consumer = mock(QueueConsumer.class);
+        MessageInstance.ConsumerAcquiredState owningState = new QueueEntryImpl.ConsumerAcquiredState(consumer);
+        when(consumer.getOwningState()).thenReturn(owningState);
+        when(consumer.getConsumerNumber()).thenReturn(_consumerNumber++);
+        when(consumer.getQueue()).thenReturn(_queue);
+        return consumer;
+    }
+
+    private static class TestResetHelper implements MessageGroupManager.ConsumerResetHelper
+    {
+        private volatile QueueEntry _resetEntry;
+
+        @Override
+        public void resetSubPointersForGroups(final QueueEntry entry)
+        {
+            _resetEntry = entry;
+        }
+
+        @Override
+        public boolean isEntryAheadOfConsumer(final QueueEntry entry, final QueueConsumer<?> sub)
+        {
+            QueueEntry resetEntry = _resetEntry;
+            return resetEntry != null && resetEntry.compareTo(entry) < 0;
+        }
+
+        QueueEntry getResetEntry()
+        {
+            return _resetEntry;
+        }
+    }
+}
@@ -77,18 +77,7 @@ public class PriorityQueueListTest extends QpidTestCase
 
         for (int i = 0; i < PRIORITIES.length; i++)
         {
-            ServerMessage<?> message = mock(ServerMessage.class);
-            AMQMessageHeader header = mock(AMQMessageHeader.class);
-            @SuppressWarnings({ "rawtypes", "unchecked" })
-            MessageReference<ServerMessage> ref = mock(MessageReference.class);
-
-            when(message.getMessageHeader()).thenReturn(header);
-            when(message.newReference()).thenReturn(ref);
-            when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
-            when(ref.getMessage()).thenReturn(message);
-            when(header.getPriority()).thenReturn(PRIORITIES[i]);
-
-            entries[i] = _list.add(message, null);
+            entries[i] = addEntry(PRIORITIES[i]);
         }
 
         _priority4message1 = entries[0];
@@ -97,6 +86,22 @@ public class PriorityQueueListTest extends QpidTestCase
         _priority5message2 = entries[2];
     }
 
+    private QueueEntry addEntry(final byte priority)
+    {
+        ServerMessage<?> message = mock(ServerMessage.class);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        MessageReference<ServerMessage> ref = mock(MessageReference.class);
+
+        when(message.getMessageHeader()).thenReturn(header);
+        when(message.newReference()).thenReturn(ref);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(ref);
+        when(ref.getMessage()).thenReturn(message);
+        when(header.getPriority()).thenReturn(priority);
+
+        return _list.add(message, null);
+    }
+
     @Override
     public void tearDown() throws Exception
     {
@@ -161,4 +166,54 @@ public class PriorityQueueListTest extends QpidTestCase
         assertEquals("second message with priority 4 should be 'later' than second message of priority 5",
                 1, _priority4message2.compareTo(_priority5message2));
     }
+
+    public void testNextAndIteratorVisitEntriesInPriorityOrder()
+    {
+        QueueEntry[] expected = {_priority5message1, _priority5message2, _priority4message1, _priority4message2};
+
+        QueueEntry entry = _list.getHead();
+        for (QueueEntry expectedEntry : expected)
+        {
+            entry = _list.next(entry);
+            assertSame("Unexpected next entry", expectedEntry, entry);
+        }
+        assertNull("Unexpected entry after the last entry", _list.next(entry));
+
+        QueueEntryIterator iterator = _list.iterator();
+        for (QueueEntry expectedEntry : expected)
+        {
+            assertTrue("Iterator should have advanced", iterator.advance());
+            assertSame("Unexpected iterator entry", expectedEntry, iterator.getNode());
+        }
+        assertFalse("Iterator should not have advanced beyond the last entry", iterator.advance());
+    }
+
+    public void testPriorityRefilledAfterBeingEmptied()
+    {
+        QueueEntry priority3message = addEntry((byte) 3);
+
+        _priority4message1.acquire();
+        _priority4message1.delete();
+        _priority4message2.acquire();
+        _priority4message2.delete();
+
+        // finding priority 4 empty clears its bit while priorities 5 and 3 still hold entries
+        assertSame("Unexpected entry after the emptied priority",
+                   priority3message, _list.next(_priority5message2));
+
+        QueueEntry priority4message = addEntry((byte) 4);
+
+        assertSame("Refilled priority should be visited",
+                   priority4message, _list.next(_priority5message2));
+        assertSame("Unexpected entry after the refilled priority", priority3message, _list.next(priority4message));
+
+        QueueEntry[] expected = {_priority5message1, _priority5message2, priority4message, priority3message};
+        QueueEntryIterator iterator = _list.iterator();
+        for (QueueEntry expectedEntry : expected)
+        {
+            assertTrue("Iterator should have advanced", iterator.advance());
+            assertSame("Unexpected iterator entry", expectedEntry, iterator.getNode());
+        }
+        assertFalse("Iterator should not have advanced beyond the last entry", iterator.advance());
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class QueueEntryExpiryIndexTest extends QpidTestCase
+{
+    private static final long TICK = 100L;
+
+    private QueueEntryExpiryIndex _index;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _index = new QueueEntryExpiryIndex(TICK);
+    }
+
+    public void testPollExpiredReturnsEntriesOfEndedTicks() throws Exception
+    {
+        QueueEntry first = createEntry(1050L);
+        QueueEntry second = createEntry(1100L);
+        QueueEntry third = createEntry(1101L);
+        _index.add(first);
+        _index.add(second);
+        _index.add(third);
+
+        assertEquals("Unexpected expired entries", Collections.emptyList(), _index.pollExpired(1099L));
+        assertEquals("Unexpected expired entries",
+                     new HashSet<>(Arrays.asList(first, second)),
+                     new HashSet<>(_index.pollExpired(1100L)));
+        assertEquals("Polled entries should have been removed", Collections.emptyList(), _index.pollExpired(1100L));
+        assertEquals("Unexpected expired entries", Collections.singletonList(third), _index.pollExpired(1200L));
+    }
+
+    public void testRemovedEntryIsNotPolled() throws Exception
+    {
+        QueueEntry removed = createEntry(1050L);
+        QueueEntry retained = createEntry(1060L);
+        _index.add(removed);
+        _index.add(retained);
+
+        _index.remove(removed);
+
+        assertEquals("Unexpected expired entries", Collections.singletonList(retained), _index.pollExpired(2000L));
+    }
+
+    public void testEntryWithoutExpirationIsNotIndexed() throws Exception
+    {
+        _index.add(createEntry(0L));
+
+        assertEquals("Unexpected expired entries", Collections.emptyList(), _index.pollExpired(Long.MAX_VALUE));
+    }
+
+    private QueueEntry createEntry(final long expiration)
+    {
+        QueueEntry entry = mock(QueueEntry.class);
+        when(entry.getExpiration()).thenReturn(expiration);
+        return entry;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.filter.MessageFilter;
+import org.apache.qpid.server.queue.QueueSelectorIndex.Outcome;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class QueueSelectorIndexTest extends QpidTestCase
+{
+    private QueueSelectorIndex _index;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _index = new QueueSelectorIndex();
+    }
+
+    public void testEqualitySelector() throws Exception
+    {
+        QueueConsumer<?> eu = addConsumer("region = 'EU'");
+        QueueConsumer<?> us = addConsumer("region = 'US'");
+
+        Filterable message = createMessage("region", "EU");
+
+        assertEquals(Outcome.MATCH, match(eu, message));
+        assertEquals(Outcome.NO_MATCH, match(us, message));
+    }
+
+    public void testInSelector() throws Exception
+    {
+        QueueConsumer<?> consumer = addConsumer("type IN ('a', 'b')");
+
+        assertEquals(Outcome.MATCH, match(consumer, createMessage("type", "b")));
+        assertEquals(Outcome.NO_MATCH, match(consumer, createMessage("type", "c")));
+        assertEquals(Outcome.NO_MATCH, match(consumer, createMessage("other", "a")));
+    }
+
+    public void testConjunctionRequiresEvaluation() throws Exception
+    {
+        QueueConsumer<?> consumer = addConsumer("region = 'EU' AND size > 10");
+
+        assertEquals(Outcome.EVALUATE, match(consumer, createMessage("region", "EU")));
+        assertEquals(Outcome.NO_MATCH, match(consumer, createMessage("region", "US")));
+    }
+
+    public void testNonStringPropertyValueRequiresEvaluation() throws Exception
+    {
+        QueueConsumer<?> consumer = addConsumer("region = 'EU'");
+
+        assertEquals(Outcome.EVALUATE, match(consumer, createMessage("region", 1)));
+    }
+
+    public void testComplexSelectorIsNotIndexed() throws Exception
+    {
+        QueueConsumer<?> indexed = addConsumer("region = 'EU'");
+        QueueConsumer<?> notIndexed = addConsumer("region = 'EU' OR size > 10");
+
+        Filterable message = createMessage("region", "US");
+        assertEquals(Outcome.NO_MATCH, match(indexed, message));
+        assertEquals(Outcome.EVALUATE, match(notIndexed, message));
+    }
+
+    public void testAdditionalFiltersRequireEvaluation() throws Exception
+    {
+        FilterManager filters = createFilterManager("region = 'EU'");
+        filters.add("other", mock(MessageFilter.class));
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        _index.addConsumer(consumer, filters);
+
+        assertEquals(Outcome.EVALUATE, match(consumer, createMessage("region", "EU")));
+        assertEquals(Outcome.NO_MATCH, match(consumer, createMessage("region", "US")));
+    }
+
+    public void testRemoveConsumer() throws Exception
+    {
+        QueueConsumer<?> consumer = addConsumer("region = 'EU'");
+        assertFalse(_index.isEmpty());
+
+        _index.removeConsumer(consumer);
+
+        assertTrue(_index.isEmpty());
+        assertEquals(Outcome.EVALUATE, match(consumer, createMessage("region", "US")));
+    }
+
+    private QueueConsumer<?> addConsumer(String selector) throws Exception
+    {
+        QueueConsumer<?> consumer = mock(QueueConsumer.class);
+        _index.addConsumer(consumer, createFilterManager(selector));
+        return consumer;
+    }
+
+    private FilterManager createFilterManager(final String selector) throws Exception
+    {
+        FilterManager filters = new FilterManager();
+        JMSSelectorFilter filter = JMSSelectorFilter.getInstance(selector);
+        filters.add(filter.getName(), filter);
+        return filters;
+    }
+
+    private Filterable createMessage(String property, Object value)
+    {
+        Filterable message = mock(Filterable.class);
+        when(message.getHeader(property)).thenReturn(value);
+        return message;
+    }
+
+    private Outcome match(QueueConsumer<?> consumer, Filterable message)
+    {
+        return _index.match(consumer, mock(QueueEntry.class), message);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.stats;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class LatencyHistogramTest extends QpidTestCase
+{
+    public void testEmpty()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMaximum());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0d));
+    }
+
+    public void testSmallValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10; i++)
+        {
+            histogram.recordValue(i);
+        }
+        assertEquals(10L, histogram.getCount());
+        assertEquals(5L, histogram.getValueAtPercentile(50.0d));
+        assertEquals(10L, histogram.getValueAtPercentile(99.0d));
+        assertEquals(10L, histogram.getMaximum());
+    }
+
+    public void testLargeValuesWithinRelativeError()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long value = 123456L;
+        histogram.recordValue(value);
+        histogram.recordValue(value * 1000L);
+
+        long median = histogram.getValueAtPercentile(50.0d);
+        assertTrue("Median " + median + " not close to " + value,
+                   median >= value && median <= value + value / 16);
+        assertEquals(value * 1000L, histogram.getValueAtPercentile(100.0d));
+    }
+
+    public void testBucketBoundaries()
+    {
+        for (long value = 0; value < 1L << 20; value += 7)
+        {
+            int bucket = LatencyHistogram.getBucket(value);
+            assertTrue("Value " + value + " above highest value of its bucket",
+                       value <= LatencyHistogram.getHighestValue(bucket));
+            assertTrue("Value " + value + " not above highest value of previous bucket",
+                       bucket == 0 || value > LatencyHistogram.getHighestValue(bucket - 1));
+        }
+    }
+
+    public void testNegativeAndHugeValues()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5L);
+        histogram.recordValue(Long.MAX_VALUE);
+        assertEquals(2L, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0d));
+        assertEquals(Long.MAX_VALUE, histogram.getMaximum());
+    }
+
+    public void testReset()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(100L);
+        histogram.recordValue(100000L);
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMaximum());
+        assertEquals(0L, histogram.getValueAtPercentile(99.0d));
+
+        histogram.recordValue(5L);
+        assertEquals(1L, histogram.getCount());
+        assertEquals(5L, histogram.getValueAtPercentile(99.0d));
+        assertEquals(5L, histogram.getMaximum());
+    }
+}
@@ -73,6 +73,35 @@ public class StatisticsCounterTest extends QpidTestCase
         assertEquals(40, counter.getTotal());
     }
  
+    /**
+     * Check that totals add up correctly when events are registered concurrently.
+     */
+    public void testTotalConcurrent() throws Exception
+    {
+        final StatisticsCounter counter = new StatisticsCounter("test", 1000L);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int j = 0; j < 10000; j++)
+                    {
+                        counter.registerEvent(1L);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(40000L, counter.getTotal());
+    }
+
     /**
      * Test that the peak rate is reported correctly.
      */
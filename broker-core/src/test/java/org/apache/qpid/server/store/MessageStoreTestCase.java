@@ -29,11 +29,17 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import org.hamcrest.Description;
 import org.mockito.ArgumentMatcher;
 
@@ -235,6 +241,33 @@ public abstract class MessageStoreTestCase extends QpidTestCase
         verify(handler, times(1)).handle(argThat(new EnqueueRecordMatcher(queueId, messageId)));
     }
 
+    public void testGetLastMessageId() throws Exception
+    {
+        TransactionLogResource queue1 = createTransactionLogResource(UUID.randomUUID());
+        TransactionLogResource queue2 = createTransactionLogResource(UUID.randomUUID());
+        TransactionLogResource emptyQueue = createTransactionLogResource(UUID.randomUUID());
+
+        Transaction transaction = _store.newTransaction();
+        long[] messageIds = new long[3];
+        for (int i = 0; i < messageIds.length; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message =
+                    _store.addMessage(new TestMessageMetaData(i + 1, 0)).allContentAdded();
+            messageIds[i] = message.getMessageNumber();
+            transaction.enqueueMessage(queue1, createMockEnqueueableMessage(messageIds[i], message));
+            if (i == 1)
+            {
+                transaction.enqueueMessage(queue2, createMockEnqueueableMessage(messageIds[i], message));
+            }
+        }
+        transaction.commitTran();
+
+        assertEquals("Unexpected last message id", messageIds[2], _storeReader.getLastMessageId(queue1));
+        assertEquals("Unexpected last message id", messageIds[1], _storeReader.getLastMessageId(queue2));
+        assertEquals("Unexpected last message id of a queue without messages",
+                     -1L, _storeReader.getLastMessageId(emptyQueue));
+    }
+
     public void testVisitDistributedTransactions() throws Exception
     {
         long format = 1l;
@@ -284,6 +317,87 @@ public abstract class MessageStoreTestCase extends QpidTestCase
         assertTrue("Message with id " + messageId2 + " is not found", enqueuedIds.contains(messageId2));
     }
 
+    public void testCommitTransactionsAsynchronously() throws Exception
+    {
+        final UUID mockQueueId = UUIDGenerator.generateRandomUUID();
+        TransactionLogResource mockQueue = createTransactionLogResource(mockQueueId);
+
+        int numberOfTransactions = 50;
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        MessageEnqueueRecord firstRecord = null;
+        for (long messageId = 1; messageId <= numberOfTransactions; messageId++)
+        {
+            Transaction txn = getStore().newTransaction();
+            MessageEnqueueRecord record = txn.enqueueMessage(mockQueue, createEnqueueableMessage(messageId));
+            if (firstRecord == null)
+            {
+                firstRecord = record;
+            }
+            futures.add(txn.<Void>commitTranAsync(null));
+        }
+        Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+
+        Transaction txn = getStore().newTransaction();
+        txn.dequeueMessage(firstRecord);
+        txn.commitTranAsync((Void) null).get(10, TimeUnit.SECONDS);
+
+        QueueFilteringMessageInstanceHandler filter = new QueueFilteringMessageInstanceHandler(mockQueueId);
+        _storeReader.visitMessageInstances(filter);
+        Set<Long> enqueuedIds = filter.getEnqueuedIds();
+
+        assertEquals("Number of enqueued messages is incorrect", numberOfTransactions - 1, enqueuedIds.size());
+        assertFalse("Dequeued message should not be found", enqueuedIds.contains(firstRecord.getMessageNumber()));
+    }
+
+    public void testSynchronousDequeueAndRemoveAfterAsynchronousEnqueues() throws Exception
+    {
+        final UUID mockQueueId = UUIDGenerator.generateRandomUUID();
+        TransactionLogResource mockQueue = createTransactionLogResource(mockQueueId);
+
+        int numberOfTransactions = 20;
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        List<MessageEnqueueRecord> records = new ArrayList<>();
+        List<StoredMessage<TestMessageMetaData>> messages = new ArrayList<>();
+        for (int i = 0; i < numberOfTransactions; i++)
+        {
+            StoredMessage<TestMessageMetaData> message =
+                    _store.addMessage(new TestMessageMetaData(i, 0)).allContentAdded();
+            Transaction txn = _store.newTransaction();
+            records.add(txn.enqueueMessage(mockQueue,
+                                           createMockEnqueueableMessage(message.getMessageNumber(), message)));
+            messages.add(message);
+            futures.add(txn.<Void>commitTranAsync(null));
+        }
+
+        // dequeue and remove the last message without waiting for the asynchronous enqueues to complete
+        MessageEnqueueRecord lastRecord = records.get(numberOfTransactions - 1);
+        Transaction txn = _store.newTransaction();
+        txn.dequeueMessage(lastRecord);
+        txn.commitTran();
+        messages.get(numberOfTransactions - 1).remove();
+
+        Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+
+        QueueFilteringMessageInstanceHandler filter = new QueueFilteringMessageInstanceHandler(mockQueueId);
+        _storeReader.visitMessageInstances(filter);
+        Set<Long> enqueuedIds = filter.getEnqueuedIds();
+        assertEquals("Number of enqueued messages is incorrect", numberOfTransactions - 1, enqueuedIds.size());
+        assertFalse("Dequeued message should not be found", enqueuedIds.contains(lastRecord.getMessageNumber()));
+
+        final Set<Long> storedIds = new HashSet<>();
+        _storeReader.visitMessages(new MessageHandler()
+        {
+            @Override
+            public boolean handle(StoredMessage<?> storedMessage)
+            {
+                storedIds.add(storedMessage.getMessageNumber());
+                return true;
+            }
+        });
+        assertEquals("Number of stored messages is incorrect", numberOfTransactions - 1, storedIds.size());
+        assertFalse("Removed message should not be found", storedIds.contains(lastRecord.getMessageNumber()));
+    }
+
     public void testRollbackTransactionBeforeCommit() throws Exception
     {
         final UUID mockQueueId = UUIDGenerator.generateRandomUUID();
@@ -402,7 +516,7 @@ public abstract class MessageStoreTestCase extends QpidTestCase
     }
 
 
-    private TransactionLogResource createTransactionLogResource(UUID queueId)
+    protected TransactionLogResource createTransactionLogResource(UUID queueId)
     {
         TransactionLogResource queue = mock(TransactionLogResource.class);
         when(queue.getId()).thenReturn(queueId);
@@ -435,7 +549,7 @@ public abstract class MessageStoreTestCase extends QpidTestCase
         return enqueueRecord;
     }
 
-    private EnqueueableMessage createEnqueueableMessage(long messageId1)
+    protected EnqueueableMessage createEnqueueableMessage(long messageId1)
     {
         final StoredMessage<TestMessageMetaData> message1 = _store.addMessage(new TestMessageMetaData(messageId1, 0)).allContentAdded();
         EnqueueableMessage enqueueableMessage1 = createMockEnqueueableMessage(messageId1, message1);
@@ -0,0 +1,159 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.bytebuffer.SlabAllocator;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.virtualhost.TestMemoryVirtualHost;
+
+public class OffHeapMemoryMessageStoreTest extends MessageStoreTestCase
+{
+    private static final int SLAB_SIZE = 4096;
+    private static final int DECODED_META_DATA_LIMIT = 2;
+
+    @Override
+    protected VirtualHost createVirtualHost()
+    {
+        final TestMemoryVirtualHost parent = mock(TestMemoryVirtualHost.class);
+        when(parent.getContextValue(Boolean.class, VirtualHost.MEMORY_STORE_OFF_HEAP)).thenReturn(true);
+        when(parent.getContextValue(Integer.class, VirtualHost.MEMORY_STORE_SLAB_SIZE)).thenReturn(SLAB_SIZE);
+        when(parent.getContextValue(Integer.class, VirtualHost.MEMORY_STORE_DECODED_META_DATA_LIMIT))
+                .thenReturn(DECODED_META_DATA_LIMIT);
+        return parent;
+    }
+
+    @Override
+    protected MessageStore createMessageStore()
+    {
+        return new MemoryMessageStore();
+    }
+
+    @Override
+    protected void reopenStore() throws Exception
+    {
+        // cannot re-open memory message store as it is not persistent
+    }
+
+    public void testMessageHeldInSlab() throws Exception
+    {
+        byte[] content = "off heap content".getBytes();
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(1, content.length));
+        handle.addContent(QpidByteBuffer.wrap(content));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+
+        assertTrue("Unexpected stored message " + message, message instanceof StoredOffHeapMessage);
+        SlabAllocator slabAllocator = ((MemoryMessageStore) getStore()).getSlabAllocator();
+        assertEquals("Unexpected slab capacity", (long) SLAB_SIZE, slabAllocator.getCapacity());
+        assertEquals("Unexpected slab usage", 12L + content.length, slabAllocator.getRequestedSize());
+        assertContent(content, message);
+
+        message.remove();
+
+        assertEquals("Unexpected slab usage", 0L, slabAllocator.getRequestedSize());
+        assertEquals("Unexpected slab allocation", 0L, slabAllocator.getAllocatedSize());
+    }
+
+    public void testMetaDataDecodedAfterFlowToDisk() throws Exception
+    {
+        byte[] content = "content".getBytes();
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(1, content.length));
+        handle.addContent(QpidByteBuffer.wrap(content));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+        TestMessageMetaData metaData = message.getMetaData();
+
+        assertTrue("Message should have been flowed to disk", message.flowToDisk());
+        assertFalse("Meta data should not be held on heap", message.isInMemory());
+
+        TestMessageMetaData decodedMetaData = message.getMetaData();
+        assertNotSame("Meta data should have been decoded", metaData, decodedMetaData);
+        assertEquals("Unexpected content size", content.length, decodedMetaData.getContentSize());
+        assertTrue("Decoded meta data should be held on heap", message.isInMemory());
+        assertContent(content, message);
+
+        message.remove();
+    }
+
+    public void testLeastRecentlyDecodedMetaDataDropped() throws Exception
+    {
+        StoredMessage<TestMessageMetaData> first = getStore().addMessage(new TestMessageMetaData(1, 1)).allContentAdded();
+        StoredMessage<TestMessageMetaData> second = getStore().addMessage(new TestMessageMetaData(2, 2)).allContentAdded();
+        assertTrue("Meta data should be held on heap", first.isInMemory());
+        assertTrue("Meta data should be held on heap", second.isInMemory());
+
+        StoredMessage<TestMessageMetaData> third = getStore().addMessage(new TestMessageMetaData(3, 3)).allContentAdded();
+        assertFalse("Least recently decoded meta data should have been dropped", first.isInMemory());
+        assertTrue("Meta data should be held on heap", second.isInMemory());
+        assertTrue("Meta data should be held on heap", third.isInMemory());
+
+        assertEquals("Unexpected content size", 1, first.getMetaData().getContentSize());
+        assertTrue("Decoded meta data should be held on heap", first.isInMemory());
+        assertFalse("Least recently decoded meta data should have been dropped", second.isInMemory());
+
+        first.remove();
+        second.remove();
+        third.remove();
+    }
+
+    public void testContentExceedingMetaDataContentSize() throws Exception
+    {
+        byte[] first = "first".getBytes();
+        byte[] second = "second".getBytes();
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(1, first.length));
+        handle.addContent(QpidByteBuffer.wrap(first));
+        handle.addContent(QpidByteBuffer.wrap(second));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+
+        assertContent("firstsecond".getBytes(), message);
+        assertEquals("Unexpected content size", first.length, message.getMetaData().getContentSize());
+
+        message.remove();
+
+        assertEquals("Unexpected slab allocation", 0L,
+                     ((MemoryMessageStore) getStore()).getSlabAllocator().getAllocatedSize());
+    }
+
+    public void testZeroLengthMessage() throws Exception
+    {
+        MessageHandle<TestMessageMetaData> handle = getStore().addMessage(new TestMessageMetaData(1, 0));
+        StoredMessage<TestMessageMetaData> message = handle.allContentAdded();
+
+        assertContent(new byte[0], message);
+
+        message.remove();
+    }
+
+    private void assertContent(byte[] expected, StoredMessage<?> message)
+    {
+        Collection<QpidByteBuffer> content = message.getContent(0, Integer.MAX_VALUE);
+        assertEquals("Unexpected number of buffers", 1, content.size());
+        QpidByteBuffer buffer = content.iterator().next();
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.get(actual);
+        buffer.dispose();
+        assertEquals("Unexpected content", new String(expected), new String(actual));
+    }
+}
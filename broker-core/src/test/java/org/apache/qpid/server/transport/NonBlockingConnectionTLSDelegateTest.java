@@ -0,0 +1,315 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class NonBlockingConnectionTLSDelegateTest extends QpidTestCase
+{
+    private static final String KEYSTORE_RESOURCE = "ssl/test_keystore.jks";
+    private static final String KEYSTORE_PASSWORD = "password";
+    private static final String TLS_PROTOCOL = "TLSv1.2";
+    private static final int NETWORK_BUFFER_SIZE = 64 * 1024;
+    private static final int MAXIMUM_HANDSHAKE_ROUNDS = 10;
+
+    private SSLContext _serverContext;
+    private SSLContext _clientContext;
+    private AmqpPort<?> _port;
+    private NonBlockingConnection _parent;
+    private QueuingExecutor _executor;
+    private ByteBuffer _serverOutput;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream keyStoreInputStream = getClass().getClassLoader().getResourceAsStream(KEYSTORE_RESOURCE))
+        {
+            keyStore.load(keyStoreInputStream, KEYSTORE_PASSWORD.toCharArray());
+        }
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+        _serverContext = SSLContext.getInstance("TLS");
+        _serverContext.init(kmf.getKeyManagers(), null, null);
+
+        _clientContext = SSLContext.getInstance("TLS");
+        _clientContext.init(null, new TrustManager[]{new TrustingTrustManager()}, null);
+
+        _port = mock(AmqpPort.class);
+        when(_port.getSSLContext()).thenReturn(_serverContext);
+        when(_port.getNetworkBufferSize()).thenReturn(NETWORK_BUFFER_SIZE);
+        when(_port.getTlsProtocolWhiteList()).thenReturn(Collections.singletonList(TLS_PROTOCOL));
+        when(_port.getTlsProtocolBlackList()).thenReturn(Collections.<String>emptyList());
+        when(_port.getTlsCipherSuiteWhiteList()).thenReturn(Collections.<String>emptyList());
+        when(_port.getTlsCipherSuiteBlackList()).thenReturn(Collections.<String>emptyList());
+
+        _executor = new QueuingExecutor();
+        _serverOutput = ByteBuffer.allocate(NETWORK_BUFFER_SIZE);
+        _parent = mock(NonBlockingConnection.class);
+        when(_parent.getTlsHandshakeExecutor()).thenReturn(_executor);
+        doAnswer(new Answer<Long>()
+        {
+            @Override
+            public Long answer(final InvocationOnMock invocation)
+            {
+                long written = 0L;
+                @SuppressWarnings("unchecked")
+                Collection<QpidByteBuffer> buffers = (Collection<QpidByteBuffer>) invocation.getArguments()[0];
+                for (QpidByteBuffer buffer : buffers)
+                {
+                    byte[] data = new byte[buffer.remaining()];
+                    buffer.get(data);
+                    _serverOutput.put(data);
+                    written += data.length;
+                }
+                return written;
+            }
+        }).when(_parent).writeToTransport(any(Collection.class));
+    }
+
+    public void testHandshakeTasksRunByExecutor() throws Exception
+    {
+        NonBlockingConnectionTLSDelegate delegate = new NonBlockingConnectionTLSDelegate(_parent, _port);
+        SSLEngine client = createClientEngine();
+        client.beginHandshake();
+
+        transferToServer(client, delegate);
+        assertFalse("No application data should have been read", delegate.processData());
+
+        assertEquals("Delegated tasks should have been handed to the executor", 1, _executor.getPendingCount());
+        assertFalse("Connection should not need work while the tasks run", delegate.needsWork());
+        assertTrue("Connection should remain ready for read while the tasks run", delegate.readyForRead());
+        assertTrue("Nothing should be written while the tasks run",
+                   delegate.doWrite(Collections.<QpidByteBuffer>emptyList()));
+        assertEquals("Unexpected handshake output while the tasks run", 0, _serverOutput.position());
+        verify(_parent, never()).notifyWork();
+
+        _executor.runAll();
+
+        verify(_parent, times(1)).notifyWork();
+        assertTrue("Connection should need work once the tasks have completed", delegate.needsWork());
+
+        completeHandshake(client, delegate);
+
+        assertEquals("Handshake should have completed",
+                     SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING, client.getHandshakeStatus());
+        verify(_port, times(1)).registerTlsHandshake(anyLong(), eq(false));
+    }
+
+    public void testHandshakeTasksRunOnIoThreadWithoutExecutor() throws Exception
+    {
+        when(_parent.getTlsHandshakeExecutor()).thenReturn(null);
+        NonBlockingConnectionTLSDelegate delegate = new NonBlockingConnectionTLSDelegate(_parent, _port);
+        SSLEngine client = createClientEngine();
+        client.beginHandshake();
+
+        transferToServer(client, delegate);
+        delegate.processData();
+
+        assertTrue("Connection should need work once the tasks have run", delegate.needsWork());
+
+        completeHandshake(client, delegate);
+
+        assertEquals("Handshake should have completed",
+                     SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING, client.getHandshakeStatus());
+        assertEquals("No tasks should have been handed to an executor", 0, _executor.getPendingCount());
+        verify(_parent, never()).notifyWork();
+        verify(_port, times(1)).registerTlsHandshake(anyLong(), eq(false));
+    }
+
+    public void testSessionResumptionRegistered() throws Exception
+    {
+        SSLEngine client = createClientEngine();
+        client.beginHandshake();
+        completeHandshake(client, new NonBlockingConnectionTLSDelegate(_parent, _port));
+        byte[] sessionId = client.getSession().getId();
+
+        // the resumed session must have been created before the second handshake starts
+        Thread.sleep(10);
+
+        SSLEngine resumingClient = createClientEngine();
+        resumingClient.beginHandshake();
+        completeHandshake(resumingClient, new NonBlockingConnectionTLSDelegate(_parent, _port));
+
+        assertTrue("Session should have been resumed", Arrays.equals(sessionId, resumingClient.getSession().getId()));
+        verify(_port, times(1)).registerTlsHandshake(anyLong(), eq(false));
+        verify(_port, times(1)).registerTlsHandshake(anyLong(), eq(true));
+    }
+
+    private SSLEngine createClientEngine()
+    {
+        SSLEngine client = _clientContext.createSSLEngine("localhost", 5671);
+        client.setUseClientMode(true);
+        client.setEnabledProtocols(new String[]{TLS_PROTOCOL});
+        return client;
+    }
+
+    /**
+     * Exchanges handshake messages between the client and the delegate, running the delegated tasks handed to the
+     * executor and processing any input left when they complete, as the connection does when it is rescheduled.
+     */
+    private void completeHandshake(final SSLEngine client,
+                                   final NonBlockingConnectionTLSDelegate delegate) throws Exception
+    {
+        for (int i = 0; i < MAXIMUM_HANDSHAKE_ROUNDS; i++)
+        {
+            if (client.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                && _serverOutput.position() == 0)
+            {
+                return;
+            }
+            if (transferToServer(client, delegate) || delegate.hasUnprocessedInput())
+            {
+                delegate.processData();
+            }
+            _executor.runAll();
+            if (delegate.hasUnprocessedInput())
+            {
+                delegate.processData();
+            }
+            delegate.doWrite(Collections.<QpidByteBuffer>emptyList());
+            transferToClient(client);
+        }
+        fail("Handshake did not complete within " + MAXIMUM_HANDSHAKE_ROUNDS + " rounds");
+    }
+
+    private boolean transferToServer(final SSLEngine client,
+                                     final NonBlockingConnectionTLSDelegate delegate) throws Exception
+    {
+        ByteBuffer clientOutput = ByteBuffer.allocate(NETWORK_BUFFER_SIZE);
+        while (client.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP)
+        {
+            SSLEngineResult result = client.wrap(ByteBuffer.allocate(0), clientOutput);
+            runTasks(client, result);
+        }
+        clientOutput.flip();
+        boolean transferred = clientOutput.hasRemaining();
+        delegate.getNetInputBuffer().put(clientOutput);
+        return transferred;
+    }
+
+    private void transferToClient(final SSLEngine client) throws Exception
+    {
+        ByteBuffer applicationInput = ByteBuffer.allocate(NETWORK_BUFFER_SIZE);
+        _serverOutput.flip();
+        while (_serverOutput.hasRemaining())
+        {
+            SSLEngineResult result = client.unwrap(_serverOutput, applicationInput);
+            runTasks(client, result);
+            if (result.bytesConsumed() == 0)
+            {
+                break;
+            }
+        }
+        _serverOutput.compact();
+    }
+
+    private void runTasks(final SSLEngine engine, final SSLEngineResult result)
+    {
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+        {
+            Runnable task;
+            while ((task = engine.getDelegatedTask()) != null)
+            {
+                task.run();
+            }
+        }
+    }
+
+    private static class QueuingExecutor implements Executor
+    {
+        private final List<Runnable> _pending = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable command)
+        {
+            _pending.add(command);
+        }
+
+        int getPendingCount()
+        {
+            return _pending.size();
+        }
+
+        void runAll()
+        {
+            List<Runnable> pending = new ArrayList<>(_pending);
+            _pending.clear();
+            for (Runnable runnable : pending)
+            {
+                runnable.run();
+            }
+        }
+    }
+
+    private static class TrustingTrustManager implements X509TrustManager
+    {
+        @Override
+        public void checkClientTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public void checkServerTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -149,7 +149,12 @@ public class TCPandSSLTransportTest extends QpidTestCase
         when(port.getSSLContext()).thenReturn(sslContext);
         when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT)).thenReturn(1l);
         when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_OUTBOUND_MESSAGE_BUFFER_SIZE);
+        when(port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_WRITE_COALESCING)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_WRITE_COALESCING);
+        when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_WRITE_COALESCING_MAX_BYTES)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_WRITE_COALESCING_MAX_BYTES);
+        when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_WRITE_COALESCING_MAX_DELAY_MICROS);
         when(port.getContextValue(Integer.class, AmqpPort.PORT_AMQP_ACCEPT_BACKLOG)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_ACCEPT_BACKLOG);
+        when(port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_THREAD_POOL_WORK_STEALING)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_THREAD_POOL_WORK_STEALING);
+        when(port.getContextValue(Integer.class, AmqpPort.PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_TLS_HANDSHAKE_THREAD_POOL_SIZE);
         when(port.getProtocolHandshakeTimeout()).thenReturn(AmqpPort.DEFAULT_PROTOCOL_HANDSHAKE_TIMEOUT);
         ObjectMapper mapper = new ObjectMapper();
         JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, String.class);
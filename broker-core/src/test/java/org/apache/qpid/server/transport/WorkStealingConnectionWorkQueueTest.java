@@ -0,0 +1,202 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class WorkStealingConnectionWorkQueueTest extends QpidTestCase
+{
+    private final Runnable _first = new NamedTask("first");
+    private final Runnable _second = new NamedTask("second");
+    private final Runnable _third = new NamedTask("third");
+
+    public void testWorkerTakesOwnWorkInOrderBeforeSharedWork() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(1);
+        queue.registerWorker();
+        assertEquals("Unexpected current worker", 0, queue.getCurrentWorker());
+
+        queue.add(_third);
+        queue.add(_first, 0);
+        queue.add(_second, 0);
+
+        assertSame("Unexpected task", _first, queue.take());
+        assertSame("Unexpected task", _second, queue.take());
+        assertSame("Unexpected task", _third, queue.take());
+        assertEquals("Unexpected number of tasks run", 3, queue.getTasksRun(0));
+        assertEquals("Unexpected number of tasks stolen", 0, queue.getTasksStolen(0));
+    }
+
+    public void testIdleWorkerStealsMostRecentWorkOfOtherWorker() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(2);
+        queue.registerWorker();
+
+        queue.add(_first, 1);
+        queue.add(_second, 1);
+
+        assertSame("Unexpected task", _second, queue.take());
+        assertSame("Unexpected task", _first, queue.take());
+        assertEquals("Unexpected number of tasks stolen", 2, queue.getTasksStolen(0));
+        assertEquals("Unexpected number of tasks run by other worker", 0, queue.getTasksRun(1));
+    }
+
+    public void testTaskWithoutValidPreferredWorkerIsShared() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(2);
+        queue.registerWorker();
+
+        queue.add(_first, ConnectionWorkQueue.NO_WORKER);
+        queue.add(_second, 2);
+
+        assertSame("Unexpected task", _first, queue.take());
+        assertSame("Unexpected task", _second, queue.take());
+        assertEquals("Unexpected number of tasks stolen", 0, queue.getTasksStolen(0));
+    }
+
+    public void testRegisteringWorkerIsIdempotent() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(2);
+        queue.registerWorker();
+        queue.registerWorker();
+
+        assertEquals("Unexpected current worker", 0, queue.getCurrentWorker());
+        assertEquals("Unexpected worker registered by another thread", 1, registerWorkerOnNewThread(queue));
+    }
+
+    public void testRegisteringTooManyWorkersFails() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(1);
+        queue.registerWorker();
+
+        assertEquals("Unexpected result of registering a worker", ConnectionWorkQueue.NO_WORKER,
+                     registerWorkerOnNewThread(queue));
+    }
+
+    public void testWorkerReplacingDeadWorkerTakesOverItsWork() throws Exception
+    {
+        final WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(1);
+        Thread deadWorker = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                queue.registerWorker();
+            }
+        });
+        deadWorker.start();
+        deadWorker.join();
+
+        queue.registerWorker();
+        assertEquals("Unexpected current worker", 0, queue.getCurrentWorker());
+
+        queue.add(_first, 0);
+        assertSame("Unexpected task", _first, queue.take());
+    }
+
+    public void testWorkerSlotFreedWhenDeregistered() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(1);
+        queue.registerWorker();
+        queue.deregisterWorker();
+
+        assertEquals("Unexpected current worker", ConnectionWorkQueue.NO_WORKER, queue.getCurrentWorker());
+        assertEquals("Unexpected worker registered by another thread", 0, registerWorkerOnNewThread(queue));
+    }
+
+    public void testStatisticsOfUnknownWorkerAreZero() throws Exception
+    {
+        WorkStealingConnectionWorkQueue queue = new WorkStealingConnectionWorkQueue(1);
+
+        assertEquals("Unexpected tasks run", 0L, queue.getTasksRun(1));
+        assertEquals("Unexpected tasks stolen", 0L, queue.getTasksStolen(ConnectionWorkQueue.NO_WORKER));
+        assertEquals("Unexpected busy time", 0L, queue.getBusyTime(1));
+    }
+
+    private int registerWorkerOnNewThread(final ConnectionWorkQueue queue) throws InterruptedException
+    {
+        final AtomicInteger worker = new AtomicInteger(ConnectionWorkQueue.NO_WORKER);
+        final CountDownLatch registered = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    queue.registerWorker();
+                    worker.set(queue.getCurrentWorker());
+                }
+                catch (IllegalStateException e)
+                {
+                    // worker remains unregistered
+                }
+                registered.countDown();
+                try
+                {
+                    // keep the thread alive until the result is checked
+                    done.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        try
+        {
+            assertTrue("Worker did not register", registered.await(10, TimeUnit.SECONDS));
+            return worker.get();
+        }
+        finally
+        {
+            done.countDown();
+            thread.join();
+        }
+    }
+
+    private static class NamedTask implements Runnable
+    {
+        private final String _name;
+
+        private NamedTask(final String name)
+        {
+            _name = name;
+        }
+
+        @Override
+        public void run()
+        {
+        }
+
+        @Override
+        public String toString()
+        {
+            return _name;
+        }
+    }
+}
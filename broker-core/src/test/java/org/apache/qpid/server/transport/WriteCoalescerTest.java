@@ -0,0 +1,102 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class WriteCoalescerTest extends QpidTestCase
+{
+    private static final long MAX_BYTES = 1024L;
+    private static final long MAX_DELAY_NANOS = 1000L;
+
+    private WriteCoalescer _coalescer;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _coalescer = new WriteCoalescer(true, MAX_BYTES, MAX_DELAY_NANOS);
+    }
+
+    public void testCoalescesWhileReadPending()
+    {
+        assertTrue("Write should be put off while a read is pending", _coalescer.shouldCoalesce(true, true, 100L, 0L));
+        assertTrue("Unexpected coalescing state", _coalescer.isCoalescing());
+        assertTrue("Write should still be put off within the budgets", _coalescer.shouldCoalesce(true, true, 200L, 500L));
+    }
+
+    public void testWritesImmediatelyWhenNoReadPending()
+    {
+        assertFalse("Write should be made at once when no read is pending",
+                    _coalescer.shouldCoalesce(false, true, 100L, 0L));
+        assertFalse("Unexpected coalescing state", _coalescer.isCoalescing());
+    }
+
+    public void testWritesImmediatelyWhenPreviousWriteIncomplete()
+    {
+        assertFalse("Write should be made at once when the previous write was incomplete",
+                    _coalescer.shouldCoalesce(true, false, 100L, 0L));
+    }
+
+    public void testWritesImmediatelyWhenDisabled()
+    {
+        WriteCoalescer coalescer = new WriteCoalescer(false, MAX_BYTES, MAX_DELAY_NANOS);
+        assertFalse("Write should not be put off when coalescing is disabled",
+                    coalescer.shouldCoalesce(true, true, 100L, 0L));
+    }
+
+    public void testNothingToCoalesceWhenNothingBuffered()
+    {
+        assertFalse("Nothing should be coalesced when nothing is buffered", _coalescer.shouldCoalesce(true, true, 0L, 0L));
+        assertFalse("Unexpected coalescing state", _coalescer.isCoalescing());
+    }
+
+    public void testFlushedWhenByteThresholdReached()
+    {
+        assertTrue("Write should be put off below the byte threshold",
+                   _coalescer.shouldCoalesce(true, true, MAX_BYTES - 1, 0L));
+        assertFalse("Write should be made at the byte threshold", _coalescer.shouldCoalesce(true, true, MAX_BYTES, 1L));
+    }
+
+    public void testFlushedWhenDelayThresholdReached()
+    {
+        assertTrue("Write should be put off", _coalescer.shouldCoalesce(true, true, 100L, 5000L));
+        assertTrue("Write should be put off within the delay threshold",
+                   _coalescer.shouldCoalesce(true, true, 100L, 5000L + MAX_DELAY_NANOS - 1));
+        assertFalse("Write should be made at the delay threshold",
+                    _coalescer.shouldCoalesce(true, true, 100L, 5000L + MAX_DELAY_NANOS));
+    }
+
+    public void testDelayThresholdRestartsAfterWrite()
+    {
+        assertTrue("Write should be put off", _coalescer.shouldCoalesce(true, true, 100L, 0L));
+        assertFalse("Write should be made at the delay threshold",
+                    _coalescer.shouldCoalesce(true, true, 100L, MAX_DELAY_NANOS));
+
+        _coalescer.writing();
+        assertFalse("Unexpected coalescing state after write", _coalescer.isCoalescing());
+
+        assertTrue("Frames buffered after the write should be put off afresh",
+                   _coalescer.shouldCoalesce(true, true, 100L, MAX_DELAY_NANOS + 1));
+        assertTrue("Write should be put off within the new delay threshold",
+                   _coalescer.shouldCoalesce(true, true, 100L, 2 * MAX_DELAY_NANOS));
+    }
+}
@@ -22,19 +22,28 @@ package org.apache.qpid.server.virtualhost;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.concurrent.ExecutionException;
 
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
 import com.google.common.util.concurrent.ListenableFuture;
 
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.Transaction;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.store.handler.MessageInstanceHandler;
 import org.apache.qpid.server.util.ServerScopedRuntimeException;
@@ -90,4 +99,88 @@ public class AsynchronousMessageStoreRecovererTest extends QpidTestCase
         ListenableFuture<Void> result = recoverer.recover(_virtualHost);
         assertNull(result.get());
     }
+
+    public void testParallelRecoveryPreservesQueueOrder() throws Exception
+    {
+        final int numberOfInstances = 3000;
+        final Queue<?> queue = mock(Queue.class);
+        final MessageEnqueueRecord[] records = new MessageEnqueueRecord[numberOfInstances];
+        for (int i = 0; i < numberOfInstances; i++)
+        {
+            records[i] = mock(MessageEnqueueRecord.class);
+            when(records[i].getMessageNumber()).thenReturn((long) i);
+        }
+        Transaction transaction = mock(Transaction.class);
+        when(_store.newTransaction()).thenReturn(transaction);
+        when(_store.getNextMessageId()).thenReturn((long) numberOfInstances);
+        when(_virtualHost.getChildren(eq(Queue.class))).thenReturn(Collections.singleton(queue));
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable
+            {
+                MessageInstanceHandler handler = (MessageInstanceHandler) invocation.getArguments()[1];
+                for (MessageEnqueueRecord record : records)
+                {
+                    handler.handle(record);
+                }
+                return null;
+            }
+        }).when(_storeReader).visitMessageInstances(same(queue), any(MessageInstanceHandler.class));
+
+        AsynchronousMessageStoreRecoverer recoverer = new AsynchronousMessageStoreRecoverer(4, false);
+        assertNull(recoverer.recover(_virtualHost).get());
+
+        // the store holds none of the messages, so each instance is dequeued in the order it was visited
+        InOrder inOrder = inOrder(transaction);
+        for (MessageEnqueueRecord record : records)
+        {
+            inOrder.verify(transaction).dequeueMessage(record);
+        }
+        assertEquals("Unexpected recovered instance count", 0, recoverer.getRecoveredMessageInstanceCount());
+        assertEquals("Unexpected recovery rate once recovered", 0, recoverer.getRecoveryRate());
+        assertEquals("Unexpected time remaining once recovered", 0, recoverer.getEstimatedRecoveryTimeRemaining());
+    }
+
+    public void testCancelDuringParallelRecovery() throws Exception
+    {
+        final Queue<?> queue = mock(Queue.class);
+        final MessageEnqueueRecord record = mock(MessageEnqueueRecord.class);
+        when(record.getMessageNumber()).thenReturn(1L);
+        when(_store.newTransaction()).thenReturn(mock(Transaction.class));
+        when(_store.getNextMessageId()).thenReturn(2L);
+        when(_virtualHost.getChildren(eq(Queue.class))).thenReturn(Collections.singleton(queue));
+
+        final AsynchronousMessageStoreRecoverer recoverer = new AsynchronousMessageStoreRecoverer(4, false);
+        final Thread canceller = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                recoverer.cancel();
+            }
+        });
+        doAnswer(new Answer<Void>()
+        {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable
+            {
+                MessageInstanceHandler handler = (MessageInstanceHandler) invocation.getArguments()[1];
+                handler.handle(record);
+
+                // once it has shut down the recovery pools, the canceller waits for this visit to end
+                canceller.start();
+                long deadline = System.currentTimeMillis() + 2500L;
+                while (canceller.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline)
+                {
+                    Thread.sleep(10L);
+                }
+                return null;
+            }
+        }).when(_storeReader).visitMessageInstances(same(queue), any(MessageInstanceHandler.class));
+
+        assertNull("Cancelled recovery should complete", recoverer.recover(_virtualHost).get());
+        canceller.join();
+        assertEquals("Unexpected recovered instance count", 0, recoverer.getRecoveredMessageInstanceCount());
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class CacheEvictionQueueTest extends QpidTestCase
+{
+    private CacheEvictionQueue<TestEntry> _queue;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _queue = new CacheEvictionQueue<>(300L);
+    }
+
+    public void testOldestEntryEvicted()
+    {
+        TestEntry first = add(100L);
+        TestEntry second = add(100L);
+        TestEntry third = add(100L);
+        assertEquals(300L, _queue.getSize());
+
+        TestEntry fourth = add(100L);
+
+        assertTrue("Oldest entry not evicted", first.isDiscarded());
+        assertFalse(second.isDiscarded());
+        assertFalse(third.isDiscarded());
+        assertFalse(fourth.isDiscarded());
+        assertEquals(300L, _queue.getSize());
+    }
+
+    public void testReferencedEntryPassedOver()
+    {
+        TestEntry first = add(100L);
+        TestEntry second = add(100L);
+        add(100L);
+        first._referenced = true;
+
+        add(100L);
+
+        assertFalse("Referenced entry evicted", first.isDiscarded());
+        assertTrue("Oldest unreferenced entry not evicted", second.isDiscarded());
+    }
+
+    public void testDiscardedEntryNotEvicted()
+    {
+        TestEntry first = add(100L);
+        TestEntry second = add(100L);
+        first.discard();
+        assertEquals(100L, _queue.getSize());
+
+        add(200L);
+
+        assertEquals("Discarded entry evicted", 0, first._evictions);
+        assertFalse(second.isDiscarded());
+        assertEquals(300L, _queue.getSize());
+    }
+
+    public void testReducingMaximumSizeEvicts()
+    {
+        TestEntry first = add(100L);
+        TestEntry second = add(100L);
+
+        _queue.setMaximumSize(100L);
+
+        assertTrue(first.isDiscarded());
+        assertFalse(second.isDiscarded());
+        assertEquals(100L, _queue.getSize());
+    }
+
+    private TestEntry add(final long size)
+    {
+        TestEntry entry = new TestEntry(size);
+        _queue.add(entry);
+        _queue.evictIfNecessary();
+        return entry;
+    }
+
+    private class TestEntry implements CacheEvictionQueue.Entry
+    {
+        private final long _size;
+        private boolean _discarded;
+        private boolean _referenced;
+        private int _evictions;
+
+        TestEntry(final long size)
+        {
+            _size = size;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return _size;
+        }
+
+        @Override
+        public boolean isDiscarded()
+        {
+            return _discarded;
+        }
+
+        @Override
+        public boolean clearReferenced()
+        {
+            boolean referenced = _referenced;
+            _referenced = false;
+            return referenced;
+        }
+
+        @Override
+        public void evict()
+        {
+            _evictions++;
+            discard();
+        }
+
+        void discard()
+        {
+            if (!_discarded)
+            {
+                _discarded = true;
+                _queue.discarded(this);
+            }
+        }
+    }
+}
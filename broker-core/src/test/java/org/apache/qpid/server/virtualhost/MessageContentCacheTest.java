@@ -0,0 +1,203 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageContentCacheTest extends QpidTestCase
+{
+    private MessageContentCache _cache;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _cache = new MessageContentCache(getName(), 300L, 0, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        try
+        {
+            _cache.close();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testLeastRecentlyUsedContentIsFlowedToDisk() throws Exception
+    {
+        TestStoredMessage first = new TestStoredMessage(1);
+        TestStoredMessage second = new TestStoredMessage(2);
+        TestStoredMessage third = new TestStoredMessage(3);
+        _cache.add(first, 100L);
+        _cache.add(second, 100L);
+        _cache.add(third, 100L);
+        _cache.add(first, 100L);
+
+        assertEquals("Unexpected cache size", 300L, _cache.getSize());
+
+        _cache.add(new TestStoredMessage(4), 100L);
+
+        assertTrue("Recently used content should not have been flowed to disk", first.isInMemory());
+        assertFalse("Least recently used content should have been flowed to disk", second.isInMemory());
+        assertTrue("Content should not have been flowed to disk", third.isInMemory());
+        assertEquals("Unexpected cache size", 300L, _cache.getSize());
+        assertEquals("Unexpected eviction count", 1L, _cache.getEvictionCount());
+    }
+
+    public void testRemovedContentIsNotFlowedToDisk() throws Exception
+    {
+        TestStoredMessage first = new TestStoredMessage(1);
+        _cache.add(first, 200L);
+        _cache.remove(first);
+
+        assertEquals("Unexpected cache size", 0L, _cache.getSize());
+
+        TestStoredMessage second = new TestStoredMessage(2);
+        _cache.add(second, 200L);
+
+        assertTrue("Removed content should not have been flowed to disk", first.isInMemory());
+        assertTrue("Content should not have been flowed to disk", second.isInMemory());
+        assertEquals("Unexpected eviction count", 0L, _cache.getEvictionCount());
+    }
+
+    public void testReducingMaximumSizeFlowsContentToDisk() throws Exception
+    {
+        TestStoredMessage first = new TestStoredMessage(1);
+        TestStoredMessage second = new TestStoredMessage(2);
+        _cache.add(first, 100L);
+        _cache.add(second, 100L);
+
+        _cache.setMaximumSize(100L);
+
+        assertFalse("Least recently used content should have been flowed to disk", first.isInMemory());
+        assertTrue("Content should not have been flowed to disk", second.isInMemory());
+        assertEquals("Unexpected cache size", 100L, _cache.getSize());
+    }
+
+    public void testLoadReadsContentFlowedToDisk() throws Exception
+    {
+        TestStoredMessage message = new TestStoredMessage(1);
+        message.flowToDisk();
+
+        _cache.load(message, 100L);
+
+        assertTrue("Content should have been loaded", message.isInMemory());
+        assertEquals("Unexpected read ahead count", 1L, _cache.getReadAheadCount());
+        assertEquals("Unexpected cache size", 100L, _cache.getSize());
+
+        _cache.load(message, 100L);
+
+        assertEquals("Content in memory should not have been read again", 1L, _cache.getReadAheadCount());
+    }
+
+    public void testReadAhead() throws Exception
+    {
+        assertEquals("Read ahead should be disabled", 0, _cache.getReadAhead());
+        assertFalse("Read ahead should have been rejected", _cache.readAhead(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+            }
+        }));
+
+        MessageContentCache cache = new MessageContentCache(getName(), 300L, 8, 1);
+        try
+        {
+            final CountDownLatch latch = new CountDownLatch(1);
+            assertEquals("Unexpected read ahead", 8, cache.getReadAhead());
+            assertTrue("Read ahead should have been accepted", cache.readAhead(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    latch.countDown();
+                }
+            }));
+            assertTrue("Read ahead did not run", latch.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            cache.close();
+        }
+    }
+
+    private static class TestStoredMessage implements StoredMessage<StorableMessageMetaData>
+    {
+        private final long _messageNumber;
+        private boolean _inMemory = true;
+
+        private TestStoredMessage(final long messageNumber)
+        {
+            _messageNumber = messageNumber;
+        }
+
+        @Override
+        public StorableMessageMetaData getMetaData()
+        {
+            return null;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return _messageNumber;
+        }
+
+        @Override
+        public Collection<QpidByteBuffer> getContent(final int offset, final int length)
+        {
+            _inMemory = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void remove()
+        {
+        }
+
+        @Override
+        public boolean isInMemory()
+        {
+            return _inMemory;
+        }
+
+        @Override
+        public boolean flowToDisk()
+        {
+            _inMemory = false;
+            return true;
+        }
+    }
+}
@@ -108,6 +108,41 @@ public class SynchronousMessageStoreRecovererTest extends QpidTestCase
         verify(queue, times(1)).recover(eq(message), any(MessageEnqueueRecord.class));
     }
 
+    @SuppressWarnings("unchecked")
+    public void testLazyMetaDataRecoveryReleasesMetaData()
+    {
+        final Queue<?> queue = createRegisteredMockQueue();
+
+        final long messageId = 1;
+        final StoredMessage<StorableMessageMetaData> storedMessage = createMockStoredMessage(messageId);
+
+        MessageStore store = new NullMessageStore()
+        {
+            @Override
+            public void visitMessages(MessageHandler handler) throws StoreException
+            {
+                handler.handle(storedMessage);
+            }
+
+            @Override
+            public void visitMessageInstances(MessageInstanceHandler handler) throws StoreException
+            {
+                handler.handle(new TestMessageEnqueueRecord(queue.getId(), messageId));
+            }
+        };
+
+        when(_virtualHost.getMessageStore()).thenReturn(store);
+
+        SynchronousMessageStoreRecoverer recoverer = new SynchronousMessageStoreRecoverer(true);
+        recoverer.recover(_virtualHost);
+
+        verify(storedMessage, times(1)).getMetaData();
+        verify(storedMessage, times(1)).flowToDisk();
+
+        ServerMessage<?> message = storedMessage.getMetaData().getType().createMessage(storedMessage);
+        verify(queue, times(1)).recover(eq(message), any(MessageEnqueueRecord.class));
+    }
+
     @SuppressWarnings("unchecked")
     public void testRecoveryOfMessageInstanceForNonExistingMessage()
     {
@@ -26,14 +26,17 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.security.auth.Subject;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +48,12 @@ import org.apache.qpid.server.security.access.RuleOutcome;
 
 /**
  * Models the rule configuration for the access control plugin.
+ * <p>
+ * On construction the rules are compiled into an index giving, for each operation and object type, the rules which
+ * may apply to it in their original order.  For each subject the indexed rules are filtered on the subject's
+ * principals when first needed, and the outcome of checking a particular operation, object type and set of
+ * properties is kept in a bounded cache, so that repeated checks (such as those made on every publish) do not need
+ * to match the rules again.
  */
 public class RuleSet implements EventLoggerProvider
 {
@@ -55,9 +64,19 @@ public class RuleSet implements EventLoggerProvider
 
     private static final Integer _increment = 10;
 
+    /** Maximum number of check outcomes cached for each subject */
+    static final int DECISION_CACHE_SIZE = 1024;
+
+    private static final LegacyOperation[] OPERATIONS = LegacyOperation.values();
+    private static final ObjectType[] OBJECT_TYPES = ObjectType.values();
+
+    /** Marks an operation and object type for which there are no rules at all */
+    private static final List<Rule> UNCONTROLLED = Collections.emptyList();
+
     private final List<Rule> _rules;
-    private final Map<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>> _cache =
-                        Collections.synchronizedMap(new WeakHashMap<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>>());
+    private final Map<LegacyOperation, Map<ObjectType, List<Rule>>> _compiledRules;
+    private final boolean _firewallRulesPresent;
+    private final Cache<Subject, SubjectRules> _cache = CacheBuilder.newBuilder().weakKeys().build();
     private final Map<String, Boolean> _config = new HashMap<String, Boolean>();
     private final EventLoggerProvider _eventLogger;
     private Result _defaultResult = Result.DENIED;
@@ -69,6 +88,14 @@ public class RuleSet implements EventLoggerProvider
         _eventLogger = eventLogger;
         _rules = new ArrayList<>(rules);
         _defaultResult = defaultResult;
+        _compiledRules = compileRules(_rules);
+
+        boolean firewallRulesPresent = false;
+        for (Rule rule : _rules)
+        {
+            firewallRulesPresent |= rule.getAclAction().getFirewallRule() != null;
+        }
+        _firewallRulesPresent = firewallRulesPresent;
     }
 
     int getRuleCount()
@@ -77,54 +104,50 @@ public class RuleSet implements EventLoggerProvider
     }
 
     /**
-     * Filtered rules list based on a subject and operation.
+     * Indexes the rules on the operation and object type they apply to.
      *
-     * Allows only enabled rules with identity equal to all, the same, or a group with identity as a member,
-     * and operation is either all or the same operation.
+     * The list of rules for an operation and object type holds, in order, the rules whose operation is either all or
+     * the same operation and whose object type is either all or the same object type.  It is null if there are no
+     * such rules.
      */
-    private List<Rule> getRules(final Subject subject, final LegacyOperation operation, final ObjectType objectType)
+    private static Map<LegacyOperation, Map<ObjectType, List<Rule>>> compileRules(final List<Rule> rules)
     {
-        final Map<ObjectType, List<Rule>> objects = getObjectToRuleCache(subject, operation);
-
-        // Lookup object type rules for the operation
-        if (!objects.containsKey(objectType))
+        final Map<LegacyOperation, Map<ObjectType, List<Rule>>> compiledRules = new EnumMap<>(LegacyOperation.class);
+        for (LegacyOperation operation : OPERATIONS)
         {
-            final Set<Principal> principals = subject.getPrincipals();
-            boolean controlled = false;
-            List<Rule> filtered = new LinkedList<Rule>();
-            for (Rule rule : _rules)
+            final Map<ObjectType, List<Rule>> objects = new EnumMap<>(ObjectType.class);
+            for (ObjectType objectType : OBJECT_TYPES)
             {
-                final Action ruleAction = rule.getAction();
-                if ((ruleAction.getOperation() == LegacyOperation.ALL || ruleAction.getOperation() == operation)
-                    && (ruleAction.getObjectType() == ObjectType.ALL || ruleAction.getObjectType() == objectType))
+                List<Rule> controlling = new ArrayList<>();
+                for (Rule rule : rules)
                 {
-                    controlled = true;
-
-                    if (isRelevant(principals,rule))
+                    final Action ruleAction = rule.getAction();
+                    if ((ruleAction.getOperation() == LegacyOperation.ALL || ruleAction.getOperation() == operation)
+                        && (ruleAction.getObjectType() == ObjectType.ALL || ruleAction.getObjectType() == objectType))
                     {
-                        filtered.add(rule);
+                        controlling.add(rule);
                     }
                 }
+                objects.put(objectType, controlling.isEmpty() ? null : Collections.unmodifiableList(controlling));
             }
+            compiledRules.put(operation, objects);
+        }
+        return compiledRules;
+    }
 
-            // Return null if there are no rules at all for this operation and object type
-            if (filtered.isEmpty() && !controlled)
+    private SubjectRules getSubjectRules(final Subject subject)
+    {
+        SubjectRules subjectRules = _cache.getIfPresent(subject);
+        if (subjectRules == null)
+        {
+            subjectRules = new SubjectRules(subject.getPrincipals());
+            final SubjectRules existing = _cache.asMap().putIfAbsent(subject, subjectRules);
+            if (existing != null)
             {
-                filtered = null;
+                subjectRules = existing;
             }
-
-            // Save the rules we selected
-            objects.put(objectType, filtered);
-
-            _logger.debug("Cached {} RulesList: {}", objectType, filtered);
         }
-
-        // Return the cached rules
-        List<Rule> rules = objects.get(objectType);
-
-        _logger.debug("Returning RuleList: {}", rules);
-
-        return rules;
+        return subjectRules;
     }
 
     /**
@@ -148,12 +171,12 @@ public class RuleSet implements EventLoggerProvider
      */
     public Result check(Subject subject, LegacyOperation operation, ObjectType objectType, ObjectProperties properties, InetAddress addressOfClient)
     {
-        ClientAction action = new ClientAction(operation, objectType, properties);
+        _logger.debug("Checking action: operation {}, object type {}, properties {}", operation, objectType, properties);
 
-        _logger.debug("Checking action: {}", action);
+        final SubjectRules subjectRules = getSubjectRules(subject);
 
         // get the list of rules relevant for this request
-        List<Rule> rules = getRules(subject, operation, objectType);
+        List<Rule> rules = subjectRules.getRules(operation, objectType);
         if (rules == null)
         {
 
@@ -162,6 +185,38 @@ public class RuleSet implements EventLoggerProvider
             return getDefault();
         }
 
+        final DecisionKey key = new DecisionKey(operation,
+                                                objectType,
+                                                properties,
+                                                _firewallRulesPresent ? addressOfClient : null);
+        Optional<Rule> matchingRule = subjectRules.getDecisions().getIfPresent(key);
+        if (matchingRule == null)
+        {
+            matchingRule = Optional.fromNullable(findMatchingRule(rules,
+                                                                  new ClientAction(operation, objectType, properties),
+                                                                  addressOfClient));
+            subjectRules.getDecisions().put(key.copy(), matchingRule);
+        }
+        else
+        {
+            _logger.debug("Using cached result for action");
+        }
+
+        if (matchingRule.isPresent())
+        {
+            return getResult(matchingRule.get(), operation, objectType, properties);
+        }
+
+        _logger.debug("Deferring result of ACL check");
+        // Defer to the next plugin of this type, if it exists
+        return Result.DEFER;
+    }
+
+    /**
+     * Goes through the rules in order to find the first one that matches, returning null if none does.
+     */
+    private Rule findMatchingRule(final List<Rule> rules, final ClientAction action, final InetAddress addressOfClient)
+    {
         // Iterate through a filtered set of rules dealing with this identity and operation
         for (Rule rule : rules)
         {
@@ -170,34 +225,40 @@ public class RuleSet implements EventLoggerProvider
 
             if (action.matches(rule.getAclAction(), addressOfClient))
             {
-                RuleOutcome ruleOutcome = rule.getRuleOutcome();
-                _logger.debug("Action matches.  Result: {}", ruleOutcome);
-                boolean allowed = ruleOutcome.isAllowed();
-                if(ruleOutcome.isLogged())
-                {
-                    if(allowed)
-                    {
-                        getEventLogger().message(AccessControlMessages.ALLOWED(
-                                action.getOperation().toString(),
-                                action.getObjectType().toString(),
-                                action.getProperties().toString()));
-                    }
-                    else
-                    {
-                        getEventLogger().message(AccessControlMessages.DENIED(
-                                action.getOperation().toString(),
-                                action.getObjectType().toString(),
-                                action.getProperties().toString()));
-                    }
-                }
-
+                return rule;
+            }
+        }
+        return null;
+    }
 
-                return allowed ? Result.ALLOWED : Result.DENIED;
+    private Result getResult(final Rule rule,
+                             final LegacyOperation operation,
+                             final ObjectType objectType,
+                             final ObjectProperties properties)
+    {
+        RuleOutcome ruleOutcome = rule.getRuleOutcome();
+        _logger.debug("Action matches.  Result: {}", ruleOutcome);
+        boolean allowed = ruleOutcome.isAllowed();
+        if(ruleOutcome.isLogged())
+        {
+            if(allowed)
+            {
+                getEventLogger().message(AccessControlMessages.ALLOWED(
+                        operation.toString(),
+                        objectType.toString(),
+                        properties.toString()));
+            }
+            else
+            {
+                getEventLogger().message(AccessControlMessages.DENIED(
+                        operation.toString(),
+                        objectType.toString(),
+                        properties.toString()));
             }
         }
-        _logger.debug("Deferring result of ACL check");
-        // Defer to the next plugin of this type, if it exists
-        return Result.DEFER;
+
+
+        return allowed ? Result.ALLOWED : Result.DENIED;
     }
 
     /** Default deny. */
@@ -248,28 +309,130 @@ public class RuleSet implements EventLoggerProvider
         return false;
     }
 
-    private Map<ObjectType, List<Rule>> getObjectToRuleCache(final Subject subject, final LegacyOperation operation)
+    public EventLogger getEventLogger()
+    {
+        return _eventLogger.getEventLogger();
+    }
+
+    /**
+     * The rules relevant to the principals of a subject, and the cached outcomes of checks made for the subject.
+     */
+    private final class SubjectRules
     {
-        // Lookup identity in cache and create empty operation map if required
-        Map<LegacyOperation, Map<ObjectType, List<Rule>>> operations = _cache.get(subject);
-        if (operations == null)
+        private final Set<Principal> _principals;
+        private final AtomicReferenceArray<List<Rule>> _rules =
+                new AtomicReferenceArray<>(OPERATIONS.length * OBJECT_TYPES.length);
+        private final Cache<DecisionKey, Optional<Rule>> _decisions =
+                CacheBuilder.newBuilder().maximumSize(DECISION_CACHE_SIZE).build();
+
+        private SubjectRules(final Set<Principal> principals)
         {
-            operations = Collections.synchronizedMap(new EnumMap<LegacyOperation, Map<ObjectType, List<Rule>>>(LegacyOperation.class));
-            _cache.put(subject, operations);
+            _principals = principals;
         }
 
-        // Lookup operation and create empty object type map if required
-        Map<ObjectType, List<Rule>> objects = operations.get(operation);
-        if (objects == null)
+        /**
+         * Filtered rules list based on the subject and operation.
+         *
+         * Allows only enabled rules with identity equal to all, the same, or a group with identity as a member,
+         * and operation is either all or the same operation.  Returns null if there are no rules at all for the
+         * operation and object type.
+         */
+        private List<Rule> getRules(final LegacyOperation operation, final ObjectType objectType)
         {
-            objects = Collections.synchronizedMap(new EnumMap<ObjectType, List<Rule>>(ObjectType.class));
-            operations.put(operation, objects);
+            final int index = operation.ordinal() * OBJECT_TYPES.length + objectType.ordinal();
+            List<Rule> rules = _rules.get(index);
+            if (rules == null)
+            {
+                final List<Rule> controlling = _compiledRules.get(operation).get(objectType);
+                if (controlling == null)
+                {
+                    rules = UNCONTROLLED;
+                }
+                else
+                {
+                    rules = new ArrayList<>();
+                    for (Rule rule : controlling)
+                    {
+                        if (isRelevant(_principals, rule))
+                        {
+                            rules.add(rule);
+                        }
+                    }
+                }
+                _rules.compareAndSet(index, null, rules);
+
+                _logger.debug("Cached {} RulesList: {}", objectType, rules == UNCONTROLLED ? null : rules);
+            }
+
+            return rules == UNCONTROLLED ? null : rules;
+        }
+
+        private Cache<DecisionKey, Optional<Rule>> getDecisions()
+        {
+            return _decisions;
         }
-        return objects;
     }
 
-    public EventLogger getEventLogger()
+    private static final class DecisionKey
     {
-        return _eventLogger.getEventLogger();
+        private final LegacyOperation _operation;
+        private final ObjectType _objectType;
+        private final ObjectProperties _properties;
+        private final InetAddress _addressOfClient;
+        private final int _hashCode;
+
+        private DecisionKey(final LegacyOperation operation,
+                            final ObjectType objectType,
+                            final ObjectProperties properties,
+                            final InetAddress addressOfClient)
+        {
+            _operation = operation;
+            _objectType = objectType;
+            _properties = properties;
+            _addressOfClient = addressOfClient;
+            int result = operation.hashCode();
+            result = 31 * result + objectType.hashCode();
+            result = 31 * result + (properties != null ? properties.hashCode() : 0);
+            result = 31 * result + (addressOfClient != null ? addressOfClient.hashCode() : 0);
+            _hashCode = result;
+        }
+
+        /**
+         * Returns a key which does not share the (mutable) properties of the key, for holding in the cache.
+         */
+        private DecisionKey copy()
+        {
+            return new DecisionKey(_operation,
+                                   _objectType,
+                                   _properties == null ? null : new ObjectProperties(_properties),
+                                   _addressOfClient);
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+
+            final DecisionKey that = (DecisionKey) o;
+
+            return _hashCode == that._hashCode
+                   && _operation == that._operation
+                   && _objectType == that._objectType
+                   && Objects.equals(_properties, that._properties)
+                   && Objects.equals(_addressOfClient, that._addressOfClient);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return _hashCode;
+        }
     }
 }
@@ -484,4 +484,36 @@ public class RuleSetTest extends QpidTestCase
 
         assertEquals(Result.ALLOWED, ruleSet.check(subjectInAllowedGroupAndOneOther, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, ObjectProperties.EMPTY));
     }
+
+    public void testRepeatedPublishChecksUseRoutingKey()
+    {
+        _ruleSetCreator.grant(1, TEST_USER, RuleOutcome.ALLOW, LegacyOperation.PUBLISH, ObjectType.EXCHANGE,
+                              new ObjectProperties(ALLOWED_VH, _exchangeName, "allowed.*", null));
+        _ruleSetCreator.grant(2, TEST_USER, RuleOutcome.DENY, LegacyOperation.PUBLISH, ObjectType.EXCHANGE,
+                              ObjectProperties.EMPTY);
+        RuleSet ruleSet = createRuleSet();
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals(Result.ALLOWED, ruleSet.check(_testSubject, LegacyOperation.PUBLISH, ObjectType.EXCHANGE,
+                                                       new ObjectProperties(ALLOWED_VH, _exchangeName, "allowed.key", null)));
+            assertEquals(Result.DENIED, ruleSet.check(_testSubject, LegacyOperation.PUBLISH, ObjectType.EXCHANGE,
+                                                      new ObjectProperties(ALLOWED_VH, _exchangeName, "denied.key", null)));
+        }
+    }
+
+    public void testCachedResultNotAffectedByChangeToCheckedProperties()
+    {
+        _ruleSetCreator.grant(1, TEST_USER, RuleOutcome.ALLOW, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST,
+                              new ObjectProperties(ALLOWED_VH));
+        RuleSet ruleSet = createRuleSet();
+
+        ObjectProperties properties = new ObjectProperties(ALLOWED_VH);
+        assertEquals(Result.ALLOWED, ruleSet.check(_testSubject, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, properties));
+
+        properties.setName(DENIED_VH);
+        assertEquals(Result.DEFER, ruleSet.check(_testSubject, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, properties));
+        assertEquals(Result.ALLOWED, ruleSet.check(_testSubject, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST,
+                                                   new ObjectProperties(ALLOWED_VH)));
+    }
 }
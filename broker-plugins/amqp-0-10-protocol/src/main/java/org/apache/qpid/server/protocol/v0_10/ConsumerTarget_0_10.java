@@ -38,9 +38,12 @@ import org.apache.qpid.server.consumer.ConsumerImpl;
 import org.apache.qpid.server.flow.FlowCreditManager;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
@@ -234,7 +237,11 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget implements FlowC
                     MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
 
 
-            msg = (MessageTransferMessage) converter.convert(serverMsg, _session.getAddressSpace());
+            NamedAddressSpace addressSpace = _session.getAddressSpace();
+            ConvertedMessageCache convertedMessageCache = addressSpace.getConvertedMessageCache();
+            msg = (MessageTransferMessage) (convertedMessageCache == null
+                    ? converter.convert(serverMsg, addressSpace)
+                    : convertedMessageCache.convert(serverMsg, converter, addressSpace));
         }
         DeliveryProperties origDeliveryProps = msg.getHeader() == null ? null : msg.getHeader().getDeliveryProperties();
         messageProps = msg.getHeader() == null ? null : msg.getHeader().getMessageProperties();
@@ -285,7 +292,9 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget implements FlowC
 
         if(msgCompressed && !compressionSupported && bodyBuffers != null)
         {
-            Collection<QpidByteBuffer> uncompressedBuffers = inflateIfPossible(bodyBuffers);
+            Collection<QpidByteBuffer> uncompressedBuffers = inflateIfPossible(msg, bodyBuffers);
+            // the message properties are shared with the other deliveries of the message
+            messageProps = new MessageProperties(messageProps);
             messageProps.setContentEncoding(null);
             for (QpidByteBuffer buf : bodyBuffers)
             {
@@ -299,11 +308,8 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget implements FlowC
                 && bodyBuffers != null
                 && ByteBufferUtils.remaining(bodyBuffers) > _session.getConnection().getMessageCompressionThreshold())
         {
-            Collection<QpidByteBuffer> compressedBuffers = deflateIfPossible(bodyBuffers);
-            if(messageProps == null)
-            {
-                messageProps = new MessageProperties();
-            }
+            Collection<QpidByteBuffer> compressedBuffers = deflateIfPossible(msg, bodyBuffers);
+            messageProps = messageProps == null ? new MessageProperties() : new MessageProperties(messageProps);
             messageProps.setContentEncoding(GZIPUtils.GZIP_CONTENT_ENCODING);
             for (QpidByteBuffer buf : bodyBuffers)
             {
@@ -703,11 +709,15 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget implements FlowC
     }
 
 
-    private Collection<QpidByteBuffer> deflateIfPossible(final Collection<QpidByteBuffer> buffers)
+    private Collection<QpidByteBuffer> deflateIfPossible(final MessageTransferMessage message,
+                                                         final Collection<QpidByteBuffer> buffers)
     {
         try
         {
-            return QpidByteBuffer.deflate(buffers);
+            GzipContentCache gzipContentCache = _session.getAddressSpace().getGzipContentCache();
+            return gzipContentCache == null
+                    ? QpidByteBuffer.deflate(buffers)
+                    : gzipContentCache.getDeflatedContent(message);
         }
         catch (IOException e)
         {
@@ -716,11 +726,15 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget implements FlowC
         }
     }
 
-    private Collection<QpidByteBuffer> inflateIfPossible(final Collection<QpidByteBuffer> buffers)
+    private Collection<QpidByteBuffer> inflateIfPossible(final MessageTransferMessage message,
+                                                         final Collection<QpidByteBuffer> buffers)
     {
         try
         {
-            return QpidByteBuffer.inflate(buffers);
+            GzipContentCache gzipContentCache = _session.getAddressSpace().getGzipContentCache();
+            return gzipContentCache == null
+                    ? QpidByteBuffer.inflate(buffers)
+                    : gzipContentCache.getInflatedContent(message);
         }
         catch (IOException e)
         {
@@ -0,0 +1,302 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.qpid.server.protocol.v0_10.ServerSession.MessageDispositionChangeListener;
+
+/**
+ * The disposition change listeners of the message transfers of a session which are awaiting a disposition, keyed by
+ * the command id of the transfer.
+ * <p>
+ * Command ids are allocated in increasing (serial number) order, so the listeners are held in a ring buffer indexed
+ * by command id, covering the ids from the lowest outstanding transfer to the highest.  Adding and removing a
+ * listener neither boxes the command id nor allocates an entry, and a range of command ids is visited in time
+ * proportional to the part of the range which overlaps the outstanding transfers.  The ring grows as required up to
+ * {@value #MAXIMUM_RING_CAPACITY} ids; ids which fall below the ring, or too far above it, are held in a map instead.
+ * <p>
+ * Listeners are called without holding the lock of this map.
+ */
+final class MessageDispositionListenerMap
+{
+    private static final int MINIMUM_RING_CAPACITY = 16;
+    private static final int MAXIMUM_RING_CAPACITY = 1 << 20;
+
+    interface Visitor
+    {
+        void visit(int commandId, MessageDispositionChangeListener listener);
+    }
+
+    private MessageDispositionChangeListener[] _ring = new MessageDispositionChangeListener[MINIMUM_RING_CAPACITY];
+    private int _mask = MINIMUM_RING_CAPACITY - 1;
+    /** the lowest command id which may be in the ring */
+    private int _lowest;
+    /** the number of command ids, starting at the lowest, which may be in the ring */
+    private int _span;
+    private int _ringSize;
+    private final Map<Integer, MessageDispositionChangeListener> _overflow = new HashMap<>();
+    private volatile int _size;
+
+    synchronized void put(int commandId, MessageDispositionChangeListener listener)
+    {
+        if (_ringSize == 0)
+        {
+            _lowest = commandId;
+            _span = 0;
+        }
+
+        int offset = commandId - _lowest;
+        if (offset < 0 || !makeRoomFor(commandId))
+        {
+            if (_overflow.put(commandId, listener) == null)
+            {
+                _size++;
+            }
+            return;
+        }
+
+        offset = commandId - _lowest;
+        int index = commandId & _mask;
+        if (_ring[index] == null)
+        {
+            _ringSize++;
+            _size++;
+        }
+        _ring[index] = listener;
+        if (offset >= _span)
+        {
+            _span = offset + 1;
+        }
+    }
+
+    synchronized MessageDispositionChangeListener get(int commandId)
+    {
+        if (isInRing(commandId))
+        {
+            MessageDispositionChangeListener listener = _ring[commandId & _mask];
+            if (listener != null)
+            {
+                return listener;
+            }
+        }
+        return _overflow.isEmpty() ? null : _overflow.get(commandId);
+    }
+
+    synchronized MessageDispositionChangeListener remove(int commandId)
+    {
+        if (isInRing(commandId))
+        {
+            int index = commandId & _mask;
+            MessageDispositionChangeListener listener = _ring[index];
+            if (listener != null)
+            {
+                _ring[index] = null;
+                _ringSize--;
+                _size--;
+                if (commandId == _lowest)
+                {
+                    advanceLowest();
+                }
+                return listener;
+            }
+        }
+        if (!_overflow.isEmpty())
+        {
+            MessageDispositionChangeListener listener = _overflow.remove(commandId);
+            if (listener != null)
+            {
+                _size--;
+            }
+            return listener;
+        }
+        return null;
+    }
+
+    /**
+     * Visits the listeners for the command ids from lower to upper inclusive, in command id order for those in the
+     * ring, removing each from the map before it is visited if remove is true.
+     */
+    void visitRange(int lower, int upper, boolean remove, Visitor visitor)
+    {
+        int first;
+        int last;
+        Map<Integer, MessageDispositionChangeListener> overflow = null;
+        synchronized (this)
+        {
+            if (_size == 0)
+            {
+                return;
+            }
+            if (!_overflow.isEmpty())
+            {
+                overflow = getOverflowInRange(lower, upper, remove);
+            }
+            int lowerOffset = lower - _lowest;
+            int upperOffset = upper - _lowest;
+            if (upperOffset < 0 || _span == 0)
+            {
+                first = 0;
+                last = -1;
+            }
+            else
+            {
+                first = lowerOffset < 0 ? _lowest : lower;
+                last = upperOffset >= _span ? _lowest + _span - 1 : upper;
+            }
+        }
+
+        if (overflow != null)
+        {
+            for (Map.Entry<Integer, MessageDispositionChangeListener> entry : overflow.entrySet())
+            {
+                visitor.visit(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (int commandId = first; commandId - last <= 0; commandId++)
+        {
+            MessageDispositionChangeListener listener = remove ? remove(commandId) : get(commandId);
+            if (listener != null)
+            {
+                visitor.visit(commandId, listener);
+            }
+        }
+    }
+
+    synchronized Collection<MessageDispositionChangeListener> removeAll()
+    {
+        List<MessageDispositionChangeListener> listeners = new ArrayList<>(_size);
+        for (int offset = 0; offset < _span; offset++)
+        {
+            int index = (_lowest + offset) & _mask;
+            if (_ring[index] != null)
+            {
+                listeners.add(_ring[index]);
+                _ring[index] = null;
+            }
+        }
+        listeners.addAll(_overflow.values());
+        _overflow.clear();
+        _ringSize = 0;
+        _span = 0;
+        _size = 0;
+        return listeners;
+    }
+
+    int size()
+    {
+        return _size;
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    private boolean isInRing(int commandId)
+    {
+        int offset = commandId - _lowest;
+        return offset >= 0 && offset < _span;
+    }
+
+    private boolean makeRoomFor(int commandId)
+    {
+        if (commandId - _lowest < _ring.length)
+        {
+            return true;
+        }
+        advanceLowest();
+        if (_ringSize == 0)
+        {
+            _lowest = commandId;
+            _span = 0;
+            return true;
+        }
+
+        long required = (long) (commandId - _lowest) + 1L;
+        if (required <= _ring.length)
+        {
+            return true;
+        }
+        if (required > MAXIMUM_RING_CAPACITY)
+        {
+            return false;
+        }
+
+        int capacity = Integer.highestOneBit((int) required - 1) << 1;
+        MessageDispositionChangeListener[] ring = new MessageDispositionChangeListener[capacity];
+        int mask = capacity - 1;
+        for (int offset = 0; offset < _span; offset++)
+        {
+            int commandIdInRing = _lowest + offset;
+            ring[commandIdInRing & mask] = _ring[commandIdInRing & _mask];
+        }
+        _ring = ring;
+        _mask = mask;
+        return true;
+    }
+
+    private void advanceLowest()
+    {
+        if (_ringSize == 0)
+        {
+            _lowest += _span;
+            _span = 0;
+        }
+        else
+        {
+            while (_ring[_lowest & _mask] == null)
+            {
+                _lowest++;
+                _span--;
+            }
+        }
+    }
+
+    private Map<Integer, MessageDispositionChangeListener> getOverflowInRange(int lower, int upper, boolean remove)
+    {
+        Map<Integer, MessageDispositionChangeListener> inRange = new TreeMap<>();
+        Iterator<Map.Entry<Integer, MessageDispositionChangeListener>> iterator = _overflow.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<Integer, MessageDispositionChangeListener> entry = iterator.next();
+            int commandId = entry.getKey();
+            if (commandId - lower >= 0 && upper - commandId >= 0)
+            {
+                inRange.put(commandId, entry.getValue());
+                if (remove)
+                {
+                    iterator.remove();
+                    _size--;
+                }
+            }
+        }
+        return inRange;
+    }
+}
@@ -21,7 +21,6 @@
 package org.apache.qpid.server.protocol.v0_10;
 
 import static org.apache.qpid.server.logging.subjects.LogSubjectFormat.CHANNEL_FORMAT;
-import static org.apache.qpid.util.Serial.gt;
 
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -37,10 +36,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -164,8 +161,7 @@ public class ServerSession extends Session
 
     }
 
-    private final SortedMap<Integer, MessageDispositionChangeListener> _messageDispositionListenerMap =
-            new ConcurrentSkipListMap<Integer, MessageDispositionChangeListener>();
+    private final MessageDispositionListenerMap _messageDispositionListenerMap = new MessageDispositionListenerMap();
 
     private ServerTransaction _transaction;
 
@@ -400,103 +396,45 @@ public class ServerSession extends Session
 
     public RangeSet acquire(RangeSet transfers)
     {
-        RangeSet acquired = RangeSetFactory.createRangeSet();
+        final RangeSet acquired = RangeSetFactory.createRangeSet();
 
-        if(!_messageDispositionListenerMap.isEmpty())
+        if(transfers != null && !_messageDispositionListenerMap.isEmpty())
         {
-            Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-            Iterator<Range> rangeIter = transfers.iterator();
-
-            if(rangeIter.hasNext())
+            MessageDispositionListenerMap.Visitor acquirer = new MessageDispositionListenerMap.Visitor()
             {
-                Range range = rangeIter.next();
-
-                while(range != null && unacceptedMessages.hasNext())
+                @Override
+                public void visit(final int commandId, final MessageDispositionChangeListener listener)
                 {
-                    int next = unacceptedMessages.next();
-                    while(gt(next, range.getUpper()))
+                    if(listener.acquire())
                     {
-                        if(rangeIter.hasNext())
-                        {
-                            range = rangeIter.next();
-                        }
-                        else
-                        {
-                            range = null;
-                            break;
-                        }
+                        acquired.add(commandId);
                     }
-                    if(range != null && range.includes(next))
-                    {
-                        MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.get(next);
-                        if(changeListener != null && changeListener.acquire())
-                        {
-                            acquired.add(next);
-                        }
-                    }
-
-
                 }
-
+            };
+            for(Range range : transfers)
+            {
+                _messageDispositionListenerMap.visitRange(range.getLower(), range.getUpper(), false, acquirer);
             }
-
-
         }
 
         return acquired;
     }
 
-    public void dispositionChange(RangeSet ranges, MessageDispositionAction action)
+    public void dispositionChange(RangeSet ranges, final MessageDispositionAction action)
     {
-        if(ranges != null)
+        if(ranges != null && !_messageDispositionListenerMap.isEmpty())
         {
-
-            if(ranges.size() == 1)
+            MessageDispositionListenerMap.Visitor visitor = new MessageDispositionListenerMap.Visitor()
             {
-                Range r = ranges.getFirst();
-                for(int i = r.getLower(); i <= r.getUpper(); i++)
+                @Override
+                public void visit(final int commandId, final MessageDispositionChangeListener listener)
                 {
-                    MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(i);
-                    if(changeListener != null)
-                    {
-                        action.performAction(changeListener);
-                    }
+                    action.performAction(listener);
                 }
-            }
-            else if(!_messageDispositionListenerMap.isEmpty())
+            };
+            for(Range range : ranges)
             {
-                Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-                Iterator<Range> rangeIter = ranges.iterator();
-
-                if(rangeIter.hasNext())
-                {
-                    Range range = rangeIter.next();
-
-                    while(range != null && unacceptedMessages.hasNext())
-                    {
-                        int next = unacceptedMessages.next();
-                        while(gt(next, range.getUpper()))
-                        {
-                            if(rangeIter.hasNext())
-                            {
-                                range = rangeIter.next();
-                            }
-                            else
-                            {
-                                range = null;
-                                break;
-                            }
-                        }
-                        if(range != null && range.includes(next))
-                        {
-                            MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(next);
-                            action.performAction(changeListener);
-                        }
-
-
-                    }
-
-                }
+                _messageDispositionListenerMap.visitRange(range.getLower(), range.getUpper(), true, visitor);
             }
         }
     }
@@ -517,11 +455,10 @@ public class ServerSession extends Session
             getAddressSpace().getDtxRegistry().endAssociations(this);
         }
 
-        for(MessageDispositionChangeListener listener : _messageDispositionListenerMap.values())
+        for(MessageDispositionChangeListener listener : _messageDispositionListenerMap.removeAll())
         {
             listener.onRelease(true);
         }
-        _messageDispositionListenerMap.clear();
 
         for (Action<? super ServerSession> task : _taskList)
         {
@@ -0,0 +1,131 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.server.protocol.v0_10.ServerSession.MessageDispositionChangeListener;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageDispositionListenerMapTest extends QpidTestCase
+{
+    private MessageDispositionListenerMap _map;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _map = new MessageDispositionListenerMap();
+    }
+
+    public void testPutGetRemove() throws Exception
+    {
+        MessageDispositionChangeListener first = addListener(1);
+        MessageDispositionChangeListener second = addListener(2);
+
+        assertEquals(2, _map.size());
+        assertSame(first, _map.get(1));
+        assertSame(second, _map.get(2));
+        assertNull(_map.get(3));
+
+        assertSame(first, _map.remove(1));
+        assertNull(_map.remove(1));
+        assertEquals(1, _map.size());
+        assertSame(second, _map.remove(2));
+        assertTrue(_map.isEmpty());
+    }
+
+    public void testVisitRangeRemovesOnlyListenersInRange() throws Exception
+    {
+        for (int commandId = 0; commandId < 100; commandId += 2)
+        {
+            addListener(commandId);
+        }
+
+        List<Integer> visited = visitRange(10, 21, true);
+
+        assertEquals(Arrays.asList(10, 12, 14, 16, 18, 20), visited);
+        assertEquals(44, _map.size());
+        assertNull(_map.get(10));
+        assertNotNull(_map.get(22));
+        assertEquals(Arrays.asList(8, 22), visitRange(7, 23, false));
+        assertEquals(44, _map.size());
+    }
+
+    public void testCommandIdsWrapAround() throws Exception
+    {
+        int firstCommandId = Integer.MAX_VALUE - 20;
+        for (int i = 0; i < 100; i++)
+        {
+            addListener(firstCommandId + i);
+        }
+        assertEquals(100, _map.size());
+
+        List<Integer> visited = visitRange(Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1, true);
+
+        assertEquals(Arrays.asList(Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE + 1),
+                     visited);
+        assertEquals(96, _map.size());
+        assertEquals(96, visitRange(firstCommandId, firstCommandId + 99, true).size());
+        assertTrue(_map.isEmpty());
+    }
+
+    public void testDistantAndEarlierCommandIds() throws Exception
+    {
+        MessageDispositionChangeListener first = addListener(100);
+        assertSame(first, _map.get(100));
+        MessageDispositionChangeListener distant = addListener(100 + (1 << 30));
+        MessageDispositionChangeListener earlier = addListener(50);
+
+        assertSame(distant, _map.get(100 + (1 << 30)));
+        assertSame(earlier, _map.get(50));
+        assertEquals(Arrays.asList(50, 100), visitRange(0, 1000, true));
+        assertEquals(1, _map.size());
+        assertEquals(Arrays.asList(distant), new ArrayList<>(_map.removeAll()));
+        assertTrue(_map.isEmpty());
+        assertNull(_map.get(100));
+    }
+
+    private MessageDispositionChangeListener addListener(final int commandId)
+    {
+        MessageDispositionChangeListener listener = mock(MessageDispositionChangeListener.class);
+        _map.put(commandId, listener);
+        return listener;
+    }
+
+    private List<Integer> visitRange(final int lower, final int upper, final boolean remove)
+    {
+        final List<Integer> visited = new ArrayList<>();
+        _map.visitRange(lower, upper, remove, new MessageDispositionListenerMap.Visitor()
+        {
+            @Override
+            public void visit(final int commandId, final MessageDispositionChangeListener listener)
+            {
+                visited.add(commandId);
+            }
+        });
+        return visited;
+    }
+}
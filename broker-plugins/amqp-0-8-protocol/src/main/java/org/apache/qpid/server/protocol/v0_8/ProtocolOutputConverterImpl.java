@@ -39,9 +39,12 @@ import org.apache.qpid.framing.BasicContentHeaderProperties;
 import org.apache.qpid.framing.ContentHeaderBody;
 import org.apache.qpid.framing.MessagePublishInfo;
 import org.apache.qpid.protocol.AMQVersionAwareProtocolSession;
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageContentSource;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.transport.ByteBufferSender;
@@ -80,7 +83,12 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         }
         else
         {
-            return getMessageConverter(serverMessage).convert(serverMessage, _connection.getAddressSpace());
+            NamedAddressSpace addressSpace = _connection.getAddressSpace();
+            ConvertedMessageCache convertedMessageCache = addressSpace.getConvertedMessageCache();
+            MessageConverter<ServerMessage, AMQMessage> converter = getMessageConverter(serverMessage);
+            return convertedMessageCache == null
+                    ? converter.convert(serverMessage, addressSpace)
+                    : convertedMessageCache.convert(serverMessage, converter, addressSpace);
         }
     }
 
@@ -152,7 +160,10 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     {
         try
         {
-            return new ModifiedContentSource(QpidByteBuffer.deflate(source.getContent(0, (int) source.getSize())));
+            GzipContentCache gzipContentCache = getGzipContentCache(source);
+            return new ModifiedContentSource(gzipContentCache == null
+                                                     ? QpidByteBuffer.deflate(source.getContent(0, (int) source.getSize()))
+                                                     : gzipContentCache.getDeflatedContent((ServerMessage<?>) source));
         }
         catch (IOException e)
         {
@@ -166,7 +177,10 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
     {
         try
         {
-            return new ModifiedContentSource(QpidByteBuffer.inflate(source.getContent(0, (int) source.getSize())));
+            GzipContentCache gzipContentCache = getGzipContentCache(source);
+            return new ModifiedContentSource(gzipContentCache == null
+                                                     ? QpidByteBuffer.inflate(source.getContent(0, (int) source.getSize()))
+                                                     : gzipContentCache.getInflatedContent((ServerMessage<?>) source));
         }
         catch (IOException e)
         {
@@ -175,6 +189,12 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         }
     }
 
+    private GzipContentCache getGzipContentCache(MessageContentSource source)
+    {
+        NamedAddressSpace addressSpace = _connection.getAddressSpace();
+        return source instanceof ServerMessage && addressSpace != null ? addressSpace.getGzipContentCache() : null;
+    }
+
 
     private int writeMessageDeliveryModified(final MessageContentSource content, final int channelId,
                                              final AMQBody deliverBody,
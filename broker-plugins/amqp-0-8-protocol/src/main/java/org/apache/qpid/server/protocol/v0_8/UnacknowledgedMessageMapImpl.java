@@ -23,32 +23,56 @@ package org.apache.qpid.server.protocol.v0_8;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.qpid.server.message.MessageInstance;
 
+/**
+ * Map of unacknowledged messages keyed by delivery tag.
+ * <p>
+ * Delivery tags are allocated in increasing order, so the messages are held in a ring buffer indexed by delivery
+ * tag, covering the tags from the lowest unacknowledged tag to the highest.  Adding, acknowledging and rejecting
+ * messages thus neither box delivery tags nor allocate entries, and acknowledging multiple messages visits only
+ * those acknowledged.  The ring grows as required up to {@value #MAXIMUM_RING_CAPACITY} tags; tags which fall
+ * below the ring, or too far above it, are held in a sorted map instead.
+ */
 public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 {
-    private final Object _lock = new Object();
+    private static final int MINIMUM_RING_CAPACITY = 16;
+    private static final int MAXIMUM_RING_CAPACITY = 1 << 20;
 
-    private Map<Long, MessageInstance> _map;
+    private final Object _lock = new Object();
 
-    private final int _prefetchLimit;
+    private final int _initialCapacity;
+    private MessageInstance[] _ring;
+    private int _mask;
+    /** the lowest delivery tag which may be in the ring */
+    private long _lowestTag;
+    /** the highest delivery tag which may be in the ring */
+    private long _highestTag;
+    private int _ringSize;
+    private final NavigableMap<Long, MessageInstance> _overflow = new TreeMap<>();
 
     public UnacknowledgedMessageMapImpl(int prefetchLimit)
     {
-        _prefetchLimit = prefetchLimit;
-        _map = new LinkedHashMap<>(prefetchLimit);
+        _initialCapacity = capacityFor(prefetchLimit);
+        _ring = new MessageInstance[_initialCapacity];
+        _mask = _initialCapacity - 1;
+        _lowestTag = 0L;
+        _highestTag = -1L;
     }
 
     public void collect(long deliveryTag, boolean multiple, Map<Long, MessageInstance> msgs)
     {
         if (multiple)
         {
-            collect(deliveryTag, msgs);
+            collect(getLastTag(deliveryTag), msgs);
         }
         else
         {
@@ -76,21 +100,30 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-
-            MessageInstance message = _map.remove(deliveryTag);
-            return message;
+            if (isInRing(deliveryTag))
+            {
+                int index = (int) deliveryTag & _mask;
+                MessageInstance message = _ring[index];
+                if (message != null)
+                {
+                    _ring[index] = null;
+                    _ringSize--;
+                    if (deliveryTag == _lowestTag)
+                    {
+                        advanceLowestTag();
+                    }
+                    return message;
+                }
+            }
+            return _overflow.isEmpty() ? null : _overflow.remove(deliveryTag);
         }
     }
 
-    public void visit(Visitor visitor)
+    public void visit(final Visitor visitor)
     {
         synchronized (_lock)
         {
-            Set<Map.Entry<Long, MessageInstance>> currentEntries = _map.entrySet();
-            for (Map.Entry<Long, MessageInstance> entry : currentEntries)
-            {
-                visitor.callback(entry.getKey().longValue(), entry.getValue());
-            }
+            visitInOrder(Long.MAX_VALUE, visitor);
             visitor.visitComplete();
         }
     }
@@ -99,7 +132,28 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            _map.put(deliveryTag, message);
+            if (_ringSize == 0 && _overflow.isEmpty())
+            {
+                _lowestTag = deliveryTag;
+                _highestTag = deliveryTag - 1L;
+            }
+
+            if (deliveryTag < _lowestTag || !makeRoomFor(deliveryTag))
+            {
+                _overflow.put(deliveryTag, message);
+                return;
+            }
+
+            int index = (int) deliveryTag & _mask;
+            if (_ring[index] == null)
+            {
+                _ringSize++;
+            }
+            _ring[index] = message;
+            if (deliveryTag > _highestTag)
+            {
+                _highestTag = deliveryTag;
+            }
         }
     }
 
@@ -107,8 +161,22 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            Collection<MessageInstance> currentEntries = _map.values();
-            _map = new LinkedHashMap<>(_prefetchLimit);
+            final List<MessageInstance> currentEntries = new ArrayList<>(size());
+            visitInOrder(Long.MAX_VALUE, new Visitor()
+            {
+                @Override
+                public boolean callback(final long deliveryTag, final MessageInstance message)
+                {
+                    currentEntries.add(message);
+                    return false;
+                }
+
+                @Override
+                public void visitComplete()
+                {
+                }
+            });
+            clear();
             return currentEntries;
         }
     }
@@ -117,7 +185,7 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.size();
+            return _ringSize + _overflow.size();
         }
     }
 
@@ -125,7 +193,26 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            _map.clear();
+            if (_ring.length > _initialCapacity)
+            {
+                _ring = new MessageInstance[_initialCapacity];
+                _mask = _initialCapacity - 1;
+            }
+            else
+            {
+                for (long tag = _lowestTag; tag <= _highestTag && _ringSize > 0; tag++)
+                {
+                    int index = (int) tag & _mask;
+                    if (_ring[index] != null)
+                    {
+                        _ring[index] = null;
+                        _ringSize--;
+                    }
+                }
+            }
+            _ringSize = 0;
+            _lowestTag = _highestTag + 1L;
+            _overflow.clear();
         }
     }
 
@@ -133,7 +220,15 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.get(key);
+            if (isInRing(key))
+            {
+                MessageInstance message = _ring[(int) key & _mask];
+                if (message != null)
+                {
+                    return message;
+                }
+            }
+            return _overflow.isEmpty() ? null : _overflow.get(key);
         }
     }
 
@@ -141,7 +236,22 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.keySet();
+            final Set<Long> deliveryTags = new LinkedHashSet<>();
+            visitInOrder(Long.MAX_VALUE, new Visitor()
+            {
+                @Override
+                public boolean callback(final long deliveryTag, final MessageInstance message)
+                {
+                    deliveryTags.add(deliveryTag);
+                    return false;
+                }
+
+                @Override
+                public void visitComplete()
+                {
+                }
+            });
+            return deliveryTags;
         }
     }
 
@@ -149,11 +259,13 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         if(multiple)
         {
-            Map<Long, MessageInstance> ackedMessageMap = new LinkedHashMap<Long, MessageInstance>();
-            collect(deliveryTag, multiple, ackedMessageMap);
-            remove(ackedMessageMap);
-            List<MessageInstance> acknowledged = new ArrayList<>();
-            for (MessageInstance instance : ackedMessageMap.values())
+            List<MessageInstance> removed = new ArrayList<>();
+            synchronized (_lock)
+            {
+                removeUpTo(getLastTag(deliveryTag), removed);
+            }
+            List<MessageInstance> acknowledged = new ArrayList<>(removed.size());
+            for (MessageInstance instance : removed)
             {
                 if (instance.lockAcquisition(instance.getAcquiringConsumer()))
                 {
@@ -164,11 +276,7 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
         }
         else
         {
-            MessageInstance instance;
-            synchronized (_lock)
-            {
-                instance = remove(deliveryTag);
-            }
+            MessageInstance instance = remove(deliveryTag);
             if(instance != null && instance.lockAcquisition(instance.getAcquiringConsumer()))
             {
                 return Collections.singleton(instance);
@@ -181,19 +289,174 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
         }
     }
 
-    private void collect(long key, Map<Long, MessageInstance> msgs)
+    private void collect(long key, final Map<Long, MessageInstance> msgs)
     {
         synchronized (_lock)
         {
-            for (Map.Entry<Long, MessageInstance> entry : _map.entrySet())
+            visitInOrder(key, new Visitor()
             {
-                msgs.put(entry.getKey(),entry.getValue());
-                if (entry.getKey() == key)
+                @Override
+                public boolean callback(final long deliveryTag, final MessageInstance message)
+                {
+                    msgs.put(deliveryTag, message);
+                    return false;
+                }
+
+                @Override
+                public void visitComplete()
                 {
-                    break;
                 }
+            });
+        }
+    }
+
+    /**
+     * Returns the highest delivery tag covered by an acknowledgement or rejection of multiple messages up to the given
+     * tag: a tag of zero covers all outstanding messages.
+     */
+    private static long getLastTag(long deliveryTag)
+    {
+        return deliveryTag == 0L ? Long.MAX_VALUE : deliveryTag;
+    }
+
+    private boolean isInRing(long deliveryTag)
+    {
+        return deliveryTag >= _lowestTag && deliveryTag <= _highestTag;
+    }
+
+    /**
+     * Ensures that the ring covers the given delivery tag, growing the ring if necessary, and returns false if the
+     * tag is too far above the lowest tag in the ring to be held in it.
+     */
+    private boolean makeRoomFor(long deliveryTag)
+    {
+        if (deliveryTag - _lowestTag < _ring.length)
+        {
+            return true;
+        }
+        advanceLowestTag();
+        if (_ringSize == 0)
+        {
+            _lowestTag = deliveryTag;
+            _highestTag = deliveryTag - 1L;
+            return true;
+        }
+
+        long span = deliveryTag - _lowestTag + 1L;
+        if (span <= _ring.length)
+        {
+            return true;
+        }
+        if (span > MAXIMUM_RING_CAPACITY)
+        {
+            return false;
+        }
+
+        int capacity = capacityFor((int) span);
+        MessageInstance[] ring = new MessageInstance[capacity];
+        int mask = capacity - 1;
+        for (long tag = _lowestTag; tag <= _highestTag; tag++)
+        {
+            ring[(int) tag & mask] = _ring[(int) tag & _mask];
+        }
+        _ring = ring;
+        _mask = mask;
+        return true;
+    }
+
+    private void advanceLowestTag()
+    {
+        if (_ringSize == 0)
+        {
+            _lowestTag = _highestTag + 1L;
+        }
+        else
+        {
+            while (_ring[(int) _lowestTag & _mask] == null)
+            {
+                _lowestTag++;
+            }
+        }
+    }
+
+    private void removeUpTo(long deliveryTag, List<MessageInstance> removed)
+    {
+        if (!_overflow.isEmpty())
+        {
+            Iterator<MessageInstance> iterator = _overflow.headMap(deliveryTag, true).values().iterator();
+            while (iterator.hasNext())
+            {
+                removed.add(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        long lastTag = Math.min(deliveryTag, _highestTag);
+        for (long tag = _lowestTag; tag <= lastTag && _ringSize > 0; tag++)
+        {
+            int index = (int) tag & _mask;
+            MessageInstance message = _ring[index];
+            if (message != null)
+            {
+                removed.add(message);
+                _ring[index] = null;
+                _ringSize--;
             }
         }
+        if (lastTag >= _lowestTag)
+        {
+            _lowestTag = lastTag + 1L;
+            advanceLowestTag();
+        }
     }
 
+    /**
+     * Visits the messages with delivery tags up to and including the given tag, in delivery tag order.
+     */
+    private void visitInOrder(long lastDeliveryTag, Visitor visitor)
+    {
+        Iterator<Map.Entry<Long, MessageInstance>> overflowIterator =
+                _overflow.isEmpty() ? null : _overflow.headMap(lastDeliveryTag, true).entrySet().iterator();
+        Map.Entry<Long, MessageInstance> overflowEntry = next(overflowIterator);
+
+        long lastTag = Math.min(lastDeliveryTag, _highestTag);
+        for (long tag = _lowestTag; tag <= lastTag; tag++)
+        {
+            MessageInstance message = _ring[(int) tag & _mask];
+            if (message != null)
+            {
+                while (overflowEntry != null && overflowEntry.getKey() < tag)
+                {
+                    if (visitor.callback(overflowEntry.getKey(), overflowEntry.getValue()))
+                    {
+                        return;
+                    }
+                    overflowEntry = next(overflowIterator);
+                }
+                if (visitor.callback(tag, message))
+                {
+                    return;
+                }
+            }
+        }
+        while (overflowEntry != null)
+        {
+            if (visitor.callback(overflowEntry.getKey(), overflowEntry.getValue()))
+            {
+                return;
+            }
+            overflowEntry = next(overflowIterator);
+        }
+    }
+
+    private static Map.Entry<Long, MessageInstance> next(Iterator<Map.Entry<Long, MessageInstance>> iterator)
+    {
+        return iterator != null && iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static int capacityFor(int size)
+    {
+        int capacity = Integer.highestOneBit(Math.max(MINIMUM_RING_CAPACITY, Math.min(size, MAXIMUM_RING_CAPACITY)) - 1) << 1;
+        return Math.min(capacity, MAXIMUM_RING_CAPACITY);
+    }
 }
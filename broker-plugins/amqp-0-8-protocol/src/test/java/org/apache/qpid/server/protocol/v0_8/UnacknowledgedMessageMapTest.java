@@ -23,7 +23,12 @@ package org.apache.qpid.server.protocol.v0_8;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.qpid.server.consumer.ConsumerImpl;
 import org.apache.qpid.server.message.MessageInstance;
@@ -66,6 +71,98 @@ public class UnacknowledgedMessageMapTest extends QpidTestCase
 
     }
 
+    public void testAcknowledgeMultipleWithDeliveryTagZeroAcknowledgesAll()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(16);
+        for (int i = 1; i <= 5; i++)
+        {
+            map.add((long) i, createMessageInstance(i));
+        }
+        MessageInstance distant = createMessageInstance(6);
+        map.add(1L << 30, distant);
+
+        // basic.ack with multiple set and a delivery tag of zero acknowledges all outstanding messages
+        Collection<MessageInstance> acknowledged = map.acknowledge(0L, true);
+
+        assertEquals("Unexpected number of acknowledged messages", 6, acknowledged.size());
+        assertTrue("Distant message should have been acknowledged", acknowledged.contains(distant));
+        assertEquals(0, map.size());
+    }
+
+    public void testNackMultipleWithDeliveryTagZeroCollectsAll()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(16);
+        for (int i = 1; i <= 5; i++)
+        {
+            map.add((long) i, createMessageInstance(i));
+        }
+        map.add(1L << 30, createMessageInstance(6));
+
+        // basic.nack with multiple set and a delivery tag of zero rejects all outstanding messages
+        Map<Long, MessageInstance> collected = new LinkedHashMap<>();
+        map.collect(0L, true, collected);
+
+        assertEquals("Unexpected collected delivery tags",
+                     new ArrayList<>(Arrays.asList(1L, 2L, 3L, 4L, 5L, 1L << 30)),
+                     new ArrayList<>(collected.keySet()));
+        assertEquals("Collecting should not remove messages", 6, map.size());
+    }
+
+    public void testAcknowledgeMultipleAcrossRingGrowthAndWrap()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(16);
+        long deliveryTag = 1000L;
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                map.add(deliveryTag++, createMessageInstance(i));
+            }
+            Collection<MessageInstance> acknowledged = map.acknowledge(deliveryTag - 11, true);
+            assertEquals("Unexpected number of acknowledged messages in round " + round,
+                         round == 0 ? 40 : 50, acknowledged.size());
+            assertEquals("Unexpected number of unacknowledged messages in round " + round, 10, map.size());
+        }
+        assertEquals(new ArrayList<>(Arrays.asList(1490L, 1491L, 1492L, 1493L, 1494L,
+                                                   1495L, 1496L, 1497L, 1498L, 1499L)),
+                     new ArrayList<>(map.getDeliveryTags()));
+    }
+
+    public void testSparseAndOutOfOrderDeliveryTags()
+    {
+        UnacknowledgedMessageMap map = new UnacknowledgedMessageMapImpl(16);
+        MessageInstance first = createMessageInstance(1);
+        MessageInstance distant = createMessageInstance(2);
+        MessageInstance late = createMessageInstance(3);
+        MessageInstance next = createMessageInstance(4);
+
+        map.add(10L, first);
+        map.add(10L + (1L << 30), distant);
+        map.add(5L, late);
+        map.add(11L, next);
+
+        assertEquals(4, map.size());
+        assertSame(first, map.get(10L));
+        assertSame(distant, map.get(10L + (1L << 30)));
+        assertSame(late, map.get(5L));
+        assertNull(map.get(6L));
+
+        Map<Long, MessageInstance> collected = new LinkedHashMap<>();
+        map.collect(10L, true, collected);
+        assertEquals("Unexpected collected delivery tags",
+                     new ArrayList<>(Arrays.asList(5L, 10L)), new ArrayList<>(collected.keySet()));
+
+        assertSame(late, map.remove(5L));
+        Collection<MessageInstance> acknowledged = map.acknowledge(11L, true);
+        assertEquals(2, acknowledged.size());
+        assertTrue(acknowledged.contains(first));
+        assertTrue(acknowledged.contains(next));
+        assertEquals(1, map.size());
+
+        assertEquals(Collections.singletonList(distant), new ArrayList<>(map.cancelAllMessages()));
+        assertEquals(0, map.size());
+    }
+
     public MessageInstance[] populateMap(final UnacknowledgedMessageMap map, int size)
     {
         MessageInstance[] msgs = new MessageInstance[size];
@@ -48,8 +48,10 @@ import org.apache.qpid.bytebuffer.QpidByteBuffer;
 import org.apache.qpid.server.transport.ProtocolEngine;
 import org.apache.qpid.server.consumer.AbstractConsumerTarget;
 import org.apache.qpid.server.consumer.ConsumerImpl;
+import org.apache.qpid.server.message.ConvertedMessageCache;
 import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.AMQSessionModel;
 import org.apache.qpid.server.protocol.LinkRegistry;
@@ -122,7 +124,11 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget
         else
         {
             final MessageConverter converter = MessageConverterRegistry.getConverter(serverMessage.getClass(), Message_1_0.class);
-            message = (Message_1_0) converter.convert(serverMessage, _link.getAddressSpace());
+            final NamedAddressSpace addressSpace = _link.getAddressSpace();
+            final ConvertedMessageCache convertedMessageCache = addressSpace.getConvertedMessageCache();
+            message = (Message_1_0) (convertedMessageCache == null
+                    ? converter.convert(serverMessage, addressSpace)
+                    : convertedMessageCache.convert(serverMessage, converter, addressSpace));
         }
 
         Transfer transfer = new Transfer();
@@ -149,7 +149,7 @@ public class SendingLink_1_0 implements SendingLinkListener, Link_1_0, DeliveryS
                         org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter selectorFilter = (org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter) entry.getValue();
                         try
                         {
-                            messageFilter = new JMSSelectorFilter(selectorFilter.getValue());
+                            messageFilter = JMSSelectorFilter.getInstance(selectorFilter.getValue());
 
                             actualFilters.put(entry.getKey(), entry.getValue());
                         }
@@ -279,7 +279,7 @@ public class SendingLink_1_0 implements SendingLinkListener, Link_1_0, DeliveryS
                             org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter selectorFilter = (org.apache.qpid.server.protocol.v1_0.type.messaging.JMSSelectorFilter) entry.getValue();
                             try
                             {
-                                messageFilter = new JMSSelectorFilter(selectorFilter.getValue());
+                                messageFilter = JMSSelectorFilter.getInstance(selectorFilter.getValue());
 
                                 actualFilters.put(entry.getKey(), entry.getValue());
                             }
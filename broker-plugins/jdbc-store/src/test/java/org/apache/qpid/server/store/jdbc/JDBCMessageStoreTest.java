@@ -28,12 +28,26 @@ import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.MessageStoreTestCase;
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.Transaction;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.store.handler.MessageHandler;
+import org.apache.qpid.server.store.handler.MessageInstanceHandler;
 import org.apache.qpid.server.virtualhost.jdbc.JDBCVirtualHost;
 
 public class JDBCMessageStoreTest extends MessageStoreTestCase
@@ -63,6 +77,73 @@ public class JDBCMessageStoreTest extends MessageStoreTestCase
         assertTablesExist(expectedTables, false);
     }
 
+    public void testFailedTransactionDoesNotAbortTransactionsCommittedWithIt() throws Exception
+    {
+        final UUID queueId = UUID.randomUUID();
+        TransactionLogResource queue = createTransactionLogResource(queueId);
+        MessageEnqueueRecord unknownRecord = mock(MessageEnqueueRecord.class);
+        when(unknownRecord.getQueueId()).thenReturn(queueId);
+        when(unknownRecord.getMessageNumber()).thenReturn(Long.MAX_VALUE);
+
+        int numberOfTransactions = 20;
+        List<ListenableFuture<Void>> futures = new ArrayList<>();
+        ListenableFuture<Void> failingFuture = null;
+        for (long messageId = 1; messageId <= numberOfTransactions; messageId++)
+        {
+            Transaction txn = getStore().newTransaction();
+            txn.enqueueMessage(queue, createEnqueueableMessage(messageId));
+            futures.add(txn.<Void>commitTranAsync(null));
+
+            if (messageId == numberOfTransactions / 2)
+            {
+                Transaction failingTxn = getStore().newTransaction();
+                failingTxn.dequeueMessage(unknownRecord);
+                failingFuture = failingTxn.commitTranAsync(null);
+            }
+        }
+
+        try
+        {
+            failingFuture.get(10, TimeUnit.SECONDS);
+            fail("Transaction dequeuing an unknown message should have failed");
+        }
+        catch (ExecutionException e)
+        {
+            assertTrue("Unexpected failure " + e.getCause(), e.getCause() instanceof StoreException);
+        }
+        for (ListenableFuture<Void> future : futures)
+        {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        final Set<Long> enqueuedIds = new HashSet<>();
+        getStore().newMessageStoreReader().visitMessageInstances(new MessageInstanceHandler()
+        {
+            @Override
+            public boolean handle(final MessageEnqueueRecord record)
+            {
+                if (record.getQueueId().equals(queueId))
+                {
+                    enqueuedIds.add(record.getMessageNumber());
+                }
+                return true;
+            }
+        });
+        assertEquals("Unexpected number of enqueued messages", numberOfTransactions, enqueuedIds.size());
+
+        final Set<Long> storedIds = new HashSet<>();
+        getStore().newMessageStoreReader().visitMessages(new MessageHandler()
+        {
+            @Override
+            public boolean handle(final StoredMessage<?> storedMessage)
+            {
+                storedIds.add(storedMessage.getMessageNumber());
+                return true;
+            }
+        });
+        assertEquals("Unexpected stored messages", enqueuedIds, storedIds);
+    }
+
     @Override
     protected VirtualHost createVirtualHost()
     {
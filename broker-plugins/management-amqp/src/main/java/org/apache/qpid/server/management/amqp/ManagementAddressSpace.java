@@ -28,6 +28,8 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.qpid.exchange.ExchangeDefaults;
+import org.apache.qpid.server.message.ConvertedMessageCache;
+import org.apache.qpid.server.message.GzipContentCache;
 import org.apache.qpid.server.message.InstanceProperties;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.MessageInstance;
@@ -209,6 +211,18 @@ public class ManagementAddressSpace implements NamedAddressSpace
         return Collections.emptyList();
     }
 
+    @Override
+    public GzipContentCache getGzipContentCache()
+    {
+        return null;
+    }
+
+    @Override
+    public ConvertedMessageCache getConvertedMessageCache()
+    {
+        return null;
+    }
+
     private class DefaultDestination implements MessageDestination
     {
         @Override
@@ -61,6 +61,7 @@ import org.apache.qpid.server.model.Transport;
 import org.apache.qpid.server.model.port.AmqpPort;
 import org.apache.qpid.server.transport.MultiVersionProtocolEngineFactory;
 import org.apache.qpid.server.transport.AcceptingTransport;
+import org.apache.qpid.server.transport.NetworkConnectionScheduler;
 import org.apache.qpid.server.transport.ProtocolEngine;
 import org.apache.qpid.server.transport.SchedulingDelayNotificationListener;
 import org.apache.qpid.server.transport.ServerNetworkConnection;
@@ -250,6 +251,12 @@ class WebSocketProvider implements AcceptingTransport
         return _server == null || _server.getConnectors() == null || _server.getConnectors().length == 0 ? _port.getPort() : _server.getConnectors()[0].getLocalPort();
     }
 
+    @Override
+    public NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        return null;
+    }
+
     private class AmqpWebSocket implements WebSocket,WebSocket.OnBinaryMessage
     {
         private final SocketAddress _localAddress;
@@ -351,6 +358,8 @@ class WebSocketProvider implements AcceptingTransport
         private final ConcurrentLinkedQueue<QpidByteBuffer> _buffers = new ConcurrentLinkedQueue<>();
         private final MultiVersionProtocolEngine _protocolEngine;
         private final AtomicLong _usedOutboundMessageSpace = new AtomicLong();
+        private final AtomicLong _transportWriteCount = new AtomicLong();
+        private final AtomicLong _transportBytesWritten = new AtomicLong();
 
         private Certificate _certificate;
         private long _maxWriteIdleMillis;
@@ -485,6 +494,18 @@ class WebSocketProvider implements AcceptingTransport
             return 0;
         }
 
+        @Override
+        public long getTransportWriteCount()
+        {
+            return _transportWriteCount.get();
+        }
+
+        @Override
+        public long getTransportBytesWritten()
+        {
+            return _transportBytesWritten.get();
+        }
+
         void setPeerCertificate(final Certificate certificate)
         {
             _certificate = certificate;
@@ -516,6 +537,8 @@ class WebSocketProvider implements AcceptingTransport
                 try
                 {
                     _connection.sendMessage(data, 0, size);
+                    _transportWriteCount.incrementAndGet();
+                    _transportBytesWritten.addAndGet(size);
                     _usedOutboundMessageSpace.set(0);
                 }
                 catch (IOException e)
@@ -145,6 +145,7 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
             _resolvedDestinations = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<AMQDestination, Boolean>()));
 
     private final long _dispatcherShutdownTimeoutMs;
+    private final int _dispatcherBatchSize;
 
     /** The connection to which this session belongs. */
     private AMQConnection _connection;
@@ -350,6 +351,8 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
                 _strictAMQP
                 || Boolean.parseBoolean(System.getProperties().getProperty(IMMEDIATE_PREFETCH, IMMEDIATE_PREFETCH_DEFAULT));
         _dispatcherShutdownTimeoutMs = Integer.parseInt(System.getProperty(DISPATCHER_SHUTDOWN_TIMEOUT_MS, DISPATCHER_SHUTDOWN_TIMEOUT_MS_DEFAULT));
+        _dispatcherBatchSize = Math.max(1, Integer.getInteger(ClientProperties.QPID_DISPATCHER_BATCH_SIZE,
+                                                              ClientProperties.DEFAULT_DISPATCHER_BATCH_SIZE));
 
         _connection = con;
         _transacted = transacted;
@@ -3490,19 +3493,23 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
                 try
                 {
-
                     while (((_queue.blockingPeek()) != null) && !_closed.get())
                     {
                         synchronized (_lock)
                         {
-                            if (!isClosed() && !isClosing() && !_closed.get())
+                            // deliver what is already queued (up to the batch size) for this wake-up, taking each
+                            // dispatchable only once it is known to be delivered, so that those left when the
+                            // session starts closing remain queued as they would after a single dispatch
+                            for (int i = 0;
+                                 i < _dispatcherBatchSize && !isClosed() && !isClosing() && !_closed.get();
+                                 i++)
                             {
                                 Dispatchable disp = _queue.nonBlockingTake();
-
-                                if(disp != null)
+                                if (disp == null)
                                 {
-                                    disp.dispatch(AMQSession.this);
+                                    break;
                                 }
+                                disp.dispatch(AMQSession.this);
                             }
                         }
                     }
@@ -23,6 +23,7 @@ package org.apache.qpid.client.util;
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +33,10 @@ import org.slf4j.LoggerFactory;
  * control) to try to prevent the queue growing (much) further. The underlying queue itself is not bounded therefore the
  * caller is not obliged to react to the events.
  * <p>
- * This implementation is <b>only</b> safe where we have a single
- * thread adding items and a single (different) thread removing items.
+ * This implementation is intended for a single thread adding items and a single (different) thread removing items.
+ * Adding and removing items does not lock: the count used for flow control is maintained atomically, and the
+ * listener lock is only taken when the count crosses one of the thresholds.  Only a thread which finds the queue empty
+ * waits on the queue's monitor, and an adding thread only takes that monitor when there is a waiting thread to wake.
  * <p>
  * TODO  Make this implement java.util.Queue and hide the implementation. Then different queue types can be substituted.
  */
@@ -50,8 +53,14 @@ public class FlowControllingBlockingQueue<T>
     private final ThresholdListener _listener;
 
     /** We require a separate count so we can track whether we have reached the threshold */
-    private int _count;
-    
+    private final AtomicInteger _count = new AtomicInteger();
+
+    /** Number of threads waiting (or about to wait) on this queue's monitor for an item to be added */
+    private final AtomicInteger _waiting = new AtomicInteger();
+
+    /** Whether the listener was last told the queue is above threshold, guarded by the listener */
+    private boolean _aboveThreshold;
+
     private boolean disableFlowControl; 
 
     private volatile boolean _closed;
@@ -113,9 +122,17 @@ public class FlowControllingBlockingQueue<T>
         {
             synchronized (this)
             {
-                while (!_closed && (o = _queue.peek()) == null)
+                _waiting.incrementAndGet();
+                try
                 {
-                    wait();
+                    while (!_closed && (o = _queue.peek()) == null)
+                    {
+                        wait();
+                    }
+                }
+                finally
+                {
+                    _waiting.decrementAndGet();
                 }
             }
         }
@@ -126,9 +143,9 @@ public class FlowControllingBlockingQueue<T>
     {
         T o = _queue.poll();
 
-        if (o != null && !disableFlowControl && _listener != null)
+        if (o != null)
         {
-            reportBelowIfNecessary();
+            reportRemoved();
         }
 
         return o;
@@ -141,15 +158,23 @@ public class FlowControllingBlockingQueue<T>
         {
             synchronized(this)
             {
-                while(!_closed && (o = _queue.poll())==null)
+                _waiting.incrementAndGet();
+                try
+                {
+                    while(!_closed && (o = _queue.poll())==null)
+                    {
+                        wait();
+                    }
+                }
+                finally
                 {
-                    wait();
+                    _waiting.decrementAndGet();
                 }
             }
         }
-        if (!_closed && !disableFlowControl && _listener != null)
+        if (!_closed && o != null)
         {
-            reportBelowIfNecessary();
+            reportRemoved();
         }
 
         return o;
@@ -157,24 +182,30 @@ public class FlowControllingBlockingQueue<T>
 
     public void add(T o)
     {
-        synchronized(this)
-        {
-            _queue.add(o);
+        _queue.add(o);
 
-            notifyAll();
+        // the waiting thread increments the count before checking the queue, and this thread checks the count after
+        // adding to the queue, so either the waiting thread sees the item or this thread sees the waiting thread
+        if (_waiting.get() != 0)
+        {
+            synchronized (this)
+            {
+                notifyAll();
+            }
         }
-        if (!disableFlowControl && _listener != null)
+
+        if (isFlowControlled() && _count.incrementAndGet() == _flowControlHighThreshold)
         {
-            reportAboveIfNecessary();
+            updateThresholdState();
         }
     }
 
     public boolean remove(final T o)
     {
         final boolean removed = _queue.remove(o);
-        if (removed && !disableFlowControl && _listener != null)
+        if (removed)
         {
-            reportBelowIfNecessary();
+            reportRemoved();
         }
         return removed;
     }
@@ -188,40 +219,48 @@ public class FlowControllingBlockingQueue<T>
     {
         _queue.clear();
 
-        if (!disableFlowControl && _listener != null)
+        if (isFlowControlled())
         {
-            synchronized (_listener)
-            {
-                int count = _count;
-                _count = 0;
-
-                if (count >= _flowControlLowThreshold)
-                {
-                    _listener.underThreshold(0);
-                }
-            }
-
+            _count.set(0);
+            updateThresholdState();
         }
     }
 
-    private void reportAboveIfNecessary()
+    private boolean isFlowControlled()
     {
-        synchronized (_listener)
+        return !disableFlowControl && _listener != null;
+    }
+
+    private void reportRemoved()
+    {
+        if (isFlowControlled())
         {
-            if (++_count == _flowControlHighThreshold)
+            int count = _count.decrementAndGet();
+            if (count == _flowControlLowThreshold - 1)
             {
-                _listener.aboveThreshold(_count);
+                updateThresholdState();
             }
         }
     }
 
-    private void reportBelowIfNecessary()
+    /**
+     * Called when the count has crossed a threshold.  As the count may have changed again since, the listener is told
+     * about the state the count is in now, if it differs from what the listener was last told.
+     */
+    private void updateThresholdState()
     {
         synchronized (_listener)
         {
-            if (_count-- == _flowControlLowThreshold)
+            int count = _count.get();
+            if (!_aboveThreshold && count >= _flowControlHighThreshold)
+            {
+                _aboveThreshold = true;
+                _listener.aboveThreshold(count);
+            }
+            else if (_aboveThreshold && count < _flowControlLowThreshold)
             {
-                _listener.underThreshold(_count);
+                _aboveThreshold = false;
+                _listener.underThreshold(count);
             }
         }
     }
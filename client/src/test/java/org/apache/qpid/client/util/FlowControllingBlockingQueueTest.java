@@ -0,0 +1,139 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class FlowControllingBlockingQueueTest extends QpidTestCase
+{
+    private final List<String> _events = new ArrayList<>();
+    private final FlowControllingBlockingQueue.ThresholdListener _listener =
+            new FlowControllingBlockingQueue.ThresholdListener()
+            {
+                @Override
+                public void aboveThreshold(final int currentValue)
+                {
+                    _events.add("above:" + currentValue);
+                }
+
+                @Override
+                public void underThreshold(final int currentValue)
+                {
+                    _events.add("under:" + currentValue);
+                }
+            };
+
+    public void testThresholdEvents() throws Exception
+    {
+        FlowControllingBlockingQueue<Integer> queue = new FlowControllingBlockingQueue<>(3, 2, _listener);
+
+        queue.add(1);
+        queue.add(2);
+        assertTrue("Unexpected events below high threshold", _events.isEmpty());
+
+        queue.add(3);
+        queue.add(4);
+        assertEquals("Unexpected events at high threshold", Arrays.asList("above:3"), _events);
+
+        assertEquals(Integer.valueOf(1), queue.nonBlockingTake());
+        assertEquals(Integer.valueOf(2), queue.take());
+        assertEquals("Unexpected events at low threshold", Arrays.asList("above:3"), _events);
+
+        assertEquals(Integer.valueOf(3), queue.nonBlockingTake());
+        assertEquals("Unexpected events below low threshold", Arrays.asList("above:3", "under:1"), _events);
+    }
+
+    public void testClearReportsUnderThreshold() throws Exception
+    {
+        FlowControllingBlockingQueue<Integer> queue = new FlowControllingBlockingQueue<>(2, _listener);
+        queue.add(1);
+        queue.add(2);
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertEquals("Unexpected events", Arrays.asList("above:2", "under:0"), _events);
+    }
+
+    public void testTakeWaitsForAdd() throws Exception
+    {
+        final FlowControllingBlockingQueue<Integer> queue = new FlowControllingBlockingQueue<>(0, null);
+        final AtomicReference<Integer> taken = new AtomicReference<>();
+        final CountDownLatch takenLatch = new CountDownLatch(1);
+        Thread consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    taken.set(queue.take());
+                    takenLatch.countDown();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        consumer.start();
+
+        assertFalse("Take should not have returned from an empty queue", takenLatch.await(100, TimeUnit.MILLISECONDS));
+        queue.add(42);
+        assertTrue("Take did not return after an add", takenLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(42), taken.get());
+    }
+
+    public void testCloseReleasesBlockingPeek() throws Exception
+    {
+        final FlowControllingBlockingQueue<Integer> queue = new FlowControllingBlockingQueue<>(0, null);
+        final CountDownLatch peekedLatch = new CountDownLatch(1);
+        Thread consumer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    if (queue.blockingPeek() == null)
+                    {
+                        peekedLatch.countDown();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        consumer.start();
+
+        assertFalse("Peek should not have returned from an empty queue", peekedLatch.await(100, TimeUnit.MILLISECONDS));
+        queue.close();
+        assertTrue("Peek did not return after close", peekedLatch.await(5, TimeUnit.SECONDS));
+    }
+}
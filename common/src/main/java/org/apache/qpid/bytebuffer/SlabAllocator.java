@@ -0,0 +1,375 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.bytebuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator of direct memory for long lived buffers, such as the messages held by a memory message store.
+ * <p>
+ * Direct memory is reserved in slabs of a fixed size, each of which is carved into chunks of a single size class.
+ * Size classes are the powers of two from the minimum chunk size up to the slab size, so that a chunk is at most
+ * twice the size requested.  Once every view of a buffer has been disposed, its chunk is reused by the next
+ * allocation of the same size class.  Buffers larger than a slab are allocated individually.
+ * <p>
+ * Once a size class has accumulated more than a slab's worth of free chunks, its free chunks are compacted: slabs
+ * all of whose chunks are free are taken out of the size class.  Up to {@value #MAXIMUM_SPARE_SLABS} such slabs are
+ * kept as spares, from which a slab for any size class is carved before more direct memory is reserved, and the
+ * rest are released.
+ */
+public class SlabAllocator
+{
+    private static final int MAXIMUM_SPARE_SLABS = 1;
+
+    private static final AtomicIntegerFieldUpdater<SlabChunkRef> REF_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(SlabChunkRef.class, "_refCount");
+
+    private final int _slabSize;
+    private final int _minimumChunkShift;
+    private final SizeClass[] _sizeClasses;
+    private final Queue<ByteBuffer> _spareSlabs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _spareSlabCount = new AtomicInteger();
+    private final AtomicLong _capacity = new AtomicLong();
+    private final AtomicLong _allocatedSize = new AtomicLong();
+    private final AtomicLong _requestedSize = new AtomicLong();
+
+    public SlabAllocator(final int slabSize, final int minimumChunkSize)
+    {
+        if (minimumChunkSize <= 0 || slabSize < minimumChunkSize)
+        {
+            throw new IllegalArgumentException("Cannot create slab allocator with slab size " + slabSize
+                                               + " and minimum chunk size " + minimumChunkSize);
+        }
+        _minimumChunkShift = 32 - Integer.numberOfLeadingZeros(minimumChunkSize - 1);
+        int slabShift = 32 - Integer.numberOfLeadingZeros(slabSize - 1);
+        _slabSize = 1 << slabShift;
+        _sizeClasses = new SizeClass[slabShift - _minimumChunkShift + 1];
+        for (int i = 0; i < _sizeClasses.length; i++)
+        {
+            _sizeClasses[i] = new SizeClass(1 << (i + _minimumChunkShift));
+        }
+    }
+
+    /**
+     * Allocates a direct buffer whose limit is the given size.  The memory is returned to the allocator once the
+     * buffer and every view of it have been disposed.
+     */
+    public QpidByteBuffer allocate(final int size)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("Cannot allocate QpidByteBuffer with size " + size + " which is negative.");
+        }
+
+        final SlabChunkRef ref;
+        if (size > _slabSize)
+        {
+            _capacity.addAndGet(size);
+            ref = new SlabChunkRef(new Chunk(ByteBuffer.allocateDirect(size), null), null, size);
+        }
+        else
+        {
+            SizeClass sizeClass = _sizeClasses[getSizeClass(size)];
+            Chunk chunk = sizeClass.poll();
+            if (chunk == null)
+            {
+                chunk = sizeClass.carve(takeSlab());
+            }
+            ref = new SlabChunkRef(chunk, sizeClass, size);
+        }
+        _allocatedSize.addAndGet(ref.getChunkSize());
+        _requestedSize.addAndGet(size);
+        return new QpidByteBuffer(ref);
+    }
+
+    /**
+     * Takes out of their size classes the slabs all of whose chunks are free, keeping up to
+     * {@value #MAXIMUM_SPARE_SLABS} of them as spares and releasing the rest.
+     */
+    public void compact()
+    {
+        for (SizeClass sizeClass : _sizeClasses)
+        {
+            sizeClass.compact();
+        }
+    }
+
+    /**
+     * Returns the size of the direct memory reserved by the allocator.
+     */
+    public long getCapacity()
+    {
+        return _capacity.get();
+    }
+
+    /**
+     * Returns the size of the chunks currently allocated, which includes the unused space of each chunk.
+     */
+    public long getAllocatedSize()
+    {
+        return _allocatedSize.get();
+    }
+
+    /**
+     * Returns the total size of the buffers currently allocated.
+     */
+    public long getRequestedSize()
+    {
+        return _requestedSize.get();
+    }
+
+    public int getSlabSize()
+    {
+        return _slabSize;
+    }
+
+    private int getSizeClass(final int size)
+    {
+        if (size <= 1 << _minimumChunkShift)
+        {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - _minimumChunkShift;
+    }
+
+    private ByteBuffer takeSlab()
+    {
+        ByteBuffer slab = _spareSlabs.poll();
+        if (slab != null)
+        {
+            _spareSlabCount.decrementAndGet();
+            return slab;
+        }
+        _capacity.addAndGet(_slabSize);
+        return ByteBuffer.allocateDirect(_slabSize);
+    }
+
+    private void returnSlab(final ByteBuffer slab)
+    {
+        if (_spareSlabCount.incrementAndGet() <= MAXIMUM_SPARE_SLABS)
+        {
+            slab.clear();
+            _spareSlabs.add(slab);
+        }
+        else
+        {
+            _spareSlabCount.decrementAndGet();
+            _capacity.addAndGet(-_slabSize);
+        }
+    }
+
+    private void release(final Chunk chunk, final SizeClass sizeClass, final int size)
+    {
+        _allocatedSize.addAndGet(-chunk._buffer.capacity());
+        _requestedSize.addAndGet(-size);
+        if (sizeClass == null)
+        {
+            _capacity.addAndGet(-chunk._buffer.capacity());
+        }
+        else
+        {
+            sizeClass.release(chunk);
+        }
+    }
+
+    private static final class Chunk
+    {
+        private final ByteBuffer _buffer;
+        private final ByteBuffer _slab;
+
+        private Chunk(final ByteBuffer buffer, final ByteBuffer slab)
+        {
+            _buffer = buffer;
+            _slab = slab;
+        }
+    }
+
+    private final class SizeClass
+    {
+        private final int _chunkSize;
+        private final int _chunksPerSlab;
+        private final Queue<Chunk> _freeChunks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger _freeChunkCount = new AtomicInteger();
+        private final AtomicInteger _compactionThreshold;
+        private final AtomicBoolean _compacting = new AtomicBoolean();
+
+        private SizeClass(final int chunkSize)
+        {
+            _chunkSize = chunkSize;
+            _chunksPerSlab = _slabSize / chunkSize;
+            _compactionThreshold = new AtomicInteger(_chunksPerSlab);
+        }
+
+        private Chunk poll()
+        {
+            Chunk chunk = _freeChunks.poll();
+            if (chunk != null)
+            {
+                _freeChunkCount.decrementAndGet();
+            }
+            return chunk;
+        }
+
+        private Chunk carve(final ByteBuffer slab)
+        {
+            Chunk first = null;
+            for (int offset = 0; offset < _slabSize; offset += _chunkSize)
+            {
+                slab.limit(offset + _chunkSize);
+                slab.position(offset);
+                Chunk chunk = new Chunk(slab.slice(), slab);
+                if (first == null)
+                {
+                    first = chunk;
+                }
+                else
+                {
+                    _freeChunks.add(chunk);
+                    _freeChunkCount.incrementAndGet();
+                }
+            }
+            return first;
+        }
+
+        private void release(final Chunk chunk)
+        {
+            chunk._buffer.clear();
+            _freeChunks.add(chunk);
+            if (_freeChunkCount.incrementAndGet() > _compactionThreshold.get())
+            {
+                compact();
+            }
+        }
+
+        /**
+         * Takes out the slabs all of whose chunks are free.  A slab is only taken out if all its chunks have been
+         * drained from the free chunks, so none of them can be in use.
+         */
+        private void compact()
+        {
+            if (_compacting.compareAndSet(false, true))
+            {
+                try
+                {
+                    Map<ByteBuffer, List<Chunk>> chunksBySlab = new IdentityHashMap<>();
+                    Chunk chunk;
+                    while ((chunk = poll()) != null)
+                    {
+                        List<Chunk> slabChunks = chunksBySlab.get(chunk._slab);
+                        if (slabChunks == null)
+                        {
+                            slabChunks = new ArrayList<>(_chunksPerSlab);
+                            chunksBySlab.put(chunk._slab, slabChunks);
+                        }
+                        slabChunks.add(chunk);
+                    }
+
+                    for (Map.Entry<ByteBuffer, List<Chunk>> entry : chunksBySlab.entrySet())
+                    {
+                        if (entry.getValue().size() == _chunksPerSlab)
+                        {
+                            returnSlab(entry.getKey());
+                        }
+                        else
+                        {
+                            for (Chunk slabChunk : entry.getValue())
+                            {
+                                _freeChunks.add(slabChunk);
+                                _freeChunkCount.incrementAndGet();
+                            }
+                        }
+                    }
+
+                    // chunks remaining free are spread over partly used slabs, so avoid compacting again until
+                    // another slab's worth of chunks has been freed
+                    _compactionThreshold.set(_freeChunkCount.get() + _chunksPerSlab);
+                }
+                finally
+                {
+                    _compacting.set(false);
+                }
+            }
+        }
+    }
+
+    private final class SlabChunkRef implements ByteBufferRef
+    {
+        private final Chunk _chunk;
+        private final SizeClass _sizeClass;
+        private final int _size;
+        @SuppressWarnings("unused")
+        volatile int _refCount;
+
+        private SlabChunkRef(final Chunk chunk, final SizeClass sizeClass, final int size)
+        {
+            _chunk = chunk;
+            _sizeClass = sizeClass;
+            _size = size;
+        }
+
+        int getChunkSize()
+        {
+            return _chunk._buffer.capacity();
+        }
+
+        @Override
+        public void incrementRef()
+        {
+            if (REF_COUNT.get(this) >= 0)
+            {
+                REF_COUNT.incrementAndGet(this);
+            }
+        }
+
+        @Override
+        public void decrementRef()
+        {
+            if (REF_COUNT.get(this) > 0 && REF_COUNT.decrementAndGet(this) == 0)
+            {
+                release(_chunk, _sizeClass, _size);
+            }
+        }
+
+        @Override
+        public ByteBuffer getBuffer()
+        {
+            ByteBuffer buffer = _chunk._buffer.duplicate();
+            buffer.limit(_size);
+            return buffer;
+        }
+
+        @Override
+        public void removeFromPool()
+        {
+            REF_COUNT.set(this, Integer.MIN_VALUE / 2);
+        }
+    }
+}
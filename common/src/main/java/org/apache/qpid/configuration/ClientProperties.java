@@ -170,6 +170,12 @@ public class ClientProperties
      */
     public static final String DAEMON_DISPATCHER = "qpid.jms.daemon.dispatcher";
 
+    /**
+     * System property to set the maximum number of messages the dispatcher thread delivers each time it wakes up
+     */
+    public static final String QPID_DISPATCHER_BATCH_SIZE = "qpid.dispatcher_batch_size";
+    public static final int DEFAULT_DISPATCHER_BATCH_SIZE = 16;
+
     /**
      * Used to name the process utilising the Qpid client, to override the default
      * value is used in the ConnectionStartOk reply to the broker.
@@ -0,0 +1,127 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.filter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A predicate of the form <code>property = 'value'</code> or <code>property IN ('value1', 'value2', ...)</code>
+ * which must hold for a selector to match.
+ * <p>
+ * For a message where the property has a string value, the selector can only match if that value is one of
+ * {@link #getValues()}; where the property is absent the selector cannot match.  If the predicate is
+ * {@link #isExact() exact} then it is the whole selector, and for string property values the outcome of the
+ * predicate is the outcome of the selector.  No conclusion can be drawn for property values of any other type.
+ */
+public final class EqualityPredicate<E>
+{
+    private final Expression<E> _property;
+    private final Set<String> _values;
+    private final boolean _exact;
+
+    private EqualityPredicate(final Expression<E> property, final Set<String> values, final boolean exact)
+    {
+        _property = property;
+        _values = Collections.unmodifiableSet(values);
+        _exact = exact;
+    }
+
+    public Expression<E> getProperty()
+    {
+        return _property;
+    }
+
+    public Set<String> getValues()
+    {
+        return _values;
+    }
+
+    public boolean isExact()
+    {
+        return _exact;
+    }
+
+    /**
+     * Returns the equality predicate implied by the given selector expression, or null if the selector
+     * does not require one.
+     */
+    public static <E> EqualityPredicate<E> extract(BooleanExpression<E> expression)
+    {
+        return extract(expression, true);
+    }
+
+    private static <E> EqualityPredicate<E> extract(Expression<E> expression, boolean exact)
+    {
+        if (expression instanceof LogicExpression.AndExpression)
+        {
+            LogicExpression<E> and = (LogicExpression<E>) expression;
+            EqualityPredicate<E> predicate = extract(and.getLeft(), false);
+            return predicate == null ? extract(and.getRight(), false) : predicate;
+        }
+        else if (expression instanceof ComparisonExpression.EqualExpression)
+        {
+            ComparisonExpression<E> equal = (ComparisonExpression<E>) expression;
+            if (equal.getLeft() instanceof PropertyExpression && equal.getRight() instanceof ConstantExpression)
+            {
+                Object value = ((ConstantExpression<E>) equal.getRight()).getValue();
+                if (value instanceof String)
+                {
+                    return new EqualityPredicate<>(equal.getLeft(), Collections.singleton((String) value), exact);
+                }
+            }
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            UnaryExpression.InExpression<E> in = (UnaryExpression.InExpression<E>) expression;
+            if (!in.isNot() && in.getRight() instanceof PropertyExpression)
+            {
+                Set<String> values = new HashSet<>();
+                Collection<?> inList = in.getInList();
+                if (inList != null)
+                {
+                    for (Object entry : inList)
+                    {
+                        if (!(entry instanceof String))
+                        {
+                            return null;
+                        }
+                        values.add((String) entry);
+                    }
+                }
+                return new EqualityPredicate<>(in.getRight(), values, exact);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EqualityPredicate[" +
+               "property=" + _property +
+               ", values=" + _values +
+               ", exact=" + _exact +
+               ']';
+    }
+}
@@ -50,7 +50,7 @@ public abstract class LogicExpression<T> extends BinaryExpression<T> implements
         return (object != null) && (object == Boolean.TRUE);
     }
 
-    private static class OrExpression<E> extends LogicExpression<E>
+    static class OrExpression<E> extends LogicExpression<E>
     {
         public OrExpression(final BooleanExpression<E> lvalue, final BooleanExpression<E> rvalue)
         {
@@ -78,7 +78,7 @@ public abstract class LogicExpression<T> extends BinaryExpression<T> implements
         }
     }
 
-    private static class AndExpression<E> extends LogicExpression<E>
+    static class AndExpression<E> extends LogicExpression<E>
     {
         public AndExpression(final BooleanExpression<E> lvalue, final BooleanExpression<E> rvalue)
         {
@@ -0,0 +1,458 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.filter;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compiles a parsed selector expression tree into a tree of specialised evaluators.
+ * <p>
+ * The interpreted expressions box every intermediate result as a {@link Boolean} and run
+ * the full type promotion ladder of {@link ComparisonExpression#compare(Comparable, Comparable)}
+ * for every comparison.  The compiled form works with primitive tri-state results, resolves
+ * comparison operators and constant operands once at compile time, and compares the common
+ * numeric and string types directly.  Any operand type (or expression shape) which the compiler
+ * does not specialise is delegated to the original expression, so the compiled evaluator gives
+ * exactly the same result as the interpreted one.
+ */
+public final class SelectorCompiler
+{
+    private static final int FALSE = 0;
+    private static final int TRUE = 1;
+    private static final int UNKNOWN = 2;
+
+    private SelectorCompiler()
+    {
+    }
+
+    public static <E> BooleanExpression<E> compile(BooleanExpression<E> expression)
+    {
+        return new CompiledExpression<>(expression, compileNode(expression));
+    }
+
+    private static <E> Node<E> compileNode(Expression<E> expression)
+    {
+        if (expression instanceof LogicExpression.AndExpression)
+        {
+            LogicExpression<E> and = (LogicExpression<E>) expression;
+            return new AndNode<>(compileNode(and.getLeft()), compileNode(and.getRight()));
+        }
+        else if (expression instanceof LogicExpression.OrExpression)
+        {
+            LogicExpression<E> or = (LogicExpression<E>) expression;
+            return new OrNode<>(compileNode(or.getLeft()), compileNode(or.getRight()));
+        }
+        else if (expression instanceof UnaryExpression.NotExpression)
+        {
+            return new NotNode<>(compileNode(((UnaryExpression<E>) expression).getRight()));
+        }
+        else if (expression instanceof ConstantExpression.BooleanConstantExpression)
+        {
+            return new ConstantNode<>(toTriState(((ConstantExpression<E>) expression).getValue()));
+        }
+        else if (expression instanceof ComparisonExpression)
+        {
+            Node<E> node = compileComparison((ComparisonExpression<E>) expression);
+            if (node != null)
+            {
+                return node;
+            }
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            Node<E> node = compileIn((UnaryExpression.InExpression<E>) expression);
+            if (node != null)
+            {
+                return node;
+            }
+        }
+        return new InterpretedNode<>(expression);
+    }
+
+    private static <E> Node<E> compileComparison(ComparisonExpression<E> comparison)
+    {
+        if (!(comparison.getRight() instanceof ConstantExpression))
+        {
+            return null;
+        }
+
+        boolean equality = comparison instanceof ComparisonExpression.EqualExpression;
+        Object constant = ((ConstantExpression<E>) comparison.getRight()).getValue();
+        if (constant == null)
+        {
+            return equality ? new IsNullNode<>(comparison.getLeft()) : null;
+        }
+        else if (constant instanceof String)
+        {
+            return equality ? new StringEqualsNode<>(comparison, (String) constant) : null;
+        }
+        else if (constant instanceof Integer || constant instanceof Long || constant instanceof Double)
+        {
+            return new NumericComparisonNode<>(comparison, (Number) constant, equality);
+        }
+        return null;
+    }
+
+    private static <E> Node<E> compileIn(UnaryExpression.InExpression<E> in)
+    {
+        Set<String> values = new HashSet<>();
+        Collection<?> inList = in.getInList();
+        if (inList != null)
+        {
+            for (Object entry : inList)
+            {
+                if (!(entry instanceof String))
+                {
+                    return null;
+                }
+                values.add((String) entry);
+            }
+        }
+        return new StringInNode<>(in, values);
+    }
+
+    private static int toTriState(Object value)
+    {
+        if (value == null)
+        {
+            return UNKNOWN;
+        }
+        return ((Boolean) value) ? TRUE : FALSE;
+    }
+
+    private static Boolean fromTriState(int value)
+    {
+        switch (value)
+        {
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isIntegral(Object value)
+    {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static final class CompiledExpression<E> implements BooleanExpression<E>
+    {
+        private final BooleanExpression<E> _source;
+        private final Node<E> _root;
+
+        private CompiledExpression(final BooleanExpression<E> source, final Node<E> root)
+        {
+            _source = source;
+            _root = root;
+        }
+
+        @Override
+        public boolean matches(final E message)
+        {
+            return _root.evaluate(message) == TRUE;
+        }
+
+        @Override
+        public Object evaluate(final E message)
+        {
+            return fromTriState(_root.evaluate(message));
+        }
+
+        @Override
+        public String toString()
+        {
+            return _source.toString();
+        }
+    }
+
+    private abstract static class Node<E>
+    {
+        abstract int evaluate(E message);
+    }
+
+    private static final class ConstantNode<E> extends Node<E>
+    {
+        private final int _value;
+
+        private ConstantNode(final int value)
+        {
+            _value = value;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            return _value;
+        }
+    }
+
+    private static final class InterpretedNode<E> extends Node<E>
+    {
+        private final Expression<E> _expression;
+
+        private InterpretedNode(final Expression<E> expression)
+        {
+            _expression = expression;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            return toTriState(_expression.evaluate(message));
+        }
+    }
+
+    /**
+     * Matches the short cut semantics of {@link LogicExpression.AndExpression}.
+     */
+    private static final class AndNode<E> extends Node<E>
+    {
+        private final Node<E> _left;
+        private final Node<E> _right;
+
+        private AndNode(final Node<E> left, final Node<E> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            int left = _left.evaluate(message);
+            return left == TRUE ? _right.evaluate(message) : left;
+        }
+    }
+
+    /**
+     * Matches the short cut semantics of {@link LogicExpression.OrExpression}, where a left hand side which is
+     * not true yields the value of the right hand side.
+     */
+    private static final class OrNode<E> extends Node<E>
+    {
+        private final Node<E> _left;
+        private final Node<E> _right;
+
+        private OrNode(final Node<E> left, final Node<E> right)
+        {
+            _left = left;
+            _right = right;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            return _left.evaluate(message) == TRUE ? TRUE : _right.evaluate(message);
+        }
+    }
+
+    private static final class NotNode<E> extends Node<E>
+    {
+        private final Node<E> _operand;
+
+        private NotNode(final Node<E> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            int value = _operand.evaluate(message);
+            return value == UNKNOWN ? UNKNOWN : value ^ TRUE;
+        }
+    }
+
+    private static final class IsNullNode<E> extends Node<E>
+    {
+        private final Expression<E> _operand;
+
+        private IsNullNode(final Expression<E> operand)
+        {
+            _operand = operand;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            return _operand.evaluate(message) == null ? TRUE : FALSE;
+        }
+    }
+
+    private static final class StringEqualsNode<E> extends Node<E>
+    {
+        private final ComparisonExpression<E> _source;
+        private final Expression<E> _operand;
+        private final String _constant;
+
+        private StringEqualsNode(final ComparisonExpression<E> source, final String constant)
+        {
+            _source = source;
+            _operand = source.getLeft();
+            _constant = constant;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            Object value = _operand.evaluate(message);
+            if (value == null)
+            {
+                return FALSE;
+            }
+            else if (value instanceof String)
+            {
+                return _constant.equals(value) ? TRUE : FALSE;
+            }
+            else if (value.equals(_constant))
+            {
+                return TRUE;
+            }
+            else if (value instanceof Comparable)
+            {
+                return toTriState(_source.compare((Comparable) value, _constant));
+            }
+            return FALSE;
+        }
+    }
+
+    /**
+     * Compares an operand against a numeric constant using primitive arithmetic.  The promotions applied
+     * mirror those of {@link ComparisonExpression#compare(Comparable, Comparable)}: integral operands are
+     * compared as longs against integral constants, and everything else is widened to the wider of the
+     * two floating point types.
+     */
+    private static final class NumericComparisonNode<E> extends Node<E>
+    {
+        private final ComparisonExpression<E> _source;
+        private final Expression<E> _operand;
+        private final Number _constant;
+        private final boolean _integralConstant;
+        private final long _longConstant;
+        private final double _doubleConstant;
+        private final int _nullResult;
+        private final int _lessThanResult;
+        private final int _equalResult;
+        private final int _greaterThanResult;
+
+        private NumericComparisonNode(final ComparisonExpression<E> source,
+                                      final Number constant,
+                                      final boolean equality)
+        {
+            _source = source;
+            _operand = source.getLeft();
+            _constant = constant;
+            _integralConstant = isIntegral(constant);
+            _longConstant = constant.longValue();
+            _doubleConstant = constant.doubleValue();
+            _nullResult = equality ? FALSE : UNKNOWN;
+            _lessThanResult = source.asBoolean(-1) ? TRUE : FALSE;
+            _equalResult = source.asBoolean(0) ? TRUE : FALSE;
+            _greaterThanResult = source.asBoolean(1) ? TRUE : FALSE;
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            Object value = _operand.evaluate(message);
+            int comparison;
+            if (value == null)
+            {
+                return _nullResult;
+            }
+            else if (isIntegral(value))
+            {
+                comparison = _integralConstant
+                        ? Long.compare(((Number) value).longValue(), _longConstant)
+                        : Double.compare(((Number) value).doubleValue(), _doubleConstant);
+            }
+            else if (value instanceof Double)
+            {
+                comparison = Double.compare((Double) value, _doubleConstant);
+            }
+            else if (value instanceof Float)
+            {
+                comparison = _integralConstant
+                        ? Float.compare((Float) value, (float) _longConstant)
+                        : Double.compare(((Float) value).doubleValue(), _doubleConstant);
+            }
+            else if (value instanceof Comparable)
+            {
+                return toTriState(_source.compare((Comparable) value, (Comparable) _constant));
+            }
+            else
+            {
+                return toTriState(_source.evaluate(message));
+            }
+
+            if (comparison < 0)
+            {
+                return _lessThanResult;
+            }
+            else if (comparison == 0)
+            {
+                return _equalResult;
+            }
+            else
+            {
+                return _greaterThanResult;
+            }
+        }
+    }
+
+    private static final class StringInNode<E> extends Node<E>
+    {
+        private final UnaryExpression.InExpression<E> _source;
+        private final Expression<E> _operand;
+        private final Set<String> _values;
+        private final boolean _not;
+        private final boolean _allowNonJms;
+
+        private StringInNode(final UnaryExpression.InExpression<E> source, final Set<String> values)
+        {
+            _source = source;
+            _operand = source.getRight();
+            _values = values;
+            _not = source.isNot();
+            _allowNonJms = source.isAllowNonJms();
+        }
+
+        @Override
+        int evaluate(final E message)
+        {
+            Object value = _operand.evaluate(message);
+            if (value instanceof String)
+            {
+                return _values.contains(value) ^ _not ? TRUE : FALSE;
+            }
+            else if (value == null || !_allowNonJms)
+            {
+                return UNKNOWN;
+            }
+            return toTriState(_source.evaluate(message));
+        }
+    }
+}
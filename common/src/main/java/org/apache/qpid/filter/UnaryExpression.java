@@ -209,7 +209,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class InExpression<E> extends BooleanUnaryExpression<E>
+    static class InExpression<E> extends BooleanUnaryExpression<E>
     {
         private final Collection<?> _inList;
         private final boolean _not;
@@ -226,6 +226,21 @@ public abstract class UnaryExpression<T> implements Expression<T>
             _allowNonJms = allowNonJms;
         }
 
+        Collection<?> getInList()
+        {
+            return _inList;
+        }
+
+        boolean isNot()
+        {
+            return _not;
+        }
+
+        boolean isAllowNonJms()
+        {
+            return _allowNonJms;
+        }
+
         public Object evaluate(E expression)
         {
 
@@ -329,7 +344,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class NotExpression<E> extends BooleanUnaryExpression<E>
+    static class NotExpression<E> extends BooleanUnaryExpression<E>
     {
         public NotExpression(final BooleanExpression<E> left)
         {
@@ -0,0 +1,162 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.bytebuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SlabAllocatorTest extends QpidTestCase
+{
+    private static final int SLAB_SIZE = 1024;
+    private static final int MINIMUM_CHUNK_SIZE = 64;
+
+    private SlabAllocator _allocator;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _allocator = new SlabAllocator(SLAB_SIZE, MINIMUM_CHUNK_SIZE);
+    }
+
+    public void testAllocationRoundedUpToSizeClass() throws Exception
+    {
+        QpidByteBuffer small = _allocator.allocate(10);
+        QpidByteBuffer medium = _allocator.allocate(100);
+
+        assertTrue("Buffer should be direct", small.isDirect());
+        assertEquals("Unexpected limit", 10, small.limit());
+        assertEquals("Unexpected limit", 100, medium.limit());
+        assertEquals("Unexpected capacity", (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+        assertEquals("Unexpected allocated size", 64L + 128L, _allocator.getAllocatedSize());
+        assertEquals("Unexpected requested size", 110L, _allocator.getRequestedSize());
+
+        small.dispose();
+        medium.dispose();
+
+        assertEquals("Unexpected allocated size", 0L, _allocator.getAllocatedSize());
+        assertEquals("Unexpected requested size", 0L, _allocator.getRequestedSize());
+        assertEquals("Slabs should be retained", (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+    }
+
+    public void testChunksReusedOnceAllViewsDisposed() throws Exception
+    {
+        for (int i = 0; i < SLAB_SIZE / MINIMUM_CHUNK_SIZE; i++)
+        {
+            _allocator.allocate(MINIMUM_CHUNK_SIZE);
+        }
+        assertEquals("Unexpected capacity", (long) SLAB_SIZE, _allocator.getCapacity());
+
+        QpidByteBuffer buffer = _allocator.allocate(MINIMUM_CHUNK_SIZE);
+        assertEquals("Full slab should have caused a new slab", (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+
+        buffer.putInt(0, 42);
+        QpidByteBuffer view = buffer.view(0, 4);
+        buffer.dispose();
+        assertEquals("Chunk should remain allocated while a view exists",
+                     (long) (SLAB_SIZE + MINIMUM_CHUNK_SIZE), _allocator.getAllocatedSize());
+        assertEquals("Unexpected content of view", 42, view.getInt(0));
+
+        view.dispose();
+        assertEquals("Unexpected allocated size", (long) SLAB_SIZE, _allocator.getAllocatedSize());
+
+        for (int i = 0; i < SLAB_SIZE / MINIMUM_CHUNK_SIZE; i++)
+        {
+            _allocator.allocate(MINIMUM_CHUNK_SIZE);
+        }
+        assertEquals("Free chunks should have been reused", (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+    }
+
+    public void testAllocationLargerThanSlab() throws Exception
+    {
+        QpidByteBuffer buffer = _allocator.allocate(SLAB_SIZE + 1);
+
+        assertEquals("Unexpected limit", SLAB_SIZE + 1, buffer.limit());
+        assertEquals("Unexpected capacity", (long) SLAB_SIZE + 1, _allocator.getCapacity());
+        assertEquals("Unexpected allocated size", (long) SLAB_SIZE + 1, _allocator.getAllocatedSize());
+
+        buffer.dispose();
+
+        assertEquals("Large allocation should be released", 0L, _allocator.getCapacity());
+        assertEquals("Unexpected allocated size", 0L, _allocator.getAllocatedSize());
+    }
+
+    public void testFreeSlabsReleased() throws Exception
+    {
+        int chunksPerSlab = SLAB_SIZE / MINIMUM_CHUNK_SIZE;
+        List<QpidByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 2 * chunksPerSlab; i++)
+        {
+            buffers.add(_allocator.allocate(MINIMUM_CHUNK_SIZE));
+        }
+        assertEquals("Unexpected capacity", (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+
+        for (QpidByteBuffer buffer : buffers)
+        {
+            buffer.dispose();
+        }
+        _allocator.compact();
+
+        assertEquals("Unexpected allocated size", 0L, _allocator.getAllocatedSize());
+        assertEquals("Only the spare slab should be retained", (long) SLAB_SIZE, _allocator.getCapacity());
+    }
+
+    public void testSlabInUseNotReleased() throws Exception
+    {
+        QpidByteBuffer first = _allocator.allocate(MINIMUM_CHUNK_SIZE);
+        QpidByteBuffer second = _allocator.allocate(MINIMUM_CHUNK_SIZE);
+
+        first.dispose();
+        _allocator.compact();
+
+        QpidByteBuffer other = _allocator.allocate(SLAB_SIZE / 2);
+        assertEquals("Slab in use should not have been reused",
+                     (long) 2 * SLAB_SIZE, _allocator.getCapacity());
+
+        second.dispose();
+        other.dispose();
+    }
+
+    public void testFreeSlabReusedByOtherSizeClass() throws Exception
+    {
+        QpidByteBuffer small = _allocator.allocate(MINIMUM_CHUNK_SIZE);
+        small.dispose();
+        _allocator.compact();
+
+        QpidByteBuffer large = _allocator.allocate(SLAB_SIZE / 2);
+        QpidByteBuffer otherLarge = _allocator.allocate(SLAB_SIZE / 2);
+
+        assertEquals("Free slab should have been reused", (long) SLAB_SIZE, _allocator.getCapacity());
+        assertEquals("Unexpected allocated size", (long) SLAB_SIZE, _allocator.getAllocatedSize());
+
+        large.putInt(0, 1);
+        otherLarge.putInt(0, 2);
+        assertEquals("Unexpected content", 1, large.getInt(0));
+        assertEquals("Unexpected content", 2, otherLarge.getInt(0));
+    }
+
+    public void testSlabSizeRoundedUpToPowerOfTwo() throws Exception
+    {
+        assertEquals("Unexpected slab size", 2048, new SlabAllocator(1500, 100).getSlabSize());
+    }
+}
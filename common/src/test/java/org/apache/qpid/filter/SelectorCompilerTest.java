@@ -0,0 +1,145 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.filter.selector.SelectorParser;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class SelectorCompilerTest extends QpidTestCase
+{
+    private static final String[] SELECTORS = {
+            "a = 1",
+            "a <> 1",
+            "a > 1",
+            "a >= 1",
+            "a < 1.5",
+            "a <= 1.0",
+            "a BETWEEN 0 AND 2",
+            "a NOT BETWEEN 0 AND 2",
+            "a = 'red'",
+            "a <> 'red'",
+            "a IN ('red', 'green')",
+            "a NOT IN ('red', 'green')",
+            "a IS NULL",
+            "a IS NOT NULL",
+            "a LIKE 'r%'",
+            "b",
+            "NOT b",
+            "a = 1 AND b",
+            "a = 1 OR b",
+            "b OR a = 1",
+            "NOT (a > 1 AND b)",
+            "NOT (a > 1 OR b)",
+            "TRUE OR a = 1",
+            "FALSE AND a = 1",
+            "a + 1 > 2",
+            "(a = 'red' OR a = 'blue') AND NOT b"
+    };
+
+    private static final Object[] VALUES = {
+            null, (byte) 1, (short) 2, 1, 2, 0L, 1L, 1.0f, 1.5f, 1.0d, 1.5d, Double.NaN, -0.0d,
+            "red", "green", "blue", "1", Boolean.TRUE, Boolean.FALSE
+    };
+
+    private static final PropertyExpressionFactory<Map<String, Object>> FACTORY =
+            new PropertyExpressionFactory<Map<String, Object>>()
+            {
+                @Override
+                public PropertyExpression<Map<String, Object>> createPropertyExpression(final String name)
+                {
+                    return new PropertyExpression<Map<String, Object>>()
+                    {
+                        @Override
+                        public Object evaluate(final Map<String, Object> message)
+                        {
+                            return message.get(name);
+                        }
+
+                        @Override
+                        public String toString()
+                        {
+                            return name;
+                        }
+                    };
+                }
+            };
+
+    public void testCompiledSelectorsMatchInterpretedSelectors() throws Exception
+    {
+        List<Map<String, Object>> messages = new ArrayList<>();
+        messages.add(Collections.<String, Object>emptyMap());
+        for (Object a : VALUES)
+        {
+            for (Object b : VALUES)
+            {
+                Map<String, Object> message = new HashMap<>();
+                message.put("a", a);
+                message.put("b", b);
+                messages.add(message);
+            }
+        }
+
+        for (String selector : SELECTORS)
+        {
+            BooleanExpression<Map<String, Object>> interpreted = parse(selector);
+            BooleanExpression<Map<String, Object>> compiled = SelectorCompiler.compile(interpreted);
+            for (Map<String, Object> message : messages)
+            {
+                String description = "Selector '" + selector + "' with message " + message;
+                assertEquals(description, outcome(interpreted, message, false), outcome(compiled, message, false));
+                assertEquals(description, outcome(interpreted, message, true), outcome(compiled, message, true));
+            }
+        }
+    }
+
+    public void testToStringIsThatOfSourceExpression() throws Exception
+    {
+        BooleanExpression<Map<String, Object>> interpreted = parse("a = 1 AND b");
+        assertEquals(interpreted.toString(), SelectorCompiler.compile(interpreted).toString());
+    }
+
+    private BooleanExpression<Map<String, Object>> parse(final String selector) throws Exception
+    {
+        SelectorParser<Map<String, Object>> parser = new SelectorParser<>();
+        parser.setPropertyExpressionFactory(FACTORY);
+        return parser.parse(selector);
+    }
+
+    private Object outcome(final BooleanExpression<Map<String, Object>> expression,
+                           final Map<String, Object> message,
+                           final boolean matches)
+    {
+        try
+        {
+            return matches ? expression.matches(message) : expression.evaluate(message);
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass();
+        }
+    }
+}
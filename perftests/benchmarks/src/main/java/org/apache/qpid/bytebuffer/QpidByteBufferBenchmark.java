@@ -0,0 +1,89 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.bytebuffer;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures allocation and disposal of direct {@link QpidByteBuffer}s from the pool, both for whole pooled
+ * buffers and for the small slices which are carved from the per-thread cached buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QpidByteBufferBenchmark
+{
+    private static final int POOLED_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_POOL_SIZE = 1024;
+    private static final int SMALL_BUFFER_SIZE = 512;
+    private static final int COLLECTION_SIZE = POOLED_BUFFER_SIZE + POOLED_BUFFER_SIZE / 2;
+
+    @Setup
+    public void setUp()
+    {
+        QpidByteBuffer.initialisePool(POOLED_BUFFER_SIZE, MAX_POOL_SIZE);
+    }
+
+    @Benchmark
+    public void allocatePooledBuffer()
+    {
+        QpidByteBuffer.allocateDirect(POOLED_BUFFER_SIZE).dispose();
+    }
+
+    @Benchmark
+    public void allocateSmallBuffer()
+    {
+        QpidByteBuffer.allocateDirect(SMALL_BUFFER_SIZE).dispose();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void allocateSmallBufferContended()
+    {
+        QpidByteBuffer.allocateDirect(SMALL_BUFFER_SIZE).dispose();
+    }
+
+    @Benchmark
+    public void allocateBufferCollection()
+    {
+        final Collection<QpidByteBuffer> buffers = QpidByteBuffer.allocateDirectCollection(COLLECTION_SIZE);
+        for (QpidByteBuffer buffer : buffers)
+        {
+            buffer.dispose();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.framing.AMQDataBlock;
+import org.apache.qpid.framing.AMQFrame;
+import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicContentHeaderProperties;
+import org.apache.qpid.framing.BasicPublishBody;
+import org.apache.qpid.framing.ContentBody;
+import org.apache.qpid.framing.ContentHeaderBody;
+import org.apache.qpid.framing.FieldTable;
+import org.apache.qpid.framing.FrameCreatingMethodProcessor;
+import org.apache.qpid.framing.ProtocolVersion;
+import org.apache.qpid.transport.ByteBufferSender;
+
+/**
+ * Measures decoding of an AMQP 0-8/0-9/0-9-1 publish (basic.publish method, content header and content body
+ * frames) by the broker side {@link ServerDecoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerDecoderBenchmark
+{
+    private static final int CHANNEL = 1;
+    private static final int MAX_FRAME_SIZE = 256 * 1024;
+
+    @Param({"256", "16384"})
+    private int _payloadSize;
+
+    private FrameCreatingMethodProcessor _methodProcessor;
+    private ServerDecoder _decoder;
+    private byte[] _encodedPublish;
+
+    @Setup
+    public void setUp()
+    {
+        _methodProcessor = new FrameCreatingMethodProcessor(ProtocolVersion.v0_91);
+        _decoder = new ServerDecoder(_methodProcessor);
+        _decoder.setExpectProtocolInitiation(false);
+        _decoder.setMaxFrameSize(MAX_FRAME_SIZE);
+
+        final BasicContentHeaderProperties properties = new BasicContentHeaderProperties();
+        properties.setContentType("application/octet-stream");
+        properties.setDeliveryMode(BasicContentHeaderProperties.PERSISTENT);
+        properties.setMessageId("ID:" + System.nanoTime());
+        final FieldTable headers = new FieldTable();
+        headers.setString("region", "EU");
+        headers.setInteger("quantity", 100);
+        properties.setHeaders(headers);
+
+        final CollectingSender sender = new CollectingSender();
+        new BasicPublishBody(0,
+                             AMQShortString.valueOf("amq.topic"),
+                             AMQShortString.valueOf("stock.nyse.ibm"),
+                             false,
+                             false).generateFrame(CHANNEL).writePayload(sender);
+        new AMQFrame(CHANNEL, new ContentHeaderBody(properties, _payloadSize)).writePayload(sender);
+        new AMQFrame(CHANNEL, new ContentBody(QpidByteBuffer.wrap(new byte[_payloadSize]))).writePayload(sender);
+        _encodedPublish = sender.toByteArray();
+    }
+
+    @Benchmark
+    public List<AMQDataBlock> decodePublish() throws Exception
+    {
+        _methodProcessor.getProcessedMethods().clear();
+        _decoder.decodeBuffer(QpidByteBuffer.wrap(_encodedPublish));
+        return _methodProcessor.getProcessedMethods();
+    }
+
+    private static final class CollectingSender implements ByteBufferSender
+    {
+        private final ByteArrayOutputStream _output = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isDirectBufferPreferred()
+        {
+            return false;
+        }
+
+        @Override
+        public void send(final QpidByteBuffer msg)
+        {
+            final byte[] data = new byte[msg.remaining()];
+            msg.duplicate().get(data);
+            _output.write(data, 0, data.length);
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        byte[] toByteArray()
+        {
+            return _output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures routing key resolution through the topic exchange state machine ({@link TopicMatcherDFAState})
+ * for a mix of exact, single word wildcard and multi word wildcard bindings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicParserBenchmark
+{
+    private static final int ROUTING_KEY_COUNT = 1024;
+
+    @Param({"10", "1000"})
+    private int _bindingCount;
+
+    private TopicParser _parser;
+    private String[] _routingKeys;
+    private int _index;
+
+    @Setup
+    public void setUp()
+    {
+        _parser = new TopicParser();
+        for (int i = 0; i < _bindingCount; i++)
+        {
+            final String bindingKey;
+            switch (i % 3)
+            {
+                case 0:
+                    bindingKey = "stock." + i + ".nyse";
+                    break;
+                case 1:
+                    bindingKey = "stock." + i + ".*";
+                    break;
+                default:
+                    bindingKey = "#." + i;
+                    break;
+            }
+            _parser.addBinding(TopicNormalizer.normalize(bindingKey), new TopicMatcherResult()
+            {
+            });
+        }
+
+        final Random random = new Random(0L);
+        _routingKeys = new String[ROUTING_KEY_COUNT];
+        for (int i = 0; i < ROUTING_KEY_COUNT; i++)
+        {
+            final int id = random.nextInt(_bindingCount * 2);
+            _routingKeys[i] = random.nextBoolean() ? "stock." + id + ".nyse" : "trade.eu." + id;
+        }
+    }
+
+    @Benchmark
+    public Collection<TopicMatcherResult> parse()
+    {
+        final String routingKey = _routingKeys[_index++ & (ROUTING_KEY_COUNT - 1)];
+        return _parser.parse(routingKey);
+    }
+}
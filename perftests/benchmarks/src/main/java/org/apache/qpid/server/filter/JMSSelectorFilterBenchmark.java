@@ -0,0 +1,86 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.message.internal.InternalMessageHeader;
+
+/**
+ * Measures evaluation of a parsed JMS selector against a message carrying a handful of application headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JMSSelectorFilterBenchmark
+{
+    @Param({"region = 'EU'",
+            "region IN ('US', 'APAC', 'EU')",
+            "price > 100 AND quantity BETWEEN 10 AND 1000",
+            "region = 'EU' AND (type LIKE 'order%' OR JMSPriority > 7) AND price * quantity > 5000"})
+    private String _selector;
+
+    private JMSSelectorFilter _filter;
+    private Filterable _filterable;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _filter = new JMSSelectorFilter(_selector);
+
+        final Map<String, Object> headers = new HashMap<String, Object>();
+        headers.put("region", "EU");
+        headers.put("type", "order-new");
+        headers.put("price", 125.5d);
+        headers.put("quantity", 100);
+        final InternalMessageHeader header = new InternalMessageHeader(headers, null, 0L, null, null, "id",
+                                                                       null, null, (byte) 4,
+                                                                       System.currentTimeMillis(), 0L,
+                                                                       null, null);
+        final InternalMessage message = InternalMessage.convert(1L, false, header, new byte[0]);
+        _filterable = Filterable.Factory.newInstance(message, InstanceProperties.EMPTY);
+    }
+
+    @Benchmark
+    public boolean matches()
+    {
+        return _filter.matches(_filterable);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.transport.DeliveryProperties;
+import org.apache.qpid.transport.MessageAcceptMode;
+import org.apache.qpid.transport.MessageAcquireMode;
+import org.apache.qpid.transport.MessageDeliveryMode;
+import org.apache.qpid.transport.MessageProperties;
+import org.apache.qpid.transport.MessageTransfer;
+import org.apache.qpid.transport.Method;
+
+/**
+ * Measures decoding of the command and header segments of an AMQP 0-10 message.transfer, following the same
+ * steps as {@link ServerAssembler} once the frames of a segment have been assembled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerDecoderBenchmark
+{
+    private byte[] _commandSegment;
+    private byte[] _headerSegment;
+
+    @Setup
+    public void setUp()
+    {
+        final MessageTransfer transfer = new MessageTransfer();
+        transfer.setDestination("amq.topic");
+        transfer.setAcceptMode(MessageAcceptMode.EXPLICIT);
+        transfer.setAcquireMode(MessageAcquireMode.PRE_ACQUIRED);
+
+        ServerEncoder encoder = new ServerEncoder();
+        encoder.writeUint16(transfer.getEncodedType());
+        encoder.writeUint16(0);
+        transfer.write(encoder);
+        _commandSegment = toByteArray(encoder.getBuffer());
+        encoder.close();
+
+        final DeliveryProperties deliveryProperties = new DeliveryProperties();
+        deliveryProperties.setRoutingKey("stock.nyse.ibm");
+        deliveryProperties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        deliveryProperties.setTimestamp(System.currentTimeMillis());
+
+        final Map<String, Object> applicationHeaders = new HashMap<String, Object>();
+        applicationHeaders.put("region", "EU");
+        applicationHeaders.put("quantity", 100);
+        final MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setMessageId(UUID.randomUUID());
+        messageProperties.setContentType("application/octet-stream");
+        messageProperties.setContentLength(256);
+        messageProperties.setApplicationHeaders(applicationHeaders);
+
+        encoder = new ServerEncoder();
+        encoder.writeStruct32(deliveryProperties);
+        encoder.writeStruct32(messageProperties);
+        _headerSegment = toByteArray(encoder.getBuffer());
+        encoder.close();
+    }
+
+    @Benchmark
+    public Method decodeCommand()
+    {
+        final ServerDecoder decoder = new ServerDecoder(Collections.singletonList(QpidByteBuffer.wrap(_commandSegment)));
+        final int commandType = decoder.readUint16();
+        final int sessionHeader = decoder.readUint16();
+        final Method command = Method.create(commandType);
+        command.setSync((0x0001 & sessionHeader) != 0);
+        command.read(decoder);
+        return command;
+    }
+
+    @Benchmark
+    public void decodeHeader(final Blackhole blackhole)
+    {
+        final ServerDecoder decoder = new ServerDecoder(Collections.singletonList(QpidByteBuffer.wrap(_headerSegment)));
+        while (decoder.hasRemaining())
+        {
+            blackhole.consume(decoder.readStruct32());
+        }
+    }
+
+    private static byte[] toByteArray(final QpidByteBuffer buffer)
+    {
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        buffer.dispose();
+        return data;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.protocol.v1_0.codec.FrameWriter;
+import org.apache.qpid.server.protocol.v1_0.codec.ValueHandler;
+import org.apache.qpid.server.protocol.v1_0.framing.AMQFrame;
+import org.apache.qpid.server.protocol.v1_0.messaging.SectionDecoderImpl;
+import org.apache.qpid.server.protocol.v1_0.messaging.SectionEncoderImpl;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.Section;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedByte;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+import org.apache.qpid.server.protocol.v1_0.type.codec.AMQPDescribedTypeRegistry;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.ApplicationProperties;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Data;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Header;
+import org.apache.qpid.server.protocol.v1_0.type.messaging.Properties;
+import org.apache.qpid.server.protocol.v1_0.type.transport.Transfer;
+import org.apache.qpid.transport.ByteBufferSender;
+
+/**
+ * Measures decoding of an AMQP 1.0 transfer frame: the frame header and performative, as handled by
+ * {@link org.apache.qpid.server.protocol.v1_0.framing.FrameHandler}, and the message sections carried as its payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDecodingBenchmark
+{
+    @Param({"256", "16384"})
+    private int _payloadSize;
+
+    private ValueHandler _valueHandler;
+    private SectionDecoderImpl _sectionDecoder;
+    private byte[] _encodedFrame;
+
+    @Setup
+    public void setUp()
+    {
+        final AMQPDescribedTypeRegistry registry = AMQPDescribedTypeRegistry.newInstance()
+                .registerTransportLayer()
+                .registerMessagingLayer()
+                .registerTransactionLayer()
+                .registerSecurityLayer();
+        _valueHandler = new ValueHandler(registry);
+        _sectionDecoder = new SectionDecoderImpl(registry);
+
+        final Header header = new Header();
+        header.setDurable(Boolean.TRUE);
+        header.setPriority(UnsignedByte.valueOf((byte) 4));
+
+        final Properties properties = new Properties();
+        properties.setMessageId("ID:" + System.nanoTime());
+        properties.setSubject("stock.nyse.ibm");
+
+        final Map<String, Object> applicationProperties = new HashMap<String, Object>();
+        applicationProperties.put("region", "EU");
+        applicationProperties.put("quantity", 100);
+
+        final Section[] sections = {header,
+                                    properties,
+                                    new ApplicationProperties(applicationProperties),
+                                    new Data(new Binary(new byte[_payloadSize]))};
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final SectionEncoderImpl sectionEncoder = new SectionEncoderImpl(registry);
+        for (Section section : sections)
+        {
+            final Binary encoded = section.encode(sectionEncoder);
+            payload.write(encoded.getArray(), encoded.getArrayOffset(), encoded.getLength());
+            sectionEncoder.reset();
+        }
+
+        final Transfer transfer = new Transfer();
+        transfer.setHandle(UnsignedInteger.ZERO);
+        transfer.setDeliveryId(UnsignedInteger.ONE);
+        transfer.setDeliveryTag(new Binary(new byte[]{0, 0, 0, 1}));
+        transfer.setMessageFormat(UnsignedInteger.ZERO);
+
+        final CollectingSender sender = new CollectingSender();
+        new FrameWriter(registry, sender).send(AMQFrame.createAMQFrame((short) 0,
+                                                                       transfer,
+                                                                       QpidByteBuffer.wrap(payload.toByteArray())));
+        _encodedFrame = sender.toByteArray();
+    }
+
+    @Benchmark
+    public void decodeTransfer(final Blackhole blackhole) throws Exception
+    {
+        final QpidByteBuffer in = QpidByteBuffer.wrap(_encodedFrame);
+        final int frameStart = in.position();
+        final int size = in.getInt();
+        final int dataOffset = (in.get() << 2) & 0x3FF;
+        blackhole.consume(in.get());
+        blackhole.consume(in.getUnsignedShort());
+        in.position(frameStart + dataOffset);
+
+        final QpidByteBuffer frame = in.slice();
+        frame.limit(size - dataOffset);
+        blackhole.consume(_valueHandler.parse(frame));
+
+        final List<Section> sections = _sectionDecoder.parseAll(frame);
+        blackhole.consume(sections);
+        frame.dispose();
+        in.dispose();
+    }
+
+    private static final class CollectingSender implements ByteBufferSender
+    {
+        private final ByteArrayOutputStream _output = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isDirectBufferPreferred()
+        {
+            return false;
+        }
+
+        @Override
+        public void send(final QpidByteBuffer msg)
+        {
+            final byte[] data = new byte[msg.remaining()];
+            msg.duplicate().get(data);
+            _output.write(data, 0, data.length);
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        byte[] toByteArray()
+        {
+            return _output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.message.internal.InternalMessageHeader;
+import org.apache.qpid.server.store.MessageEnqueueRecord;
+
+/**
+ * Measures the cost of appending to, and walking, the lock-free linked list which backs standard queues.
+ * The list is not attached to a queue so that only the list operations themselves are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderedQueueEntryListBenchmark
+{
+    private static final int ADD_BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000"})
+    private int _listSize;
+
+    private ServerMessage<?> _message;
+    private BenchmarkQueueEntryList _populatedList;
+
+    @Setup
+    public void setUp()
+    {
+        _message = createMessage();
+        _populatedList = new BenchmarkQueueEntryList();
+        for (int i = 0; i < _listSize; i++)
+        {
+            _populatedList.add(_message, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ADD_BATCH_SIZE)
+    public QueueEntry add()
+    {
+        final BenchmarkQueueEntryList list = new BenchmarkQueueEntryList();
+        QueueEntry entry = null;
+        for (int i = 0; i < ADD_BATCH_SIZE; i++)
+        {
+            entry = list.add(_message, null);
+        }
+        return entry;
+    }
+
+    @Benchmark
+    public void iterate(final Blackhole blackhole)
+    {
+        final QueueEntryIterator iterator = _populatedList.iterator();
+        while (iterator.advance())
+        {
+            blackhole.consume(iterator.getNode());
+        }
+    }
+
+    @Benchmark
+    public void next(final Blackhole blackhole)
+    {
+        QueueEntry entry = _populatedList.next(_populatedList.getHead());
+        while (entry != null)
+        {
+            blackhole.consume(entry);
+            entry = _populatedList.next(entry);
+        }
+    }
+
+    static ServerMessage<?> createMessage()
+    {
+        final InternalMessageHeader header = new InternalMessageHeader(Collections.<String, Object>emptyMap(),
+                                                                       null, 0L, null, null, "id",
+                                                                       null, null, (byte) 4,
+                                                                       System.currentTimeMillis(), 0L,
+                                                                       null, null);
+        return InternalMessage.convert(1L, false, header, new byte[0]);
+    }
+
+    private static final class BenchmarkQueueEntryList extends OrderedQueueEntryList
+    {
+        private static final HeadCreator HEAD_CREATOR = new HeadCreator()
+        {
+            @Override
+            public OrderedQueueEntry createHead(final QueueEntryList list)
+            {
+                return new BenchmarkQueueEntry((BenchmarkQueueEntryList) list);
+            }
+        };
+
+        private BenchmarkQueueEntryList()
+        {
+            super(null, HEAD_CREATOR);
+        }
+
+        @Override
+        protected OrderedQueueEntry createQueueEntry(final ServerMessage<?> message,
+                                                     final MessageEnqueueRecord enqueueRecord)
+        {
+            return new BenchmarkQueueEntry(this, message, enqueueRecord);
+        }
+    }
+
+    private static final class BenchmarkQueueEntry extends OrderedQueueEntry
+    {
+        private BenchmarkQueueEntry(final BenchmarkQueueEntryList queueEntryList)
+        {
+            super(queueEntryList);
+        }
+
+        private BenchmarkQueueEntry(final BenchmarkQueueEntryList queueEntryList,
+                                    final ServerMessage<?> message,
+                                    final MessageEnqueueRecord enqueueRecord)
+        {
+            super(queueEntryList, message, enqueueRecord);
+        }
+    }
+}
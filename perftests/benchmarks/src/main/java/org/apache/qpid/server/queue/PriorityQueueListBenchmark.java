@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.message.internal.InternalMessage;
+import org.apache.qpid.server.message.internal.InternalMessageHeader;
+
+/**
+ * Measures the cost of finding entries in the list which backs priority queues, when only a low priority holds
+ * entries.  The cost should not depend on the number of configured priorities.
+ * The list is not attached to a queue so that only the list operations themselves are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityQueueListBenchmark
+{
+    private static final int LIST_SIZE = 1000;
+
+    @Param({"10", "256"})
+    private int _priorities;
+
+    private PriorityQueueList.PriorityQueueMasterList _list;
+
+    @Setup
+    public void setUp()
+    {
+        _list = new PriorityQueueList.PriorityQueueMasterList(null, _priorities);
+        final ServerMessage<?> message = createMessage();
+        for (int i = 0; i < LIST_SIZE; i++)
+        {
+            _list.add(message, null);
+        }
+    }
+
+    /**
+     * Finds the first entry of the list, as a consumer does when it is offered the next message.
+     */
+    @Benchmark
+    public QueueEntry first()
+    {
+        return _list.next(_list.getHead());
+    }
+
+    @Benchmark
+    public void next(final Blackhole blackhole)
+    {
+        QueueEntry entry = _list.next(_list.getHead());
+        while (entry != null)
+        {
+            blackhole.consume(entry);
+            entry = _list.next(entry);
+        }
+    }
+
+    @Benchmark
+    public void iterate(final Blackhole blackhole)
+    {
+        final QueueEntryIterator iterator = _list.iterator();
+        while (iterator.advance())
+        {
+            blackhole.consume(iterator.getNode());
+        }
+    }
+
+    private static ServerMessage<?> createMessage()
+    {
+        // the lowest message priority, so that the entries are held below most of the configured priorities
+        final InternalMessageHeader header = new InternalMessageHeader(Collections.<String, Object>emptyMap(),
+                                                                       null, 0L, null, null, "id",
+                                                                       null, null, (byte) 0,
+                                                                       System.currentTimeMillis(), 0L,
+                                                                       null, null);
+        return InternalMessage.convert(1L, false, header, new byte[0]);
+    }
+}